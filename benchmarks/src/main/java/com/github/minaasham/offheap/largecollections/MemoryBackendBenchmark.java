@@ -0,0 +1,137 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryBackendBenchmark, compares the memory backends on raw memory access and on map operations
+ * Every trial runs in its own fork, which selects the backend before the first off-heap access,
+ * the buffer backend is the fallback when Unsafe is not accessible, the foreign backend needs JDK22+ and the multi-release jar (e.g. {@code -p backend=foreign -jvmArgs --enable-native-access=ALL-UNNAMED})
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryBackendBenchmark {
+
+    /**
+     * The number of values read or written per invocation
+     */
+    private static final int VALUES = 1024;
+
+    /**
+     * The memory backend's name
+     */
+    @Param({"unsafe", "buffer", "foreign"})
+    private String backend;
+
+    /**
+     * The address of the raw values
+     */
+    private long address;
+
+    /**
+     * The map of values
+     */
+    private LargeHashMap<Long, Long> map;
+
+    /**
+     * The boxed keys
+     */
+    private final Long[] keys = new Long[VALUES];
+
+    /**
+     * Selects the backend, allocates the memory and fills the map
+     */
+    @Setup
+    public void setUp() {
+        System.setProperty(UnsafeUtils.BACKEND_PROPERTY, backend);
+        if (!backend.equals(UnsafeUtils.backendName())) {
+            throw new IllegalStateException("The " + backend + " backend wasn't selected, got " + UnsafeUtils.backendName());
+        }
+
+        address = UnsafeUtils.allocate((long) VALUES * Long.BYTES);
+        map = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE);
+        for (int i = 0; i < VALUES; i++) {
+            keys[i] = (long) i;
+            map.put(keys[i], keys[i]);
+        }
+    }
+
+    /**
+     * Frees the memory and closes the map
+     */
+    @TearDown
+    public void tearDown() {
+        UnsafeUtils.free(address);
+        map.close();
+    }
+
+    /**
+     * Writes longs to raw memory
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void putLongs() {
+        for (int i = 0; i < VALUES; i++) {
+            UnsafeUtils.putLong(address + (long) i * Long.BYTES, i);
+        }
+    }
+
+    /**
+     * Reads longs from raw memory
+     *
+     * @return The sum of the longs
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long getLongs() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += UnsafeUtils.getLong(address + (long) i * Long.BYTES);
+        }
+        return sum;
+    }
+
+    /**
+     * Replaces the map's values
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void mapPut() {
+        for (int i = 0; i < VALUES; i++) {
+            map.put(keys[i], keys[i]);
+        }
+    }
+
+    /**
+     * Gets the map's values
+     *
+     * @return The sum of the values
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long mapGet() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += map.get(keys[i]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,184 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.DoubleSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TrustedSerializerBenchmark, compares the built-in fixed size serializers through checked and trusted memory readers and writers
+ * Every serializer call is made on its own reset reader or writer, the same way maps serialize and deserialize entries
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrustedSerializerBenchmark {
+
+    /**
+     * The number of values serialized or deserialized per invocation
+     */
+    private static final int VALUES = 1024;
+
+    /**
+     * Whether the trusted memory reader and writer are used
+     */
+    @Param({"false", "true"})
+    private boolean trusted;
+
+    /**
+     * The address of the serialized values
+     */
+    private long address;
+
+    /**
+     * The memory reader
+     */
+    private UnsafeMemoryReader reader;
+
+    /**
+     * The memory writer
+     */
+    private UnsafeMemoryWriter writer;
+
+    /**
+     * The boxed ints to serialize
+     */
+    private final Integer[] ints = new Integer[VALUES];
+
+    /**
+     * The boxed longs to serialize
+     */
+    private final Long[] longs = new Long[VALUES];
+
+    /**
+     * The boxed doubles to serialize
+     */
+    private final Double[] doubles = new Double[VALUES];
+
+    /**
+     * Allocates the memory and boxes the values
+     */
+    @Setup
+    public void setUp() {
+        address = UnsafeUtils.allocate((long) VALUES * Long.BYTES);
+        reader = trusted ? new TrustedMemoryReader() : new UnsafeMemoryReader();
+        writer = trusted ? new TrustedMemoryWriter() : new UnsafeMemoryWriter();
+        for (int i = 0; i < VALUES; i++) {
+            ints[i] = i;
+            longs[i] = (long) i;
+            doubles[i] = (double) i;
+        }
+    }
+
+    /**
+     * Frees the memory
+     */
+    @TearDown
+    public void tearDown() {
+        UnsafeUtils.free(address);
+    }
+
+    /**
+     * Serializes ints
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void writeInts() {
+        write(IntSerializer.INSTANCE, ints, Integer.BYTES);
+    }
+
+    /**
+     * Deserializes ints
+     *
+     * @return The sum of the ints
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long readInts() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += IntSerializer.INSTANCE.deserialize(reader.resetTo(address + (long) i * Integer.BYTES, Integer.BYTES));
+        }
+        return sum;
+    }
+
+    /**
+     * Serializes longs
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void writeLongs() {
+        write(LongSerializer.INSTANCE, longs, Long.BYTES);
+    }
+
+    /**
+     * Deserializes longs
+     *
+     * @return The sum of the longs
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public long readLongs() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += LongSerializer.INSTANCE.deserialize(reader.resetTo(address + (long) i * Long.BYTES, Long.BYTES));
+        }
+        return sum;
+    }
+
+    /**
+     * Serializes doubles
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void writeDoubles() {
+        write(DoubleSerializer.INSTANCE, doubles, Double.BYTES);
+    }
+
+    /**
+     * Deserializes doubles
+     *
+     * @return The sum of the doubles
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public double readDoubles() {
+        double sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += DoubleSerializer.INSTANCE.deserialize(reader.resetTo(address + (long) i * Double.BYTES, Double.BYTES));
+        }
+        return sum;
+    }
+
+    /**
+     * Serializes values one by one, each on its own reset writer
+     *
+     * @param serializer The serializer
+     * @param values     The values to serialize
+     * @param bytes      The size of a value in bytes
+     * @param <T>        The type of the values
+     */
+    private <T> void write(ObjectSerializer<T> serializer, T[] values, int bytes) {
+        for (int i = 0; i < VALUES; i++) {
+            serializer.serialize(writer.resetTo(address + (long) i * bytes, bytes), values[i]);
+        }
+    }
+}
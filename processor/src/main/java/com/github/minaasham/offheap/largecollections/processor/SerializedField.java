@@ -0,0 +1,183 @@
+package com.github.minaasham.offheap.largecollections.processor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Locale;
+
+/**
+ * SerializedField, a field of a type with a generated serializer, and how it's written and read
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class SerializedField {
+
+    /**
+     * The field's name
+     */
+    private final String name;
+
+    /**
+     * The field's type as it's written in source
+     */
+    private final String typeName;
+
+    /**
+     * The expression reading the field from an object, relative to the object (e.g. "getName()")
+     */
+    private final String accessor;
+
+    /**
+     * The way the field is serialized
+     */
+    private final Kind kind;
+
+    /**
+     * For primitives, the type name used by the reader and writer methods (e.g. "Int" for readInt),
+     * for delegated fields, the serializer expression
+     */
+    private final String target;
+
+    /**
+     * The field's size in bytes, or -1 if it has a variable size
+     */
+    private final int sizeInBytes;
+
+    /**
+     * Whether computing the field's size costs about as much as serializing it
+     */
+    private final boolean expensiveSize;
+
+    /**
+     * For fields of other marked types, the analyzed type, null otherwise
+     */
+    private final SerializedType nested;
+
+    /**
+     * Factory method for a boolean field, stored in one byte
+     *
+     * @param name     The field's name
+     * @param typeName The field's type
+     * @param accessor The field's accessor
+     * @return A {@link SerializedField} object
+     */
+    static SerializedField ofBoolean(String name, String typeName, String accessor) {
+        return new SerializedField(name, typeName, accessor, Kind.BOOLEAN, "Byte", Byte.BYTES, false, null);
+    }
+
+    /**
+     * Factory method for a primitive field, written and read directly by the memory writer and reader
+     *
+     * @param name        The field's name
+     * @param typeName    The field's type
+     * @param accessor    The field's accessor
+     * @param primitive   The primitive's name in the reader and writer methods
+     * @param sizeInBytes The primitive's size in bytes
+     * @return A {@link SerializedField} object
+     */
+    static SerializedField ofPrimitive(String name, String typeName, String accessor, String primitive, int sizeInBytes) {
+        return new SerializedField(name, typeName, accessor, Kind.PRIMITIVE, primitive, sizeInBytes, false, null);
+    }
+
+    /**
+     * Factory method for an enum field, stored as its ordinal
+     *
+     * @param name     The field's name
+     * @param typeName The field's type
+     * @param accessor The field's accessor
+     * @return A {@link SerializedField} object
+     */
+    static SerializedField ofEnum(String name, String typeName, String accessor) {
+        return new SerializedField(name, typeName, accessor, Kind.ENUM, "Int", Integer.BYTES, false, null);
+    }
+
+    /**
+     * Factory method for a field delegated to another serializer
+     *
+     * @param name          The field's name
+     * @param typeName      The field's type
+     * @param accessor      The field's accessor
+     * @param serializer    The serializer expression
+     * @param sizeInBytes   The field's size in bytes, or -1 if it has a variable size
+     * @param expensiveSize Whether computing the field's size costs about as much as serializing it
+     * @return A {@link SerializedField} object
+     */
+    static SerializedField ofSerializer(String name, String typeName, String accessor, String serializer, int sizeInBytes, boolean expensiveSize) {
+        return new SerializedField(name, typeName, accessor, Kind.SERIALIZER, serializer, sizeInBytes, expensiveSize, null);
+    }
+
+    /**
+     * Factory method for a field of another marked type, delegated to its generated serializer
+     * A variable size nested type walks all of its fields to compute its size, so the field's size is expensive to compute
+     *
+     * @param name     The field's name
+     * @param typeName The field's type
+     * @param accessor The field's accessor
+     * @param nested   The analyzed marked type
+     * @return A {@link SerializedField} object
+     */
+    static SerializedField ofNested(String name, String typeName, String accessor, SerializedType nested) {
+        return new SerializedField(name, typeName, accessor, Kind.SERIALIZER, nested.serializerQualifiedName() + ".INSTANCE", nested.sizeInBytes(), nested.sizeInBytes() < 0, nested);
+    }
+
+    /**
+     * Gets the primitive type a flyweight view reads and writes the field as
+     *
+     * @return The primitive type (e.g. "int" for an int or an Integer), or the enum type for enums
+     */
+    String viewTypeName() {
+        switch (kind) {
+            case BOOLEAN:
+                return "boolean";
+            case PRIMITIVE:
+                return target.toLowerCase(Locale.ROOT);
+            default:
+                return typeName;
+        }
+    }
+
+    /**
+     * Whether the field can hold null, i.e. it's a boxed primitive, an enum, or delegated to another serializer
+     *
+     * @return {@code true} if the field isn't a primitive
+     */
+    boolean isNullable() {
+        return kind == Kind.ENUM || kind == Kind.SERIALIZER || !typeName.equals(viewTypeName());
+    }
+
+    /**
+     * Whether the field has a fixed size
+     *
+     * @return {@code true} if the field has a fixed size
+     */
+    boolean isFixedSize() {
+        return sizeInBytes >= 0;
+    }
+
+    /**
+     * Kind, the ways a field can be serialized
+     */
+    enum Kind {
+
+        /**
+         * A boolean, stored in one byte
+         */
+        BOOLEAN,
+
+        /**
+         * A primitive or a boxed primitive
+         */
+        PRIMITIVE,
+
+        /**
+         * An enum, stored as its ordinal
+         */
+        ENUM,
+
+        /**
+         * A field delegated to another serializer
+         */
+        SERIALIZER
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.minaasham.offheap.largecollections.processor;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * SerializedType, a type with a generated serializer, and the fields it's serialized from
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+final class SerializedType {
+
+    /**
+     * The type's package name, empty for the default package
+     */
+    private final String packageName;
+
+    /**
+     * The type's canonical name
+     */
+    private final String typeName;
+
+    /**
+     * The base simple name of the generated classes, the type's name with nested types joined with "_"
+     */
+    private final String generatedName;
+
+    /**
+     * Whether the generated classes are public
+     */
+    private final boolean publicGenerated;
+
+    /**
+     * The serialized fields, in the order of the type's constructor parameters
+     */
+    private final List<SerializedField> fields;
+
+    /**
+     * Gets the generated serializer's simple name
+     *
+     * @return The generated serializer's simple name
+     */
+    String serializerName() {
+        return generatedName + "Serializer";
+    }
+
+    /**
+     * Gets the generated serializer's qualified name
+     *
+     * @return The generated serializer's qualified name
+     */
+    String serializerQualifiedName() {
+        return qualify(serializerName());
+    }
+
+    /**
+     * Gets the generated flyweight view's simple name
+     *
+     * @return The generated flyweight view's simple name
+     */
+    String viewName() {
+        return generatedName + "View";
+    }
+
+    /**
+     * Gets the generated flyweight view's qualified name
+     *
+     * @return The generated flyweight view's qualified name
+     */
+    String viewQualifiedName() {
+        return qualify(viewName());
+    }
+
+    /**
+     * Qualifies a simple name with the type's package
+     *
+     * @param simpleName The simple name
+     * @return The qualified name
+     */
+    private String qualify(String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * Gets the type's size in bytes
+     *
+     * @return The size in bytes if all the fields have a fixed size, or -1 otherwise
+     */
+    int sizeInBytes() {
+        int sizeInBytes = 0;
+        for (SerializedField field : fields) {
+            if (!field.isFixedSize()) return -1;
+            sizeInBytes += field.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    /**
+     * Gets the size in bytes of the fixed size fields
+     *
+     * @return The size in bytes of the fixed size fields
+     */
+    int fixedSizeInBytes() {
+        int sizeInBytes = 0;
+        for (SerializedField field : fields) {
+            if (field.isFixedSize()) sizeInBytes += field.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    /**
+     * Whether computing the type's size costs about as much as serializing it
+     *
+     * @return {@code true} if any of the fields' sizes is expensive to compute
+     */
+    boolean isExpensiveSize() {
+        for (SerializedField field : fields) {
+            if (field.isExpensiveSize()) return true;
+        }
+        return false;
+    }
+}
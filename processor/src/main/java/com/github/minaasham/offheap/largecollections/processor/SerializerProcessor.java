@@ -0,0 +1,359 @@
+package com.github.minaasham.offheap.largecollections.processor;
+
+import com.github.minaasham.offheap.largecollections.serialization.GenerateSerializer;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SerializerProcessor, an annotation processor generating serializers for types marked with {@link GenerateSerializer}
+ * Each field is written and read with direct memory writer and reader calls, strings and primitive arrays are delegated
+ * to the common serializers, and other marked types are delegated to their own generated serializers
+ * Types made only of fixed size fields get a {@link com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer},
+ * and a {@link com.github.minaasham.offheap.largecollections.Flyweight} view reading and writing their fields in place
+ */
+@SupportedAnnotationTypes("com.github.minaasham.offheap.largecollections.serialization.GenerateSerializer")
+public final class SerializerProcessor extends AbstractProcessor {
+
+    /**
+     * The common serializers package name
+     */
+    private static final String COMMON = "com.github.minaasham.offheap.largecollections.serialization.common.";
+
+    /**
+     * The analyzed types, by canonical name
+     */
+    private final Map<String, SerializedType> analyzed = new HashMap<>();
+
+    /**
+     * The types being analyzed, to detect types containing themselves
+     */
+    private final Set<String> analyzing = new HashSet<>();
+
+    /**
+     * Gets the latest supported source version, records are supported when running on a compiler that has them
+     *
+     * @return The latest supported source version
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /**
+     * Generates the serializers of the marked types, and the flyweight views of the fixed size ones
+     *
+     * @param annotations The annotation types requested to be processed
+     * @param roundEnv    The environment for information about the current and prior round
+     * @return {@code true} as the annotation is claimed by this processor
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateSerializer.class)) {
+            try {
+                SerializedType type = analyze(element);
+                try (Writer writer = processingEnv.getFiler().createSourceFile(type.serializerQualifiedName(), element).openWriter()) {
+                    writer.write(SerializerWriter.write(type));
+                }
+                if (type.sizeInBytes() >= 0) {
+                    try (Writer writer = processingEnv.getFiler().createSourceFile(type.viewQualifiedName(), element).openWriter()) {
+                        writer.write(SerializerWriter.writeView(type));
+                    }
+                }
+            } catch (ProcessingException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, e.getMessage(), e.element);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, "Could not write the generated serializer: " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Analyzes a marked type
+     *
+     * @param element The marked type
+     * @return The analyzed type
+     */
+    private SerializedType analyze(Element element) {
+        boolean record = isRecord(element);
+        if (element.getKind() != ElementKind.CLASS && !record) {
+            throw new ProcessingException(element, "@GenerateSerializer can only be used on classes and records");
+        }
+
+        TypeElement typeElement = (TypeElement) element;
+        String typeName = typeElement.getQualifiedName().toString();
+        SerializedType type = analyzed.get(typeName);
+        if (type != null) return type;
+
+        validate(typeElement);
+        if (!analyzing.add(typeName)) {
+            throw new ProcessingException(element, "@GenerateSerializer types cannot contain themselves");
+        }
+
+        List<SerializedField> fields;
+        try {
+            fields = fields(typeElement, record);
+        } finally {
+            analyzing.remove(typeName);
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+        String simpleName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        boolean publicGenerated = typeElement.getModifiers().contains(Modifier.PUBLIC);
+
+        type = new SerializedType(packageName, typeName, simpleName.replace('$', '_'), publicGenerated, fields);
+        analyzed.put(typeName, type);
+        return type;
+    }
+
+    /**
+     * Analyzes a type's serialized fields, which are its non-static, non-transient fields in declaration order
+     *
+     * @param element The type
+     * @param record  Whether the type is a record
+     * @return The analyzed fields
+     */
+    private List<SerializedField> fields(TypeElement element, boolean record) {
+        List<VariableElement> variables = new ArrayList<>();
+        for (VariableElement variable : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            Set<Modifier> modifiers = variable.getModifiers();
+            if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT)) {
+                variables.add(variable);
+            }
+        }
+        validateConstructor(element, variables);
+
+        List<SerializedField> fields = new ArrayList<>(variables.size());
+        for (VariableElement variable : variables) {
+            fields.add(field(variable, accessor(element, variable, record)));
+        }
+        return fields;
+    }
+
+    /**
+     * Validates that a type's generated serializer can access and create it
+     *
+     * @param element The type
+     */
+    private static void validate(TypeElement element) {
+        if (element.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new ProcessingException(element, "@GenerateSerializer types cannot be abstract");
+        }
+        if (!element.getTypeParameters().isEmpty()) {
+            throw new ProcessingException(element, "@GenerateSerializer types cannot be generic");
+        }
+        for (Element current = element; current instanceof TypeElement; current = current.getEnclosingElement()) {
+            TypeElement currentType = (TypeElement) current;
+            if (currentType.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new ProcessingException(element, "@GenerateSerializer types and their enclosing types cannot be private");
+            }
+            if (currentType.getNestingKind() != NestingKind.TOP_LEVEL
+                    && (currentType.getNestingKind() != NestingKind.MEMBER || !currentType.getModifiers().contains(Modifier.STATIC) && !isRecord(currentType))) {
+                throw new ProcessingException(element, "@GenerateSerializer types must be top level or static nested types");
+            }
+        }
+    }
+
+    /**
+     * Validates that a type has a constructor taking all its fields in declaration order
+     *
+     * @param element   The type
+     * @param variables The type's fields
+     */
+    private void validateConstructor(TypeElement element, List<VariableElement> variables) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(element.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) continue;
+            if (constructor.getParameters().size() != variables.size()) continue;
+
+            boolean matches = true;
+            for (int i = 0; i < variables.size() && matches; i++) {
+                matches = processingEnv.getTypeUtils().isSameType(constructor.getParameters().get(i).asType(), variables.get(i).asType());
+            }
+            if (matches) return;
+        }
+        throw new ProcessingException(element, "@GenerateSerializer types must have a non private constructor taking all their fields in declaration order");
+    }
+
+    /**
+     * Finds the expression reading a field from an object, preferring record accessors and getters over the field itself
+     *
+     * @param element  The type
+     * @param variable The field
+     * @param record   Whether the type is a record
+     * @return The accessor expression, relative to the object
+     */
+    private String accessor(TypeElement element, VariableElement variable, boolean record) {
+        String name = variable.getSimpleName().toString();
+        if (record) return name + "()";
+
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            String methodName = method.getSimpleName().toString();
+            boolean getter = methodName.equals("get" + capitalized) || variable.asType().getKind() == TypeKind.BOOLEAN && methodName.equals("is" + capitalized);
+            if (getter
+                    && method.getParameters().isEmpty()
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)
+                    && processingEnv.getTypeUtils().isSameType(method.getReturnType(), variable.asType())) {
+                return methodName + "()";
+            }
+        }
+
+        if (!variable.getModifiers().contains(Modifier.PRIVATE)) return name;
+        throw new ProcessingException(variable, "@GenerateSerializer private fields must have a non private getter");
+    }
+
+    /**
+     * Analyzes how a field is serialized
+     *
+     * @param variable The field
+     * @param accessor The field's accessor
+     * @return The analyzed field
+     */
+    private SerializedField field(VariableElement variable, String accessor) {
+        String name = variable.getSimpleName().toString();
+        TypeMirror type = variable.asType();
+        String typeName = type.toString();
+
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return SerializedField.ofBoolean(name, typeName, accessor);
+            case BYTE:
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Byte", Byte.BYTES);
+            case SHORT:
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Short", Short.BYTES);
+            case CHAR:
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Char", Character.BYTES);
+            case INT:
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Int", Integer.BYTES);
+            case LONG:
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Long", Long.BYTES);
+            case FLOAT:
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Float", Float.BYTES);
+            case DOUBLE:
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Double", Double.BYTES);
+            case ARRAY:
+                TypeKind componentKind = ((ArrayType) type).getComponentType().getKind();
+                if (componentKind.isPrimitive() && componentKind != TypeKind.BOOLEAN) {
+                    String component = componentKind.name().charAt(0) + componentKind.name().substring(1).toLowerCase(Locale.ROOT);
+                    return SerializedField.ofSerializer(name, typeName, accessor, COMMON + component + "ArraySerializer.INSTANCE", -1, false);
+                }
+                break;
+            case DECLARED:
+                return declaredField(variable, name, typeName, accessor);
+            default:
+                break;
+        }
+        throw new ProcessingException(variable, "@GenerateSerializer doesn't support fields of type " + typeName);
+    }
+
+    /**
+     * Analyzes how a field of a declared type is serialized
+     *
+     * @param variable The field
+     * @param name     The field's name
+     * @param typeName The field's type
+     * @param accessor The field's accessor
+     * @return The analyzed field
+     */
+    private SerializedField declaredField(VariableElement variable, String name, String typeName, String accessor) {
+        if (!((DeclaredType) variable.asType()).getTypeArguments().isEmpty()) {
+            throw new ProcessingException(variable, "@GenerateSerializer doesn't support fields of generic type " + typeName);
+        }
+
+        TypeElement element = (TypeElement) ((DeclaredType) variable.asType()).asElement();
+        switch (element.getQualifiedName().toString()) {
+            case "java.lang.Boolean":
+                return SerializedField.ofBoolean(name, typeName, accessor);
+            case "java.lang.Byte":
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Byte", Byte.BYTES);
+            case "java.lang.Short":
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Short", Short.BYTES);
+            case "java.lang.Character":
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Char", Character.BYTES);
+            case "java.lang.Integer":
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Int", Integer.BYTES);
+            case "java.lang.Long":
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Long", Long.BYTES);
+            case "java.lang.Float":
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Float", Float.BYTES);
+            case "java.lang.Double":
+                return SerializedField.ofPrimitive(name, typeName, accessor, "Double", Double.BYTES);
+            case "java.lang.String":
+                return SerializedField.ofSerializer(name, typeName, accessor, COMMON + "CompactStringSerializer.INSTANCE", -1, false);
+            default:
+                break;
+        }
+
+        if (element.getKind() == ElementKind.ENUM) {
+            return SerializedField.ofEnum(name, typeName, accessor);
+        }
+        if (element.getAnnotation(GenerateSerializer.class) != null) {
+            return SerializedField.ofNested(name, typeName, accessor, analyze(element));
+        }
+        throw new ProcessingException(variable, "@GenerateSerializer doesn't support fields of type " + typeName + ", unless the type is marked with @GenerateSerializer");
+    }
+
+    /**
+     * Checks if an element is a record, records are checked by name as they don't exist in older compilers
+     *
+     * @param element The element to check
+     * @return {@code true} if the element is a record
+     */
+    private static boolean isRecord(Element element) {
+        return "RECORD".equals(element.getKind().name());
+    }
+
+    /**
+     * ProcessingException, an error reported on the element that caused it
+     */
+    private static final class ProcessingException extends RuntimeException {
+
+        /**
+         * The serial version UID
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The element that caused the error
+         */
+        private final transient Element element;
+
+        /**
+         * ProcessingException constructor
+         *
+         * @param element The element that caused the error
+         * @param message The error message
+         */
+        ProcessingException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
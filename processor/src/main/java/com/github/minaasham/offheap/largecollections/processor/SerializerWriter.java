@@ -0,0 +1,335 @@
+package com.github.minaasham.offheap.largecollections.processor;
+
+import com.github.minaasham.offheap.largecollections.processor.SerializedField.Kind;
+import lombok.experimental.UtilityClass;
+
+import java.util.Locale;
+
+/**
+ * SerializerWriter, renders the source code of generated serializers and flyweight views
+ * Serialization is rendered as straight-line memory writer and reader calls, one per field,
+ * without reflection, boxing or per field virtual calls except for fields delegated to other serializers,
+ * fields that aren't primitives are checked before anything is written, and null is rejected with an exception naming the field
+ * Flyweight views are rendered as getters and setters at fixed offsets, with nested types' fields flattened into the view
+ */
+@UtilityClass
+class SerializerWriter {
+
+    /**
+     * The serialization package name
+     */
+    private static final String SERIALIZATION = "com.github.minaasham.offheap.largecollections.serialization.";
+
+    /**
+     * Renders a serializer's source code
+     *
+     * @param type The type to render the serializer for
+     * @return The serializer's source code
+     */
+    static String write(SerializedType type) {
+        String typeName = type.getTypeName();
+        String serializerName = type.serializerName();
+        int sizeInBytes = type.sizeInBytes();
+        StringBuilder source = new StringBuilder(1024);
+
+        if (!type.getPackageName().isEmpty()) {
+            source.append("package ").append(type.getPackageName()).append(";\n\n");
+        }
+
+        source.append("/**\n")
+                .append(" * ").append(serializerName).append(", a generated implementation of ObjectSerializer for the {@link ")
+                .append(typeName).append("} type\n")
+                .append(" * Generated by the offheap-largecollections-processor annotation processor, do not edit\n")
+                .append(" */\n")
+                .append(type.isPublicGenerated() ? "public " : "").append("final class ").append(serializerName);
+        if (sizeInBytes >= 0) {
+            source.append(" extends ").append(SERIALIZATION).append("FixedSizeObjectSerializer<").append(typeName).append(">\n")
+                    .append("        implements ").append(SERIALIZATION).append("TrustedObjectSerializer<").append(typeName).append("> {\n\n");
+        } else {
+            String base = type.isExpensiveSize() ? "SinglePassObjectSerializer<" : "ObjectSerializer<";
+            source.append(" implements ").append(SERIALIZATION).append(base).append(typeName).append("> {\n\n");
+        }
+
+        source.append("    /**\n")
+                .append("     * Singleton instance of the {@link ").append(serializerName).append("} class\n")
+                .append("     */\n")
+                .append("    public static final ").append(serializerName).append(" INSTANCE = new ").append(serializerName).append("();\n\n");
+
+        for (SerializedField field : type.getFields()) {
+            if (field.getKind() != Kind.ENUM) continue;
+            source.append("    /**\n")
+                    .append("     * The constants of the {@code ").append(field.getName()).append("} field's enum, indexed by ordinal\n")
+                    .append("     */\n")
+                    .append("    private static final ").append(field.getTypeName()).append("[] ").append(constantsName(field.getName()))
+                    .append(" = ").append(field.getTypeName()).append(".values();\n\n");
+        }
+
+        source.append("    /**\n")
+                .append("     * ").append(serializerName).append(" constructor\n")
+                .append("     */\n")
+                .append("    private ").append(serializerName).append("() {\n");
+        if (sizeInBytes >= 0) {
+            source.append("        super(").append(sizeInBytes).append(");\n");
+        }
+        source.append("    }\n\n");
+
+        source.append("    /**\n")
+                .append("     * Serializes an object using a memory writer\n")
+                .append("     *\n")
+                .append("     * @param writer The writer that is used for serialization\n")
+                .append("     * @param object The object to serialize\n")
+                .append("     */\n")
+                .append("    @Override\n")
+                .append("    public void serialize(").append(SERIALIZATION).append("MemoryWriter writer, ").append(typeName).append(" object) {\n");
+        appendNullChecks(source, type);
+        for (SerializedField field : type.getFields()) {
+            source.append("        ").append(serializeStatement(field)).append(";\n");
+        }
+        source.append("    }\n\n");
+
+        source.append("    /**\n")
+                .append("     * Deserializes an object using a memory reader\n")
+                .append("     *\n")
+                .append("     * @param reader The reader that is used for deserialization\n")
+                .append("     * @return The deserialized object\n")
+                .append("     */\n")
+                .append("    @Override\n")
+                .append("    public ").append(typeName).append(" deserialize(").append(SERIALIZATION).append("MemoryReader reader) {\n");
+        StringBuilder arguments = new StringBuilder();
+        for (SerializedField field : type.getFields()) {
+            String variable = variableName(field);
+            source.append("        ").append(field.getTypeName()).append(' ').append(variable)
+                    .append(" = ").append(deserializeExpression(field)).append(";\n");
+            if (arguments.length() > 0) arguments.append(", ");
+            arguments.append(variable);
+        }
+        source.append("        return new ").append(typeName).append('(').append(arguments).append(");\n")
+                .append("    }\n");
+
+        if (sizeInBytes < 0) {
+            source.append("\n")
+                    .append("    /**\n")
+                    .append("     * Gets the object size in bytes\n")
+                    .append("     *\n")
+                    .append("     * @param object The object to the get the size of\n")
+                    .append("     * @return The size of the passed object in bytes\n")
+                    .append("     */\n")
+                    .append("    @Override\n")
+                    .append("    public int sizeInBytes(").append(typeName).append(" object) {\n");
+            appendNullChecks(source, type);
+            source.append("        return ").append(type.fixedSizeInBytes());
+            for (SerializedField field : type.getFields()) {
+                if (field.isFixedSize()) continue;
+                source.append("\n                + ").append(field.getTarget()).append(".sizeInBytes(object.").append(field.getAccessor()).append(')');
+            }
+            source.append(";\n")
+                    .append("    }\n");
+        }
+
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Renders a flyweight view's source code, the type must have a fixed size
+     *
+     * @param type The type to render the view for
+     * @return The view's source code
+     */
+    static String writeView(SerializedType type) {
+        String typeName = type.getTypeName();
+        String viewName = type.viewName();
+        StringBuilder source = new StringBuilder(1024);
+
+        if (!type.getPackageName().isEmpty()) {
+            source.append("package ").append(type.getPackageName()).append(";\n\n");
+        }
+
+        source.append("/**\n")
+                .append(" * ").append(viewName).append(", a generated flyweight view reading and writing the fields of a serialized {@link ")
+                .append(typeName).append("} in place\n")
+                .append(" * Generated by the offheap-largecollections-processor annotation processor, do not edit\n")
+                .append(" */\n")
+                .append(type.isPublicGenerated() ? "public " : "").append("final class ").append(viewName)
+                .append(" extends com.github.minaasham.offheap.largecollections.Flyweight {\n\n");
+
+        appendViewConstants(source, type, "");
+
+        source.append("    /**\n")
+                .append("     * ").append(viewName).append(" constructor\n")
+                .append("     */\n")
+                .append("    public ").append(viewName).append("() {\n")
+                .append("        super(").append(type.sizeInBytes()).append(");\n")
+                .append("    }\n");
+
+        appendViewAccessors(source, type, "", 0);
+
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Renders the enum constants of a flyweight view, including the nested types' fields
+     *
+     * @param source The source to render to
+     * @param type   The type whose fields are rendered
+     * @param prefix The property name prefix of the nested type's fields, empty for the top level type
+     */
+    private static void appendViewConstants(StringBuilder source, SerializedType type, String prefix) {
+        for (SerializedField field : type.getFields()) {
+            String property = propertyName(prefix, field);
+            if (field.getNested() != null) {
+                appendViewConstants(source, field.getNested(), property);
+            } else if (field.getKind() == Kind.ENUM) {
+                source.append("    /**\n")
+                        .append("     * The constants of the {@code ").append(property).append("} field's enum, indexed by ordinal\n")
+                        .append("     */\n")
+                        .append("    private static final ").append(field.getTypeName()).append("[] ").append(constantsName(property))
+                        .append(" = ").append(field.getTypeName()).append(".values();\n\n");
+            }
+        }
+    }
+
+    /**
+     * Renders the getters and setters of a flyweight view, including the nested types' fields
+     *
+     * @param source The source to render to
+     * @param type   The type whose fields are rendered
+     * @param prefix The property name prefix of the nested type's fields, empty for the top level type
+     * @param offset The offset of the type's first field
+     * @return The offset after the type's last field
+     */
+    private static int appendViewAccessors(StringBuilder source, SerializedType type, String prefix, int offset) {
+        for (SerializedField field : type.getFields()) {
+            String property = propertyName(prefix, field);
+            if (field.getNested() != null) {
+                offset = appendViewAccessors(source, field.getNested(), property, offset);
+                continue;
+            }
+
+            String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            String viewTypeName = field.viewTypeName();
+            String read = "get" + field.getTarget() + "(" + offset + ")";
+            String write;
+            switch (field.getKind()) {
+                case BOOLEAN:
+                    read = read + " == (byte) 1";
+                    write = "putByte(" + offset + ", value ? (byte) 1 : 0)";
+                    break;
+                case ENUM:
+                    read = constantsName(property) + "[" + read + "]";
+                    write = "if (value == null) throw new NullPointerException(\"" + property + " cannot be null\");\n"
+                            + "        putInt(" + offset + ", value.ordinal())";
+                    break;
+                default:
+                    write = "put" + field.getTarget() + "(" + offset + ", value)";
+                    break;
+            }
+
+            source.append("\n")
+                    .append("    /**\n")
+                    .append("     * Gets the {@code ").append(property).append("} field\n")
+                    .append("     *\n")
+                    .append("     * @return The field's value\n")
+                    .append("     */\n")
+                    .append("    public ").append(viewTypeName).append(field.getKind() == Kind.BOOLEAN ? " is" : " get").append(capitalized).append("() {\n")
+                    .append("        return ").append(read).append(";\n")
+                    .append("    }\n\n")
+                    .append("    /**\n")
+                    .append("     * Sets the {@code ").append(property).append("} field\n")
+                    .append("     *\n")
+                    .append("     * @param value The field's new value\n")
+                    .append("     */\n")
+                    .append("    public void set").append(capitalized).append('(').append(viewTypeName).append(" value) {\n")
+                    .append("        ").append(write).append(";\n")
+                    .append("    }\n");
+            offset += field.getSizeInBytes();
+        }
+        return offset;
+    }
+
+    /**
+     * Renders the checks rejecting null in the fields that can hold it, so a serializer never writes part of an object
+     *
+     * @param source The source to render to
+     * @param type   The type whose fields are checked
+     */
+    private static void appendNullChecks(StringBuilder source, SerializedType type) {
+        for (SerializedField field : type.getFields()) {
+            if (!field.isNullable()) continue;
+            source.append("        if (object.").append(field.getAccessor()).append(" == null) {\n")
+                    .append("            throw new NullPointerException(\"Field ").append(field.getName()).append(" of ").append(type.getTypeName())
+                    .append(" cannot be null, generated serializers don't support null fields\");\n")
+                    .append("        }\n");
+        }
+    }
+
+    /**
+     * Gets the property name of a field in a flyweight view, nested types' fields are prefixed with the field holding them
+     *
+     * @param prefix The property name prefix, empty for the top level type
+     * @param field  The field
+     * @return The property name (e.g. "locationX" for the "x" field of a "location" field)
+     */
+    private static String propertyName(String prefix, SerializedField field) {
+        String name = field.getName();
+        return prefix.isEmpty() ? name : prefix + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * Renders the statement serializing a field
+     *
+     * @param field The field to serialize
+     * @return The serialization statement
+     */
+    private static String serializeStatement(SerializedField field) {
+        String value = "object." + field.getAccessor();
+        switch (field.getKind()) {
+            case BOOLEAN:
+                return "writer.writeByte(" + value + " ? (byte) 1 : 0)";
+            case PRIMITIVE:
+                return "writer.write" + field.getTarget() + "(" + value + ")";
+            case ENUM:
+                return "writer.writeInt(" + value + ".ordinal())";
+            default:
+                return field.getTarget() + ".serialize(writer, " + value + ")";
+        }
+    }
+
+    /**
+     * Renders the expression deserializing a field
+     *
+     * @param field The field to deserialize
+     * @return The deserialization expression
+     */
+    private static String deserializeExpression(SerializedField field) {
+        switch (field.getKind()) {
+            case BOOLEAN:
+                return "reader.readByte() == (byte) 1";
+            case PRIMITIVE:
+                return "reader.read" + field.getTarget() + "()";
+            case ENUM:
+                return constantsName(field.getName()) + "[reader.readInt()]";
+            default:
+                return field.getTarget() + ".deserialize(reader)";
+        }
+    }
+
+    /**
+     * Gets the name of the local variable holding a deserialized field, avoiding the reader parameter's name
+     *
+     * @param field The field
+     * @return The variable name
+     */
+    private static String variableName(SerializedField field) {
+        return "reader".equals(field.getName()) ? "readerValue" : field.getName();
+    }
+
+    /**
+     * Gets the name of the constant holding an enum field's constants
+     *
+     * @param name The enum field's name
+     * @return The constant name (e.g. "STATUS_VALUES" for a "status" field)
+     */
+    private static String constantsName(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT) + "_VALUES";
+    }
+}
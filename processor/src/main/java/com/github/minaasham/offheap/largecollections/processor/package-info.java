@@ -0,0 +1,5 @@
+/**
+ * Contains the annotation processor generating serializers for types marked with
+ * {@link com.github.minaasham.offheap.largecollections.serialization.GenerateSerializer}
+ */
+package com.github.minaasham.offheap.largecollections.processor;
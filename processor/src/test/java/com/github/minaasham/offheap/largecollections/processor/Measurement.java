@@ -0,0 +1,46 @@
+package com.github.minaasham.offheap.largecollections.processor;
+
+import com.github.minaasham.offheap.largecollections.serialization.GenerateSerializer;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+@EqualsAndHashCode
+@ToString
+@GenerateSerializer
+final class Measurement {
+
+    private static final int IGNORED = 1;
+
+    final boolean valid;
+    final byte sensor;
+    final short channel;
+    final char unit;
+    final int sequence;
+    final long timestamp;
+    final float error;
+    final double value;
+    final Long reference;
+    final Quality quality;
+    final Point location;
+    transient int ignored = IGNORED;
+
+    Measurement(boolean valid, byte sensor, short channel, char unit, int sequence, long timestamp, float error, double value, Long reference, Quality quality, Point location) {
+        this.valid = valid;
+        this.sensor = sensor;
+        this.channel = channel;
+        this.unit = unit;
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.error = error;
+        this.value = value;
+        this.reference = reference;
+        this.quality = quality;
+        this.location = location;
+    }
+
+    enum Quality {
+        GOOD,
+        UNCERTAIN,
+        BAD
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.minaasham.offheap.largecollections.processor;
+
+import com.github.minaasham.offheap.largecollections.serialization.GenerateSerializer;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+@EqualsAndHashCode
+@ToString
+@GenerateSerializer
+public final class Person {
+
+    private final String name;
+    private final boolean active;
+    final int[] scores;
+    private final Address address;
+
+    public Person(String name, boolean active, int[] scores, Address address) {
+        this.name = name;
+        this.active = active;
+        this.scores = scores.clone();
+        this.address = address;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public Address getAddress() {
+        return address;
+    }
+
+    @EqualsAndHashCode
+    @ToString
+    @GenerateSerializer
+    public static final class Address {
+
+        final String city;
+        final Point location;
+
+        public Address(String city, Point location) {
+            this.city = city;
+            this.location = location;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.minaasham.offheap.largecollections.processor;
+
+import com.github.minaasham.offheap.largecollections.serialization.GenerateSerializer;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+@EqualsAndHashCode
+@ToString
+@GenerateSerializer
+public final class Point {
+
+    private final int x;
+    private final int y;
+
+    public Point(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.minaasham.offheap.largecollections.processor;
+
+import com.github.minaasham.offheap.largecollections.LargeHashMap;
+import com.github.minaasham.offheap.largecollections.LargeMap;
+import com.github.minaasham.offheap.largecollections.processor.Measurement.Quality;
+import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.SinglePassObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializerProcessorTest {
+
+    @Test
+    void testFixedSizeSerializers() {
+        assertEquals(FixedSizeObjectSerializer.class, PointSerializer.class.getSuperclass());
+        assertEquals(2 * Integer.BYTES, PointSerializer.INSTANCE.sizeInBytes(null));
+
+        assertEquals(FixedSizeObjectSerializer.class, MeasurementSerializer.class.getSuperclass());
+        assertEquals(1 + 1 + 2 + 2 + 4 + 8 + 4 + 8 + 8 + 4 + 8, MeasurementSerializer.INSTANCE.sizeInBytes(null));
+    }
+
+    @Test
+    void testVariableSizeSerializers() {
+        assertTrue(SinglePassObjectSerializer.class.isAssignableFrom(PersonSerializer.class));
+        assertFalse(SinglePassObjectSerializer.class.isAssignableFrom(Person_AddressSerializer.class));
+
+        Person person = new Person("name", true, new int[]{1, 2, 3}, new Person.Address("city", new Point(1, 2)));
+        assertEquals(1 + 4 + 1 + 1 + 12 + 1 + 4 + 8, PersonSerializer.INSTANCE.sizeInBytes(person));
+    }
+
+    @Test
+    void testRoundtrip() {
+        try (LargeMap<Integer, Measurement> measurements = LargeHashMap.of(IntSerializer.INSTANCE, MeasurementSerializer.INSTANCE);
+             LargeMap<Integer, Person> people = LargeHashMap.of(IntSerializer.INSTANCE, PersonSerializer.INSTANCE)) {
+            for (int i = 0; i < 1000; i++) {
+                Point point = new Point(i, -i);
+                measurements.put(i, new Measurement(i % 2 == 0, (byte) i, (short) i, (char) i, i, i * 31L, i / 3f, i / 7d, (long) i, Quality.values()[i % 3], point));
+                people.put(i, new Person("person " + i + " \u00e9\u4e2d", i % 3 == 0, new int[i % 10], new Person.Address("city " + i, point)));
+            }
+
+            for (int i = 0; i < 1000; i++) {
+                Point point = new Point(i, -i);
+                assertEquals(new Measurement(i % 2 == 0, (byte) i, (short) i, (char) i, i, i * 31L, i / 3f, i / 7d, (long) i, Quality.values()[i % 3], point), measurements.get(i));
+                assertEquals(new Person("person " + i + " \u00e9\u4e2d", i % 3 == 0, new int[i % 10], new Person.Address("city " + i, point)), people.get(i));
+            }
+        }
+    }
+
+    @Test
+    void testFlyweightViews() {
+        try (LargeHashMap<Integer, Measurement> map = LargeHashMap.of(IntSerializer.INSTANCE, MeasurementSerializer.INSTANCE)) {
+            map.put(1, new Measurement(true, (byte) 1, (short) 2, 'c', 4, 5L, 6f, 7d, 8L, Quality.UNCERTAIN, new Point(9, 10)));
+            MeasurementView view = new MeasurementView();
+
+            assertEquals(MeasurementSerializer.INSTANCE.sizeInBytes(null), view.sizeInBytes());
+            assertTrue(map.update(1, view, v -> {
+                v.setValid(false);
+                v.setSequence(v.getSequence() + 1);
+                v.setValue(v.getValue() * 2);
+                v.setReference(v.getReference() + 1);
+                v.setQuality(Quality.BAD);
+                v.setLocationY(v.getLocationX() + v.getLocationY());
+            }));
+
+            assertEquals(new Measurement(false, (byte) 1, (short) 2, 'c', 5, 5L, 6f, 14d, 9L, Quality.BAD, new Point(9, 19)), map.get(1));
+            assertEquals('c', (char) map.read(1, view, MeasurementView::getUnit));
+            assertEquals(Quality.BAD, map.read(1, view, MeasurementView::getQuality));
+        }
+    }
+
+    @Test
+    void testNullFieldsFail() {
+        try (LargeHashMap<Integer, Measurement> measurements = LargeHashMap.of(IntSerializer.INSTANCE, MeasurementSerializer.INSTANCE);
+             LargeMap<Integer, Person> people = LargeHashMap.of(IntSerializer.INSTANCE, PersonSerializer.INSTANCE)) {
+            Point point = new Point(1, 2);
+            assertNullFieldFails("Field reference of " + Measurement.class.getName(),
+                    () -> measurements.put(1, new Measurement(true, (byte) 1, (short) 2, 'c', 4, 5L, 6f, 7d, null, Quality.GOOD, point)));
+            assertNullFieldFails("Field quality of " + Measurement.class.getName(),
+                    () -> measurements.put(1, new Measurement(true, (byte) 1, (short) 2, 'c', 4, 5L, 6f, 7d, 8L, null, point)));
+            assertNullFieldFails("Field location of " + Measurement.class.getName(),
+                    () -> measurements.put(1, new Measurement(true, (byte) 1, (short) 2, 'c', 4, 5L, 6f, 7d, 8L, Quality.GOOD, null)));
+            assertNullFieldFails("Field name of " + Person.class.getName(),
+                    () -> people.put(1, new Person(null, true, new int[0], new Person.Address("city", point))));
+            assertNullFieldFails("Field city of " + Person.Address.class.getCanonicalName(),
+                    () -> people.put(1, new Person("name", true, new int[0], new Person.Address(null, point))));
+            assertEquals(0, measurements.size());
+            assertEquals(0, people.size());
+
+            measurements.put(1, new Measurement(true, (byte) 1, (short) 2, 'c', 4, 5L, 6f, 7d, 8L, Quality.GOOD, point));
+            assertNullFieldFails("quality cannot be null", () -> measurements.update(1, new MeasurementView(), v -> v.setQuality(null)));
+            assertEquals(Quality.GOOD, measurements.get(1).quality);
+        }
+    }
+
+    @Test
+    void testUnsupportedTypesFail() throws IOException {
+        assertCompileError("@GenerateSerializer types must have a non private constructor taking all their fields in declaration order",
+                "@GenerateSerializer public class Bad { final int a; final int b; public Bad(int b, long a) { this.a = 0; this.b = b; } }");
+        assertCompileError("@GenerateSerializer private fields must have a non private getter",
+                "@GenerateSerializer public class Bad { private final int a; public Bad(int a) { this.a = a; } }");
+        assertCompileError("@GenerateSerializer doesn't support fields of type java.lang.Object, unless the type is marked with @GenerateSerializer",
+                "@GenerateSerializer public class Bad { final Object a; public Bad(Object a) { this.a = a; } }");
+        assertCompileError("@GenerateSerializer doesn't support fields of generic type java.util.List<java.lang.String>",
+                "@GenerateSerializer public class Bad { final java.util.List<String> a; public Bad(java.util.List<String> a) { this.a = a; } }");
+        assertCompileError("@GenerateSerializer types cannot contain themselves",
+                "@GenerateSerializer public class Bad { final Bad a; public Bad(Bad a) { this.a = a; } }");
+        assertCompileError("@GenerateSerializer types must be top level or static nested types",
+                "public class Bad { @GenerateSerializer class Inner { } }");
+        assertCompileError("@GenerateSerializer can only be used on classes and records",
+                "@GenerateSerializer public interface Bad { }");
+    }
+
+    private static void assertNullFieldFails(String expected, Executable executable) {
+        NullPointerException e = assertThrows(NullPointerException.class, executable);
+        assertTrue(e.getMessage().startsWith(expected), e.getMessage());
+    }
+
+    private static void assertCompileError(String expected, String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///Bad.java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return "import com.github.minaasham.offheap.largecollections.serialization.GenerateSerializer;\n" + source;
+            }
+        };
+
+        Path output = Files.createTempDirectory("processor");
+        try {
+            List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", output.toString(), "-proc:only");
+            JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, Collections.singletonList(file));
+            task.setProcessors(Collections.singletonList(new SerializerProcessor()));
+
+            assertFalse(task.call());
+            assertTrue(diagnostics.getDiagnostics().stream()
+                    .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                    .anyMatch(diagnostic -> diagnostic.getMessage(null).equals(expected)), diagnostics.getDiagnostics().toString());
+        } finally {
+            File[] files = output.toFile().listFiles();
+            if (files != null) Arrays.stream(files).forEach(File::delete);
+            Files.delete(output);
+        }
+    }
+}
@@ -69,6 +69,16 @@ abstract class AbstractMapBasedLargeSet<E> implements LargeSet<E> {
         return inner.size();
     }
 
+    /**
+     * Gets the off heap memory currently used by the set
+     *
+     * @return The set's memory usage
+     */
+    @Override
+    public final MemoryUsage memoryUsage() {
+        return inner.memoryUsage();
+    }
+
     /**
      * Returns an iterator over elements of type {@code E}
      *
@@ -0,0 +1,989 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ByteBufferMemoryBackend, a memory backend on direct byte buffers, the fallback when the JVM's Unsafe object is not accessible
+ * Addresses are virtual, the high bits select a page and the low bits an offset within the page's buffer, page zero is never used
+ * so a zero address is still null, allocations larger than a page span consecutive pages so collections can grow past 2GB
+ * Small allocations are carved out of slabs, one slab per power of two size class, and freed blocks are kept in per class free lists,
+ * slabs are never returned, freed pages are released to the garbage collector which frees the buffers' memory
+ * Arrays are accessed through heap buffers, so array offsets start at zero, and only byte arrays can be read or written value by value
+ * Allocating and freeing are synchronized, reads and writes are not, addresses are always published to other threads
+ * through the collections' own locks, which also publishes the pages they point to, but not the page table itself,
+ * as it's grown while allocating for any collection, so a grown table is published as a new {@link PageTable} through a volatile field,
+ * and a reader that sees the new table sees the pages copied to it
+ * This class is package private as it's an internal implementation detail
+ */
+final class ByteBufferMemoryBackend implements MemoryBackend {
+
+    /**
+     * The backend's name
+     */
+    static final String NAME = "buffer";
+
+    /**
+     * The native byte order, all buffers use it
+     */
+    private static final ByteOrder NATIVE_ORDER = ByteOrder.nativeOrder();
+
+    /**
+     * Whether the native byte order is little endian
+     */
+    private static final boolean LITTLE_ENDIAN = NATIVE_ORDER == ByteOrder.LITTLE_ENDIAN;
+
+    /**
+     * The default number of address bits within a page, 1GB pages
+     */
+    private static final int DEFAULT_PAGE_BITS = 30;
+
+    /**
+     * The default size of a slab holding small allocations
+     */
+    private static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    /**
+     * The log2 of the smallest block size, a block must hold a free list link
+     */
+    private static final int MIN_BLOCK_BITS = 3;
+
+    /**
+     * The log2 of the largest block size, larger allocations get their own pages
+     */
+    private static final int MAX_BLOCK_BITS = 12;
+
+    /**
+     * The largest chunk of memory set at once
+     */
+    private static final int FILL_CHUNK = 8192;
+
+    /**
+     * The number of address bits within a page
+     */
+    private final int pageBits;
+
+    /**
+     * The size of a page
+     */
+    private final int pageSize;
+
+    /**
+     * The mask of the address bits within a page
+     */
+    private final long pageMask;
+
+    /**
+     * The size of a slab holding small allocations
+     */
+    private final int slabSize;
+
+    /**
+     * The page table, replaced by a bigger copy when it's full, volatile as it's read without synchronization
+     */
+    private volatile PageTable pageTable = PageTable.of(16, null);
+
+    /**
+     * The number of pages in the page table, including the unused page zero
+     */
+    private int pageCount = 1;
+
+    /**
+     * The freed pages available for reuse
+     */
+    private int[] freePages = new int[16];
+
+    /**
+     * The number of freed pages available for reuse
+     */
+    private int freePageCount;
+
+    /**
+     * The pages holding attached buffers, which are never freed as allocations
+     */
+    private final BitSet attachedPages = new BitSet();
+
+    /**
+     * Written by {@link #storeFence()} and read by {@link #loadFence()}, only for the release and acquire ordering of its accesses
+     */
+    private final AtomicLong fence = new AtomicLong();
+
+    /**
+     * The first free block of each size class, each free block holds the address of the next one
+     */
+    private final long[] freeBlocks = new long[MAX_BLOCK_BITS - MIN_BLOCK_BITS + 1];
+
+    /**
+     * The next unused block in each size class's current slab
+     */
+    private final long[] slabPositions = new long[MAX_BLOCK_BITS - MIN_BLOCK_BITS + 1];
+
+    /**
+     * The end of each size class's current slab
+     */
+    private final long[] slabLimits = new long[MAX_BLOCK_BITS - MIN_BLOCK_BITS + 1];
+
+    /**
+     * ByteBufferMemoryBackend constructor
+     *
+     * @param pageBits The number of address bits within a page
+     * @param slabSize The size of a slab holding small allocations
+     * @throws IllegalArgumentException if the page size or the slab size are out of range
+     */
+    ByteBufferMemoryBackend(int pageBits, int slabSize) {
+        if (pageBits < MAX_BLOCK_BITS || pageBits > DEFAULT_PAGE_BITS) {
+            throw new IllegalArgumentException("Page bits must be between " + MAX_BLOCK_BITS + " and " + DEFAULT_PAGE_BITS);
+        }
+        if (slabSize < 1 << MAX_BLOCK_BITS || slabSize > 1 << pageBits) {
+            throw new IllegalArgumentException("Slab size must be between the largest block size and the page size");
+        }
+
+        this.pageBits = pageBits;
+        this.pageSize = 1 << pageBits;
+        this.pageMask = pageSize - 1;
+        this.slabSize = slabSize;
+    }
+
+    /**
+     * Creates the backend with 1GB pages and 1MB slabs
+     *
+     * @return The backend
+     */
+    static ByteBufferMemoryBackend create() {
+        return new ByteBufferMemoryBackend(DEFAULT_PAGE_BITS, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Gets the backend's name, as used to select it
+     *
+     * @return The backend's name
+     */
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * Allocates a specific size of memory, the memory's content is undefined
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory
+     * @throws IllegalArgumentException if the size is negative
+     * @throws OutOfMemoryError         if the memory or the address space can't be allocated
+     */
+    @Override
+    public synchronized long allocateMemory(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Size must not be negative");
+        return bytes <= 1 << MAX_BLOCK_BITS ? allocateBlock(sizeClass(bytes)) : allocatePages(bytes);
+    }
+
+    /**
+     * Allocates a specific size of memory set to all zeroes, only small blocks are set as new pages' buffers are already zeroed
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory
+     * @throws IllegalArgumentException if the size is negative
+     * @throws OutOfMemoryError         if the memory or the address space can't be allocated
+     */
+    @Override
+    public synchronized long allocateZeroedMemory(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Size must not be negative");
+        if (bytes > 1 << MAX_BLOCK_BITS) return allocatePages(bytes);
+
+        long address = allocateBlock(sizeClass(bytes));
+        setMemory(address, bytes, (byte) 0);
+        return address;
+    }
+
+    /**
+     * Estimates the memory an allocation of a specific size really takes, small blocks take their whole size class
+     *
+     * @param bytes The size of the allocation
+     * @return The estimated memory taken by the allocation
+     */
+    @Override
+    public long allocatedSize(long bytes) {
+        return bytes <= 1 << MAX_BLOCK_BITS ? 1L << (sizeClass(bytes) + MIN_BLOCK_BITS) : bytes;
+    }
+
+    /**
+     * Frees previously allocated memory
+     *
+     * @param address The address pointing to the first byte in the allocated memory
+     * @throws IllegalArgumentException if the address was not allocated
+     */
+    @Override
+    public synchronized void freeMemory(long address) {
+        if (address == 0) return;
+
+        int page = (int) (address >>> pageBits);
+        int kind = page < pageCount ? pageTable.kinds[page] : 0;
+        if (kind < 0) {
+            int sizeClass = -kind - 1;
+            putLong(null, address, freeBlocks[sizeClass]);
+            freeBlocks[sizeClass] = address;
+        } else if (kind > 0 && (address & pageMask) == 0) {
+            pageTable.kinds[page] = 0;
+            for (int i = 0; i < kind; i++) {
+                releasePage(page + i);
+            }
+        } else {
+            throw new IllegalArgumentException("Address " + address + " was not allocated");
+        }
+    }
+
+    /**
+     * Sets all bytes of a block of memory to a value
+     *
+     * @param address The address of the memory block
+     * @param bytes   The size of the memory block
+     * @param value   The value to set the bytes to
+     */
+    @Override
+    public void setMemory(long address, long bytes, byte value) {
+        byte[] fill = new byte[(int) Math.min(bytes, FILL_CHUNK)];
+        if (value != 0) Arrays.fill(fill, value);
+        for (long done = 0; done < bytes; done += fill.length) {
+            copyFromBytes(fill, 0, address + done, (int) Math.min(fill.length, bytes - done));
+        }
+    }
+
+    /**
+     * Copies a block of memory, either side can be an object (e.g. a byte array) or, if the object is null, an absolute address
+     *
+     * @param srcBase    The object to copy from, or null for an absolute address
+     * @param srcOffset  The offset within the source object, or the absolute source address
+     * @param destBase   The object to copy to, or null for an absolute address
+     * @param destOffset The offset within the destination object, or the absolute destination address
+     * @param bytes      The number of bytes to copy
+     */
+    @Override
+    public void copyMemory(Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes) {
+        if (srcBase == null && destBase == null) {
+            copyPages(srcOffset, destOffset, bytes);
+        } else if (srcBase == null) {
+            copyToArray(srcOffset, destBase, destOffset, (int) bytes);
+        } else if (destBase == null) {
+            copyFromArray(srcBase, srcOffset, destOffset, (int) bytes);
+        } else if (srcBase.getClass() == destBase.getClass()) {
+            int shift = elementShift(srcBase);
+            System.arraycopy(srcBase, (int) (srcOffset >> shift), destBase, (int) (destOffset >> shift), (int) (bytes >> shift));
+        } else if (destBase instanceof byte[]) {
+            ByteBuffer dest = ByteBuffer.wrap((byte[]) destBase, (int) destOffset, (int) bytes).slice().order(NATIVE_ORDER);
+            putArray(dest, srcBase, srcOffset, (int) bytes);
+        } else if (srcBase instanceof byte[]) {
+            ByteBuffer src = ByteBuffer.wrap((byte[]) srcBase, (int) srcOffset, (int) bytes).slice().order(NATIVE_ORDER);
+            getArray(src, destBase, destOffset, (int) bytes);
+        } else {
+            throw new IllegalArgumentException("Arrays of different types can only be copied to or from byte arrays");
+        }
+    }
+
+    /**
+     * Gets the offset of the first element in a primitive array, always zero as arrays are accessed through heap buffers
+     *
+     * @param arrayClass The primitive array's class
+     * @return The offset of the first element
+     */
+    @Override
+    public long arrayBaseOffset(Class<?> arrayClass) {
+        return 0;
+    }
+
+    /**
+     * Gets the native address of a direct buffer's first byte, buffers outside of the page table have no address
+     *
+     * @param buffer The direct buffer
+     * @return Always zero, the buffer's content must be copied instead
+     */
+    @Override
+    public long bufferAddress(ByteBuffer buffer) {
+        return 0;
+    }
+
+    /**
+     * Makes a direct buffer the backend doesn't own addressable, by giving it its own page in the page table
+     *
+     * @param buffer The direct buffer, at most a page long
+     * @return The address of the buffer's first byte, ignoring the buffer's position
+     * @throws IllegalArgumentException if the buffer is not direct or is bigger than a page
+     */
+    @Override
+    public synchronized long attachBuffer(ByteBuffer buffer) {
+        if (!buffer.isDirect()) throw new IllegalArgumentException("Only direct buffers can be attached");
+        if (buffer.capacity() > pageSize) throw new IllegalArgumentException("Buffer is bigger than a page of " + pageSize + " bytes");
+
+        ByteBuffer attached = buffer.duplicate().order(NATIVE_ORDER);
+        attached.clear();
+        int page = reservePage(attached);
+        attachedPages.set(page);
+        return (long) page << pageBits;
+    }
+
+    /**
+     * Stops addressing an attached buffer and frees its page, the buffer itself is left to its owner
+     *
+     * @param address The address of the buffer's first byte
+     * @throws IllegalArgumentException if the address isn't an attached buffer's
+     */
+    @Override
+    public synchronized void detachBuffer(long address) {
+        int page = (int) (address >>> pageBits);
+        if ((address & pageMask) != 0 || !attachedPages.get(page)) {
+            throw new IllegalArgumentException("Address " + address + " is not an attached buffer");
+        }
+        attachedPages.clear(page);
+        releasePage(page);
+    }
+
+    /**
+     * An acquire read of the fence field, loads and stores after it can't be reordered before it,
+     * so once it reads the write of a {@link #storeFence()} it sees every store made before that fence
+     * There are no explicit fences without unsafe, so unlike a real load fence, loads before it can still be reordered after it
+     */
+    @Override
+    public void loadFence() {
+        fence.get();
+    }
+
+    /**
+     * A release write of the fence field, stores before it can't be reordered after it,
+     * so a {@link #loadFence()} reading this write sees them
+     * There are no explicit fences without unsafe, so unlike a real store fence, stores after it can still be reordered before it
+     */
+    @Override
+    public void storeFence() {
+        fence.lazySet(0);
+    }
+
+    /**
+     * Reads a byte from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The byte read
+     */
+    @Override
+    public byte getByte(Object base, long offset) {
+        if (base != null) return heap(base).get((int) offset);
+        return page(offset).get(offset(offset));
+    }
+
+    /**
+     * Writes a byte to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The byte value
+     */
+    @Override
+    public void putByte(Object base, long offset, byte value) {
+        if (base != null) {
+            heap(base).put((int) offset, value);
+        } else {
+            page(offset).put(offset(offset), value);
+        }
+    }
+
+    /**
+     * Reads a short from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The short read
+     */
+    @Override
+    public short getShort(Object base, long offset) {
+        if (base != null) return heap(base).getShort((int) offset);
+        int pageOffset = offset(offset);
+        return pageOffset <= pageSize - Short.BYTES ? page(offset).getShort(pageOffset) : (short) getBits(offset, Short.BYTES);
+    }
+
+    /**
+     * Writes a short to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The short value
+     */
+    @Override
+    public void putShort(Object base, long offset, short value) {
+        int pageOffset = offset(offset);
+        if (base != null) {
+            heap(base).putShort((int) offset, value);
+        } else if (pageOffset <= pageSize - Short.BYTES) {
+            page(offset).putShort(pageOffset, value);
+        } else {
+            putBits(offset, Short.BYTES, value);
+        }
+    }
+
+    /**
+     * Reads a character from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The character read
+     */
+    @Override
+    public char getChar(Object base, long offset) {
+        if (base != null) return heap(base).getChar((int) offset);
+        int pageOffset = offset(offset);
+        return pageOffset <= pageSize - Character.BYTES ? page(offset).getChar(pageOffset) : (char) getBits(offset, Character.BYTES);
+    }
+
+    /**
+     * Writes a character to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The character value
+     */
+    @Override
+    public void putChar(Object base, long offset, char value) {
+        int pageOffset = offset(offset);
+        if (base != null) {
+            heap(base).putChar((int) offset, value);
+        } else if (pageOffset <= pageSize - Character.BYTES) {
+            page(offset).putChar(pageOffset, value);
+        } else {
+            putBits(offset, Character.BYTES, value);
+        }
+    }
+
+    /**
+     * Reads an integer from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The integer read
+     */
+    @Override
+    public int getInt(Object base, long offset) {
+        if (base != null) return heap(base).getInt((int) offset);
+        int pageOffset = offset(offset);
+        return pageOffset <= pageSize - Integer.BYTES ? page(offset).getInt(pageOffset) : (int) getBits(offset, Integer.BYTES);
+    }
+
+    /**
+     * Writes a integer to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The integer value
+     */
+    @Override
+    public void putInt(Object base, long offset, int value) {
+        int pageOffset = offset(offset);
+        if (base != null) {
+            heap(base).putInt((int) offset, value);
+        } else if (pageOffset <= pageSize - Integer.BYTES) {
+            page(offset).putInt(pageOffset, value);
+        } else {
+            putBits(offset, Integer.BYTES, value);
+        }
+    }
+
+    /**
+     * Reads a long from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The long read
+     */
+    @Override
+    public long getLong(Object base, long offset) {
+        if (base != null) return heap(base).getLong((int) offset);
+        int pageOffset = offset(offset);
+        return pageOffset <= pageSize - Long.BYTES ? page(offset).getLong(pageOffset) : getBits(offset, Long.BYTES);
+    }
+
+    /**
+     * Writes a long to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The long value
+     */
+    @Override
+    public void putLong(Object base, long offset, long value) {
+        int pageOffset = offset(offset);
+        if (base != null) {
+            heap(base).putLong((int) offset, value);
+        } else if (pageOffset <= pageSize - Long.BYTES) {
+            page(offset).putLong(pageOffset, value);
+        } else {
+            putBits(offset, Long.BYTES, value);
+        }
+    }
+
+    /**
+     * Reads a float from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The float read
+     */
+    @Override
+    public float getFloat(Object base, long offset) {
+        return Float.intBitsToFloat(getInt(base, offset));
+    }
+
+    /**
+     * Writes a float to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The float value
+     */
+    @Override
+    public void putFloat(Object base, long offset, float value) {
+        putInt(base, offset, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Reads a double from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The double read
+     */
+    @Override
+    public double getDouble(Object base, long offset) {
+        return Double.longBitsToDouble(getLong(base, offset));
+    }
+
+    /**
+     * Writes a double to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The double value
+     */
+    @Override
+    public void putDouble(Object base, long offset, double value) {
+        putLong(base, offset, Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Gets the number of pages in the page table, including unused ones
+     *
+     * @return The number of pages in the page table
+     */
+    synchronized int pageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Gets the size class of a small allocation
+     *
+     * @param bytes The size of the allocation, at most the largest block size
+     * @return The size class, the log2 of the block size minus the log2 of the smallest block size
+     */
+    private static int sizeClass(long bytes) {
+        return bytes <= 1 << MIN_BLOCK_BITS ? 0 : Long.SIZE - Long.numberOfLeadingZeros(bytes - 1) - MIN_BLOCK_BITS;
+    }
+
+    /**
+     * Allocates a block from a size class's free list or slab, starting a new slab if needed
+     *
+     * @param sizeClass The size class
+     * @return The block's address
+     */
+    private long allocateBlock(int sizeClass) {
+        long address = freeBlocks[sizeClass];
+        if (address != 0) {
+            freeBlocks[sizeClass] = getLong(null, address);
+            return address;
+        }
+
+        long blockSize = 1L << (sizeClass + MIN_BLOCK_BITS);
+        if (slabPositions[sizeClass] + blockSize > slabLimits[sizeClass]) {
+            int page = reservePage(ByteBuffer.allocateDirect(slabSize).order(NATIVE_ORDER));
+            pageTable.kinds[page] = -sizeClass - 1;
+            slabPositions[sizeClass] = (long) page << pageBits;
+            slabLimits[sizeClass] = slabPositions[sizeClass] + slabSize;
+        }
+
+        address = slabPositions[sizeClass];
+        slabPositions[sizeClass] += blockSize;
+        return address;
+    }
+
+    /**
+     * Allocates consecutive pages holding a large allocation, only the last page can be smaller than the page size
+     *
+     * @param bytes The size of the allocation
+     * @return The address of the first page
+     */
+    private long allocatePages(long bytes) {
+        long count = (bytes + pageMask) >>> pageBits;
+        if (count > Integer.MAX_VALUE) throw new OutOfMemoryError("Unable to allocate " + bytes + " bytes, out of address space");
+
+        int first = reservePages((int) count);
+        int allocated = 0;
+        try {
+            for (; allocated < count; allocated++) {
+                long remaining = bytes - ((long) allocated << pageBits);
+                pageTable.buffers[first + allocated] = ByteBuffer.allocateDirect((int) Math.min(pageSize, remaining)).order(NATIVE_ORDER);
+            }
+        } finally {
+            if (allocated < count) {
+                for (int i = 0; i < count; i++) {
+                    releasePage(first + i);
+                }
+            }
+        }
+
+        pageTable.kinds[first] = (int) count;
+        return (long) first << pageBits;
+    }
+
+    /**
+     * Reserves consecutive pages in the page table, a single page reuses a freed page if any
+     *
+     * @param count The number of pages
+     * @return The first page
+     */
+    private int reservePages(int count) {
+        if (count == 1 && freePageCount > 0) {
+            return freePages[--freePageCount];
+        }
+
+        long maxPages = Math.min(Integer.MAX_VALUE - 8, 1L << (Long.SIZE - 1 - pageBits));
+        if (pageCount + (long) count > maxPages) throw new OutOfMemoryError("Out of address space");
+
+        int first = pageCount;
+        pageCount += count;
+        if (pageCount > pageTable.buffers.length) {
+            int capacity = (int) Math.min(maxPages, Math.max(pageCount, (long) pageTable.buffers.length * 2));
+            pageTable = PageTable.of(capacity, pageTable);
+        }
+        return first;
+    }
+
+    /**
+     * Reserves a single page in the page table for a buffer
+     *
+     * @param buffer The page's buffer
+     * @return The page
+     */
+    private int reservePage(ByteBuffer buffer) {
+        int page = reservePages(1);
+        pageTable.buffers[page] = buffer;
+        return page;
+    }
+
+    /**
+     * Releases a page's buffer to the garbage collector and keeps the page for reuse
+     *
+     * @param page The page
+     */
+    private void releasePage(int page) {
+        pageTable.buffers[page] = null;
+        pageTable.kinds[page] = 0;
+        if (freePageCount == freePages.length) {
+            freePages = Arrays.copyOf(freePages, freePageCount * 2);
+        }
+        freePages[freePageCount++] = page;
+    }
+
+    /**
+     * Gets the buffer of an address's page
+     *
+     * @param address The address
+     * @return The page's buffer
+     */
+    private ByteBuffer page(long address) {
+        return pageTable.buffers[(int) (address >>> pageBits)];
+    }
+
+    /**
+     * Gets the offset of an address within its page
+     *
+     * @param address The address
+     * @return The offset within the page
+     */
+    private int offset(long address) {
+        return (int) (address & pageMask);
+    }
+
+    /**
+     * Reads a value spanning two pages byte by byte
+     *
+     * @param address The value's address
+     * @param bytes   The value's size
+     * @return The value's bits
+     */
+    private long getBits(long address, int bytes) {
+        long bits = 0;
+        for (int i = 0; i < bytes; i++) {
+            int index = LITTLE_ENDIAN ? bytes - 1 - i : i;
+            bits = bits << Byte.SIZE | getByte(null, address + index) & 0xFF;
+        }
+        return bits;
+    }
+
+    /**
+     * Writes a value spanning two pages byte by byte
+     *
+     * @param address The value's address
+     * @param bytes   The value's size
+     * @param bits    The value's bits
+     */
+    private void putBits(long address, int bytes, long bits) {
+        for (int i = 0; i < bytes; i++) {
+            int shift = (LITTLE_ENDIAN ? i : bytes - 1 - i) * Byte.SIZE;
+            putByte(null, address + i, (byte) (bits >>> shift));
+        }
+    }
+
+    /**
+     * Copies memory between addresses, page by page
+     *
+     * @param srcAddress  The source address
+     * @param destAddress The destination address
+     * @param bytes       The number of bytes to copy
+     */
+    private void copyPages(long srcAddress, long destAddress, long bytes) {
+        while (bytes > 0) {
+            int srcOffset = offset(srcAddress);
+            int destOffset = offset(destAddress);
+            int chunk = (int) Math.min(bytes, Math.min(pageSize - srcOffset, pageSize - destOffset));
+
+            ByteBuffer src = page(srcAddress).duplicate();
+            src.limit(srcOffset + chunk).position(srcOffset);
+            ByteBuffer dest = page(destAddress).duplicate();
+            dest.position(destOffset);
+            dest.put(src);
+
+            srcAddress += chunk;
+            destAddress += chunk;
+            bytes -= chunk;
+        }
+    }
+
+    /**
+     * Copies bytes from a byte array to an address, page by page
+     *
+     * @param bytes   The byte array
+     * @param index   The index of the first byte to copy
+     * @param address The destination address
+     * @param length  The number of bytes to copy
+     */
+    private void copyFromBytes(byte[] bytes, int index, long address, int length) {
+        while (length > 0) {
+            int offset = offset(address);
+            int chunk = Math.min(length, pageSize - offset);
+
+            ByteBuffer dest = page(address).duplicate();
+            dest.position(offset);
+            dest.put(bytes, index, chunk);
+
+            index += chunk;
+            address += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Copies bytes from an address to a byte array, page by page
+     *
+     * @param address The source address
+     * @param bytes   The byte array
+     * @param index   The index of the first byte to copy to
+     * @param length  The number of bytes to copy
+     */
+    private void copyToBytes(long address, byte[] bytes, int index, int length) {
+        while (length > 0) {
+            int offset = offset(address);
+            int chunk = Math.min(length, pageSize - offset);
+
+            ByteBuffer src = page(address).duplicate();
+            src.position(offset);
+            src.get(bytes, index, chunk);
+
+            index += chunk;
+            address += chunk;
+            length -= chunk;
+        }
+    }
+
+    /**
+     * Copies a primitive array's elements to an address, directly when within a page or through a heap buffer otherwise
+     *
+     * @param array       The primitive array
+     * @param arrayOffset The offset of the first byte to copy within the array
+     * @param address     The destination address
+     * @param bytes       The number of bytes to copy
+     */
+    private void copyFromArray(Object array, long arrayOffset, long address, int bytes) {
+        if (array instanceof byte[]) {
+            copyFromBytes((byte[]) array, (int) arrayOffset, address, bytes);
+            return;
+        }
+
+        boolean withinPage = offset(address) + (long) bytes <= page(address).capacity();
+        ByteBuffer buffer = withinPage ? slice(address, bytes) : ByteBuffer.allocate(bytes).order(NATIVE_ORDER);
+        putArray(buffer, array, arrayOffset, bytes);
+        if (!withinPage) {
+            copyFromBytes(buffer.array(), 0, address, bytes);
+        }
+    }
+
+    /**
+     * Copies bytes from an address to a primitive array's elements, directly when within a page or through a heap buffer otherwise
+     *
+     * @param address     The source address
+     * @param array       The primitive array
+     * @param arrayOffset The offset of the first byte to copy to within the array
+     * @param bytes       The number of bytes to copy
+     */
+    private void copyToArray(long address, Object array, long arrayOffset, int bytes) {
+        if (array instanceof byte[]) {
+            copyToBytes(address, (byte[]) array, (int) arrayOffset, bytes);
+            return;
+        }
+
+        ByteBuffer buffer;
+        if (offset(address) + (long) bytes <= page(address).capacity()) {
+            buffer = slice(address, bytes);
+        } else {
+            buffer = ByteBuffer.allocate(bytes).order(NATIVE_ORDER);
+            copyToBytes(address, buffer.array(), 0, bytes);
+        }
+        getArray(buffer, array, arrayOffset, bytes);
+    }
+
+    /**
+     * Copies a primitive array's elements, other than bytes, to the start of a buffer
+     *
+     * @param buffer      The buffer, in native byte order
+     * @param array       The primitive array
+     * @param arrayOffset The offset of the first byte to copy within the array
+     * @param bytes       The number of bytes to copy
+     */
+    private static void putArray(ByteBuffer buffer, Object array, long arrayOffset, int bytes) {
+        int shift = elementShift(array);
+        int index = (int) (arrayOffset >> shift);
+        int count = bytes >> shift;
+        if (array instanceof short[]) {
+            buffer.asShortBuffer().put((short[]) array, index, count);
+        } else if (array instanceof char[]) {
+            buffer.asCharBuffer().put((char[]) array, index, count);
+        } else if (array instanceof int[]) {
+            buffer.asIntBuffer().put((int[]) array, index, count);
+        } else if (array instanceof long[]) {
+            buffer.asLongBuffer().put((long[]) array, index, count);
+        } else if (array instanceof float[]) {
+            buffer.asFloatBuffer().put((float[]) array, index, count);
+        } else {
+            buffer.asDoubleBuffer().put((double[]) array, index, count);
+        }
+    }
+
+    /**
+     * Copies the start of a buffer to a primitive array's elements, other than bytes
+     *
+     * @param buffer      The buffer, in native byte order
+     * @param array       The primitive array
+     * @param arrayOffset The offset of the first byte to copy to within the array
+     * @param bytes       The number of bytes to copy
+     */
+    private static void getArray(ByteBuffer buffer, Object array, long arrayOffset, int bytes) {
+        int shift = elementShift(array);
+        int index = (int) (arrayOffset >> shift);
+        int count = bytes >> shift;
+        if (array instanceof short[]) {
+            buffer.asShortBuffer().get((short[]) array, index, count);
+        } else if (array instanceof char[]) {
+            buffer.asCharBuffer().get((char[]) array, index, count);
+        } else if (array instanceof int[]) {
+            buffer.asIntBuffer().get((int[]) array, index, count);
+        } else if (array instanceof long[]) {
+            buffer.asLongBuffer().get((long[]) array, index, count);
+        } else if (array instanceof float[]) {
+            buffer.asFloatBuffer().get((float[]) array, index, count);
+        } else {
+            buffer.asDoubleBuffer().get((double[]) array, index, count);
+        }
+    }
+
+    /**
+     * Gets a buffer over a block of memory within a page
+     *
+     * @param address The block's address
+     * @param bytes   The block's size
+     * @return A buffer over the block, in native byte order
+     */
+    private ByteBuffer slice(long address, int bytes) {
+        int offset = offset(address);
+        ByteBuffer buffer = page(address).duplicate();
+        buffer.limit(offset + bytes).position(offset);
+        return buffer.slice().order(NATIVE_ORDER);
+    }
+
+    /**
+     * Gets a heap buffer over a byte array, in native byte order
+     *
+     * @param base The byte array
+     * @return The heap buffer
+     * @throws IllegalArgumentException if the object is not a byte array
+     */
+    private static ByteBuffer heap(Object base) {
+        if (!(base instanceof byte[])) throw new IllegalArgumentException("Only byte arrays can be accessed by value");
+        return ByteBuffer.wrap((byte[]) base).order(NATIVE_ORDER);
+    }
+
+    /**
+     * Gets the log2 of a primitive array's element size
+     *
+     * @param array The primitive array
+     * @return The log2 of the element size
+     * @throws IllegalArgumentException if the object is not a primitive array
+     */
+    private static int elementShift(Object array) {
+        if (array instanceof byte[]) return 0;
+        if (array instanceof short[] || array instanceof char[]) return 1;
+        if (array instanceof int[] || array instanceof float[]) return 2;
+        if (array instanceof long[] || array instanceof double[]) return 3;
+        throw new IllegalArgumentException("Unsupported memory base: " + array.getClass().getName());
+    }
+
+    /**
+     * PageTable, the page table's arrays, replaced together when the table grows
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class PageTable {
+
+        /**
+         * The buffer of each page, null for unused pages
+         */
+        private final ByteBuffer[] buffers;
+
+        /**
+         * The kind of each page, the number of pages for the first page of a large allocation,
+         * minus one minus the size class for a slab, or zero otherwise
+         */
+        private final int[] kinds;
+
+        /**
+         * Creates a page table, copying a previous one's pages
+         *
+         * @param capacity The number of pages the table can hold
+         * @param previous The previous table, null for an empty table
+         * @return A {@link PageTable} object
+         */
+        static PageTable of(int capacity, PageTable previous) {
+            if (previous == null) return new PageTable(new ByteBuffer[capacity], new int[capacity]);
+
+            return new PageTable(Arrays.copyOf(previous.buffers, capacity), Arrays.copyOf(previous.kinds, capacity));
+        }
+    }
+}
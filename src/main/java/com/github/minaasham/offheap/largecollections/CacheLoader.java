@@ -0,0 +1,33 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * CacheLoader, computes the values of a {@link LargeLoadingCache}'s missing keys, and reloads them when they're refreshed
+ * Only one load runs at a time for a key, threads asking for a key that's being loaded wait for that load's result
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+    /**
+     * Computes a key's value
+     *
+     * @param key The key to load
+     * @return The key's value, or null if the key has no value, in which case nothing is cached
+     * @throws Exception if the value can't be computed, the exception is passed to the threads waiting for it
+     */
+    V load(K key) throws Exception;
+
+    /**
+     * Computes a new value for a key that's already cached, by default it loads the key again
+     *
+     * @param key      The key to reload
+     * @param oldValue The key's cached value
+     * @return The key's new value, or null to remove the key from the cache
+     * @throws Exception if the value can't be computed, the old value is kept in this case
+     */
+    default V reload(K key, V oldValue) throws Exception {
+        return load(key);
+    }
+}
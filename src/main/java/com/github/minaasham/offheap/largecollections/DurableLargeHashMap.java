@@ -0,0 +1,380 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DurableLargeHashMap, a {@link LargeHashMap} whose contents survive crashes, kept in a directory as a snapshot and a write ahead log
+ * Every put, remove and clear is appended to the log before it's applied to the map, and only returns once its record is written to the log file,
+ * records of concurrent writers are written together by group commit, and forced as the {@link FsyncPolicy} says
+ * Opening the map loads the latest snapshot and replays the log on top of it, {@link #checkpoint()} saves a new snapshot and empties the log,
+ * so replaying on open stays short, replaying is idempotent so a crash in the middle of a checkpoint loses nothing
+ * Logging serializes keys and values straight into off heap buffers written through a {@link java.nio.channels.FileChannel}, so it makes no heap garbage
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class DurableLargeHashMap<K, V> implements LargeMap<K, V> {
+
+    /**
+     * The name of the snapshot file in the map's directory
+     */
+    private static final String SNAPSHOT_FILE = "snapshot";
+
+    /**
+     * The name of the write ahead log file in the map's directory
+     */
+    private static final String LOG_FILE = "log";
+
+    /**
+     * The lock ordering updates, so records are appended in the order they're applied to the map
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The map's directory
+     */
+    private final Path directory;
+
+    /**
+     * The map holding the entries
+     */
+    private final LargeHashMap<K, V> map;
+
+    /**
+     * The log of the updates since the latest snapshot
+     */
+    private final WriteAheadLog<K, V> log;
+
+    /**
+     * If the map was closed
+     */
+    private boolean closed;
+
+    /**
+     * Factory method for opening or creating a {@link DurableLargeHashMap} object, forcing every update's record before it returns
+     *
+     * @param directory       The map's directory, it's created if it doesn't exist
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link DurableLargeHashMap} object
+     * @throws IOException if the directory's files can't be read or written
+     */
+    public static <K, V> DurableLargeHashMap<K, V> open(Path directory, ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer) throws IOException {
+        return DurableLargeHashMap.open(directory, keySerializer, valueSerializer, FsyncPolicy.PER_OPERATION);
+    }
+
+    /**
+     * Factory method for opening or creating a {@link DurableLargeHashMap} object, loading the snapshot and replaying the log if they exist
+     * A record torn by a crash at the end of the log is dropped, along with the update it was logging
+     *
+     * @param directory       The map's directory, it's created if it doesn't exist
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param policy          When the log is forced
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link DurableLargeHashMap} object
+     * @throws IOException if the directory's files can't be read or written
+     */
+    public static <K, V> DurableLargeHashMap<K, V> open(@NonNull Path directory, @NonNull ObjectSerializer<K> keySerializer, @NonNull ObjectSerializer<V> valueSerializer, @NonNull FsyncPolicy policy) throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        LargeHashMap<K, V> map = Files.exists(snapshot)
+                ? LargeHashMap.loadFrom(snapshot, keySerializer, valueSerializer)
+                : LargeHashMap.of(keySerializer, valueSerializer);
+        try {
+            WriteAheadLog<K, V> log = WriteAheadLog.open(directory.resolve(LOG_FILE), keySerializer, valueSerializer, policy, map);
+            return new DurableLargeHashMap<>(directory, map, log);
+        } catch (IOException | RuntimeException e) {
+            map.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets key's value from the map
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key
+     */
+    @Override
+    public V get(K key) {
+        return map.get(key);
+    }
+
+    /**
+     * Puts the key and value in the map, and logs it, returning once the record is written as the fsync policy says
+     *
+     * @param key   The key to insert
+     * @param value The value to insert
+     * @return The previous value associated with the key, or null if the key didn't exist
+     * @throws UncheckedIOException if the log can't be written, or failed earlier
+     * @throws IllegalArgumentException if the record is too big for the log, the map isn't changed
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) {
+        V previous;
+        long position;
+        lock.lock();
+        try {
+            throwIfUnwritable();
+            position = log.appendPut(key, value);
+            try {
+                previous = map.put(key, value);
+            } catch (RuntimeException e) {
+                appendCurrent(key);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+        commit(position);
+        return previous;
+    }
+
+    /**
+     * Removes the key and its value from the map, and logs it if the key existed, returning once the record is written as the fsync policy says
+     *
+     * @param key The key to remove
+     * @return The value associated with the key, or null if the key didn't exist
+     * @throws UncheckedIOException if the log can't be written, or failed earlier
+     */
+    @Override
+    public V remove(@NonNull K key) {
+        V previous;
+        long position;
+        lock.lock();
+        try {
+            throwIfUnwritable();
+            if (map.get(key) == null) return null;
+
+            position = log.appendRemove(key);
+            try {
+                previous = map.remove(key);
+            } catch (RuntimeException e) {
+                appendCurrent(key);
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+        commit(position);
+        return previous;
+    }
+
+    /**
+     * Clears the map, and logs it, returning once the record is written as the fsync policy says
+     *
+     * @throws UncheckedIOException if the log can't be written, or failed earlier
+     */
+    @Override
+    public void clear() {
+        long position;
+        lock.lock();
+        try {
+            throwIfUnwritable();
+            position = log.appendClear();
+            map.clear();
+        } finally {
+            lock.unlock();
+        }
+        commit(position);
+    }
+
+    /**
+     * Gets the map's size
+     *
+     * @return The map's size
+     */
+    @Override
+    public long size() {
+        return map.size();
+    }
+
+    /**
+     * Gets the map's memory usage, the log's buffers aren't counted
+     *
+     * @return The map's memory usage
+     */
+    @Override
+    public MemoryUsage memoryUsage() {
+        return map.memoryUsage();
+    }
+
+    /**
+     * Saves a snapshot of the map and empties the log, updates wait while the snapshot is saved
+     * The snapshot is saved to a temporary file, forced, renamed over the previous snapshot, and the directory is forced,
+     * all before the log is emptied, so a crash leaves either snapshot whole with a log holding every update since it was saved,
+     * if it crashes after the rename but before the log is emptied, the log is replayed on top of the snapshot already holding its updates,
+     * which ends up in the same map
+     *
+     * @throws IOException if the snapshot can't be saved, or the log can't be emptied
+     */
+    public void checkpoint() throws IOException {
+        lock.lock();
+        try {
+            throwIfClosed();
+            map.saveTo(directory.resolve(SNAPSHOT_FILE));
+            log.reset();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<K, V>}
+     *
+     * @return The map's iterator
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return map.iterator();
+    }
+
+    /**
+     * Returns a cursor over the serialized entries of the map
+     *
+     * @return The map's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        return map.cursor();
+    }
+
+    /**
+     * Writes and forces the log's pending records, closes it, and disposes of the map's off heap allocations
+     *
+     * @throws UncheckedIOException if the log can't be written or closed
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            throwIfClosed();
+            closed = true;
+            try {
+                log.close();
+            } finally {
+                map.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the hash code value for this {@link LargeMap}, i.e.,
+     * the sum of, for each key-value pair in the map,
+     * {@code key.hashCode() ^ value.hashCode()}.
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is a map with the same
+     * mappings as this map.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        DurableLargeHashMap<K, V> that = (DurableLargeHashMap<K, V>) o;
+        return map.equals(that.map);
+    }
+
+    /**
+     * Returns a string representation of this map.  The string
+     * representation consists of a list of key-value mappings (in no
+     * particular order) enclosed in braces ("{@code {}}").  Adjacent
+     * mappings are separated by the characters {@code ",\n"} (comma
+     * and new line).  Each key-value mapping is rendered as {@code "  "}
+     * (two white spaces; for indentation) the key
+     * followed by an equals sign ("{@code =}") followed by the
+     * associated value.
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+
+    /**
+     * Waits for an update's record to be committed
+     *
+     * @param position The position returned by the append
+     * @throws UncheckedIOException if the log can't be written
+     */
+    private void commit(long position) {
+        try {
+            log.commit(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends a record of key's current value in the map, after applying an update that was already logged failed,
+     * so replaying the log ends up with the map's actual state rather than the failed update
+     *
+     * @param key The key the update failed for
+     */
+    private void appendCurrent(K key) {
+        V current = map.get(key);
+        if (current == null) {
+            log.appendRemove(key);
+        } else {
+            log.appendPut(key, current);
+        }
+    }
+
+    /**
+     * Checks if the map can be updated and throws an exception if not, must be called with the lock held
+     *
+     * @throws IllegalStateException if the map was closed
+     * @throws UncheckedIOException  if the log failed earlier
+     */
+    private void throwIfUnwritable() {
+        throwIfClosed();
+        try {
+            log.throwIfFailed();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Checks if the map was closed and throws an exception if so
+     *
+     * @throws IllegalStateException if the map was closed
+     */
+    private void throwIfClosed() {
+        if (closed) throw new IllegalStateException("Map was already closed");
+    }
+}
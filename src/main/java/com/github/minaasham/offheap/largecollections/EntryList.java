@@ -0,0 +1,155 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * EntryList, a doubly linked list of off heap entries threaded through metadata at the start of every entry,
+ * the metadata also keeps the entry key's hash, so entries can be deleted from their map without reading their key
+ * Collections keeping their own metadata put it after this list's, at {@link #METADATA_SIZE}, only the list's first and last entries are kept on heap
+ * An entry can be in a single list at a time, and must be unlinked before its map frees it,
+ * it's not thread safe and is package private as it's an internal implementation detail
+ */
+final class EntryList {
+
+    /**
+     * The offset of the previous entry's address in an entry's metadata
+     */
+    private static final int PREVIOUS_OFFSET = 0;
+
+    /**
+     * The offset of the next entry's address in an entry's metadata
+     */
+    private static final int NEXT_OFFSET = 8;
+
+    /**
+     * The offset of the key's hash in an entry's metadata
+     */
+    private static final int HASH_OFFSET = 16;
+
+    /**
+     * The size of the metadata the list uses at the start of every entry
+     */
+    static final int METADATA_SIZE = 20;
+
+    /**
+     * The first entry, 0 if the list is empty
+     */
+    private long head;
+
+    /**
+     * The last entry, 0 if the list is empty
+     */
+    private long tail;
+
+    /**
+     * Gets the list's first entry
+     *
+     * @return The first entry address pointer, 0 if the list is empty
+     */
+    long head() {
+        return head;
+    }
+
+    /**
+     * Gets the list's last entry
+     *
+     * @return The last entry address pointer, 0 if the list is empty
+     */
+    long tail() {
+        return tail;
+    }
+
+    /**
+     * Adds an entry at the start of the list
+     *
+     * @param entryPointer The entry address pointer
+     */
+    void linkFirst(long entryPointer) {
+        linkAfter(0, entryPointer);
+    }
+
+    /**
+     * Adds an entry at the end of the list
+     *
+     * @param entryPointer The entry address pointer
+     */
+    void linkLast(long entryPointer) {
+        linkAfter(tail, entryPointer);
+    }
+
+    /**
+     * Adds an entry right after another entry of the list, this puts an entry replacing an unlinked one back in its place
+     *
+     * @param previousEntry The entry to add it after, 0 to add it at the start of the list
+     * @param entryPointer  The entry address pointer
+     */
+    void linkAfter(long previousEntry, long entryPointer) {
+        long nextEntry = previousEntry != 0 ? next(previousEntry) : head;
+        UnsafeUtils.putLong(entryPointer + PREVIOUS_OFFSET, previousEntry);
+        UnsafeUtils.putLong(entryPointer + NEXT_OFFSET, nextEntry);
+        if (previousEntry != 0) UnsafeUtils.putLong(previousEntry + NEXT_OFFSET, entryPointer);
+        else head = entryPointer;
+        if (nextEntry != 0) UnsafeUtils.putLong(nextEntry + PREVIOUS_OFFSET, entryPointer);
+        else tail = entryPointer;
+    }
+
+    /**
+     * Removes an entry from the list, its links are left as they were so its neighbours can still be read
+     *
+     * @param entryPointer The entry address pointer
+     */
+    void unlink(long entryPointer) {
+        long previousEntry = previous(entryPointer);
+        long nextEntry = next(entryPointer);
+        if (previousEntry != 0) UnsafeUtils.putLong(previousEntry + NEXT_OFFSET, nextEntry);
+        else head = nextEntry;
+        if (nextEntry != 0) UnsafeUtils.putLong(nextEntry + PREVIOUS_OFFSET, previousEntry);
+        else tail = previousEntry;
+    }
+
+    /**
+     * Removes all the entries from the list, without touching them
+     */
+    void clear() {
+        head = 0;
+        tail = 0;
+    }
+
+    /**
+     * Gets the previous entry in an entry's list
+     *
+     * @param entryPointer The entry address pointer
+     * @return The previous entry address pointer, 0 if the entry is the list's first
+     */
+    static long previous(long entryPointer) {
+        return UnsafeUtils.getLong(entryPointer + PREVIOUS_OFFSET);
+    }
+
+    /**
+     * Gets the next entry in an entry's list
+     *
+     * @param entryPointer The entry address pointer
+     * @return The next entry address pointer, 0 if the entry is the list's last
+     */
+    static long next(long entryPointer) {
+        return UnsafeUtils.getLong(entryPointer + NEXT_OFFSET);
+    }
+
+    /**
+     * Gets an entry's key hash
+     *
+     * @param entryPointer The entry address pointer
+     * @return The key's hash
+     */
+    static int hash(long entryPointer) {
+        return UnsafeUtils.getInt(entryPointer + HASH_OFFSET);
+    }
+
+    /**
+     * Sets an entry's key hash, once the entry is inserted in its map
+     *
+     * @param entryPointer The entry address pointer
+     * @param hash         The key's hash, as returned by {@link LargeHashMap#hash}
+     */
+    static void putHash(long entryPointer, int hash) {
+        UnsafeUtils.putInt(entryPointer + HASH_OFFSET, hash);
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * EvictionCallback, called by an {@link OffHeapMemoryBudget} when it's exhausted, to free memory by evicting entries
+ * It's called on the allocating thread before it takes the lock of the map being written to, holding no collection's lock,
+ * so it may remove entries from that map or any other collection sharing the budget, but shouldn't add entries to the map being written to
+ */
+@FunctionalInterface
+public interface EvictionCallback {
+
+    /**
+     * Evicts entries to free memory
+     *
+     * @param map   The map being written to, the map backing it for sets and bytes maps, null while a collection is being created
+     * @param bytes The number of bytes missing from the budget for the allocation to succeed
+     */
+    void evict(LargeMap<?, ?> map, long bytes);
+}
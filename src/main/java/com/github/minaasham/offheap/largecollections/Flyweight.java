@@ -0,0 +1,238 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * Flyweight, an abstract base for views reading and writing the fields of a serialized value directly in the map's memory
+ * A view is bound to a value only while {@link LargeHashMap#read} or {@link LargeHashMap#update} is running,
+ * and it's read only when bound by {@link LargeHashMap#read}, as the map's write lock isn't held then
+ * fields are read and written at fixed offsets from the start of the value, without deserializing or allocating
+ * A view holds no state other than the bound value, so a single instance can be reused for any number of calls from the same thread
+ */
+public abstract class Flyweight {
+
+    /**
+     * The number of bytes the view reads and writes from the start of the value
+     */
+    private final int sizeInBytes;
+
+    /**
+     * The address of the bound value, or 0 if the view is not bound
+     */
+    private long address;
+
+    /**
+     * Whether the bound value can be written, only when it's bound under the map's write lock
+     */
+    private boolean writable;
+
+    /**
+     * Flyweight constructor
+     *
+     * @param sizeInBytes The number of bytes the view reads and writes from the start of the value
+     */
+    protected Flyweight(int sizeInBytes) {
+        if (sizeInBytes < 0) {
+            throw new IllegalArgumentException("Flyweight size in bytes must be positive or zero, size in bytes passed: " + sizeInBytes);
+        }
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    /**
+     * Gets the number of bytes the view reads and writes from the start of the value
+     *
+     * @return The size in bytes
+     */
+    public final int sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    /**
+     * Binds the view to a value
+     *
+     * @param address  The address of the value
+     * @param writable Whether the view's setters can write the value
+     */
+    final void bind(long address, boolean writable) {
+        this.address = address;
+        this.writable = writable;
+    }
+
+    /**
+     * Unbinds the view from its value
+     */
+    final void unbind() {
+        this.address = 0;
+        this.writable = false;
+    }
+
+    /**
+     * Reads a byte
+     *
+     * @param offset The offset from the start of the value
+     * @return The byte
+     */
+    protected final byte getByte(int offset) {
+        return UnsafeUtils.getByte(validateAndGetAddress(offset, Byte.BYTES));
+    }
+
+    /**
+     * Writes a byte
+     *
+     * @param offset The offset from the start of the value
+     * @param value  The byte
+     */
+    protected final void putByte(int offset, byte value) {
+        UnsafeUtils.putByte(validateAndGetWritableAddress(offset, Byte.BYTES), value);
+    }
+
+    /**
+     * Reads a short
+     *
+     * @param offset The offset from the start of the value
+     * @return The short
+     */
+    protected final short getShort(int offset) {
+        return UnsafeUtils.getShort(validateAndGetAddress(offset, Short.BYTES));
+    }
+
+    /**
+     * Writes a short
+     *
+     * @param offset The offset from the start of the value
+     * @param value  The short
+     */
+    protected final void putShort(int offset, short value) {
+        UnsafeUtils.putShort(validateAndGetWritableAddress(offset, Short.BYTES), value);
+    }
+
+    /**
+     * Reads a char
+     *
+     * @param offset The offset from the start of the value
+     * @return The char
+     */
+    protected final char getChar(int offset) {
+        return UnsafeUtils.getChar(validateAndGetAddress(offset, Character.BYTES));
+    }
+
+    /**
+     * Writes a char
+     *
+     * @param offset The offset from the start of the value
+     * @param value  The char
+     */
+    protected final void putChar(int offset, char value) {
+        UnsafeUtils.putChar(validateAndGetWritableAddress(offset, Character.BYTES), value);
+    }
+
+    /**
+     * Reads an int
+     *
+     * @param offset The offset from the start of the value
+     * @return The int
+     */
+    protected final int getInt(int offset) {
+        return UnsafeUtils.getInt(validateAndGetAddress(offset, Integer.BYTES));
+    }
+
+    /**
+     * Writes an int
+     *
+     * @param offset The offset from the start of the value
+     * @param value  The int
+     */
+    protected final void putInt(int offset, int value) {
+        UnsafeUtils.putInt(validateAndGetWritableAddress(offset, Integer.BYTES), value);
+    }
+
+    /**
+     * Reads a long
+     *
+     * @param offset The offset from the start of the value
+     * @return The long
+     */
+    protected final long getLong(int offset) {
+        return UnsafeUtils.getLong(validateAndGetAddress(offset, Long.BYTES));
+    }
+
+    /**
+     * Writes a long
+     *
+     * @param offset The offset from the start of the value
+     * @param value  The long
+     */
+    protected final void putLong(int offset, long value) {
+        UnsafeUtils.putLong(validateAndGetWritableAddress(offset, Long.BYTES), value);
+    }
+
+    /**
+     * Reads a float
+     *
+     * @param offset The offset from the start of the value
+     * @return The float
+     */
+    protected final float getFloat(int offset) {
+        return UnsafeUtils.getFloat(validateAndGetAddress(offset, Float.BYTES));
+    }
+
+    /**
+     * Writes a float
+     *
+     * @param offset The offset from the start of the value
+     * @param value  The float
+     */
+    protected final void putFloat(int offset, float value) {
+        UnsafeUtils.putFloat(validateAndGetWritableAddress(offset, Float.BYTES), value);
+    }
+
+    /**
+     * Reads a double
+     *
+     * @param offset The offset from the start of the value
+     * @return The double
+     */
+    protected final double getDouble(int offset) {
+        return UnsafeUtils.getDouble(validateAndGetAddress(offset, Double.BYTES));
+    }
+
+    /**
+     * Writes a double
+     *
+     * @param offset The offset from the start of the value
+     * @param value  The double
+     */
+    protected final void putDouble(int offset, double value) {
+        UnsafeUtils.putDouble(validateAndGetWritableAddress(offset, Double.BYTES), value);
+    }
+
+    /**
+     * Validates that the view is bound and the field is within the view's size, and gets the field's address
+     *
+     * @param offset The field's offset from the start of the value
+     * @param bytes  The field's size in bytes
+     * @return The field's address
+     */
+    private long validateAndGetAddress(int offset, int bytes) {
+        if (address == 0) {
+            throw new IllegalStateException("Flyweight is not bound to a value, views can only be used inside read or update calls");
+        }
+        if (offset < 0 || offset > sizeInBytes - bytes) {
+            throw new IndexOutOfBoundsException("Field at offset " + offset + " with size " + bytes + " is outside the view's size " + sizeInBytes);
+        }
+        return address + offset;
+    }
+
+    /**
+     * Validates that the view is bound for writing and the field is within the view's size, and gets the field's address
+     *
+     * @param offset The field's offset from the start of the value
+     * @param bytes  The field's size in bytes
+     * @return The field's address
+     */
+    private long validateAndGetWritableAddress(int offset, int bytes) {
+        long fieldAddress = validateAndGetAddress(offset, bytes);
+        if (!writable) {
+            throw new IllegalStateException("Flyweight is bound for reading, values can only be written inside update calls");
+        }
+        return fieldAddress;
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * FrequencySketch, an off heap count-min sketch estimating how often keys were seen, used for TinyLFU admission
+ * Each key has four 4 bit counters spread over a table of longs, its frequency is the smallest of them, at most 15,
+ * when the number of increments reaches ten times the table's capacity all the counters are halved, so old popularity ages out
+ * This is the same design as Caffeine's frequency sketch, with the table allocated off heap,
+ * the table's memory is counted as overhead in {@link MemoryUsage}
+ * This class is not thread safe and is package private as it's an internal implementation detail
+ */
+final class FrequencySketch {
+
+    /**
+     * The seeds mixed into the key's hash to pick each of its four counters
+     */
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * Clears the lowest bit of every counter after it was shifted right, i.e. halves all the counters of a long
+     */
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    /**
+     * The lowest bit of every counter in a long
+     */
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    /**
+     * The largest table capacity, in longs
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The address of the table of counters, 0 if no table was allocated yet
+     */
+    private long table;
+
+    /**
+     * The number of longs in the table minus one, the table's capacity is a power of two
+     */
+    private int tableMask;
+
+    /**
+     * The number of increments after which the counters are halved
+     */
+    private long sampleSize;
+
+    /**
+     * The number of increments since the counters were last halved
+     */
+    private long size;
+
+    /**
+     * Grows the table if required to accurately estimate the frequency of a number of keys, the counters are lost when it grows
+     *
+     * @param maximumSize The number of keys
+     */
+    void ensureCapacity(long maximumSize) {
+        long maximum = Math.min(Math.max(maximumSize, 2), MAXIMUM_CAPACITY);
+        int capacity = (int) Long.highestOneBit(maximum - 1) << 1;
+        if (table != 0 && capacity <= tableMask + 1) return;
+
+        close();
+        table = UnsafeUtils.allocate((long) capacity * Long.BYTES);
+        tableMask = capacity - 1;
+        MemoryUsage.record(0, 0, tableBytes());
+        sampleSize = 10L * capacity;
+        size = 0;
+    }
+
+    /**
+     * Gets the bytes allocated for the table
+     *
+     * @return The table's size in bytes
+     */
+    long tableBytes() {
+        return table != 0 ? (tableMask + 1L) * Long.BYTES : 0;
+    }
+
+    /**
+     * Estimates how often a key was seen
+     *
+     * @param hash The key's hash
+     * @return The key's estimated frequency, from 0 to 15
+     */
+    int frequency(int hash) {
+        if (table == 0) return 0;
+
+        int spread = spread(hash);
+        int start = (spread & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            long counters = UnsafeUtils.getLong(table + (long) indexOf(spread, i) * Long.BYTES);
+            frequency = Math.min(frequency, (int) ((counters >>> ((start + i) << 2)) & 0xfL));
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the frequency of a key, halving all the counters once enough keys were seen
+     *
+     * @param hash The key's hash
+     */
+    void increment(int hash) {
+        if (table == 0) return;
+
+        int spread = spread(hash);
+        int start = (spread & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexOf(spread, i), start + i);
+        }
+
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Frees the table
+     */
+    void close() {
+        if (table == 0) return;
+
+        MemoryUsage.record(0, 0, -tableBytes());
+        UnsafeUtils.free(table);
+        table = 0;
+    }
+
+    /**
+     * Increments a counter unless it's already at its maximum of 15
+     *
+     * @param index   The index of the long holding the counter
+     * @param counter The counter within the long, from 0 to 15
+     * @return {@code true} if the counter was incremented
+     */
+    private boolean incrementAt(int index, int counter) {
+        long address = table + (long) index * Long.BYTES;
+        long counters = UnsafeUtils.getLong(address);
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((counters & mask) == mask) return false;
+
+        UnsafeUtils.putLong(address, counters + (1L << offset));
+        return true;
+    }
+
+    /**
+     * Halves all the counters, and the number of increments accordingly
+     */
+    private void reset() {
+        long odd = 0;
+        for (long address = table, end = table + (tableMask + 1L) * Long.BYTES; address < end; address += Long.BYTES) {
+            long counters = UnsafeUtils.getLong(address);
+            odd += Long.bitCount(counters & ONE_MASK);
+            UnsafeUtils.putLong(address, (counters >>> 1) & RESET_MASK);
+        }
+        size = (size - (odd >>> 2)) >>> 1;
+    }
+
+    /**
+     * Gets the index of the long holding one of the key's counters
+     *
+     * @param spread The key's spread hash
+     * @param i      Which of the key's counters, from 0 to 3
+     * @return The index in the table
+     */
+    private int indexOf(int spread, int i) {
+        long hash = (spread + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return (int) hash & tableMask;
+    }
+
+    /**
+     * Spreads a hash to protect against poorly distributed hash codes
+     *
+     * @param hash The key's hash
+     * @return The spread hash
+     */
+    private static int spread(int hash) {
+        int x = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FsyncPolicy, when a {@link DurableLargeHashMap}'s write ahead log is forced to the storage device
+ * Whatever the policy, an update's record is written to the log file before the update returns, so it survives the process crashing,
+ * the policy only decides which updates also survive the operating system crashing or losing power
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class FsyncPolicy {
+
+    /**
+     * Every update returns once its record is forced, updates from concurrent threads share a single force
+     */
+    public static final FsyncPolicy PER_OPERATION = new FsyncPolicy(0);
+
+    /**
+     * The log is only forced by checkpoints and when the map is closed, the operating system writes it back when it sees fit
+     */
+    public static final FsyncPolicy NONE = new FsyncPolicy(-1);
+
+    /**
+     * How often the log is forced in nanoseconds, 0 for every update, -1 for never
+     */
+    private final long intervalNanos;
+
+    /**
+     * Factory method for creating a {@link FsyncPolicy} object that forces the log in the background at a fixed interval,
+     * so the updates of at most the last interval are lost if the operating system crashes
+     *
+     * @param interval How often the log is forced, must be positive
+     * @param unit     The interval's unit
+     * @return A {@link FsyncPolicy} object
+     */
+    public static FsyncPolicy every(long interval, @NonNull TimeUnit unit) {
+        if (interval <= 0) throw new IllegalArgumentException("Interval must be positive");
+
+        return new FsyncPolicy(unit.toNanos(interval));
+    }
+
+    /**
+     * Checks if every update is forced before it returns
+     *
+     * @return {@code true} if every update is forced
+     */
+    boolean perOperation() {
+        return intervalNanos == 0;
+    }
+
+    /**
+     * Checks if the log is forced in the background at a fixed interval
+     *
+     * @return {@code true} if the log is forced periodically
+     */
+    boolean periodic() {
+        return intervalNanos > 0;
+    }
+
+    /**
+     * Gets how often the log is forced
+     *
+     * @return The interval in nanoseconds
+     */
+    long intervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Returns a string representation of this policy
+     *
+     * @return a string representation of this policy
+     */
+    @Override
+    public String toString() {
+        if (perOperation()) return "FsyncPolicy(per operation)";
+        if (periodic()) return "FsyncPolicy(every " + intervalNanos + "ns)";
+        return "FsyncPolicy(none)";
+    }
+}
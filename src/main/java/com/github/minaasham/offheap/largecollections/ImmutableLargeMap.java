@@ -0,0 +1,1669 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.lang.ThreadLocal.withInitial;
+
+/**
+ * ImmutableLargeMap, a read only map built once by a {@link Builder}, laid out in a single contiguous region with no empty slots
+ * Keys are placed by a minimal perfect hash function built with the hash and displace method: keys are hashed into small buckets,
+ * and every bucket, biggest first, gets a pilot number that sends all its keys to free slots, slots are 1% more than the keys
+ * to keep the search short, and keys sent to the extra slots are remapped to the free slots left among the first ones
+ * A lookup serializes the key, hashes its bytes, reads its bucket's pilot and compares the key bytes of the single entry it leads to,
+ * so keys are matched by their serialized form and must serialize the same way every time
+ * The region holds the header, the pilots, the remapped slots, the entries' positions for variable sized entries and the entries,
+ * which have the same layout as {@link LargeHashMap}'s, positions are relative to the region's start, so the region is written
+ * to a file as is by {@link #writeTo(Path)} and mapped back read only by {@link #open(Path, ObjectSerializer, ObjectSerializer)}
+ * The key hash only depends on the key's bytes, so a file can be opened in any JVM on a platform with the same byte order
+ * Modifying methods throw {@link UnsupportedOperationException}
+ *
+ * @param <K> The key type, cannot be null
+ * @param <V> The value type, cannot be null
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ImmutableLargeMap<K, V> implements LargeMap<K, V> {
+
+    /**
+     * The first int of a map file, written in the platform's byte order so files from another byte order are rejected
+     */
+    private static final int MAGIC = 0x494C4D50;
+
+    /**
+     * The version of the map file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the region's header, leaving room for fields added by later versions
+     */
+    private static final int HEADER_SIZE = 128;
+
+    /**
+     * The header's magic int
+     */
+    private static final int MAGIC_OFFSET = 0;
+
+    /**
+     * The header's version int
+     */
+    private static final int VERSION_OFFSET = 4;
+
+    /**
+     * The header's key fixed size int, -1 for variable sized keys
+     */
+    private static final int KEY_SIZE_OFFSET = 8;
+
+    /**
+     * The header's value fixed size int, -1 for variable sized values
+     */
+    private static final int VALUE_SIZE_OFFSET = 12;
+
+    /**
+     * The header's chunk bits int, entries never cross a chunk boundary so the region can be mapped in chunks
+     */
+    private static final int CHUNK_BITS_OFFSET = 16;
+
+    /**
+     * The header's key hash seed long
+     */
+    private static final int SEED_OFFSET = 24;
+
+    /**
+     * The header's size long
+     */
+    private static final int SIZE_OFFSET = 32;
+
+    /**
+     * The header's number of slots long
+     */
+    private static final int SLOTS_OFFSET = 40;
+
+    /**
+     * The header's number of buckets long
+     */
+    private static final int BUCKETS_OFFSET = 48;
+
+    /**
+     * The header's pilots position long
+     */
+    private static final int PILOTS_OFFSET = 56;
+
+    /**
+     * The header's remapped slots position long
+     */
+    private static final int REMAP_OFFSET = 64;
+
+    /**
+     * The header's entry positions position long, 0 when entries have a fixed size
+     */
+    private static final int POSITIONS_OFFSET = 72;
+
+    /**
+     * The header's entries position long
+     */
+    private static final int ENTRIES_OFFSET = 80;
+
+    /**
+     * The header's long number of bytes of entries
+     */
+    private static final int ENTRY_BYTES_OFFSET = 88;
+
+    /**
+     * The header's long size of the whole region
+     */
+    private static final int REGION_SIZE_OFFSET = 96;
+
+    /**
+     * The smallest number of bits of a position within a chunk, a chunk must hold the header
+     */
+    private static final int MIN_CHUNK_BITS = 12;
+
+    /**
+     * The average number of keys in a bucket
+     */
+    private static final int BUCKET_SIZE = 4;
+
+    /**
+     * The number of keys for every extra slot
+     */
+    private static final int KEYS_PER_EXTRA_SLOT = 100;
+
+    /**
+     * The number of pilots tried for a bucket before giving up on a seed
+     */
+    private static final int MAX_PILOTS = 1 << 20;
+
+    /**
+     * The number of seeds tried before giving up on building the map
+     */
+    private static final int MAX_SEEDS = 16;
+
+    /**
+     * The multiplier spreading pilots before they're mixed with the key hash
+     */
+    private static final long PILOT_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The lock guarding the map's region against being released while it's read
+     */
+    private final ReentrantReadWriteLock lock;
+
+    /**
+     * The memory reader passed to the key serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryReader> keyReader;
+
+    /**
+     * The memory reader passed to the value serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryReader> valueReader;
+
+    /**
+     * The scratch writer that looked up keys are serialized to before they're hashed and compared
+     */
+    private final ThreadLocal<ScratchMemoryWriter> scratchWriter;
+
+    /**
+     * The key object serializer
+     */
+    private final ObjectSerializer<K> keySerializer;
+
+    /**
+     * Does the key have a fixed size?
+     */
+    private final boolean keyFixedSize;
+
+    /**
+     * The value object serializer
+     */
+    private final ObjectSerializer<V> valueSerializer;
+
+    /**
+     * Does the value have a fixed size?
+     */
+    private final boolean valueFixedSize;
+
+    /**
+     * The mapped file holding the region, null if the region was allocated
+     */
+    private final MappedFile file;
+
+    /**
+     * The address of the allocated region, 0 if the region is mapped from a file
+     */
+    private final long regionAddress;
+
+    /**
+     * The number of bits of a position within a chunk
+     */
+    private final int chunkBits;
+
+    /**
+     * The key hash seed
+     */
+    private final long seed;
+
+    /**
+     * The number of entries
+     */
+    private final long size;
+
+    /**
+     * The number of slots, the entries and the extra slots
+     */
+    private final long slots;
+
+    /**
+     * The number of buckets
+     */
+    private final long buckets;
+
+    /**
+     * The pilots' position
+     */
+    private final long pilots;
+
+    /**
+     * The remapped slots' position
+     */
+    private final long remap;
+
+    /**
+     * The entry positions' position, 0 when entries have a fixed size
+     */
+    private final long positions;
+
+    /**
+     * The entries' position
+     */
+    private final long entries;
+
+    /**
+     * The number of bytes of entries
+     */
+    private final long entryBytes;
+
+    /**
+     * The size of the whole region
+     */
+    private final long regionSize;
+
+    /**
+     * If the map was closed and released its region
+     */
+    private boolean closed;
+
+    /**
+     * Creates a builder for an {@link ImmutableLargeMap}
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link Builder} object
+     */
+    public static <K, V> Builder<K, V> builder(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer) {
+        return ImmutableLargeMap.builder(keySerializer, valueSerializer, MappedFile.DEFAULT_CHUNK_BITS);
+    }
+
+    /**
+     * Creates a builder for an {@link ImmutableLargeMap} whose entries don't cross chunks of a specific size
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param chunkBits       The number of bits of a position within a chunk
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link Builder} object
+     * @throws IllegalArgumentException if the chunk bits are out of range
+     */
+    static <K, V> Builder<K, V> builder(@NonNull ObjectSerializer<K> keySerializer, @NonNull ObjectSerializer<V> valueSerializer, int chunkBits) {
+        if (chunkBits < MIN_CHUNK_BITS || chunkBits > MappedFile.DEFAULT_CHUNK_BITS) {
+            throw new IllegalArgumentException("Chunk bits must be between " + MIN_CHUNK_BITS + " and " + MappedFile.DEFAULT_CHUNK_BITS);
+        }
+        return new Builder<>(
+                keySerializer,
+                keySerializer instanceof FixedSizeObjectSerializer,
+                valueSerializer,
+                valueSerializer instanceof FixedSizeObjectSerializer,
+                chunkBits
+        );
+    }
+
+    /**
+     * Opens a map file written by {@link #writeTo(Path)}, the file is mapped read only and its pages are read as they're accessed,
+     * so the map is ready right away, and files opened by several processes share the operating system's page cache
+     *
+     * @param path            The map file's path
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return An {@link ImmutableLargeMap} object
+     * @throws IOException              if the file can't be opened or isn't a complete map file
+     * @throws IllegalArgumentException if the serializers' fixed sizes don't match the file's
+     */
+    public static <K, V> ImmutableLargeMap<K, V> open(@NonNull Path path, @NonNull ObjectSerializer<K> keySerializer, @NonNull ObjectSerializer<V> valueSerializer) throws IOException {
+        MappedFile file = MappedFile.openReadOnly(path, validate(path, fixedSize(keySerializer), fixedSize(valueSerializer)));
+        return ImmutableLargeMap.of(keySerializer, valueSerializer, file, 0);
+    }
+
+    /**
+     * Creates an {@link ImmutableLargeMap} object on a region
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param file            The mapped file holding the region, null if the region was allocated
+     * @param regionAddress   The address of the allocated region, 0 if the region is mapped from a file
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return An {@link ImmutableLargeMap} object
+     */
+    private static <K, V> ImmutableLargeMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, MappedFile file, long regionAddress) {
+        long headerAddress = file != null ? file.address(0) : regionAddress;
+        boolean keyTrusted = keySerializer instanceof TrustedObjectSerializer;
+        boolean valueTrusted = valueSerializer instanceof TrustedObjectSerializer;
+        return new ImmutableLargeMap<>(
+                new ReentrantReadWriteLock(),
+                withInitial(() -> keyTrusted ? new TrustedMemoryReader() : new UnsafeMemoryReader()),
+                withInitial(() -> valueTrusted ? new TrustedMemoryReader() : new UnsafeMemoryReader()),
+                withInitial(ScratchMemoryWriter::new),
+                keySerializer,
+                keySerializer instanceof FixedSizeObjectSerializer,
+                valueSerializer,
+                valueSerializer instanceof FixedSizeObjectSerializer,
+                file,
+                regionAddress,
+                UnsafeUtils.getInt(headerAddress + CHUNK_BITS_OFFSET),
+                UnsafeUtils.getLong(headerAddress + SEED_OFFSET),
+                UnsafeUtils.getLong(headerAddress + SIZE_OFFSET),
+                UnsafeUtils.getLong(headerAddress + SLOTS_OFFSET),
+                UnsafeUtils.getLong(headerAddress + BUCKETS_OFFSET),
+                UnsafeUtils.getLong(headerAddress + PILOTS_OFFSET),
+                UnsafeUtils.getLong(headerAddress + REMAP_OFFSET),
+                UnsafeUtils.getLong(headerAddress + POSITIONS_OFFSET),
+                UnsafeUtils.getLong(headerAddress + ENTRIES_OFFSET),
+                UnsafeUtils.getLong(headerAddress + ENTRY_BYTES_OFFSET),
+                UnsafeUtils.getLong(headerAddress + REGION_SIZE_OFFSET)
+        );
+    }
+
+    /**
+     * Validates a map file's header, it's read without mapping the file as the chunk size isn't known yet
+     *
+     * @param path      The file's path
+     * @param keySize   The key fixed size, -1 for variable sized keys
+     * @param valueSize The value fixed size, -1 for variable sized values
+     * @return The number of bits of a position within a chunk the map was built with
+     * @throws IOException              if the file isn't a complete map file
+     * @throws IllegalArgumentException if the serializers' fixed sizes don't match the file's
+     */
+    private static int validate(Path path, int keySize, int valueSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+        long fileSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            int read;
+            do {
+                read = channel.read(header);
+            } while (read >= 0 && header.hasRemaining());
+        }
+
+        if (header.hasRemaining() || header.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not an immutable map file, or created on a platform with a different byte order: " + path);
+        }
+        int version = header.getInt(VERSION_OFFSET);
+        if (version != VERSION) throw new IOException("Unsupported immutable map file version " + version + ": " + path);
+
+        int chunkBits = header.getInt(CHUNK_BITS_OFFSET);
+        if (chunkBits < MIN_CHUNK_BITS || chunkBits > MappedFile.DEFAULT_CHUNK_BITS || header.getLong(REGION_SIZE_OFFSET) != fileSize) {
+            throw new IOException("Corrupted or truncated immutable map file: " + path);
+        }
+        if (header.getInt(KEY_SIZE_OFFSET) != keySize || header.getInt(VALUE_SIZE_OFFSET) != valueSize) {
+            throw new IllegalArgumentException("Serializers' fixed sizes don't match the map file's");
+        }
+        return chunkBits;
+    }
+
+    /**
+     * Gets key's value from the map
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key
+     */
+    @Override
+    public V get(@NonNull K key) {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            if (size == 0) return null;
+
+            ScratchMemoryWriter scratch = scratchWriter.get().reset();
+            keySerializer.serialize(scratch, key);
+            int keySize = scratch.position();
+            long entryAddress = address(entryPosition(index(mix(scratch.longHash(0, keySize, seed)))));
+            if (keySize(entryAddress) != keySize || !scratch.matches(0, keySize, keyPointer(entryAddress))) return null;
+
+            return readValue(entryAddress);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Always throws as the map can't be modified
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     * @return Never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException("Immutable map can't be modified");
+    }
+
+    /**
+     * Always throws as the map can't be modified
+     *
+     * @param key The key to remove from the map
+     * @return Never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public V remove(K key) {
+        throw new UnsupportedOperationException("Immutable map can't be modified");
+    }
+
+    /**
+     * Always throws as the map can't be modified
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Immutable map can't be modified");
+    }
+
+    /**
+     * Gets the size of the map
+     *
+     * @return The size of the map
+     */
+    @Override
+    public long size() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the memory used by the map, the slot table being the pilots, remapped slots and entry positions,
+     * and the overhead being the header, alignment and chunk padding, and the backend's overhead for an allocated region
+     * A map opened from a file is mapped rather than allocated, so it's not included in {@link MemoryUsage#total()}
+     *
+     * @return The map's memory usage
+     */
+    @Override
+    public MemoryUsage memoryUsage() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return usage();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the map's region to a file, which can then be opened by {@link #open(Path, ObjectSerializer, ObjectSerializer)}
+     *
+     * The file is written to a temporary sibling file, forced, and atomically renamed over the path, so it's replaced whole or not at all
+     *
+     * @param path The file's path, an existing file is replaced
+     * @throws IOException if the file can't be written
+     */
+    public void writeTo(@NonNull Path path) throws IOException {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            try (SnapshotChannel channel = SnapshotChannel.create(path)) {
+                long chunkSize = 1L << chunkBits;
+                for (long position = 0; position < regionSize; position = (position | chunkSize - 1) + 1) {
+                    channel.putMemory(address(position), Math.min(chunkSize - (position & chunkSize - 1), regionSize - position));
+                }
+                channel.commit();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<K, V>}
+     *
+     * @return The map's iterator
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return new ImmutableLargeMapIterator<>(this);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a cursor over the serialized entries of the map
+     *
+     * @return The map's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return new ImmutableLargeMapCursor(this);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Releases the map's region, freeing it if it was allocated or closing its file if it was mapped
+     *
+     * @throws UncheckedIOException if the file can't be closed
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            closed = true;
+            if (file != null) {
+                file.close();
+            } else {
+                MemoryUsage usage = usage();
+                MemoryUsage.record(-usage.slotTableBytes(), -usage.entryBytes(), -usage.overheadBytes());
+                UnsafeUtils.free(regionAddress);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the hash code value for this {@link LargeMap}, i.e.,
+     * the sum of, for each key-value pair in the map,
+     * {@code key.hashCode() ^ value.hashCode()}.
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Entry<K, V> entry : this) {
+            hashCode += entry.getKey().hashCode() ^ entry.getValue().hashCode();
+        }
+        return hashCode;
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is a map with the same
+     * mappings as this map.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ImmutableLargeMap<K, V> that = (ImmutableLargeMap<K, V>) o;
+        if (closed || that.closed) return closed == that.closed;
+        if (size() != that.size()) return false;
+
+        for (Entry<K, V> entry : this) {
+            V thisValue = entry.getValue();
+            V thatValue = that.get(entry.getKey());
+            if (thatValue == null || !thatValue.equals(thisValue)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a string representation of this map.  The string
+     * representation consists of a list of key-value mappings (in no
+     * particular order) enclosed in braces ("{@code {}}").  Adjacent
+     * mappings are separated by the characters {@code ",\n"} (comma
+     * and new line).  Each key-value mapping is rendered as {@code "  "}
+     * (two white spaces; for indentation) the key
+     * followed by an equals sign ("{@code =}") followed by the
+     * associated value.
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{').append(System.lineSeparator());
+        for (Iterator<Entry<K, V>> iterator = iterator(); iterator.hasNext(); ) {
+            Entry<K, V> entry = iterator.next();
+            sb.append("  ").append(entry);
+            if (iterator.hasNext()) {
+                sb.append(",");
+            }
+            sb.append(System.lineSeparator());
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Checks if the map is already closed and throws an exception if so
+     *
+     * @throws IllegalStateException if the map was closed
+     */
+    private void throwIfClosed() {
+        if (closed) throw new IllegalStateException("Map was already closed");
+    }
+
+    /**
+     * Gets the memory used by the map
+     *
+     * @return The map's memory usage
+     */
+    private MemoryUsage usage() {
+        long slotTableBytes = entries - pilots;
+        long footprint = file != null ? regionSize : UnsafeUtils.allocatedSize(regionSize);
+        return MemoryUsage.of(slotTableBytes, entryBytes, footprint - slotTableBytes - entryBytes);
+    }
+
+    /**
+     * Translates a position in the region to its address
+     *
+     * @param position The position in the region
+     * @return The position's address
+     */
+    private long address(long position) {
+        return file != null ? file.address(position) : regionAddress + position;
+    }
+
+    /**
+     * Gets the index of the entry a key hash leads to, the only entry that can hold the key
+     *
+     * @param hash The key's mixed hash
+     * @return The entry's index
+     */
+    private long index(long hash) {
+        int pilot = UnsafeUtils.getInt(address(pilots + bucket(hash, buckets) * Integer.BYTES));
+        long slot = slot(hash, pilot, slots);
+        return slot < size ? slot : UnsafeUtils.getLong(address(remap + (slot - size) * Long.BYTES));
+    }
+
+    /**
+     * Gets the position of an entry
+     *
+     * @param index The entry's index
+     * @return The entry's position
+     */
+    private long entryPosition(long index) {
+        if (positions != 0) return UnsafeUtils.getLong(address(positions + index * Long.BYTES));
+
+        int entrySize = keySerializer.sizeInBytes(null) + valueSerializer.sizeInBytes(null);
+        return fixedEntryPosition(entries, index, entrySize, chunkBits);
+    }
+
+    /**
+     * Read a key from the map given the entry address
+     *
+     * @param entryAddress The entry address
+     * @return The entry's key
+     */
+    private K readKey(long entryAddress) {
+        return keySerializer.deserialize(keyReader.get().resetTo(keyPointer(entryAddress), keySize(entryAddress)));
+    }
+
+    /**
+     * Read a value from the map given the entry address
+     *
+     * @param entryAddress The entry address
+     * @return The entry's value
+     */
+    private V readValue(long entryAddress) {
+        long valueHeaderPointer = keyPointer(entryAddress) + keySize(entryAddress);
+        return valueSerializer.deserialize(valueReader.get().resetTo(valuePointer(valueHeaderPointer), valueSize(valueHeaderPointer)));
+    }
+
+    /**
+     * Gets the serialized key size given the entry address
+     *
+     * @param entryAddress The entry address
+     * @return The key size in bytes
+     */
+    private int keySize(long entryAddress) {
+        return keyFixedSize ? keySerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(entryAddress);
+    }
+
+    /**
+     * Gets the serialized key address given the entry address, i.e. the address right after the key header
+     *
+     * @param entryAddress The entry address
+     * @return The key address
+     */
+    private long keyPointer(long entryAddress) {
+        return keyFixedSize ? entryAddress : entryAddress + UnsafeUtils.getVarIntSize(entryAddress);
+    }
+
+    /**
+     * Gets the serialized value size given the value header address
+     *
+     * @param valueHeaderPointer The value header address
+     * @return The value size in bytes
+     */
+    private int valueSize(long valueHeaderPointer) {
+        return valueFixedSize ? valueSerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(valueHeaderPointer);
+    }
+
+    /**
+     * Gets the serialized value address given the value header address, i.e. the address right after the value header
+     *
+     * @param valueHeaderPointer The value header address
+     * @return The value address
+     */
+    private long valuePointer(long valueHeaderPointer) {
+        return valueFixedSize ? valueHeaderPointer : valueHeaderPointer + UnsafeUtils.getVarIntSize(valueHeaderPointer);
+    }
+
+    /**
+     * Gets a serializer's fixed size
+     *
+     * @param serializer The serializer
+     * @return The serializer's fixed size, -1 if it's variable sized
+     */
+    private static int fixedSize(ObjectSerializer<?> serializer) {
+        return serializer instanceof FixedSizeObjectSerializer ? serializer.sizeInBytes(null) : -1;
+    }
+
+    /**
+     * Gets the position of a fixed size entry, entries are packed back to back except where one would cross a chunk boundary
+     *
+     * @param entries   The entries' position
+     * @param index     The entry's index
+     * @param entrySize The entries' size, not bigger than a chunk
+     * @param chunkBits The number of bits of a position within a chunk
+     * @return The entry's position
+     */
+    private static long fixedEntryPosition(long entries, long index, long entrySize, int chunkBits) {
+        if (entrySize == 0) return entries;
+
+        long firstChunkEnd = (entries | (1L << chunkBits) - 1) + 1;
+        long firstChunkEntries = (firstChunkEnd - entries) / entrySize;
+        if (index < firstChunkEntries) return entries + index * entrySize;
+
+        long chunkEntries = (1L << chunkBits) / entrySize;
+        long chunkIndex = index - firstChunkEntries;
+        return firstChunkEnd + ((chunkIndex / chunkEntries) << chunkBits) + chunkIndex % chunkEntries * entrySize;
+    }
+
+    /**
+     * Mixes the bits of a hash so every bit depends on all the others, this is MurmurHash3's finalizer
+     *
+     * @param hash The hash to mix
+     * @return The mixed hash
+     */
+    private static long mix(long hash) {
+        long mixed = hash;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xFF51AFD7ED558CCDL;
+        mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return mixed ^ (mixed >>> 33);
+    }
+
+    /**
+     * Gets the bucket of a key hash
+     *
+     * @param hash    The key's mixed hash
+     * @param buckets The number of buckets
+     * @return The bucket's index
+     */
+    private static long bucket(long hash, long buckets) {
+        return (hash >>> 1) % buckets;
+    }
+
+    /**
+     * Gets the slot a pilot sends a key hash to
+     *
+     * @param hash  The key's mixed hash
+     * @param pilot The pilot of the key's bucket
+     * @param slots The number of slots
+     * @return The slot's index
+     */
+    private static long slot(long hash, int pilot, long slots) {
+        return (mix(hash ^ pilot * PILOT_MULTIPLIER) >>> 1) % slots;
+    }
+
+    /**
+     * Builder, collects the entries of an {@link ImmutableLargeMap} in memory and lays them out once they're all known
+     * Entries are serialized right away to a growing buffer in their final layout, so the built map only reorders them
+     * The builder's buffers are released when it's built or closed, it's not thread safe
+     *
+     * @param <K> The key type, cannot be null
+     * @param <V> The value type, cannot be null
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Builder<K, V> implements AutoCloseable {
+
+        /**
+         * The initial size of the entries buffer
+         */
+        private static final long INITIAL_ENTRIES_CAPACITY = 4096;
+
+        /**
+         * The initial number of entry positions
+         */
+        private static final long INITIAL_POSITIONS_CAPACITY = 512;
+
+        /**
+         * The initial size of the buffer serialized bytes are copied through
+         */
+        private static final int INITIAL_COPY_BUFFER_SIZE = 256;
+
+        /**
+         * The key object serializer
+         */
+        private final ObjectSerializer<K> keySerializer;
+
+        /**
+         * Does the key have a fixed size?
+         */
+        private final boolean keyFixedSize;
+
+        /**
+         * The value object serializer
+         */
+        private final ObjectSerializer<V> valueSerializer;
+
+        /**
+         * Does the value have a fixed size?
+         */
+        private final boolean valueFixedSize;
+
+        /**
+         * The number of bits of a position within a chunk
+         */
+        private final int chunkBits;
+
+        /**
+         * The scratch writer keys and values are serialized to before being copied to the entries buffer
+         */
+        private final ScratchMemoryWriter scratch = new ScratchMemoryWriter();
+
+        /**
+         * The buffer serialized bytes are copied through when entries are added from another map's cursor
+         */
+        private byte[] copyBuffer = new byte[INITIAL_COPY_BUFFER_SIZE];
+
+        /**
+         * The address of the buffer holding the entries back to back
+         */
+        private long entriesAddress = UnsafeUtils.allocateUninitialized(INITIAL_ENTRIES_CAPACITY);
+
+        /**
+         * The entries buffer's size
+         */
+        private long entriesCapacity = INITIAL_ENTRIES_CAPACITY;
+
+        /**
+         * The number of bytes used in the entries buffer
+         */
+        private long entriesSize = 0;
+
+        /**
+         * The address of the buffer holding every entry's position in the entries buffer
+         */
+        private long positionsAddress = UnsafeUtils.allocateUninitialized(INITIAL_POSITIONS_CAPACITY * Long.BYTES);
+
+        /**
+         * The number of positions the positions buffer can hold
+         */
+        private long positionsCapacity = INITIAL_POSITIONS_CAPACITY;
+
+        /**
+         * The number of entries
+         */
+        private long count = 0;
+
+        /**
+         * If the builder was built or closed and released its buffers
+         */
+        private boolean released = false;
+
+        /**
+         * Adds a key and value to the map, keys must be unique
+         *
+         * @param key   The key to add
+         * @param value The value to add
+         * @return A reference to itself
+         * @throws IllegalArgumentException if the entry is bigger than a chunk
+         * @throws IllegalStateException    if the builder was already built or closed
+         */
+        public Builder<K, V> put(@NonNull K key, @NonNull V value) {
+            throwIfReleased();
+            scratch.reset();
+            keySerializer.serialize(scratch, key);
+            int keySize = scratch.position();
+            valueSerializer.serialize(scratch, value);
+            append(keySize, scratch.position() - keySize);
+            return this;
+        }
+
+        /**
+         * Adds all the entries of a map, e.g. to freeze a {@link LargeHashMap} once it's fully loaded, keys must be unique
+         * Entries are copied in their serialized form through the map's cursor without being deserialized,
+         * so the map must use the same serializers as the builder
+         *
+         * @param map The map whose entries to add
+         * @return A reference to itself
+         * @throws IllegalArgumentException if an entry is bigger than a chunk
+         * @throws IllegalStateException    if the builder was already built or closed
+         */
+        public Builder<K, V> putAll(@NonNull LargeMap<K, V> map) {
+            throwIfReleased();
+            try (LargeMapCursor cursor = map.cursor()) {
+                while (cursor.next()) {
+                    scratch.reset();
+                    copy(cursor.key(), cursor.keySize());
+                    copy(cursor.value(), cursor.valueSize());
+                    append(cursor.keySize(), cursor.valueSize());
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Builds the map and writes it to a file, which is then mapped read only in place of the built region,
+         * so the built map only takes the page cache's memory, and its file can be opened by other processes
+         * with {@link ImmutableLargeMap#open(Path, ObjectSerializer, ObjectSerializer)}
+         *
+         * @param path The file's path, an existing file is replaced
+         * @return An {@link ImmutableLargeMap} object mapped from the file
+         * @throws IOException              if the file can't be written or mapped
+         * @throws IllegalArgumentException if a key was added more than once
+         * @throws IllegalStateException    if the builder was already built or closed, or no perfect hash function was found
+         */
+        public ImmutableLargeMap<K, V> build(@NonNull Path path) throws IOException {
+            try (ImmutableLargeMap<K, V> map = build()) {
+                map.writeTo(path);
+            }
+            return ImmutableLargeMap.open(path, keySerializer, valueSerializer);
+        }
+
+        /**
+         * Appends an entry to the entries buffer
+         *
+         * @param keySize   The key size, the key is at the start of the scratch writer
+         * @param valueSize The value size, the value follows the key in the scratch writer
+         * @throws IllegalArgumentException if the entry is bigger than a chunk
+         */
+        private void append(int keySize, int valueSize) {
+            int keyHeaderSize = keyFixedSize ? 0 : VarInts.varIntSize(keySize);
+            int valueHeaderSize = valueFixedSize ? 0 : VarInts.varIntSize(valueSize);
+            long entrySize = keyHeaderSize + keySize + valueHeaderSize + valueSize;
+            if (entrySize > 1L << chunkBits) {
+                throw new IllegalArgumentException("Entry of " + entrySize + " bytes is bigger than a chunk of " + (1L << chunkBits) + " bytes");
+            }
+
+            if (entriesSize + entrySize > entriesCapacity) {
+                long capacity = Math.max(entriesSize + entrySize, entriesCapacity * 2);
+                entriesAddress = grow(entriesAddress, entriesSize, capacity);
+                entriesCapacity = capacity;
+            }
+            if (count == positionsCapacity) {
+                positionsAddress = grow(positionsAddress, count * Long.BYTES, positionsCapacity * 2 * Long.BYTES);
+                positionsCapacity *= 2;
+            }
+
+            long keyPointer = entriesAddress + entriesSize + keyHeaderSize;
+            if (!keyFixedSize) UnsafeUtils.putVarInt(entriesAddress + entriesSize, keySize);
+            scratch.copyTo(0, keySize, keyPointer);
+            if (!valueFixedSize) UnsafeUtils.putVarInt(keyPointer + keySize, valueSize);
+            scratch.copyTo(keySize, valueSize, keyPointer + keySize + valueHeaderSize);
+
+            UnsafeUtils.putLong(positionsAddress + count * Long.BYTES, entriesSize);
+            entriesSize += entrySize;
+            count++;
+        }
+
+        /**
+         * Copies serialized bytes from a reader to the scratch writer
+         *
+         * @param reader The reader positioned at the bytes
+         * @param bytes  The number of bytes to copy
+         */
+        private void copy(MemoryReader reader, int bytes) {
+            if (copyBuffer.length < bytes) copyBuffer = new byte[Math.max(bytes, copyBuffer.length * 2)];
+            reader.read(copyBuffer, 0, bytes);
+            scratch.write(copyBuffer, 0, bytes);
+        }
+
+        /**
+         * Builds the map, finding a perfect hash function for the keys and laying out the entries by it,
+         * the builder's buffers are released and it can't be used anymore
+         *
+         * @return An {@link ImmutableLargeMap} object holding the added entries
+         * @throws IllegalArgumentException if a key was added more than once
+         * @throws IllegalStateException    if the builder was already built or closed, or no perfect hash function was found
+         */
+        public ImmutableLargeMap<K, V> build() {
+            throwIfReleased();
+            try {
+                ImmutableLargeMap<K, V> map = ImmutableLargeMap.of(keySerializer, valueSerializer, null, layout());
+                MemoryUsage usage = map.usage();
+                MemoryUsage.record(usage.slotTableBytes(), usage.entryBytes(), usage.overheadBytes());
+                return map;
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Releases the builder's buffers if it wasn't built
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                UnsafeUtils.free(entriesAddress);
+                UnsafeUtils.free(positionsAddress);
+            }
+        }
+
+        /**
+         * Checks if the builder was already built or closed and throws an exception if so
+         *
+         * @throws IllegalStateException if the builder was built or closed
+         */
+        private void throwIfReleased() {
+            if (released) throw new IllegalStateException("Builder was already built or closed");
+        }
+
+        /**
+         * Finds a perfect hash function for the keys, trying a few seeds, and lays out the region with it
+         *
+         * @return The address of the allocated region
+         * @throws IllegalArgumentException if a key was added more than once
+         * @throws IllegalStateException    if no perfect hash function was found
+         */
+        private long layout() {
+            long slots = slots();
+            long buckets = buckets();
+            long hashes = allocateLongs(count);
+            long bucketStarts = allocateLongs(buckets + 1);
+            long bucketKeys = allocateLongs(count);
+            long pilots = UnsafeUtils.allocate(buckets * Integer.BYTES);
+            long slotKeys = allocateLongs(slots);
+            long taken = allocateLongs((slots + Long.SIZE - 1) / Long.SIZE);
+            try {
+                for (int attempt = 0; attempt < MAX_SEEDS; attempt++) {
+                    long seed = mix(attempt + 1L);
+                    sortIntoBuckets(seed, hashes, bucketStarts, bucketKeys);
+                    clear(taken, (slots + Long.SIZE - 1) / Long.SIZE);
+                    if (placeBuckets(hashes, bucketStarts, bucketKeys, pilots, slotKeys, taken)) {
+                        return write(seed, pilots, slotKeys, taken);
+                    }
+                }
+                throw new IllegalStateException("Couldn't find a perfect hash function for the keys after " + MAX_SEEDS + " seeds");
+            } finally {
+                UnsafeUtils.free(hashes);
+                UnsafeUtils.free(bucketStarts);
+                UnsafeUtils.free(bucketKeys);
+                UnsafeUtils.free(pilots);
+                UnsafeUtils.free(slotKeys);
+                UnsafeUtils.free(taken);
+            }
+        }
+
+        /**
+         * Hashes every key with a seed, and sorts the keys by bucket with a counting sort
+         *
+         * @param seed         The key hash seed
+         * @param hashes       The address of the keys' mixed hashes, by key
+         * @param bucketStarts The address of the index in bucket keys where every bucket starts, and where the last one ends
+         * @param bucketKeys   The address of the keys sorted by bucket
+         */
+        private void sortIntoBuckets(long seed, long hashes, long bucketStarts, long bucketKeys) {
+            long buckets = buckets();
+            clear(bucketStarts, buckets + 1);
+            for (long key = 0; key < count; key++) {
+                long entryAddress = entryAddress(key);
+                long hash = mix(UnsafeUtils.longHash(null, keyPointer(entryAddress), keySize(entryAddress), seed));
+                UnsafeUtils.putLong(hashes + key * Long.BYTES, hash);
+                long end = bucketStarts + (bucket(hash, buckets) + 1) * Long.BYTES;
+                UnsafeUtils.putLong(end, UnsafeUtils.getLong(end) + 1);
+            }
+            for (long bucket = 0; bucket < buckets; bucket++) {
+                long end = bucketStarts + (bucket + 1) * Long.BYTES;
+                UnsafeUtils.putLong(end, UnsafeUtils.getLong(end) + UnsafeUtils.getLong(end - Long.BYTES));
+            }
+
+            // Every bucket's end is moved back to its start as its keys are added, then the starts are shifted to their own bucket
+            for (long key = count - 1; key >= 0; key--) {
+                long end = bucketStarts + (bucket(UnsafeUtils.getLong(hashes + key * Long.BYTES), buckets) + 1) * Long.BYTES;
+                long index = UnsafeUtils.getLong(end) - 1;
+                UnsafeUtils.putLong(end, index);
+                UnsafeUtils.putLong(bucketKeys + index * Long.BYTES, key);
+            }
+            for (long bucket = 0; bucket < buckets; bucket++) {
+                UnsafeUtils.putLong(bucketStarts + bucket * Long.BYTES, UnsafeUtils.getLong(bucketStarts + (bucket + 1) * Long.BYTES));
+            }
+            UnsafeUtils.putLong(bucketStarts + buckets * Long.BYTES, count);
+        }
+
+        /**
+         * Finds a pilot for every bucket, biggest buckets first as they're the hardest to place
+         *
+         * @param hashes       The address of the keys' mixed hashes, by key
+         * @param bucketStarts The address of the index in bucket keys where every bucket starts, and where the last one ends
+         * @param bucketKeys   The address of the keys sorted by bucket
+         * @param pilots       The address of the buckets' pilots
+         * @param slotKeys     The address of every slot's key
+         * @param taken        The address of the bitmap of taken slots
+         * @return {@code true} if every bucket was placed, {@code false} if the seed must be changed
+         * @throws IllegalArgumentException if a key was added more than once
+         */
+        private boolean placeBuckets(long hashes, long bucketStarts, long bucketKeys, long pilots, long slotKeys, long taken) {
+            long buckets = buckets();
+            int maxBucketSize = 0;
+            for (long bucket = 0; bucket < buckets; bucket++) {
+                maxBucketSize = Math.max(maxBucketSize, bucketSize(bucketStarts, bucket));
+            }
+
+            long[] bucketSlots = new long[maxBucketSize];
+            for (int bucketSize = maxBucketSize; bucketSize > 0; bucketSize--) {
+                for (long bucket = 0; bucket < buckets; bucket++) {
+                    if (bucketSize(bucketStarts, bucket) != bucketSize) continue;
+
+                    long start = UnsafeUtils.getLong(bucketStarts + bucket * Long.BYTES);
+                    if (hasHashCollision(hashes, bucketKeys, start, bucketSize)) return false;
+
+                    int pilot = findPilot(hashes, bucketKeys, start, bucketSize, taken, bucketSlots);
+                    if (pilot < 0) return false;
+
+                    UnsafeUtils.putInt(pilots + bucket * Integer.BYTES, pilot);
+                    for (int i = 0; i < bucketSize; i++) {
+                        long slot = bucketSlots[i];
+                        long word = taken + (slot >>> 6) * Long.BYTES;
+                        UnsafeUtils.putLong(word, UnsafeUtils.getLong(word) | 1L << slot);
+                        UnsafeUtils.putLong(slotKeys + slot * Long.BYTES, UnsafeUtils.getLong(bucketKeys + (start + i) * Long.BYTES));
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks if two keys of a bucket have the same hash, in which case no pilot can separate them
+         *
+         * @param hashes     The address of the keys' mixed hashes, by key
+         * @param bucketKeys The address of the keys sorted by bucket
+         * @param start      The index in bucket keys where the bucket starts
+         * @param bucketSize The number of keys in the bucket
+         * @return {@code true} if two different keys have the same hash, and the seed must be changed
+         * @throws IllegalArgumentException if the keys with the same hash are equal, i.e. a key was added more than once
+         */
+        private boolean hasHashCollision(long hashes, long bucketKeys, long start, int bucketSize) {
+            for (int i = 0; i < bucketSize; i++) {
+                long key = UnsafeUtils.getLong(bucketKeys + (start + i) * Long.BYTES);
+                for (int j = 0; j < i; j++) {
+                    long otherKey = UnsafeUtils.getLong(bucketKeys + (start + j) * Long.BYTES);
+                    if (UnsafeUtils.getLong(hashes + key * Long.BYTES) == UnsafeUtils.getLong(hashes + otherKey * Long.BYTES)) {
+                        throwIfEqual(key, otherKey);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Checks if two keys are equal and throws an exception if so
+         *
+         * @param key      The first key's index
+         * @param otherKey The second key's index
+         * @throws IllegalArgumentException if the keys are equal, i.e. a key was added more than once
+         */
+        private void throwIfEqual(long key, long otherKey) {
+            long entryAddress = entryAddress(key);
+            long otherEntryAddress = entryAddress(otherKey);
+            int keySize = keySize(entryAddress);
+            if (keySize == keySize(otherEntryAddress) && UnsafeUtils.equals(null, keyPointer(entryAddress), null, keyPointer(otherEntryAddress), keySize)) {
+                throw new IllegalArgumentException("Duplicate key: " + keySerializer.deserialize(new UnsafeMemoryReader().resetTo(keyPointer(entryAddress), keySize)));
+            }
+        }
+
+        /**
+         * Finds a pilot sending all of a bucket's keys to different free slots
+         *
+         * @param hashes      The address of the keys' mixed hashes, by key
+         * @param bucketKeys  The address of the keys sorted by bucket
+         * @param start       The index in bucket keys where the bucket starts
+         * @param bucketSize  The number of keys in the bucket
+         * @param taken       The address of the bitmap of taken slots
+         * @param bucketSlots The slots the pilot sends the bucket's keys to, filled when a pilot is found
+         * @return The pilot, or -1 if none was found
+         */
+        private int findPilot(long hashes, long bucketKeys, long start, int bucketSize, long taken, long[] bucketSlots) {
+            long slots = slots();
+            for (int pilot = 0; pilot < MAX_PILOTS; pilot++) {
+                int placed = 0;
+                while (placed < bucketSize) {
+                    long hash = UnsafeUtils.getLong(hashes + UnsafeUtils.getLong(bucketKeys + (start + placed) * Long.BYTES) * Long.BYTES);
+                    long slot = slot(hash, pilot, slots);
+                    if ((UnsafeUtils.getLong(taken + (slot >>> 6) * Long.BYTES) & 1L << slot) != 0 || contains(bucketSlots, placed, slot)) break;
+                    bucketSlots[placed++] = slot;
+                }
+                if (placed == bucketSize) return pilot;
+            }
+            return -1;
+        }
+
+        /**
+         * Allocates the region and writes the header, the pilots, the remapped slots, the entry positions and the entries to it
+         *
+         * @param seed     The key hash seed
+         * @param pilots   The address of the buckets' pilots
+         * @param slotKeys The address of every slot's key
+         * @param taken    The address of the bitmap of taken slots
+         * @return The address of the allocated region
+         */
+        private long write(long seed, long pilots, long slotKeys, long taken) {
+            long slots = slots();
+            long buckets = buckets();
+            long pilotsPosition = HEADER_SIZE;
+            long remapPosition = (pilotsPosition + buckets * Integer.BYTES + Long.BYTES - 1) & -Long.BYTES;
+            boolean fixedSize = keyFixedSize && valueFixedSize;
+            long positionsPosition = fixedSize ? 0 : remapPosition + (slots - count) * Long.BYTES;
+            long entriesPosition = remapPosition + (slots - count) * Long.BYTES + (fixedSize ? 0 : count * Long.BYTES);
+
+            // Keys in the extra slots are moved to the free slots, and the extra slots are reused to hold where their keys were moved,
+            // extra slots without a key are sent to the first entry, which any key that isn't in the map is compared with and rejected
+            long free = 0;
+            for (long slot = count; slot < slots; slot++) {
+                long remapped = 0;
+                if ((UnsafeUtils.getLong(taken + (slot >>> 6) * Long.BYTES) & 1L << slot) != 0) {
+                    while ((UnsafeUtils.getLong(taken + (free >>> 6) * Long.BYTES) & 1L << free) != 0) {
+                        free++;
+                    }
+                    remapped = free++;
+                    UnsafeUtils.putLong(slotKeys + remapped * Long.BYTES, UnsafeUtils.getLong(slotKeys + slot * Long.BYTES));
+                }
+                UnsafeUtils.putLong(slotKeys + slot * Long.BYTES, remapped);
+            }
+
+            long regionSize = entriesPosition;
+            long chunkSize = 1L << chunkBits;
+            for (long index = 0; index < count; index++) {
+                long entrySize = entrySize(UnsafeUtils.getLong(slotKeys + index * Long.BYTES));
+                regionSize = entryPosition(regionSize, entrySize, chunkSize) + entrySize;
+            }
+
+            long region = UnsafeUtils.allocate(regionSize);
+            UnsafeUtils.putInt(region + MAGIC_OFFSET, MAGIC);
+            UnsafeUtils.putInt(region + VERSION_OFFSET, VERSION);
+            UnsafeUtils.putInt(region + KEY_SIZE_OFFSET, keyFixedSize ? keySerializer.sizeInBytes(null) : -1);
+            UnsafeUtils.putInt(region + VALUE_SIZE_OFFSET, valueFixedSize ? valueSerializer.sizeInBytes(null) : -1);
+            UnsafeUtils.putInt(region + CHUNK_BITS_OFFSET, chunkBits);
+            UnsafeUtils.putLong(region + SEED_OFFSET, seed);
+            UnsafeUtils.putLong(region + SIZE_OFFSET, count);
+            UnsafeUtils.putLong(region + SLOTS_OFFSET, slots);
+            UnsafeUtils.putLong(region + BUCKETS_OFFSET, buckets);
+            UnsafeUtils.putLong(region + PILOTS_OFFSET, pilotsPosition);
+            UnsafeUtils.putLong(region + REMAP_OFFSET, remapPosition);
+            UnsafeUtils.putLong(region + POSITIONS_OFFSET, positionsPosition);
+            UnsafeUtils.putLong(region + ENTRIES_OFFSET, entriesPosition);
+            UnsafeUtils.putLong(region + ENTRY_BYTES_OFFSET, entriesSize);
+            UnsafeUtils.putLong(region + REGION_SIZE_OFFSET, regionSize);
+            UnsafeUtils.copyMemory(null, pilots, null, region + pilotsPosition, buckets * Integer.BYTES);
+            UnsafeUtils.copyMemory(null, slotKeys + count * Long.BYTES, null, region + remapPosition, (slots - count) * Long.BYTES);
+
+            long position = entriesPosition;
+            for (long index = 0; index < count; index++) {
+                long key = UnsafeUtils.getLong(slotKeys + index * Long.BYTES);
+                long entrySize = entrySize(key);
+                position = entryPosition(position, entrySize, chunkSize);
+                UnsafeUtils.copyMemory(null, entryAddress(key), null, region + position, entrySize);
+                if (!fixedSize) UnsafeUtils.putLong(region + positionsPosition + index * Long.BYTES, position);
+                position += entrySize;
+            }
+            return region;
+        }
+
+        /**
+         * Gets the number of slots, the keys and 1% extra slots
+         *
+         * @return The number of slots
+         */
+        private long slots() {
+            return count + (count + KEYS_PER_EXTRA_SLOT - 1) / KEYS_PER_EXTRA_SLOT;
+        }
+
+        /**
+         * Gets the number of buckets, at least one so every hash has a bucket
+         *
+         * @return The number of buckets
+         */
+        private long buckets() {
+            return Math.max(1, (count + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        }
+
+        /**
+         * Gets the position of the next entry, right after the previous one unless it would cross a chunk boundary
+         * Fixed size entries are placed in the same way by {@link ImmutableLargeMap#fixedEntryPosition(long, long, long, int)}
+         *
+         * @param position  The position right after the previous entry
+         * @param entrySize The entry's size
+         * @param chunkSize The size of a chunk
+         * @return The entry's position
+         */
+        private static long entryPosition(long position, long entrySize, long chunkSize) {
+            return (position & chunkSize - 1) + entrySize > chunkSize ? (position | chunkSize - 1) + 1 : position;
+        }
+
+        /**
+         * Gets a key's entry address in the entries buffer
+         *
+         * @param key The key's index
+         * @return The entry's address
+         */
+        private long entryAddress(long key) {
+            return entriesAddress + UnsafeUtils.getLong(positionsAddress + key * Long.BYTES);
+        }
+
+        /**
+         * Gets a key's entry size
+         *
+         * @param key The key's index
+         * @return The entry's size in bytes
+         */
+        private long entrySize(long key) {
+            long end = key + 1 < count ? UnsafeUtils.getLong(positionsAddress + (key + 1) * Long.BYTES) : entriesSize;
+            return end - UnsafeUtils.getLong(positionsAddress + key * Long.BYTES);
+        }
+
+        /**
+         * Gets the serialized key size given the entry address
+         *
+         * @param entryAddress The entry address
+         * @return The key size in bytes
+         */
+        private int keySize(long entryAddress) {
+            return keyFixedSize ? keySerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(entryAddress);
+        }
+
+        /**
+         * Gets the serialized key address given the entry address, i.e. the address right after the key header
+         *
+         * @param entryAddress The entry address
+         * @return The key address
+         */
+        private long keyPointer(long entryAddress) {
+            return keyFixedSize ? entryAddress : entryAddress + UnsafeUtils.getVarIntSize(entryAddress);
+        }
+
+        /**
+         * Gets the number of keys in a bucket
+         *
+         * @param bucketStarts The address of the index in bucket keys where every bucket starts, and where the last one ends
+         * @param bucket       The bucket's index
+         * @return The bucket's size
+         */
+        private static int bucketSize(long bucketStarts, long bucket) {
+            return (int) (UnsafeUtils.getLong(bucketStarts + (bucket + 1) * Long.BYTES) - UnsafeUtils.getLong(bucketStarts + bucket * Long.BYTES));
+        }
+
+        /**
+         * Checks if a slot is among the first slots of an array
+         *
+         * @param slots The slots
+         * @param count The number of slots to check
+         * @param slot  The slot to look for
+         * @return {@code true} if the slot was found
+         */
+        private static boolean contains(long[] slots, int count, long slot) {
+            for (int i = 0; i < count; i++) {
+                if (slots[i] == slot) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Allocates a zeroed array of longs, at least one long so empty arrays can be freed like any other
+         *
+         * @param length The number of longs
+         * @return The array's address
+         */
+        private static long allocateLongs(long length) {
+            return UnsafeUtils.allocate(Math.max(1, length) * Long.BYTES);
+        }
+
+        /**
+         * Sets an array of longs to zeroes
+         *
+         * @param address The array's address
+         * @param length  The number of longs
+         */
+        private static void clear(long address, long length) {
+            for (long i = 0; i < length; i++) {
+                UnsafeUtils.putLong(address + i * Long.BYTES, 0);
+            }
+        }
+
+        /**
+         * Moves a buffer to a bigger allocation
+         *
+         * @param address  The buffer's address
+         * @param used     The number of bytes used in the buffer
+         * @param capacity The new buffer's size
+         * @return The new buffer's address
+         */
+        private static long grow(long address, long used, long capacity) {
+            long grown = UnsafeUtils.allocateUninitialized(capacity);
+            UnsafeUtils.copyMemory(null, address, null, grown, used);
+            UnsafeUtils.free(address);
+            return grown;
+        }
+    }
+
+    /**
+     * ImmutableLargeMapIterator, an inner class wrapping the iterator logic for the map, entries are read in slot order
+     *
+     * @param <K> The key type
+     * @param <V> The value type
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class ImmutableLargeMapIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        /**
+         * A reference to the map this iterator is iterating on
+         */
+        @NonNull
+        private final ImmutableLargeMap<K, V> map;
+
+        /**
+         * The index of the next entry to read
+         */
+        private long index = 0;
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext() {
+            map.lock.readLock().lock();
+            try {
+                map.throwIfClosed();
+                return index < map.size;
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) throw new NoSuchElementException("Iterator exhausted, please use hasNext() to for available items first");
+
+            map.lock.readLock().lock();
+            try {
+                long entryAddress = map.address(map.entryPosition(index++));
+                return new SimpleImmutableEntry<>(map.readKey(entryAddress), map.readValue(entryAddress));
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * ImmutableLargeMapCursor, an inner class wrapping the cursor logic for the map,
+     * it only holds the map's read lock while {@link #next()} moves to the next entry, so it never keeps the map from being closed between calls
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class ImmutableLargeMapCursor implements LargeMapCursor {
+
+        /**
+         * A reference to the map this cursor is iterating on
+         */
+        @NonNull
+        private final ImmutableLargeMap<?, ?> map;
+
+        /**
+         * The reader positioned on the current key
+         */
+        private final UnsafeMemoryReader keyReader = new UnsafeMemoryReader();
+
+        /**
+         * The reader positioned on the current value
+         */
+        private final UnsafeMemoryReader valueReader = new UnsafeMemoryReader();
+
+        /**
+         * The index of the next entry to read
+         */
+        private long index = 0;
+
+        /**
+         * Whether the cursor is positioned on an entry
+         */
+        private boolean positioned = false;
+
+        /**
+         * The current key address pointer, i.e. the address after the key header
+         */
+        private long keyPointer;
+
+        /**
+         * The current key size in bytes
+         */
+        private int keySize;
+
+        /**
+         * The current value address pointer, i.e. the address after the value header
+         */
+        private long valuePointer;
+
+        /**
+         * The current value size in bytes
+         */
+        private int valueSize;
+
+        /**
+         * Advances the cursor to the next entry
+         *
+         * @return {@code true} if the cursor is positioned on an entry, {@code false} if the entries are exhausted
+         * @throws IllegalStateException if the map was closed
+         */
+        @Override
+        public boolean next() {
+            positioned = false;
+            map.lock.readLock().lock();
+            try {
+                if (map.closed) throw new IllegalStateException("Map was already closed");
+                if (index >= map.size) return false;
+
+                long entryAddress = map.address(map.entryPosition(index++));
+                positioned = true;
+                keyPointer = map.keyPointer(entryAddress);
+                keySize = map.keySize(entryAddress);
+                long valueHeaderPointer = keyPointer + keySize;
+                valueSize = map.valueSize(valueHeaderPointer);
+                valuePointer = map.valuePointer(valueHeaderPointer);
+                return true;
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized key
+         *
+         * @return The key reader
+         */
+        @Override
+        public MemoryReader key() {
+            throwIfNotPositioned();
+            return keyReader.resetTo(keyPointer, keySize);
+        }
+
+        /**
+         * Gets the current entry's serialized key size in bytes
+         *
+         * @return The key size in bytes
+         */
+        @Override
+        public int keySize() {
+            throwIfNotPositioned();
+            return keySize;
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized value
+         *
+         * @return The value reader
+         */
+        @Override
+        public MemoryReader value() {
+            throwIfNotPositioned();
+            return valueReader.resetTo(valuePointer, valueSize);
+        }
+
+        /**
+         * Gets the current entry's serialized value size in bytes
+         *
+         * @return The value size in bytes
+         */
+        @Override
+        public int valueSize() {
+            throwIfNotPositioned();
+            return valueSize;
+        }
+
+        /**
+         * Closes the cursor, it holds no lock between calls so there's nothing to release
+         */
+        @Override
+        public void close() {
+            positioned = false;
+            index = map.size;
+        }
+
+        /**
+         * Checks if the cursor is positioned on an entry and throws an exception if not
+         *
+         * @throws IllegalStateException if the cursor is not positioned on an entry
+         */
+        private void throwIfNotPositioned() {
+            if (!positioned) throw new IllegalStateException("Cursor is not positioned on an entry, please use next() first");
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * LargeBytesMap, an open address hash map for keys and values that are already in binary form
+ * It shares the {@link LargeHashMap} engine, but keys and values are copied in and out of memory in bulk instead of
+ * going through object serialization, and stored keys are hashed and compared in place
+ * Keys and values can be passed either as the remaining bytes of a {@link ByteBuffer} or as an address and length pair
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LargeBytesMap implements LargeMap<ByteBuffer, ByteBuffer> {
+
+    /**
+     * The inner map engine
+     */
+    private final LargeHashMap<NativeBytes, NativeBytes> inner;
+
+    /**
+     * Factory method for creating a {@link LargeBytesMap} object
+     *
+     * @return A {@link LargeBytesMap} object
+     */
+    public static LargeBytesMap of() {
+        return new LargeBytesMap(LargeHashMap.of(NativeBytesSerializer.INSTANCE, NativeBytesSerializer.INSTANCE));
+    }
+
+    /**
+     * Factory method for creating a {@link LargeBytesMap} object
+     *
+     * @param loadFactor The load factor
+     * @return A {@link LargeBytesMap} object
+     */
+    public static LargeBytesMap of(double loadFactor) {
+        return new LargeBytesMap(LargeHashMap.of(NativeBytesSerializer.INSTANCE, NativeBytesSerializer.INSTANCE, loadFactor));
+    }
+
+    /**
+     * Factory method for creating a {@link LargeBytesMap} object
+     *
+     * @param capacity The initial capacity
+     * @return A {@link LargeBytesMap} object
+     */
+    public static LargeBytesMap of(long capacity) {
+        return new LargeBytesMap(LargeHashMap.of(NativeBytesSerializer.INSTANCE, NativeBytesSerializer.INSTANCE, capacity));
+    }
+
+    /**
+     * Factory method for creating a {@link LargeBytesMap} object
+     *
+     * @param loadFactor The load factor, allowed values are more than 0 and less than or equal to 1
+     * @param capacity   The initial capacity, must be a least 1
+     * @return A {@link LargeBytesMap} object
+     */
+    public static LargeBytesMap of(double loadFactor, long capacity) {
+        return new LargeBytesMap(LargeHashMap.of(NativeBytesSerializer.INSTANCE, NativeBytesSerializer.INSTANCE, loadFactor, capacity));
+    }
+
+    /**
+     * Factory method for creating a {@link LargeBytesMap} object whose allocations are reserved from a memory budget
+     *
+     * @param loadFactor The load factor, allowed values are more than 0 and less than or equal to 1
+     * @param capacity   The initial capacity, must be a least 1
+     * @param budget     The memory budget the map's allocations are reserved from
+     * @return A {@link LargeBytesMap} object
+     * @throws OffHeapMemoryExhaustedException if the initial slot table doesn't fit in the budget
+     */
+    public static LargeBytesMap of(double loadFactor, long capacity, OffHeapMemoryBudget budget) {
+        return new LargeBytesMap(LargeHashMap.of(NativeBytesSerializer.INSTANCE, NativeBytesSerializer.INSTANCE, loadFactor, capacity, false, budget));
+    }
+
+    /**
+     * Gets key's value from the map, the key buffer's position is not changed
+     *
+     * @param key The key to lookup
+     * @return A heap buffer holding a copy of the value associated with the key
+     */
+    @Override
+    public ByteBuffer get(@NonNull ByteBuffer key) {
+        return toByteBuffer(inner.get(NativeBytes.of(key)));
+    }
+
+    /**
+     * Copies key's value from the map to a memory address
+     *
+     * @param keyAddress The address of the key to lookup
+     * @param keyLength  The key length in bytes
+     * @param address    The address to copy the value to
+     * @param length     The number of bytes available at the address, at most this number of bytes is copied
+     * @return The value length in bytes, which can be more than the passed length, or -1 if the key doesn't exist
+     */
+    public int get(long keyAddress, int keyLength, long address, int length) {
+        return inner.copyValue(NativeBytes.of(keyAddress, keyLength), address, length);
+    }
+
+    /**
+     * Applies a function directly on key's value in the map without copying it,
+     * the value's memory is only valid while the function is running
+     *
+     * @param key      The key to lookup
+     * @param function The function to apply on the value's address and length
+     * @param <R>      The function's result type
+     * @return The function's result, or null if the key doesn't exist
+     */
+    public <R> R view(@NonNull ByteBuffer key, RawValueFunction<R> function) {
+        return inner.view(NativeBytes.of(key), function);
+    }
+
+    /**
+     * Applies a function directly on key's value in the map without copying it,
+     * the value's memory is only valid while the function is running
+     *
+     * @param keyAddress The address of the key to lookup
+     * @param keyLength  The key length in bytes
+     * @param function   The function to apply on the value's address and length
+     * @param <R>        The function's result type
+     * @return The function's result, or null if the key doesn't exist
+     */
+    public <R> R view(long keyAddress, int keyLength, RawValueFunction<R> function) {
+        return inner.view(NativeBytes.of(keyAddress, keyLength), function);
+    }
+
+    /**
+     * Puts the key and value in the map, the buffers' positions are not changed
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     * @return A heap buffer holding a copy of the old value related to that key
+     */
+    @Override
+    public ByteBuffer put(@NonNull ByteBuffer key, @NonNull ByteBuffer value) {
+        return toByteBuffer(inner.put(NativeBytes.of(key), NativeBytes.of(value)));
+    }
+
+    /**
+     * Puts the key and value in the map
+     *
+     * @param keyAddress   The address of the key to insert in the map
+     * @param keyLength    The key length in bytes
+     * @param valueAddress The address of the value to insert in the map
+     * @param valueLength  The value length in bytes
+     * @return {@code true} if the key already existed in the map
+     */
+    public boolean put(long keyAddress, int keyLength, long valueAddress, int valueLength) {
+        return inner.set(NativeBytes.of(keyAddress, keyLength), NativeBytes.of(valueAddress, valueLength));
+    }
+
+    /**
+     * Removes the key from the map if it exists, the key buffer's position is not changed
+     *
+     * @param key The key to remove from the map
+     * @return A heap buffer holding a copy of the value of the key
+     */
+    @Override
+    public ByteBuffer remove(@NonNull ByteBuffer key) {
+        return toByteBuffer(inner.remove(NativeBytes.of(key)));
+    }
+
+    /**
+     * Removes the key from the map if it exists
+     *
+     * @param keyAddress The address of the key to remove from the map
+     * @param keyLength  The key length in bytes
+     * @return {@code true} if the key existed in the map
+     */
+    public boolean remove(long keyAddress, int keyLength) {
+        return inner.delete(NativeBytes.of(keyAddress, keyLength));
+    }
+
+    /**
+     * Clear the map from all keys and values
+     */
+    @Override
+    public void clear() {
+        inner.clear();
+    }
+
+    /**
+     * Gets the current size of the map
+     *
+     * @return The size of the map
+     */
+    @Override
+    public long size() {
+        return inner.size();
+    }
+
+    /**
+     * Gets the off heap memory currently used by the map
+     *
+     * @return The map's memory usage
+     */
+    @Override
+    public MemoryUsage memoryUsage() {
+        return inner.memoryUsage();
+    }
+
+    /**
+     * Returns a cursor over the raw entries of the map
+     *
+     * @return The map's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        return inner.cursor();
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<ByteBuffer, ByteBuffer>}
+     *
+     * @return The map's iterator
+     */
+    @Override
+    public Iterator<Entry<ByteBuffer, ByteBuffer>> iterator() {
+        return new LargeBytesMapIterator(inner.iterator());
+    }
+
+    /**
+     * Disposes of the off heap allocations
+     */
+    @Override
+    public void close() {
+        inner.close();
+    }
+
+    /**
+     * Returns the hash code value for this map
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        return inner.hashCode();
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is a map with the same
+     * mappings as this map.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return inner.equals(((LargeBytesMap) o).inner);
+    }
+
+    /**
+     * Returns a string representation of this map, with keys and values rendered in hexadecimal
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        return inner.toString();
+    }
+
+    /**
+     * Converts bytes to a heap buffer
+     *
+     * @param bytes The bytes to convert, can be null
+     * @return A heap buffer holding a copy of the bytes, or null if the bytes are null
+     */
+    private static ByteBuffer toByteBuffer(NativeBytes bytes) {
+        return bytes != null ? bytes.toByteBuffer() : null;
+    }
+
+    /**
+     * LargeBytesMapIterator, an inner class wrapping the iterator logic for the map
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LargeBytesMapIterator implements Iterator<Entry<ByteBuffer, ByteBuffer>> {
+
+        /**
+         * Inner map iterator
+         */
+        private final Iterator<Entry<NativeBytes, NativeBytes>> inner;
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext() {
+            return inner.hasNext();
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws java.util.NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public Entry<ByteBuffer, ByteBuffer> next() {
+            Entry<NativeBytes, NativeBytes> entry = inner.next();
+            return new SimpleImmutableEntry<>(entry.getKey().toByteBuffer(), entry.getValue().toByteBuffer());
+        }
+    }
+}
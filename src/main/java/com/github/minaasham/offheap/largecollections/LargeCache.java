@@ -0,0 +1,608 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * LargeCache, a bounded off heap cache built on {@link LargeHashMap}, evicting entries with the W-TinyLFU policy
+ * It's bounded either by its number of entries, or by the bytes its entries take as reported by {@link MemoryUsage#entryBytes()}
+ * New entries enter a small LRU admission window, entries leaving the window compete with the main space's least recently used
+ * entries, and the one a {@link FrequencySketch} estimates was used less often is evicted, the main space is a segmented LRU
+ * where entries used again move from the probation segment to the protected segment
+ * The recency lists are {@link EntryList}s linked through metadata at the start of every entry, so the policy's state is off heap as well,
+ * all operations are serialized by a single lock, including reads as they reorder the recency lists
+ *
+ * @param <K> The key type, cannot be null
+ * @param <V> The value type, cannot be null
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LargeCache<K, V> implements LargeMap<K, V> {
+
+    /**
+     * The offset of the entry's queue in an entry's metadata, after the queue list's metadata
+     */
+    private static final int QUEUE_OFFSET = EntryList.METADATA_SIZE;
+
+    /**
+     * The size of an entry's metadata
+     */
+    private static final int METADATA_SIZE = QUEUE_OFFSET + 1;
+
+    /**
+     * The estimated size of an entry including its metadata, used to size the frequency sketch of caches bounded by bytes
+     */
+    private static final long ESTIMATED_ENTRY_BYTES = 64;
+
+    /**
+     * The admission window queue, new entries are added to it
+     */
+    private static final int WINDOW = 0;
+
+    /**
+     * The main space's probation queue, entries admitted from the window are added to it
+     */
+    private static final int PROBATION = 1;
+
+    /**
+     * The main space's protected queue, entries used again while in probation are moved to it
+     */
+    private static final int PROTECTED = 2;
+
+    /**
+     * The percentage of the maximum taken by the admission window
+     */
+    private static final int WINDOW_PERCENTAGE = 1;
+
+    /**
+     * The percentage of the main space taken by the protected queue
+     */
+    private static final int PROTECTED_PERCENTAGE = 80;
+
+    /**
+     * The frequency from which a candidate that's not more popular than its victim is still randomly admitted,
+     * this keeps an attacker from pinning popular victims in the cache by making popular candidates collide with them
+     */
+    private static final int WARM_CANDIDATE_FREQUENCY = 6;
+
+    /**
+     * The lock serializing all operations
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * The map holding the entries
+     */
+    private final LargeHashMap<K, V> map;
+
+    /**
+     * The frequency sketch used to decide which entries to admit
+     */
+    private final FrequencySketch sketch;
+
+    /**
+     * Is the cache bounded by bytes rather than by its number of entries?
+     */
+    private final boolean weighted;
+
+    /**
+     * The maximum number of entries or bytes
+     */
+    private final long maximum;
+
+    /**
+     * The maximum weight of the admission window
+     */
+    private final long windowMaximum;
+
+    /**
+     * The maximum weight of the protected queue
+     */
+    private final long protectedMaximum;
+
+    /**
+     * The entries of each queue, from the least recently used to the most recently used
+     */
+    private final EntryList[] queues = {new EntryList(), new EntryList(), new EntryList()};
+
+    /**
+     * The weight of each queue, i.e. its number of entries or bytes
+     */
+    private final long[] weights = new long[PROTECTED + 1];
+
+    /**
+     * The number of gets that found their key
+     */
+    private long hits;
+
+    /**
+     * The number of gets that didn't find their key
+     */
+    private long misses;
+
+    /**
+     * The number of entries evicted
+     */
+    private long evictions;
+
+    /**
+     * Factory method for creating a {@link LargeCache} object bounded by its number of entries
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param maximumSize     The maximum number of entries, must be at least 1
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeCache} object
+     */
+    public static <K, V> LargeCache<K, V> ofMaximumSize(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, long maximumSize) {
+        return LargeCache.create(keySerializer, valueSerializer, maximumSize, false);
+    }
+
+    /**
+     * Factory method for creating a {@link LargeCache} object bounded by the bytes its entries take
+     * An entry's bytes are its serialized key and value, their size headers and the eviction policy's metadata
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param maximumBytes    The maximum number of bytes, must be at least 1
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeCache} object
+     */
+    public static <K, V> LargeCache<K, V> ofMaximumBytes(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, long maximumBytes) {
+        return LargeCache.create(keySerializer, valueSerializer, maximumBytes, true);
+    }
+
+    /**
+     * Creates a {@link LargeCache} object, the factory methods' common implementation
+     * The frequency sketch is sized once for the maximum number of entries, estimated from the maximum bytes for caches bounded by bytes,
+     * so it never has to be rebuilt and lose the frequencies it recorded as the cache fills up
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param maximum         The maximum number of entries or bytes, must be at least 1
+     * @param weighted        Whether the maximum is in bytes rather than entries
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeCache} object
+     */
+    private static <K, V> LargeCache<K, V> create(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, long maximum, boolean weighted) {
+        if (maximum <= 0) throw new IllegalArgumentException("Maximum must be at least 1");
+
+        long windowMaximum = maximum - maximum * (100 - WINDOW_PERCENTAGE) / 100;
+        long protectedMaximum = (maximum - windowMaximum) * PROTECTED_PERCENTAGE / 100;
+        LargeHashMap<K, V> map = LargeHashMap.create(keySerializer, valueSerializer, LargeHashMap.DEFAULT_LOAD_FACTOR, LargeHashMap.DEFAULT_CAPACITY, false, null, METADATA_SIZE);
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(weighted ? Math.max(1, maximum / ESTIMATED_ENTRY_BYTES) : maximum);
+        return new LargeCache<>(new ReentrantLock(), map, sketch, weighted, maximum, windowMaximum, protectedMaximum);
+    }
+
+    /**
+     * Gets key's value from the cache, and records the access
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key
+     */
+    @Override
+    public V get(@NonNull K key) {
+        lock.lock();
+        try {
+            long entryPointer = map.find(key);
+            if (entryPointer == 0) {
+                misses++;
+                return null;
+            }
+
+            hits++;
+            sketch.increment(EntryList.hash(entryPointer));
+            onAccess(entryPointer);
+            return map.readValue(entryPointer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts the key and value in the cache, evicting entries if the cache goes over its maximum
+     *
+     * @param key   The key to insert in the cache
+     * @param value The value to insert in the cache
+     * @return The old value related to that key
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) {
+        lock.lock();
+        try {
+            long entryPointer = map.find(key);
+            int hash = map.hash(key);
+            sketch.increment(hash);
+
+            V previous = null;
+            if (entryPointer == 0) {
+                long newEntryPointer = map.insert(key, value);
+                EntryList.putHash(newEntryPointer, hash);
+                link(newEntryPointer, WINDOW);
+            } else {
+                previous = map.readValue(entryPointer);
+                int queue = queue(entryPointer);
+                long previousEntry = EntryList.previous(entryPointer);
+                unlink(entryPointer);
+
+                long newEntryPointer;
+                try {
+                    newEntryPointer = map.insert(key, value);
+                } catch (RuntimeException e) {
+                    if (map.find(key) == entryPointer) linkAfter(previousEntry, entryPointer, queue);
+                    throw e;
+                }
+
+                EntryList.putHash(newEntryPointer, hash);
+                linkAfter(previousEntry, newEntryPointer, queue);
+                onAccess(newEntryPointer);
+            }
+
+            evict();
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the key from the cache if it exists
+     *
+     * @param key The key to remove from the cache
+     * @return The value of the key
+     */
+    @Override
+    public V remove(@NonNull K key) {
+        lock.lock();
+        try {
+            long entryPointer = map.find(key);
+            if (entryPointer == 0) return null;
+
+            V value = map.readValue(entryPointer);
+            unlink(entryPointer);
+            map.delete(entryPointer, EntryList.hash(entryPointer));
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clear the cache from all keys and values
+     */
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+            for (EntryList queue : queues) {
+                queue.clear();
+            }
+            Arrays.fill(weights, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the current size of the cache
+     *
+     * @return The size of the cache
+     */
+    @Override
+    public long size() {
+        return map.size();
+    }
+
+    /**
+     * Gets the off heap memory currently used by the cache, the eviction policy's frequency sketch is counted as overhead
+     *
+     * @return The cache's memory usage
+     */
+    @Override
+    public MemoryUsage memoryUsage() {
+        lock.lock();
+        try {
+            MemoryUsage usage = map.memoryUsage();
+            return MemoryUsage.of(usage.slotTableBytes(), usage.entryBytes(), usage.overheadBytes() + sketch.tableBytes());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of gets that found their key
+     *
+     * @return The number of hits
+     */
+    public long hitCount() {
+        lock.lock();
+        try {
+            return hits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of gets that didn't find their key
+     *
+     * @return The number of misses
+     */
+    public long missCount() {
+        lock.lock();
+        try {
+            return misses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of entries evicted
+     *
+     * @return The number of evictions
+     */
+    public long evictionCount() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<K, V>}, iterating doesn't count as using the entries
+     *
+     * @return The cache's iterator
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return map.iterator();
+    }
+
+    /**
+     * Returns a cursor over the serialized entries of the cache, iterating doesn't count as using the entries
+     *
+     * @return The cache's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        return map.cursor();
+    }
+
+    /**
+     * Disposes of the off heap allocations
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            map.close();
+            sketch.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the hash code value for this cache
+     *
+     * @return the hash code value for this cache
+     */
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    /**
+     * Compares the specified object with this cache for equality.
+     * Returns {@code true} if the given object is a cache with the same
+     * mappings as this cache.
+     *
+     * @param o object to be compared for equality with this cache
+     * @return {@code true} if the specified object is equal to this cache
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return map.equals(((LargeCache<?, ?>) o).map);
+    }
+
+    /**
+     * Returns a string representation of this cache
+     *
+     * @return a string representation of this cache
+     */
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+
+    /**
+     * Records an access to an entry, moving it to the end of its queue, or to the protected queue if it was in probation
+     *
+     * @param entryPointer The entry address pointer
+     */
+    private void onAccess(long entryPointer) {
+        int queue = queue(entryPointer);
+        if (queue == PROBATION) {
+            unlink(entryPointer);
+            link(entryPointer, PROTECTED);
+            demoteFromProtected();
+        } else if (queues[queue].tail() != entryPointer) {
+            unlink(entryPointer);
+            link(entryPointer, queue);
+        }
+    }
+
+    /**
+     * Moves the least recently used protected entries to probation while the protected queue is over its maximum
+     */
+    private void demoteFromProtected() {
+        while (weights[PROTECTED] > protectedMaximum && queues[PROTECTED].head() != queues[PROTECTED].tail()) {
+            long entryPointer = queues[PROTECTED].head();
+            unlink(entryPointer);
+            link(entryPointer, PROBATION);
+        }
+    }
+
+    /**
+     * Evicts entries while the cache is over its maximum
+     */
+    private void evict() {
+        evictFromMain(evictFromWindow());
+    }
+
+    /**
+     * Moves the least recently used window entries to probation while the window is over its maximum, they become candidates
+     *
+     * @return The first candidate moved to probation, the rest follow it, or 0 if no entry was moved
+     */
+    private long evictFromWindow() {
+        long first = 0;
+        while (weights[WINDOW] > windowMaximum) {
+            long entryPointer = queues[WINDOW].head();
+            unlink(entryPointer);
+            link(entryPointer, PROBATION);
+            if (first == 0) first = entryPointer;
+        }
+        return first;
+    }
+
+    /**
+     * Evicts entries while the cache is over its maximum, candidates from the window compete with victims from the head of
+     * probation and the one with the lower frequency is evicted, once probation runs out the victims are taken from
+     * the protected queue and then from the window
+     *
+     * @param candidate The first candidate, or 0 if there are none
+     */
+    private void evictFromMain(long candidate) {
+        int victimQueue = PROBATION;
+        long victim = queues[PROBATION].head();
+        while (weights[WINDOW] + weights[PROBATION] + weights[PROTECTED] > maximum) {
+            if (victim == 0 && candidate == 0) {
+                if (victimQueue == WINDOW) break;
+                victimQueue = victimQueue == PROBATION ? PROTECTED : WINDOW;
+                victim = queues[victimQueue].head();
+            } else if (victim == 0) {
+                long next = EntryList.next(candidate);
+                evictEntry(candidate);
+                candidate = next;
+            } else if (candidate == 0) {
+                long next = EntryList.next(victim);
+                evictEntry(victim);
+                victim = next;
+            } else if (candidate == victim) {
+                long next = EntryList.next(victim);
+                evictEntry(victim);
+                victim = next;
+                candidate = next;
+            } else if (admit(EntryList.hash(candidate), EntryList.hash(victim))) {
+                long next = EntryList.next(victim);
+                evictEntry(victim);
+                victim = next;
+                candidate = EntryList.next(candidate);
+            } else {
+                long next = EntryList.next(candidate);
+                evictEntry(candidate);
+                candidate = next;
+            }
+        }
+    }
+
+    /**
+     * Decides whether a candidate is admitted in place of a victim, it must be more popular, or warm and randomly lucky
+     *
+     * @param candidateHash The candidate key's hash
+     * @param victimHash    The victim key's hash
+     * @return {@code true} if the victim should be evicted rather than the candidate
+     */
+    private boolean admit(int candidateHash, int victimHash) {
+        int candidateFrequency = sketch.frequency(candidateHash);
+        int victimFrequency = sketch.frequency(victimHash);
+        if (candidateFrequency > victimFrequency) return true;
+        if (candidateFrequency < WARM_CANDIDATE_FREQUENCY) return false;
+
+        return (ThreadLocalRandom.current().nextInt() & 127) == 0;
+    }
+
+    /**
+     * Evicts an entry from the cache
+     *
+     * @param entryPointer The entry address pointer
+     */
+    private void evictEntry(long entryPointer) {
+        unlink(entryPointer);
+        map.delete(entryPointer, EntryList.hash(entryPointer));
+        evictions++;
+    }
+
+    /**
+     * Adds an entry at the end of a queue
+     *
+     * @param entryPointer The entry address pointer
+     * @param queue        The queue
+     */
+    private void link(long entryPointer, int queue) {
+        linkAfter(queues[queue].tail(), entryPointer, queue);
+    }
+
+    /**
+     * Adds an entry right after another entry of a queue
+     *
+     * @param previousEntry The entry to add it after, 0 to add it at the start of the queue
+     * @param entryPointer  The entry address pointer
+     * @param queue         The queue
+     */
+    private void linkAfter(long previousEntry, long entryPointer, int queue) {
+        UnsafeUtils.putByte(entryPointer + QUEUE_OFFSET, (byte) queue);
+        queues[queue].linkAfter(previousEntry, entryPointer);
+        weights[queue] += weight(entryPointer);
+    }
+
+    /**
+     * Removes an entry from its queue
+     *
+     * @param entryPointer The entry address pointer
+     */
+    private void unlink(long entryPointer) {
+        int queue = queue(entryPointer);
+        queues[queue].unlink(entryPointer);
+        weights[queue] -= weight(entryPointer);
+    }
+
+    /**
+     * Gets an entry's weight, i.e. 1 or its size in bytes
+     *
+     * @param entryPointer The entry address pointer
+     * @return The entry's weight
+     */
+    private long weight(long entryPointer) {
+        return weighted ? map.entrySize(entryPointer) : 1;
+    }
+
+    /**
+     * Gets the queue an entry is in
+     *
+     * @param entryPointer The entry address pointer
+     * @return The entry's queue
+     */
+    private static int queue(long entryPointer) {
+        return UnsafeUtils.getByte(entryPointer + QUEUE_OFFSET);
+    }
+}
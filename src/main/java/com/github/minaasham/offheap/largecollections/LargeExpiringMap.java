@@ -0,0 +1,372 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * LargeExpiringMap, an off heap map built on {@link LargeHashMap} where entries expire a fixed time after they were written,
+ * or after they were last accessed
+ * Every entry's expiration time is kept in its metadata and the entry is scheduled in a {@link TimerWheel},
+ * expired entries are never returned, and they're reclaimed incrementally as time passes on every operation, or on {@link #cleanUp()}
+ * All operations are serialized by a single lock, including reads as they may reclaim entries or extend their expiration
+ *
+ * @param <K> The key type, cannot be null
+ * @param <V> The value type, cannot be null
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LargeExpiringMap<K, V> implements LargeMap<K, V> {
+
+    /**
+     * The lock serializing all operations
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * The map holding the entries
+     */
+    private final LargeHashMap<K, V> map;
+
+    /**
+     * The timer wheel scheduling the entries' expiration
+     */
+    private final TimerWheel wheel;
+
+    /**
+     * The source of the current time in nanoseconds
+     */
+    private final LongSupplier ticker;
+
+    /**
+     * The ticker's value when the map was created, times are kept relative to it so they're never negative
+     */
+    private final long origin;
+
+    /**
+     * How long entries live after they're written or accessed, in nanoseconds
+     */
+    private final long durationNanos;
+
+    /**
+     * Does reading an entry extend its expiration?
+     */
+    private final boolean expireAfterAccess;
+
+    /**
+     * Removes an expired entry from the map, after the timer wheel removed it from its bucket
+     */
+    private final LongConsumer expired = this::delete;
+
+    /**
+     * Factory method for creating a {@link LargeExpiringMap} object where entries expire a fixed time after they were written
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param duration        How long entries live after they're written, must be positive
+     * @param unit            The duration's unit
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeExpiringMap} object
+     */
+    public static <K, V> LargeExpiringMap<K, V> ofExpireAfterWrite(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, long duration, @NonNull TimeUnit unit) {
+        return LargeExpiringMap.create(keySerializer, valueSerializer, unit.toNanos(duration), false, System::nanoTime);
+    }
+
+    /**
+     * Factory method for creating a {@link LargeExpiringMap} object where entries expire a fixed time after they were last written or read
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param duration        How long entries live after they're written or read, must be positive
+     * @param unit            The duration's unit
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeExpiringMap} object
+     */
+    public static <K, V> LargeExpiringMap<K, V> ofExpireAfterAccess(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, long duration, @NonNull TimeUnit unit) {
+        return LargeExpiringMap.create(keySerializer, valueSerializer, unit.toNanos(duration), true, System::nanoTime);
+    }
+
+    /**
+     * Creates a {@link LargeExpiringMap} object, the factory methods' common implementation
+     *
+     * @param keySerializer     The key serializer
+     * @param valueSerializer   The value serializer
+     * @param durationNanos     How long entries live in nanoseconds, must be positive
+     * @param expireAfterAccess Whether reading an entry extends its expiration
+     * @param ticker            The source of the current time in nanoseconds
+     * @param <K>               The key type
+     * @param <V>               The value type
+     * @return A {@link LargeExpiringMap} object
+     */
+    static <K, V> LargeExpiringMap<K, V> create(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, long durationNanos, boolean expireAfterAccess, @NonNull LongSupplier ticker) {
+        if (durationNanos <= 0) throw new IllegalArgumentException("Duration must be positive");
+
+        LargeHashMap<K, V> map = LargeHashMap.create(keySerializer, valueSerializer, LargeHashMap.DEFAULT_LOAD_FACTOR, LargeHashMap.DEFAULT_CAPACITY, false, null, TimerWheel.METADATA_SIZE);
+        return new LargeExpiringMap<>(new ReentrantLock(), map, new TimerWheel(0), ticker, ticker.getAsLong(), durationNanos, expireAfterAccess);
+    }
+
+    /**
+     * Gets key's value from the map, reading an entry extends its expiration if the map expires entries after access
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key, null if it's missing or expired
+     */
+    @Override
+    public V get(@NonNull K key) {
+        lock.lock();
+        try {
+            long now = advance();
+            long entryPointer = map.find(key);
+            if (entryPointer == 0) return null;
+
+            if (TimerWheel.expiration(entryPointer) <= now) {
+                wheel.deschedule(entryPointer);
+                expired.accept(entryPointer);
+                return null;
+            }
+
+            if (expireAfterAccess) {
+                wheel.deschedule(entryPointer);
+                wheel.schedule(entryPointer, deadline(now));
+            }
+            return map.readValue(entryPointer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts the key and value in the map, the entry expires after the map's duration
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     * @return The old value related to that key, null if it was missing or expired
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) {
+        lock.lock();
+        try {
+            long now = advance();
+            long entryPointer = map.find(key);
+            V previous = null;
+            if (entryPointer != 0) {
+                if (TimerWheel.expiration(entryPointer) > now) previous = map.readValue(entryPointer);
+                wheel.deschedule(entryPointer);
+            }
+
+            long newEntryPointer;
+            try {
+                newEntryPointer = map.insert(key, value);
+            } catch (RuntimeException e) {
+                restore(key, entryPointer);
+                throw e;
+            }
+
+            EntryList.putHash(newEntryPointer, map.hash(key));
+            wheel.schedule(newEntryPointer, deadline(now));
+            return previous;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the key from the map if it exists
+     *
+     * @param key The key to remove from the map
+     * @return The value of the key, null if it was missing or expired
+     */
+    @Override
+    public V remove(@NonNull K key) {
+        lock.lock();
+        try {
+            long now = advance();
+            long entryPointer = map.find(key);
+            if (entryPointer == 0) return null;
+
+            V value = TimerWheel.expiration(entryPointer) > now ? map.readValue(entryPointer) : null;
+            wheel.deschedule(entryPointer);
+            expired.accept(entryPointer);
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clear the map from all keys and values
+     */
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            map.clear();
+            wheel.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the current size of the map, after reclaiming expired entries,
+     * it can still include entries that expired within the timer wheel's resolution, i.e. about a second
+     *
+     * @return The size of the map
+     */
+    @Override
+    public long size() {
+        lock.lock();
+        try {
+            advance();
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the off heap memory currently used by the map
+     *
+     * @return The map's memory usage
+     */
+    @Override
+    public MemoryUsage memoryUsage() {
+        return map.memoryUsage();
+    }
+
+    /**
+     * Reclaims the entries that expired since the map was last used
+     */
+    public void cleanUp() {
+        lock.lock();
+        try {
+            advance();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<K, V>}, after reclaiming expired entries,
+     * like {@link #size()} it can still return entries that expired within the timer wheel's resolution
+     *
+     * @return The map's iterator
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        cleanUp();
+        return map.iterator();
+    }
+
+    /**
+     * Returns a cursor over the serialized entries of the map, after reclaiming expired entries,
+     * like {@link #size()} it can still return entries that expired within the timer wheel's resolution
+     *
+     * @return The map's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        cleanUp();
+        return map.cursor();
+    }
+
+    /**
+     * Disposes of the off heap allocations
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            map.close();
+            wheel.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the hash code value for this map
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is a map with the same
+     * mappings as this map.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return map.equals(((LargeExpiringMap<?, ?>) o).map);
+    }
+
+    /**
+     * Returns a string representation of this map
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+
+    /**
+     * Schedules the key's entry again after inserting it failed, if it's still in the map,
+     * a failed insert either leaves the entry as it was, or frees it and leaves the key out of the map
+     *
+     * @param key          The key that failed to be inserted
+     * @param entryPointer The key's entry before the insert, 0 if the key didn't exist
+     */
+    private void restore(K key, long entryPointer) {
+        if (entryPointer != 0 && map.find(key) == entryPointer) wheel.schedule(entryPointer, TimerWheel.expiration(entryPointer));
+    }
+
+    /**
+     * Advances the timer wheel to the current time, reclaiming the entries that expired
+     *
+     * @return The current time in nanoseconds, relative to the map's creation
+     */
+    private long advance() {
+        long now = ticker.getAsLong() - origin;
+        wheel.advance(now, expired);
+        return now;
+    }
+
+    /**
+     * Gets the time an entry written or accessed now expires at, saturating so long durations never wrap to the past
+     *
+     * @param now The current time in nanoseconds, relative to the map's creation
+     * @return The expiration time in nanoseconds, {@link Long#MAX_VALUE} if the entry never expires
+     */
+    private long deadline(long now) {
+        return durationNanos > Long.MAX_VALUE - now ? Long.MAX_VALUE : now + durationNanos;
+    }
+
+    /**
+     * Removes an entry from the map, it must be removed from the timer wheel first
+     *
+     * @param entryPointer The entry address pointer
+     */
+    private void delete(long entryPointer) {
+        map.delete(entryPointer, EntryList.hash(entryPointer));
+    }
+}
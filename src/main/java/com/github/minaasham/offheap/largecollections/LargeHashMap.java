@@ -1,25 +1,35 @@
 package com.github.minaasham.offheap.largecollections;
 
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.InPlaceObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.SinglePassObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static java.lang.ThreadLocal.withInitial;
 
 /**
  * LargeHashMap, an open address hash map that can handle a large number of entries
  * It utilizes the {@link sun.misc.Unsafe} object to allocate memory, hence it's not limited by the GC
+ * Each entry is a single allocation holding the key then the value, variable sized keys and values
+ * are preceded by their size in bytes, stored as a variable length integer (see {@link VarInts})
  *
  * @param <K> The key type, cannot be null
  * @param <V> The value type, cannot be null
@@ -30,12 +40,22 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
     /**
      * Default load factor for the hash map
      */
-    private static final double DEFAULT_LOAD_FACTOR = 0.65;
+    static final double DEFAULT_LOAD_FACTOR = 0.65;
 
     /**
      * Default capacity for the hash map
      */
-    private static final int DEFAULT_CAPACITY = 512;
+    static final int DEFAULT_CAPACITY = 512;
+
+    /**
+     * The first int of a snapshot file, written in the platform's byte order so snapshots from another byte order are rejected
+     */
+    private static final int SNAPSHOT_MAGIC = 0x4C484D53;
+
+    /**
+     * The version of the snapshot file format
+     */
+    private static final int SNAPSHOT_VERSION = 1;
 
     /**
      * The lock used to guarantee thread safety in map operations
@@ -43,14 +63,29 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
     private final ReentrantReadWriteLock lock;
 
     /**
-     * The memory reader passed to key and value serializer, it's reset every time
+     * The memory reader passed to the key serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryReader> keyReader;
+
+    /**
+     * The memory writer passed to the key serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryWriter> keyWriter;
+
+    /**
+     * The memory reader passed to the value serializer, it's reset every time
      */
-    private final ThreadLocal<UnsafeMemoryReader> memoryReader;
+    private final ThreadLocal<UnsafeMemoryReader> valueReader;
 
     /**
-     * The memory writer passed to key and value serializer, it's reset every time
+     * The memory writer passed to the value serializer, it's reset every time
      */
-    private final ThreadLocal<UnsafeMemoryWriter> memoryWriter;
+    private final ThreadLocal<UnsafeMemoryWriter> valueWriter;
+
+    /**
+     * The scratch writer that single pass keys and values are serialized to before being copied to their entry
+     */
+    private final ThreadLocal<ScratchMemoryWriter> scratchWriter;
 
     /**
      * The key object serializer
@@ -63,9 +98,14 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
     private final boolean keyFixedSize;
 
     /**
-     * The key's header size; 0 for fixed and Integer.BYTES for variable
+     * Can the key be hashed and compared in its serialized form?
+     */
+    private final boolean keyInPlace;
+
+    /**
+     * Is the key serialized in a single pass through the scratch writer?
      */
-    private final int keyHeaderSize;
+    private final boolean keySinglePass;
 
     /**
      * The value object serializer
@@ -78,15 +118,25 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
     private final boolean valueFixedSize;
 
     /**
-     * The value's header size; 0 for fixed and Integer.BYTES for variable
+     * Is the value serialized in a single pass through the scratch writer?
      */
-    private final int valueHeaderSize;
+    private final boolean valueSinglePass;
 
     /**
      * The load factor for the hash map
      */
     private final double loadFactor;
 
+    /**
+     * The memory budget the map's allocations are reserved from, null if the map is unbounded
+     */
+    private final OffHeapMemoryBudget budget;
+
+    /**
+     * The number of bytes reserved at the start of every entry for the collections built on the map, e.g. a cache's eviction policy
+     */
+    private final int metadataSize;
+
     /**
      * The address to the start of memory allocated for entry pointers
      */
@@ -102,6 +152,16 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
      */
     private long size;
 
+    /**
+     * The bytes allocated for entries
+     */
+    private long entryBytes;
+
+    /**
+     * The estimated bytes taken by the memory backend on top of the bytes allocated for entries
+     */
+    private long entryOverheadBytes;
+
     /**
      * The number of modifications that happened to the hash map,
      * this serves as an fail fast for the map's iterator
@@ -159,35 +219,176 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
      *
      * @param keySerializer   The key serializer
      * @param valueSerializer The value serializer
+     * @param budget          The memory budget the map's allocations are reserved from
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeHashMap} object
+     * @throws OffHeapMemoryExhaustedException if the initial slot table doesn't fit in the budget
+     */
+    public static <K, V> LargeHashMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, @NonNull OffHeapMemoryBudget budget) {
+        return LargeHashMap.create(keySerializer, valueSerializer, DEFAULT_LOAD_FACTOR, DEFAULT_CAPACITY, false, budget, 0);
+    }
+
+    /**
+     * Factory method for creating a {@link LargeHashMap} object
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param loadFactor      The load factor, allowed values are more than 0 and less than or equal to 1
+     * @param capacity        The initial capacity, must be a least 1
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeHashMap} object
+     */
+    public static <K, V> LargeHashMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, double loadFactor, long capacity) {
+        return LargeHashMap.of(keySerializer, valueSerializer, loadFactor, capacity, false);
+    }
+
+    /**
+     * Factory method for creating a {@link LargeHashMap} object
+     * Serializers implementing {@link TrustedObjectSerializer} are always passed readers and writers that skip bounds checks,
+     * a trusted map passes such readers and writers to all its serializers, which must then never read or write
+     * more bytes than their size in bytes, as doing so reads or corrupts memory outside the entry instead of throwing
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param loadFactor      The load factor, allowed values are more than 0 and less than or equal to 1
+     * @param capacity        The initial capacity, must be a least 1
+     * @param trusted         Whether all the serializers are trusted, and bounds checks are skipped for all of them
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeHashMap} object
+     */
+    public static <K, V> LargeHashMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, double loadFactor, long capacity, boolean trusted) {
+        return LargeHashMap.create(keySerializer, valueSerializer, loadFactor, capacity, trusted, null, 0);
+    }
+
+    /**
+     * Factory method for creating a {@link LargeHashMap} object whose allocations are reserved from a memory budget
+     * Allocations that don't fit in the budget fail as described in {@link OffHeapMemoryBudget}, leaving the map unchanged
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param loadFactor      The load factor, allowed values are more than 0 and less than or equal to 1
+     * @param capacity        The initial capacity, must be a least 1
+     * @param trusted         Whether all the serializers are trusted, and bounds checks are skipped for all of them
+     * @param budget          The memory budget the map's allocations are reserved from
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeHashMap} object
+     * @throws OffHeapMemoryExhaustedException if the initial slot table doesn't fit in the budget
+     */
+    public static <K, V> LargeHashMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, double loadFactor, long capacity, boolean trusted, @NonNull OffHeapMemoryBudget budget) {
+        return LargeHashMap.create(keySerializer, valueSerializer, loadFactor, capacity, trusted, budget, 0);
+    }
+
+    /**
+     * Creates a {@link LargeHashMap} object, the factory methods' common implementation
+     * Collections built on the map can reserve metadata bytes at the start of every entry, which the map never reads or writes,
+     * they're left uninitialized when an entry is written, and are lost when it's replaced
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
      * @param loadFactor      The load factor, allowed values are more than 0 and less than or equal to 1
      * @param capacity        The initial capacity, must be a least 1
+     * @param trusted         Whether all the serializers are trusted, and bounds checks are skipped for all of them
+     * @param budget          The memory budget the map's allocations are reserved from, null if the map is unbounded
+     * @param metadataSize    The number of bytes reserved at the start of every entry, 0 for plain maps
      * @param <K>             The key type
      * @param <V>             The value type
      * @return A {@link LargeHashMap} object
      */
-    public static <K, V> LargeHashMap<K, V> of(@NonNull ObjectSerializer<K> keySerializer, @NonNull ObjectSerializer<V> valueSerializer, double loadFactor, long capacity) {
+    static <K, V> LargeHashMap<K, V> create(@NonNull ObjectSerializer<K> keySerializer, @NonNull ObjectSerializer<V> valueSerializer, double loadFactor, long capacity, boolean trusted, OffHeapMemoryBudget budget, int metadataSize) {
         if (loadFactor <= 0 || 1 <= loadFactor) throw new IllegalArgumentException("Load factor must be bigger than 0 and less than 1");
         if (capacity <= 0) throw new IllegalArgumentException("Initial capacity must be at least 1");
+        if (metadataSize < 0) throw new IllegalArgumentException("Metadata size must not be negative");
 
         boolean keyFixedSize = keySerializer instanceof FixedSizeObjectSerializer;
         boolean valueFixedSize = valueSerializer instanceof FixedSizeObjectSerializer;
-        return new LargeHashMap<>(
+        boolean keyTrusted = trusted || keySerializer instanceof TrustedObjectSerializer;
+        boolean valueTrusted = trusted || valueSerializer instanceof TrustedObjectSerializer;
+        ThreadLocal<UnsafeMemoryReader> keyReader = readers(keyTrusted);
+        ThreadLocal<UnsafeMemoryWriter> keyWriter = writers(keyTrusted);
+        long reservedBytes = UnsafeUtils.allocatedSize(capacity * Long.BYTES);
+        if (budget != null) budget.reserve(reservedBytes, null);
+        long entryPointerAddresses;
+        try {
+            entryPointerAddresses = UnsafeUtils.allocate(capacity * Long.BYTES);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            if (budget != null) budget.release(reservedBytes);
+            throw e;
+        }
+        LargeHashMap<K, V> map = new LargeHashMap<>(
                 new ReentrantReadWriteLock(),
-                withInitial(UnsafeMemoryReader::new),
-                withInitial(UnsafeMemoryWriter::new),
+                keyReader,
+                keyWriter,
+                keyTrusted == valueTrusted ? keyReader : readers(valueTrusted),
+                keyTrusted == valueTrusted ? keyWriter : writers(valueTrusted),
+                withInitial(ScratchMemoryWriter::new),
                 keySerializer,
                 keyFixedSize,
-                keyFixedSize ? 0 : Integer.BYTES,
+                keySerializer instanceof InPlaceObjectSerializer,
+                !keyFixedSize && keySerializer instanceof SinglePassObjectSerializer,
                 valueSerializer,
                 valueFixedSize,
-                valueFixedSize ? 0 : Integer.BYTES,
+                !valueFixedSize && valueSerializer instanceof SinglePassObjectSerializer,
                 loadFactor,
-                UnsafeUtils.allocate(capacity * Long.BYTES),
+                budget,
+                metadataSize,
+                entryPointerAddresses,
                 capacity,
                 0,
                 0,
+                0,
+                0,
                 false
         );
+        MemoryUsage.record(capacity * Long.BYTES, 0, slotTableOverhead(capacity));
+        return map;
+    }
+
+    /**
+     * Loads a map from a snapshot file written by {@link #saveTo(Path)}, with the same serializers the map was created with
+     * Entries are read sequentially and copied as is into the slots they were saved from, keys are neither deserialized nor rehashed,
+     * so their hash codes must be the same in every JVM, e.g. strings, boxed primitives, or keys hashed by an {@link InPlaceObjectSerializer}
+     * Snapshots can only be loaded on a platform with the same byte order and by the same memory layout of serializers
+     *
+     * @param path            The snapshot file's path
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeHashMap} object holding the snapshot's entries
+     * @throws IOException              if the file can't be read, or isn't a valid snapshot
+     * @throws IllegalArgumentException if the serializers' fixed sizes don't match the snapshot's
+     */
+    public static <K, V> LargeHashMap<K, V> loadFrom(@NonNull Path path, ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer) throws IOException {
+        try (SnapshotChannel channel = SnapshotChannel.open(path)) {
+            if (channel.getInt() != SNAPSHOT_MAGIC) throw new IOException("Not a map snapshot, or saved on a platform with a different byte order: " + path);
+            int version = channel.getInt();
+            if (version != SNAPSHOT_VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + path);
+
+            int keyFixedSize = channel.getInt();
+            int valueFixedSize = channel.getInt();
+            double loadFactor = channel.getDouble();
+            long capacity = channel.getLong();
+            long size = channel.getLong();
+            LargeHashMap<K, V> map = LargeHashMap.create(keySerializer, valueSerializer, loadFactor, capacity, false, null, 0);
+            if (keyFixedSize != fixedSize(map.keyFixedSize, keySerializer) || valueFixedSize != fixedSize(map.valueFixedSize, valueSerializer)) {
+                map.close();
+                throw new IllegalArgumentException("Serializers' fixed sizes don't match the snapshot's");
+            }
+
+            try {
+                for (long i = 0; i < size; i++) {
+                    map.loadEntry(channel);
+                }
+            } catch (IOException | RuntimeException e) {
+                map.close();
+                throw e;
+            }
+            return map;
+        }
     }
 
     /**
@@ -212,43 +413,161 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
 
     /**
      * Puts the key and value in the map
+     * If the map has a budget and the write doesn't fit right away, the lock is released while the budget's eviction callbacks run
+     * or it waits for memory, then the write is tried again
      *
      * @param key   The key to insert in the map
      * @param value The value to insert in the map
      * @return The old value related to that key
+     * @throws OffHeapMemoryExhaustedException if the map has a budget and the entry or a bigger slot table doesn't fit in it
      */
     @Override
     public V put(@NonNull K key, @NonNull V value) {
-        lock.writeLock().lock();
+        long sizes = serializedSizes(key, value);
+        long reservedBytes = 0;
         try {
-            throwIfClosed();
-            resizeIfRequired();
-            modifications++;
+            while (true) {
+                long missingBytes;
+                lock.writeLock().lock();
+                try {
+                    throwIfClosed();
+                    missingBytes = tryReserveWrite(key, sizes, reservedBytes);
+                    if (missingBytes == 0) {
+                        reservedBytes = 0;
+                        resizeIfRequired(true);
+                        modifications++;
 
-            long offset = findOffset(key, capacity, entryPointerAddresses);
-            long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
-            V previous = null;
+                        long offset = findOffset(key, capacity, entryPointerAddresses);
+                        long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
+                        V previous = entryPointer != 0 ? readValue(entryPointer) : null;
 
-            if (entryPointer != 0) {
-                previous = readValue(entryPointer);
-                UnsafeUtils.free(entryPointer);
-            } else {
-                size++;
+                        writeEntry(offset, entryPointer, key, value, sizes);
+
+                        return previous;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                budget.reserve(missingBytes, this);
+                reservedBytes += missingBytes;
             }
+        } finally {
+            if (reservedBytes != 0) budget.release(reservedBytes);
+        }
+    }
 
-            int keySize = keySerializer.sizeInBytes(key);
-            int valueSize = valueSerializer.sizeInBytes(value);
+    /**
+     * Puts the key and value in the map without reading the old value
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     * @return {@code true} if the key already existed in the map
+     */
+    boolean set(@NonNull K key, @NonNull V value) {
+        long sizes = serializedSizes(key, value);
+        long reservedBytes = 0;
+        try {
+            while (true) {
+                long missingBytes;
+                lock.writeLock().lock();
+                try {
+                    throwIfClosed();
+                    missingBytes = tryReserveWrite(key, sizes, reservedBytes);
+                    if (missingBytes == 0) {
+                        reservedBytes = 0;
+                        resizeIfRequired(true);
+                        modifications++;
+
+                        long offset = findOffset(key, capacity, entryPointerAddresses);
+                        long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
+
+                        writeEntry(offset, entryPointer, key, value, sizes);
+
+                        return entryPointer != 0;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                budget.reserve(missingBytes, this);
+                reservedBytes += missingBytes;
+            }
+        } finally {
+            if (reservedBytes != 0) budget.release(reservedBytes);
+        }
+    }
 
-            entryPointer = UnsafeUtils.allocate(keyHeaderSize + keySize + valueHeaderSize + valueSize);
-            UnsafeUtils.putLong(entryPointerAddresses + offset, entryPointer);
+    /**
+     * Finds the entry of a key, for collections built on the map that guard it with their own lock
+     * The entry address pointer is only valid until the map is next written to
+     *
+     * @param key The key to lookup
+     * @return The entry address pointer, 0 if the key doesn't exist in the map
+     */
+    long find(@NonNull K key) {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return UnsafeUtils.getLong(entryPointerAddresses + findOffset(key, capacity, entryPointerAddresses));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
-            if (!keyFixedSize) UnsafeUtils.putInt(entryPointer, keySize);
-            keySerializer.serialize(memoryWriter.get().resetTo(entryPointer + keyHeaderSize, keySize), key);
+    /**
+     * Puts the key and value in the map and returns the new entry, for collections built on the map that guard it with their own lock
+     * A replaced entry is freed, so its metadata must be read before calling this method,
+     * if it throws the key either keeps its entry untouched, or the entry was freed and the key is no longer in the map
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     * @return The new entry address pointer, only valid until the map is next written to
+     */
+    long insert(@NonNull K key, @NonNull V value) {
+        long sizes = serializedSizes(key, value);
+        long reservedBytes = 0;
+        try {
+            while (true) {
+                long missingBytes;
+                lock.writeLock().lock();
+                try {
+                    throwIfClosed();
+                    missingBytes = tryReserveWrite(key, sizes, reservedBytes);
+                    if (missingBytes == 0) {
+                        reservedBytes = 0;
+                        resizeIfRequired(true);
+                        modifications++;
+
+                        long offset = findOffset(key, capacity, entryPointerAddresses);
+                        return writeEntry(offset, UnsafeUtils.getLong(entryPointerAddresses + offset), key, value, sizes);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                budget.reserve(missingBytes, this);
+                reservedBytes += missingBytes;
+            }
+        } finally {
+            if (reservedBytes != 0) budget.release(reservedBytes);
+        }
+    }
 
-            if (!valueFixedSize) UnsafeUtils.putInt(entryPointer + keyHeaderSize + keySize, valueSize);
-            valueSerializer.serialize(memoryWriter.get().resetTo(entryPointer + keyHeaderSize + keySize + valueHeaderSize, valueSize), value);
+    /**
+     * Removes an entry found by {@link #find} or {@link #insert}, without looking up or comparing its key
+     *
+     * @param entryPointer The entry address pointer
+     * @param hash         The entry key's hash, as returned by {@link #hash}
+     */
+    void delete(long entryPointer, int hash) {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            resizeIfRequired(false);
 
-            return previous;
+            long index = offset(hash, capacity);
+            while (UnsafeUtils.getLong(entryPointerAddresses + index * Long.BYTES) != entryPointer) {
+                index = (index + 1) % capacity;
+            }
+            deleteEntry(index * Long.BYTES, entryPointer);
         } finally {
             lock.writeLock().unlock();
         }
@@ -265,35 +584,154 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
         lock.writeLock().lock();
         try {
             throwIfClosed();
-            resizeIfRequired();
+            resizeIfRequired(false);
             long offset = findOffset(key, capacity, entryPointerAddresses);
             long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
 
             if (entryPointer == 0) return null;
 
-            modifications++;
-            size--;
-
             V value = readValue(entryPointer);
-            UnsafeUtils.free(entryPointer);
+            deleteEntry(offset, entryPointer);
 
-            long index = offset / Long.BYTES;
-            long bubbleUpIndex = index;
-            while (true) {
-                long entryIndex;
-                do {
-                    bubbleUpIndex = (bubbleUpIndex + 1) % capacity;
-                    entryPointer = UnsafeUtils.getLong(entryPointerAddresses + bubbleUpIndex * Long.BYTES);
-                    if (entryPointer == 0) {
-                        UnsafeUtils.putLong(entryPointerAddresses + index * Long.BYTES, 0);
-                        return value;
-                    }
-                    entryIndex = offset(readKey(entryPointer), capacity);
-                } while (index <= bubbleUpIndex ? index < entryIndex && entryIndex <= bubbleUpIndex : index < entryIndex || entryIndex <= bubbleUpIndex);
+            return value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the key from the map if it exists without reading its value
+     *
+     * @param key The key to remove from the map
+     * @return {@code true} if the key existed in the map
+     */
+    boolean delete(@NonNull K key) {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            resizeIfRequired(false);
+            long offset = findOffset(key, capacity, entryPointerAddresses);
+            long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
+
+            if (entryPointer == 0) return false;
+
+            deleteEntry(offset, entryPointer);
+
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies a function directly on the serialized value of a key, without copying or deserializing it
+     * The value's memory is only valid while the function is running, as the map's read lock is held
+     *
+     * @param key      The key to lookup
+     * @param function The function to apply on the value's address and size
+     * @param <R>      The function's result type
+     * @return The function's result, or null if the key doesn't exist in the map
+     */
+    <R> R view(@NonNull K key, @NonNull RawValueFunction<R> function) {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            long offset = findOffset(key, capacity, entryPointerAddresses);
+            long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
+
+            if (entryPointer == 0) return null;
+
+            long valueHeaderPointer = valueHeaderPointer(entryPointer);
+            return function.apply(valuePointer(valueHeaderPointer), valueSize(valueHeaderPointer));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the serialized value of a key to a memory address
+     *
+     * @param key     The key to lookup
+     * @param address The address to copy the value to
+     * @param bytes   The number of bytes available at the address, at most this number of bytes is copied
+     * @return The value size in bytes, or -1 if the key doesn't exist in the map
+     */
+    int copyValue(@NonNull K key, long address, int bytes) {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            long offset = findOffset(key, capacity, entryPointerAddresses);
+            long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
+
+            if (entryPointer == 0) return -1;
+
+            long valueHeaderPointer = valueHeaderPointer(entryPointer);
+            int valueSize = valueSize(valueHeaderPointer);
+            UnsafeUtils.copyMemory(null, valuePointer(valueHeaderPointer), null, address, Math.min(valueSize, bytes));
+            return valueSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads key's value in place through a flyweight view, without copying or deserializing it
+     * The view is bound to the value only while the function is running, as the map's read lock is held,
+     * and it's bound read only, so its setters throw an {@link IllegalStateException}
+     *
+     * @param key      The key to lookup
+     * @param view     The view to bind to the value, its size must not be more than the value's size
+     * @param function The function to apply on the bound view
+     * @param <F>      The view's type
+     * @param <R>      The function's result type
+     * @return The function's result, or null if the key doesn't exist in the map
+     */
+    public <F extends Flyweight, R> R read(@NonNull K key, @NonNull F view, @NonNull Function<? super F, ? extends R> function) {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            long offset = findOffset(key, capacity, entryPointerAddresses);
+            long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
+
+            if (entryPointer == 0) return null;
+
+            bind(view, entryPointer, false);
+            try {
+                return function.apply(view);
+            } finally {
+                view.unbind();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Updates key's value in place through a flyweight view, without deserializing it or rewriting the entry
+     * The view is bound to the value only while the action is running, as the map's write lock is held
+     *
+     * @param key    The key to lookup
+     * @param view   The view to bind to the value, its size must not be more than the value's size
+     * @param action The action to apply on the bound view
+     * @param <F>    The view's type
+     * @return {@code true} if the key existed in the map and the action was applied
+     */
+    public <F extends Flyweight> boolean update(@NonNull K key, @NonNull F view, @NonNull Consumer<? super F> action) {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            long offset = findOffset(key, capacity, entryPointerAddresses);
+            long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset);
 
-                UnsafeUtils.putLong(entryPointerAddresses + index * Long.BYTES, entryPointer);
-                index = bubbleUpIndex;
+            if (entryPointer == 0) return false;
+
+            bind(view, entryPointer, true);
+            try {
+                action.accept(view);
+            } finally {
+                view.unbind();
             }
+            return true;
         } finally {
             lock.writeLock().unlock();
         }
@@ -317,6 +755,8 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
                 }
             }
             size = 0;
+            if (budget != null) budget.release(entryBytes + entryOverheadBytes);
+            accountEntries(-entryBytes, -entryOverheadBytes);
         } finally {
             lock.writeLock().unlock();
         }
@@ -339,23 +779,91 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
     }
 
     /**
-     * Returns an iterator over elements of type {@code Entry<K, V>}
+     * Gets the off heap memory currently used by the map
      *
-     * @return The map's iterator
+     * @return The map's memory usage
      */
     @Override
-    public Iterator<Entry<K, V>> iterator() {
+    public MemoryUsage memoryUsage() {
         lock.readLock().lock();
         try {
             throwIfClosed();
-            return new LargeHashMapIterator<>(this, modifications);
+            return MemoryUsage.of(capacity * Long.BYTES, entryBytes, slotTableOverhead(capacity) + entryOverheadBytes);
         } finally {
             lock.readLock().unlock();
         }
     }
 
     /**
-     * Disposes of the off heap allocations
+     * Saves the map to a snapshot file, which {@link #loadFrom(Path, ObjectSerializer, ObjectSerializer)} loads without rehashing
+     * The slot table is scanned in order and every entry is written as its slot index, size and raw bytes, through a large direct buffer,
+     * the map's read lock is held while it's saved, so writers wait but the snapshot is consistent
+     * The snapshot is written to a temporary sibling file, forced, and atomically renamed over the file at the path,
+     * so a crash while saving leaves the previous snapshot whole, and the new one is durable once this returns
+     *
+     * @param path The snapshot file's path, it's created or replaced
+     * @throws IOException if the file can't be written
+     */
+    public void saveTo(@NonNull Path path) throws IOException {
+        lock.readLock().lock();
+        try (SnapshotChannel channel = SnapshotChannel.create(path)) {
+            throwIfClosed();
+            channel.putInt(SNAPSHOT_MAGIC);
+            channel.putInt(SNAPSHOT_VERSION);
+            channel.putInt(fixedSize(keyFixedSize, keySerializer));
+            channel.putInt(fixedSize(valueFixedSize, valueSerializer));
+            channel.putDouble(loadFactor);
+            channel.putLong(capacity);
+            channel.putLong(size);
+            for (long index = 0; index < capacity; index++) {
+                long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + index * Long.BYTES);
+                if (entryPointer != 0) {
+                    long entrySize = entrySize(entryPointer);
+                    channel.putLong(index);
+                    channel.putLong(entrySize);
+                    channel.putMemory(entryPointer, entrySize);
+                }
+            }
+            channel.commit();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<K, V>}
+     *
+     * @return The map's iterator
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return new LargeHashMapIterator<>(this, modifications);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a cursor over the serialized entries of the map
+     *
+     * @return The map's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return new LargeHashMapCursor(this, modifications);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Disposes of the off heap allocations
      */
     @Override
     public void close() {
@@ -365,6 +873,8 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
             clear();
             closed = true;
             UnsafeUtils.free(entryPointerAddresses);
+            if (budget != null) budget.release(UnsafeUtils.allocatedSize(capacity * Long.BYTES));
+            MemoryUsage.record(-capacity * Long.BYTES, 0, -slotTableOverhead(capacity));
         } finally {
             lock.writeLock().unlock();
         }
@@ -446,6 +956,26 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
         return sb.append('}').toString();
     }
 
+    /**
+     * Creates the per thread memory readers passed to a serializer
+     *
+     * @param trusted Whether the serializer is trusted, and bounds checks are skipped
+     * @return The per thread memory readers
+     */
+    private static ThreadLocal<UnsafeMemoryReader> readers(boolean trusted) {
+        return withInitial(() -> trusted ? new TrustedMemoryReader() : new UnsafeMemoryReader());
+    }
+
+    /**
+     * Creates the per thread memory writers passed to a serializer
+     *
+     * @param trusted Whether the serializer is trusted, and bounds checks are skipped
+     * @return The per thread memory writers
+     */
+    private static ThreadLocal<UnsafeMemoryWriter> writers(boolean trusted) {
+        return withInitial(() -> trusted ? new TrustedMemoryWriter() : new UnsafeMemoryWriter());
+    }
+
     /**
      * Checks if the map is already closed and throws an exception if so
      *
@@ -455,6 +985,23 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
         if (closed) throw new IllegalStateException("Map was already closed");
     }
 
+    /**
+     * Binds a flyweight view to the value of an entry
+     *
+     * @param view         The view to bind
+     * @param entryPointer The entry address pointer
+     * @param writable     Whether the view's setters can write the value
+     * @throws IllegalArgumentException if the view's size is more than the value's size
+     */
+    private void bind(Flyweight view, long entryPointer, boolean writable) {
+        long valueHeaderPointer = valueHeaderPointer(entryPointer);
+        int valueSize = valueSize(valueHeaderPointer);
+        if (view.sizeInBytes() > valueSize) {
+            throw new IllegalArgumentException("View size " + view.sizeInBytes() + " is more than the value size " + valueSize);
+        }
+        view.bind(valuePointer(valueHeaderPointer), writable);
+    }
+
     /**
      * Find the offset of a key in the map's underlying array
      *
@@ -464,10 +1011,10 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
      * @return The offset of such key in the map
      */
     private long findOffset(K key, long capacity, long entryPointerAddresses) {
-        long offset = offset(key, capacity);
+        long offset = offset(hash(key), capacity);
         long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset * Long.BYTES);
 
-        while (entryPointer != 0 && !key.equals(readKey(entryPointer))) {
+        while (entryPointer != 0 && !keyEquals(entryPointer, key)) {
             offset = ++offset % capacity;
             entryPointer = UnsafeUtils.getLong(entryPointerAddresses + offset * Long.BYTES);
         }
@@ -476,15 +1023,236 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
     }
 
     /**
-     * Resize the map underlying array if required
+     * Writes a new entry for the key and value at the given offset, replacing the existing entry if any
+     * The entry is allocated without being zeroed, its headers, key and value cover every byte of it except for the metadata,
+     * the headers are written first, so if serializing the key or value fails the new entry can be deleted, leaving the key out of the map
+     * The bytes the entry needs on top of the entry it replaces were already reserved from the budget by {@link #tryReserveWrite}
+     *
+     * @param offset       The offset of the key in the map
+     * @param entryPointer The existing entry address pointer, 0 if the key doesn't exist
+     * @param key          The key to write
+     * @param value        The value to write
+     * @param sizes        The key and value sizes, as returned by {@link #serializedSizes}
+     * @return The new entry address pointer
+     */
+    private long writeEntry(long offset, long entryPointer, K key, V value, long sizes) {
+        ScratchMemoryWriter scratch = keySinglePass || valueSinglePass ? scratchWriter.get() : null;
+
+        int keySize = writtenKeySize(sizes);
+        int valueSize = writtenValueSize(sizes);
+        int keyHeaderSize = keyFixedSize ? 0 : VarInts.varIntSize(keySize);
+        int valueHeaderSize = valueFixedSize ? 0 : VarInts.varIntSize(valueSize);
+
+        long newEntrySize = newEntrySize(sizes);
+        long newAllocatedBytes = UnsafeUtils.allocatedSize(newEntrySize);
+
+        long freedBytes = 0;
+        long freedOverheadBytes = 0;
+        if (entryPointer != 0) {
+            freedBytes = entrySize(entryPointer);
+            freedOverheadBytes = UnsafeUtils.allocatedSize(freedBytes) - freedBytes;
+            UnsafeUtils.free(entryPointer);
+        } else {
+            size++;
+        }
+        if (budget != null) budget.release(Math.max(0, freedBytes + freedOverheadBytes - newAllocatedBytes));
+
+        long newEntryPointer = UnsafeUtils.allocateUninitialized(newEntrySize);
+        UnsafeUtils.putLong(entryPointerAddresses + offset, newEntryPointer);
+        accountEntries(newEntrySize - freedBytes, newAllocatedBytes - newEntrySize - freedOverheadBytes);
+
+        long keyPointer = newEntryPointer + metadataSize + keyHeaderSize;
+        long valuePointer = keyPointer + keySize + valueHeaderSize;
+        if (!keyFixedSize) UnsafeUtils.putVarInt(newEntryPointer + metadataSize, keySize);
+        if (!valueFixedSize) UnsafeUtils.putVarInt(keyPointer + keySize, valueSize);
+        try {
+            if (keySinglePass) {
+                scratch.copyTo(0, keySize, keyPointer);
+            } else {
+                keySerializer.serialize(keyWriter.get().resetTo(keyPointer, keySize), key);
+            }
+
+            if (valueSinglePass) {
+                scratch.copyTo(scratch.position() - valueSize, valueSize, valuePointer);
+            } else {
+                valueSerializer.serialize(valueWriter.get().resetTo(valuePointer, valueSize), value);
+            }
+        } catch (RuntimeException e) {
+            deleteEntry(offset, newEntryPointer);
+            throw e;
+        }
+
+        return newEntryPointer;
+    }
+
+    /**
+     * Reads an entry saved by {@link #saveTo(Path)} and puts it back in the slot it was saved from
+     *
+     * @param channel The snapshot being loaded
+     * @throws IOException if the snapshot can't be read, or the entry doesn't fit in the map
+     */
+    private void loadEntry(SnapshotChannel channel) throws IOException {
+        long index = channel.getLong();
+        long entrySize = channel.getLong();
+        if (index < 0 || index >= capacity || entrySize <= metadataSize || UnsafeUtils.getLong(entryPointerAddresses + index * Long.BYTES) != 0) {
+            throw new IOException("Corrupted snapshot, invalid entry in slot " + index);
+        }
+
+        long entryPointer = UnsafeUtils.allocateUninitialized(entrySize);
+        UnsafeUtils.putLong(entryPointerAddresses + index * Long.BYTES, entryPointer);
+        size++;
+        accountEntries(entrySize, UnsafeUtils.allocatedSize(entrySize) - entrySize);
+        channel.getMemory(entryPointer, entrySize);
+    }
+
+    /**
+     * Gets a serializer's fixed size as recorded in snapshots
+     *
+     * @param fixedSize  Whether the serializer has a fixed size
+     * @param serializer The serializer
+     * @return The serializer's size in bytes, or -1 if it's variable sized
+     */
+    private static int fixedSize(boolean fixedSize, ObjectSerializer<?> serializer) {
+        return fixedSize ? serializer.sizeInBytes(null) : -1;
+    }
+
+    /**
+     * Gets the sizes of a key and value about to be written, before the lock is taken
+     * Single pass keys and values are serialized to the thread's scratch writer, which holds them until the entry is written
+     *
+     * @param key   The key to write
+     * @param value The value to write
+     * @return The key size in the high 32 bits and the value size in the low 32 bits
+     */
+    private long serializedSizes(K key, V value) {
+        ScratchMemoryWriter scratch = keySinglePass || valueSinglePass ? scratchWriter.get().reset() : null;
+
+        int keySize;
+        if (keySinglePass) {
+            keySerializer.serialize(scratch, key);
+            keySize = scratch.position();
+        } else {
+            keySize = keySerializer.sizeInBytes(key);
+        }
+
+        int valueSize;
+        if (valueSinglePass) {
+            int valueStart = scratch.position();
+            valueSerializer.serialize(scratch, value);
+            valueSize = scratch.position() - valueStart;
+        } else {
+            valueSize = valueSerializer.sizeInBytes(value);
+        }
+
+        return (long) keySize << Integer.SIZE | valueSize & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Gets the key size out of the sizes returned by {@link #serializedSizes}
+     *
+     * @param sizes The key and value sizes
+     * @return The key size
+     */
+    private static int writtenKeySize(long sizes) {
+        return (int) (sizes >>> Integer.SIZE);
+    }
+
+    /**
+     * Gets the value size out of the sizes returned by {@link #serializedSizes}
+     *
+     * @param sizes The key and value sizes
+     * @return The value size
+     */
+    private static int writtenValueSize(long sizes) {
+        return (int) sizes;
+    }
+
+    /**
+     * Gets the size of an entry about to be written, including its metadata and the headers of variable sized keys and values
+     *
+     * @param sizes The key and value sizes, as returned by {@link #serializedSizes}
+     * @return The entry size
+     */
+    private long newEntrySize(long sizes) {
+        int keySize = writtenKeySize(sizes);
+        int valueSize = writtenValueSize(sizes);
+        return metadataSize + (keyFixedSize ? 0 : VarInts.varIntSize(keySize)) + keySize + (valueFixedSize ? 0 : VarInts.varIntSize(valueSize)) + valueSize;
+    }
+
+    /**
+     * Reserves the bytes a write needs from the budget without waiting, must be called with the write lock held
+     * The write needs the bigger slot table if the map is about to grow, and the new entry's bytes on top of the entry it replaces if any,
+     * the bytes reserved by earlier attempts are used first, and any left over are released
+     *
+     * @param key           The key to write
+     * @param sizes         The key and value sizes, as returned by {@link #serializedSizes}
+     * @param reservedBytes The bytes reserved by earlier attempts
+     * @return 0 if the write's bytes are reserved, otherwise the bytes missing, to be reserved with the lock released before trying again
+     */
+    private long tryReserveWrite(K key, long sizes, long reservedBytes) {
+        if (budget == null) return 0;
+
+        long requiredBytes = needsToGrow() ? UnsafeUtils.allocatedSize(capacity * 2 * Long.BYTES) : 0;
+        long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + findOffset(key, capacity, entryPointerAddresses));
+        long replacedBytes = entryPointer != 0 ? UnsafeUtils.allocatedSize(entrySize(entryPointer)) : 0;
+        requiredBytes += Math.max(0, UnsafeUtils.allocatedSize(newEntrySize(sizes)) - replacedBytes);
+
+        if (requiredBytes <= reservedBytes) {
+            budget.release(reservedBytes - requiredBytes);
+            return 0;
+        }
+        return budget.tryReserve(requiredBytes - reservedBytes) ? 0 : requiredBytes - reservedBytes;
+    }
+
+    /**
+     * Deletes the entry at the given offset, and bubbles up the following entries to fill the gap
+     *
+     * @param offset       The offset of the key in the map
+     * @param entryPointer The entry address pointer to delete
+     */
+    private void deleteEntry(long offset, long entryPointer) {
+        modifications++;
+        size--;
+
+        long freedBytes = entrySize(entryPointer);
+        UnsafeUtils.free(entryPointer);
+        if (budget != null) budget.release(UnsafeUtils.allocatedSize(freedBytes));
+        accountEntries(-freedBytes, freedBytes - UnsafeUtils.allocatedSize(freedBytes));
+
+        long index = offset / Long.BYTES;
+        long bubbleUpIndex = index;
+        while (true) {
+            long bubbleUpEntryPointer;
+            long entryIndex;
+            do {
+                bubbleUpIndex = (bubbleUpIndex + 1) % capacity;
+                bubbleUpEntryPointer = UnsafeUtils.getLong(entryPointerAddresses + bubbleUpIndex * Long.BYTES);
+                if (bubbleUpEntryPointer == 0) {
+                    UnsafeUtils.putLong(entryPointerAddresses + index * Long.BYTES, 0);
+                    return;
+                }
+                entryIndex = offset(hashAt(bubbleUpEntryPointer), capacity);
+            } while (index <= bubbleUpIndex ? index < entryIndex && entryIndex <= bubbleUpIndex : index < entryIndex || entryIndex <= bubbleUpIndex);
+
+            UnsafeUtils.putLong(entryPointerAddresses + index * Long.BYTES, bubbleUpEntryPointer);
+            index = bubbleUpIndex;
+        }
+    }
+
+    /**
+     * Resize the map underlying array if required, the map only grows before adding entries
+     * A bigger array was already reserved from the budget by {@link #tryReserveWrite}, while a smaller one is reserved before it's allocated,
+     * shrinking is skipped unless it fits right away, so removing entries never fails
+     *
+     * @param adding Whether an entry is about to be added, if not the map never grows
      */
-    private void resizeIfRequired() {
-        double load = size / (double) capacity;
+    private void resizeIfRequired(boolean adding) {
         long newCapacity;
-        if (load > loadFactor) {
+        if (adding && needsToGrow()) {
             newCapacity = capacity * 2;
-        } else if (load < loadFactor / 2 && capacity / 2 > DEFAULT_CAPACITY) {
+        } else if (size / (double) capacity < loadFactor / 2 && capacity / 2 > DEFAULT_CAPACITY) {
             newCapacity = capacity / 2;
+            if (budget != null && !budget.tryReserve(UnsafeUtils.allocatedSize(newCapacity * Long.BYTES))) return;
         } else {
             return;
         }
@@ -496,18 +1264,93 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
         for (int i = 0; i < capacity; i++) {
             long entryPointer = UnsafeUtils.getLong(entryPointerAddresses + i * Long.BYTES);
             if (entryPointer != 0) {
-                K key = readKey(entryPointer);
-                long offset = findOffset(key, newCapacity, newEntryPointerAddresses);
-                UnsafeUtils.putLong(newEntryPointerAddresses + offset, entryPointer);
+                long offset = offset(hashAt(entryPointer), newCapacity);
+                while (UnsafeUtils.getLong(newEntryPointerAddresses + offset * Long.BYTES) != 0) {
+                    offset = ++offset % newCapacity;
+                }
+                UnsafeUtils.putLong(newEntryPointerAddresses + offset * Long.BYTES, entryPointer);
             }
         }
 
         UnsafeUtils.free(entryPointerAddresses);
+        if (budget != null) budget.release(UnsafeUtils.allocatedSize(capacity * Long.BYTES));
+        MemoryUsage.record((newCapacity - capacity) * Long.BYTES, 0, slotTableOverhead(newCapacity) - slotTableOverhead(capacity));
 
         capacity = newCapacity;
         entryPointerAddresses = newEntryPointerAddresses;
     }
 
+    /**
+     * Checks if the map's load is over its load factor, so it grows before the next entry is added
+     *
+     * @return {@code true} if the map needs to grow
+     */
+    private boolean needsToGrow() {
+        return size / (double) capacity > loadFactor;
+    }
+
+    /**
+     * Adds allocated or freed entry memory to the map's and the process wide memory usage
+     *
+     * @param bytes         The change in entry bytes, negative if freed
+     * @param overheadBytes The change in the backend's overhead for entries, negative if freed
+     */
+    private void accountEntries(long bytes, long overheadBytes) {
+        entryBytes += bytes;
+        entryOverheadBytes += overheadBytes;
+        MemoryUsage.record(0, bytes, overheadBytes);
+    }
+
+    /**
+     * Estimates the bytes taken by the memory backend on top of a slot table
+     *
+     * @param capacity The slot table's capacity
+     * @return The slot table's overhead bytes
+     */
+    private static long slotTableOverhead(long capacity) {
+        return UnsafeUtils.allocatedSize(capacity * Long.BYTES) - capacity * Long.BYTES;
+    }
+
+    /**
+     * Hashes a key, in the same way stored keys are hashed by {@link #hashAt(long)}
+     *
+     * @param key The key to hash
+     * @return The key's hash
+     */
+    @SuppressWarnings("unchecked")
+    int hash(K key) {
+        return keyInPlace ? ((InPlaceObjectSerializer<K>) keySerializer).hash(key) : key.hashCode();
+    }
+
+    /**
+     * Hashes a stored key given the entry address pointer, in place if the key serializer supports it
+     *
+     * @param entryPointer The entry address pointer
+     * @return The key's hash
+     */
+    @SuppressWarnings("unchecked")
+    private int hashAt(long entryPointer) {
+        if (!keyInPlace) return readKey(entryPointer).hashCode();
+
+        MemoryReader reader = keyReader.get().resetTo(keyPointer(entryPointer), keySize(entryPointer));
+        return ((InPlaceObjectSerializer<K>) keySerializer).hash(reader);
+    }
+
+    /**
+     * Compares a stored key given the entry address pointer with a key, in place if the key serializer supports it
+     *
+     * @param entryPointer The entry address pointer
+     * @param key          The key to compare with
+     * @return {@code true} if the stored key is equal to the passed key
+     */
+    @SuppressWarnings("unchecked")
+    private boolean keyEquals(long entryPointer, K key) {
+        if (!keyInPlace) return key.equals(readKey(entryPointer));
+
+        MemoryReader reader = keyReader.get().resetTo(keyPointer(entryPointer), keySize(entryPointer));
+        return ((InPlaceObjectSerializer<K>) keySerializer).matches(reader, key);
+    }
+
     /**
      * Read a key from the map given the entry address pointer
      *
@@ -515,8 +1358,7 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
      * @return The entry's key
      */
     private K readKey(long entryPointer) {
-        int keySize = keyFixedSize ? keySerializer.sizeInBytes(null) : UnsafeUtils.getInt(entryPointer);
-        MemoryReader reader = memoryReader.get().resetTo(entryPointer + keyHeaderSize, keySize);
+        MemoryReader reader = keyReader.get().resetTo(keyPointer(entryPointer), keySize(entryPointer));
 
         return keySerializer.deserialize(reader);
     }
@@ -527,34 +1369,94 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
      * @param entryPointer The entry address pointer
      * @return The entry's value
      */
-    private V readValue(long entryPointer) {
-        int keySize = keyFixedSize ? keySerializer.sizeInBytes(null) : UnsafeUtils.getInt(entryPointer);
-        long valuePointer = entryPointer + keyHeaderSize + keySize;
-        int valueSize = valueFixedSize ? valueSerializer.sizeInBytes(null) : UnsafeUtils.getInt(valuePointer);
-        MemoryReader reader = memoryReader.get().resetTo(valuePointer + valueHeaderSize, valueSize);
+    V readValue(long entryPointer) {
+        long valueHeaderPointer = valueHeaderPointer(entryPointer);
+        MemoryReader reader = valueReader.get().resetTo(valuePointer(valueHeaderPointer), valueSize(valueHeaderPointer));
 
         return valueSerializer.deserialize(reader);
     }
 
+    /**
+     * Gets the serialized key size given the entry address pointer
+     *
+     * @param entryPointer The entry address pointer
+     * @return The key size in bytes
+     */
+    int keySize(long entryPointer) {
+        return keyFixedSize ? keySerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(entryPointer + metadataSize);
+    }
+
+    /**
+     * Gets the serialized key address given the entry address pointer, i.e. the address right after the metadata and the key header
+     *
+     * @param entryPointer The entry address pointer
+     * @return The key address
+     */
+    long keyPointer(long entryPointer) {
+        long keyHeaderPointer = entryPointer + metadataSize;
+        return keyFixedSize ? keyHeaderPointer : keyHeaderPointer + UnsafeUtils.getVarIntSize(keyHeaderPointer);
+    }
+
+    /**
+     * Gets the value header address given the entry address pointer, i.e. the address right after the serialized key
+     *
+     * @param entryPointer The entry address pointer
+     * @return The value header address
+     */
+    private long valueHeaderPointer(long entryPointer) {
+        return keyPointer(entryPointer) + keySize(entryPointer);
+    }
+
+    /**
+     * Gets the serialized value size given the value header address
+     *
+     * @param valueHeaderPointer The value header address
+     * @return The value size in bytes
+     */
+    int valueSize(long valueHeaderPointer) {
+        return valueFixedSize ? valueSerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(valueHeaderPointer);
+    }
+
+    /**
+     * Gets the serialized value address given the value header address, i.e. the address right after the value header
+     *
+     * @param valueHeaderPointer The value header address
+     * @return The value address
+     */
+    long valuePointer(long valueHeaderPointer) {
+        return valueFixedSize ? valueHeaderPointer : valueHeaderPointer + UnsafeUtils.getVarIntSize(valueHeaderPointer);
+    }
+
+    /**
+     * Gets the size of an entry's allocation given the entry address pointer, i.e. its metadata, headers, key and value
+     *
+     * @param entryPointer The entry address pointer
+     * @return The entry size in bytes
+     */
+    long entrySize(long entryPointer) {
+        long valueHeaderPointer = valueHeaderPointer(entryPointer);
+        return valuePointer(valueHeaderPointer) + valueSize(valueHeaderPointer) - entryPointer;
+    }
+
     /**
      * Read an entry from the map given its address pointer
      *
      * @param entryPointer The entry address pointer
      * @return The key and value pair
      */
-    private Entry<K, V> readEntry(long entryPointer) {
+    Entry<K, V> readEntry(long entryPointer) {
         return new SimpleImmutableEntry<>(readKey(entryPointer), readValue(entryPointer));
     }
 
     /**
-     * Helper function to hash, spread, and mod by capacity
+     * Helper function to spread a hash, and mod by capacity
      *
-     * @param key      The key to hash
+     * @param hash     The key's hash
      * @param capacity The current capacity
      * @return The desired offset
      */
-    private long offset(K key, long capacity) {
-        return spread(key.hashCode()) % capacity;
+    private static long offset(int hash, long capacity) {
+        return spread(hash) % capacity;
     }
 
     /**
@@ -661,4 +1563,187 @@ public final class LargeHashMap<K, V> implements LargeMap<K, V> {
             }
         }
     }
+
+    /**
+     * LargeHashMapCursor, an inner class wrapping the cursor logic for the map,
+     * it only holds the map's read lock while {@link #next()} scans for the next entry, so it never blocks writers between calls
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LargeHashMapCursor implements LargeMapCursor {
+
+        /**
+         * A reference to the map this cursor is iterating on
+         */
+        @NonNull
+        private final LargeHashMap<?, ?> map;
+
+        /**
+         * The number of modifications at the time we initialized this cursor,
+         * this is to help fail fast if the map was changed between calls to {@link #next()}
+         */
+        private final int expectedModifications;
+
+        /**
+         * The reader positioned on the current key
+         */
+        private final UnsafeMemoryReader keyReader = new UnsafeMemoryReader();
+
+        /**
+         * The reader positioned on the current value
+         */
+        private final UnsafeMemoryReader valueReader = new UnsafeMemoryReader();
+
+        /**
+         * The index of the next slot to scan
+         */
+        private long index = 0;
+
+        /**
+         * Whether all the slots were scanned
+         */
+        private boolean exhausted = false;
+
+        /**
+         * The current entry address pointer, 0 if not positioned on an entry
+         */
+        private long entryPointer = 0;
+
+        /**
+         * The current key address pointer, i.e. the address after the key header
+         */
+        private long keyPointer;
+
+        /**
+         * The current key size in bytes
+         */
+        private int keySize;
+
+        /**
+         * The current value address pointer, i.e. the address after the value header
+         */
+        private long valuePointer;
+
+        /**
+         * The current value size in bytes
+         */
+        private int valueSize;
+
+        /**
+         * Advances the cursor to the next entry
+         *
+         * @return {@code true} if the cursor is positioned on an entry, {@code false} if the entries are exhausted
+         * @throws IllegalStateException           if the map was closed
+         * @throws ConcurrentModificationException if the map was modified since the cursor was created
+         */
+        @Override
+        public boolean next() {
+            entryPointer = 0;
+            if (exhausted) return false;
+
+            map.lock.readLock().lock();
+            try {
+                throwIfInvalid();
+                while (index < map.capacity) {
+                    long pointer = UnsafeUtils.getLong(map.entryPointerAddresses + index * Long.BYTES);
+                    index++;
+                    if (pointer != 0) {
+                        position(pointer);
+                        return true;
+                    }
+                }
+
+                exhausted = true;
+                return false;
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized key
+         *
+         * @return The key reader
+         */
+        @Override
+        public MemoryReader key() {
+            throwIfNotPositioned();
+            return keyReader.resetTo(keyPointer, keySize);
+        }
+
+        /**
+         * Gets the current entry's serialized key size in bytes
+         *
+         * @return The key size in bytes
+         */
+        @Override
+        public int keySize() {
+            throwIfNotPositioned();
+            return keySize;
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized value
+         *
+         * @return The value reader
+         */
+        @Override
+        public MemoryReader value() {
+            throwIfNotPositioned();
+            return valueReader.resetTo(valuePointer, valueSize);
+        }
+
+        /**
+         * Gets the current entry's serialized value size in bytes
+         *
+         * @return The value size in bytes
+         */
+        @Override
+        public int valueSize() {
+            throwIfNotPositioned();
+            return valueSize;
+        }
+
+        /**
+         * Closes the cursor, it holds no lock between calls so there's nothing to release
+         */
+        @Override
+        public void close() {
+            entryPointer = 0;
+            exhausted = true;
+        }
+
+        /**
+         * Checks if the map can still be iterated and throws an exception if not, must be called with the map's read lock held
+         *
+         * @throws IllegalStateException           if the map was closed
+         * @throws ConcurrentModificationException if the map was modified since the cursor was created
+         */
+        private void throwIfInvalid() {
+            if (map.closed) throw new IllegalStateException("Map was already closed");
+            if (expectedModifications != map.modifications) throw new ConcurrentModificationException("Map has been modified since cursor was created");
+        }
+
+        /**
+         * Positions the cursor on an entry
+         *
+         * @param pointer The entry address pointer
+         */
+        private void position(long pointer) {
+            entryPointer = pointer;
+            keyPointer = map.keyPointer(pointer);
+            keySize = map.keySize(pointer);
+            long valueHeaderPointer = keyPointer + keySize;
+            valueSize = map.valueSize(valueHeaderPointer);
+            valuePointer = map.valuePointer(valueHeaderPointer);
+        }
+
+        /**
+         * Checks if the cursor is positioned on an entry and throws an exception if not
+         *
+         * @throws IllegalStateException if the cursor is not positioned on an entry
+         */
+        private void throwIfNotPositioned() {
+            if (entryPointer == 0) throw new IllegalStateException("Cursor is not positioned on an entry, please use next() first");
+        }
+    }
 }
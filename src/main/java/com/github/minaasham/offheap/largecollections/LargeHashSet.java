@@ -66,4 +66,19 @@ public final class LargeHashSet<E> extends AbstractMapBasedLargeSet<E> {
     public static <E> LargeHashSet<E> of(ObjectSerializer<E> elementSerializer, double loadFactor, long capacity) {
         return new LargeHashSet<>(LargeHashMap.of(elementSerializer, ZeroBytesFixedSerializer.INSTANCE, loadFactor, capacity));
     }
+
+    /**
+     * Factory method for creating a {@link LargeHashSet} object whose allocations are reserved from a memory budget
+     *
+     * @param elementSerializer The element serializer
+     * @param loadFactor        The load factor, allowed values are more than 0 and less than or equal to 1
+     * @param capacity          The initial capacity, must be a least 1
+     * @param budget            The memory budget the set's allocations are reserved from
+     * @param <E>               The element type
+     * @return A {@link LargeHashSet} object
+     * @throws OffHeapMemoryExhaustedException if the initial slot table doesn't fit in the budget
+     */
+    public static <E> LargeHashSet<E> of(ObjectSerializer<E> elementSerializer, double loadFactor, long capacity, OffHeapMemoryBudget budget) {
+        return new LargeHashSet<>(LargeHashMap.of(elementSerializer, ZeroBytesFixedSerializer.INSTANCE, loadFactor, capacity, false, budget));
+    }
 }
@@ -0,0 +1,670 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * LargeLinkedHashMap, an off heap map built on {@link LargeHashMap} that keeps its entries in insertion order or access order
+ * An {@link EntryList} is threaded through the entries' metadata, so the order is kept off heap, the eldest entry can be
+ * removed in O(1), and iterating only visits live entries in list order instead of scanning the whole slot table
+ * In access order, reading or replacing an entry moves it to the end of the list, so the eldest entry is the least recently used,
+ * reads then take the map's write lock, as in {@link java.util.LinkedHashMap} they're structural modifications
+ *
+ * @param <K> The key type, cannot be null
+ * @param <V> The value type, cannot be null
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LargeLinkedHashMap<K, V> implements LargeMap<K, V> {
+
+    /**
+     * The lock guarding the list, as the map frees replaced and removed entries
+     */
+    private final ReentrantReadWriteLock lock;
+
+    /**
+     * The map holding the entries
+     */
+    private final LargeHashMap<K, V> map;
+
+    /**
+     * Are the entries kept in access order rather than insertion order?
+     */
+    private final boolean accessOrder;
+
+    /**
+     * The list of entries, from the eldest to the youngest
+     */
+    private final EntryList list = new EntryList();
+
+    /**
+     * The number of modifications that happened to the list,
+     * this serves as an fail fast for the map's iterator and cursor
+     */
+    private int modifications;
+
+    /**
+     * If the map was closed and disposed of its resources
+     */
+    private boolean closed;
+
+    /**
+     * Factory method for creating a {@link LargeLinkedHashMap} object in insertion order
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeLinkedHashMap} object
+     */
+    public static <K, V> LargeLinkedHashMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer) {
+        return LargeLinkedHashMap.of(keySerializer, valueSerializer, false);
+    }
+
+    /**
+     * Factory method for creating a {@link LargeLinkedHashMap} object
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param accessOrder     Whether the entries are kept in access order rather than insertion order
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeLinkedHashMap} object
+     */
+    public static <K, V> LargeLinkedHashMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, boolean accessOrder) {
+        return LargeLinkedHashMap.of(keySerializer, valueSerializer, LargeHashMap.DEFAULT_LOAD_FACTOR, LargeHashMap.DEFAULT_CAPACITY, accessOrder);
+    }
+
+    /**
+     * Factory method for creating a {@link LargeLinkedHashMap} object
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param loadFactor      The load factor for the hash map
+     * @param capacity        The initial capacity for the hash map
+     * @param accessOrder     Whether the entries are kept in access order rather than insertion order
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeLinkedHashMap} object
+     */
+    public static <K, V> LargeLinkedHashMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, double loadFactor, long capacity, boolean accessOrder) {
+        LargeHashMap<K, V> map = LargeHashMap.create(keySerializer, valueSerializer, loadFactor, capacity, false, null, EntryList.METADATA_SIZE);
+        return new LargeLinkedHashMap<>(new ReentrantReadWriteLock(), map, accessOrder);
+    }
+
+    /**
+     * Gets key's value from the map, in access order the entry is moved to the end of the list
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key
+     */
+    @Override
+    public V get(@NonNull K key) {
+        if (accessOrder) {
+            lock.writeLock().lock();
+            try {
+                long entryPointer = map.find(key);
+                if (entryPointer == 0) return null;
+
+                moveToTail(entryPointer);
+                return map.readValue(entryPointer);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            long entryPointer = map.find(key);
+            return entryPointer != 0 ? map.readValue(entryPointer) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Puts the key and value in the map, a new key is added at the end of the list,
+     * a replaced key keeps its position in insertion order and is moved to the end of the list in access order
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     * @return The old value related to that key
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) {
+        lock.writeLock().lock();
+        try {
+            long entryPointer = map.find(key);
+            modifications++;
+            if (entryPointer == 0) {
+                long newEntryPointer = map.insert(key, value);
+                EntryList.putHash(newEntryPointer, map.hash(key));
+                list.linkLast(newEntryPointer);
+                return null;
+            }
+
+            V previous = map.readValue(entryPointer);
+            long previousEntry = EntryList.previous(entryPointer);
+            int hash = EntryList.hash(entryPointer);
+            list.unlink(entryPointer);
+
+            long newEntryPointer;
+            try {
+                newEntryPointer = map.insert(key, value);
+            } catch (RuntimeException e) {
+                if (map.find(key) == entryPointer) list.linkAfter(previousEntry, entryPointer);
+                throw e;
+            }
+
+            EntryList.putHash(newEntryPointer, hash);
+            if (accessOrder) list.linkLast(newEntryPointer);
+            else list.linkAfter(previousEntry, newEntryPointer);
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the key from the map if it exists
+     *
+     * @param key The key to remove from the map
+     * @return The value of the key
+     */
+    @Override
+    public V remove(@NonNull K key) {
+        lock.writeLock().lock();
+        try {
+            long entryPointer = map.find(key);
+            if (entryPointer == 0) return null;
+
+            V value = map.readValue(entryPointer);
+            delete(entryPointer);
+            return value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the eldest entry without removing it, i.e. the first inserted, or the least recently used in access order
+     *
+     * @return The eldest key and value pair, or null if the map is empty
+     */
+    public Entry<K, V> eldest() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return list.head() != 0 ? map.readEntry(list.head()) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the eldest entry in O(1), i.e. the first inserted, or the least recently used in access order
+     *
+     * @return The removed key and value pair, or null if the map is empty
+     */
+    public Entry<K, V> removeEldest() {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            long entryPointer = list.head();
+            if (entryPointer == 0) return null;
+
+            Entry<K, V> eldest = map.readEntry(entryPointer);
+            delete(entryPointer);
+            return eldest;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Clear the map from all keys and values
+     */
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            map.clear();
+            list.clear();
+            modifications++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the current size of the map
+     *
+     * @return The size of the map
+     */
+    @Override
+    public long size() {
+        return map.size();
+    }
+
+    /**
+     * Gets the off heap memory currently used by the map, the list's links are part of the entries
+     *
+     * @return The map's memory usage
+     */
+    @Override
+    public MemoryUsage memoryUsage() {
+        return map.memoryUsage();
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<K, V>} in list order, iterating doesn't count as accessing the entries
+     *
+     * @return The map's iterator
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return new LargeLinkedHashMapIterator<>(this, modifications, list.head());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a cursor over the serialized entries of the map in list order, iterating doesn't count as accessing the entries
+     *
+     * @return The map's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return new LargeLinkedHashMapCursor(this, modifications, list.head());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Disposes of the off heap allocations
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            map.close();
+            list.clear();
+            closed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the hash code value for this map, it doesn't depend on the order of the entries
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        return map.hashCode();
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is a map with the same
+     * mappings as this map, in any order.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return map.equals(((LargeLinkedHashMap<?, ?>) o).map);
+    }
+
+    /**
+     * Returns a string representation of this map.  The string
+     * representation consists of a list of key-value mappings in
+     * list order enclosed in braces ("{@code {}}").  Adjacent
+     * mappings are separated by the characters {@code ",\n"} (comma
+     * and new line).  Each key-value mapping is rendered as {@code "  "}
+     * (two white spaces; for indentation) the key
+     * followed by an equals sign ("{@code =}") followed by the
+     * associated value.
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{').append(System.lineSeparator());
+        for (Iterator<Entry<K, V>> iterator = iterator(); iterator.hasNext(); ) {
+            Entry<K, V> entry = iterator.next();
+            sb.append("  ").append(entry);
+            if (iterator.hasNext()) {
+                sb.append(",");
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Checks if the map is closed and throws an exception if it is
+     *
+     * @throws IllegalStateException if the map was closed
+     */
+    private void throwIfClosed() {
+        if (closed) throw new IllegalStateException("Map was already closed");
+    }
+
+    /**
+     * Removes an entry from the list and the map
+     *
+     * @param entryPointer The entry address pointer
+     */
+    private void delete(long entryPointer) {
+        list.unlink(entryPointer);
+        map.delete(entryPointer, EntryList.hash(entryPointer));
+        modifications++;
+    }
+
+    /**
+     * Moves an entry to the end of the list, unless it's already there
+     *
+     * @param entryPointer The entry address pointer
+     */
+    private void moveToTail(long entryPointer) {
+        if (list.tail() == entryPointer) return;
+
+        list.unlink(entryPointer);
+        list.linkLast(entryPointer);
+        modifications++;
+    }
+
+    /**
+     * LargeLinkedHashMapIterator, an inner class wrapping the iterator logic for the map, following the list
+     *
+     * @param <K> The key type
+     * @param <V> The value type
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LargeLinkedHashMapIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        /**
+         * A reference to the map this iterator is iterating on
+         */
+        @NonNull
+        private final LargeLinkedHashMap<K, V> map;
+
+        /**
+         * The number of modifications at the time we initialized this iterator,
+         * this is to help fail fast if the map was changed midway
+         */
+        private final int expectedModifications;
+
+        /**
+         * The next entry address pointer, 0 if the list is exhausted
+         */
+        private long nextEntry;
+
+        /**
+         * Constructor for {@link LargeLinkedHashMapIterator}
+         *
+         * @param map                   A reference to the map this iterator is iterating on
+         * @param expectedModifications The number of modifications at the time we initialized this iterator
+         * @param head                  The eldest entry address pointer
+         */
+        private LargeLinkedHashMapIterator(LargeLinkedHashMap<K, V> map, int expectedModifications, long head) {
+            this(map, expectedModifications);
+            this.nextEntry = head;
+        }
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext() {
+            map.lock.readLock().lock();
+            try {
+                throwIfModified();
+                return nextEntry != 0;
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public Entry<K, V> next() {
+            map.lock.readLock().lock();
+            try {
+                throwIfModified();
+                if (nextEntry == 0) throw new NoSuchElementException("Iterator exhausted, please use hasNext() to for available items first");
+
+                long entryPointer = nextEntry;
+                nextEntry = EntryList.next(entryPointer);
+                return map.map.readEntry(entryPointer);
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Checks if the map was modified since the iterator was created and throws an exception if it was
+         *
+         * @throws ConcurrentModificationException if the map was modified or closed
+         */
+        private void throwIfModified() {
+            if (expectedModifications != map.modifications || map.closed) {
+                throw new ConcurrentModificationException("Map has been modified since iterator was created");
+            }
+        }
+    }
+
+    /**
+     * LargeLinkedHashMapCursor, an inner class wrapping the cursor logic for the map, following the list,
+     * it only holds the map's read lock while {@link #next()} moves to the next entry, so it never blocks writers between calls
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LargeLinkedHashMapCursor implements LargeMapCursor {
+
+        /**
+         * A reference to the map this cursor is iterating on
+         */
+        @NonNull
+        private final LargeLinkedHashMap<?, ?> map;
+
+        /**
+         * The number of modifications at the time we initialized this cursor,
+         * this is to help fail fast if the map was changed between calls to {@link #next()}
+         */
+        private final int expectedModifications;
+
+        /**
+         * The reader positioned on the current key
+         */
+        private final UnsafeMemoryReader keyReader = new UnsafeMemoryReader();
+
+        /**
+         * The reader positioned on the current value
+         */
+        private final UnsafeMemoryReader valueReader = new UnsafeMemoryReader();
+
+        /**
+         * The next entry address pointer, 0 if the list is exhausted
+         */
+        private long nextEntry;
+
+        /**
+         * The current entry address pointer, 0 if not positioned on an entry
+         */
+        private long entryPointer = 0;
+
+        /**
+         * The current key address pointer, i.e. the address after the key header
+         */
+        private long keyPointer;
+
+        /**
+         * The current key size in bytes
+         */
+        private int keySize;
+
+        /**
+         * The current value address pointer, i.e. the address after the value header
+         */
+        private long valuePointer;
+
+        /**
+         * The current value size in bytes
+         */
+        private int valueSize;
+
+        /**
+         * Constructor for {@link LargeLinkedHashMapCursor}
+         *
+         * @param map                   A reference to the map this cursor is iterating on
+         * @param expectedModifications The number of modifications at the time we initialized this cursor
+         * @param head                  The eldest entry address pointer
+         */
+        private LargeLinkedHashMapCursor(LargeLinkedHashMap<?, ?> map, int expectedModifications, long head) {
+            this(map, expectedModifications);
+            this.nextEntry = head;
+        }
+
+        /**
+         * Advances the cursor to the next entry
+         *
+         * @return {@code true} if the cursor is positioned on an entry, {@code false} if the entries are exhausted
+         * @throws IllegalStateException           if the map was closed
+         * @throws ConcurrentModificationException if the map was modified since the cursor was created
+         */
+        @Override
+        public boolean next() {
+            entryPointer = 0;
+            if (nextEntry == 0) return false;
+
+            map.lock.readLock().lock();
+            try {
+                throwIfInvalid();
+                position(nextEntry);
+                nextEntry = EntryList.next(entryPointer);
+                return true;
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized key
+         *
+         * @return The key reader
+         */
+        @Override
+        public MemoryReader key() {
+            throwIfNotPositioned();
+            return keyReader.resetTo(keyPointer, keySize);
+        }
+
+        /**
+         * Gets the current entry's serialized key size in bytes
+         *
+         * @return The key size in bytes
+         */
+        @Override
+        public int keySize() {
+            throwIfNotPositioned();
+            return keySize;
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized value
+         *
+         * @return The value reader
+         */
+        @Override
+        public MemoryReader value() {
+            throwIfNotPositioned();
+            return valueReader.resetTo(valuePointer, valueSize);
+        }
+
+        /**
+         * Gets the current entry's serialized value size in bytes
+         *
+         * @return The value size in bytes
+         */
+        @Override
+        public int valueSize() {
+            throwIfNotPositioned();
+            return valueSize;
+        }
+
+        /**
+         * Closes the cursor, it holds no lock between calls so there's nothing to release
+         */
+        @Override
+        public void close() {
+            entryPointer = 0;
+            nextEntry = 0;
+        }
+
+        /**
+         * Checks if the map can still be iterated and throws an exception if not, must be called with the map's read lock held
+         *
+         * @throws IllegalStateException           if the map was closed
+         * @throws ConcurrentModificationException if the map was modified since the cursor was created
+         */
+        private void throwIfInvalid() {
+            if (map.closed) throw new IllegalStateException("Map was already closed");
+            if (expectedModifications != map.modifications) throw new ConcurrentModificationException("Map has been modified since cursor was created");
+        }
+
+        /**
+         * Positions the cursor on an entry
+         *
+         * @param pointer The entry address pointer
+         */
+        private void position(long pointer) {
+            entryPointer = pointer;
+            keyPointer = map.map.keyPointer(pointer);
+            keySize = map.map.keySize(pointer);
+            long valueHeaderPointer = keyPointer + keySize;
+            valueSize = map.map.valueSize(valueHeaderPointer);
+            valuePointer = map.map.valuePointer(valueHeaderPointer);
+        }
+
+        /**
+         * Checks if the cursor is positioned on an entry and throws an exception if not
+         *
+         * @throws IllegalStateException if the cursor is not positioned on an entry
+         */
+        private void throwIfNotPositioned() {
+            if (entryPointer == 0) throw new IllegalStateException("Cursor is not positioned on an entry, please use next() first");
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * LargeLoadingCache, an off heap cache built on {@link LargeHashMap} that computes missing values with a {@link CacheLoader}
+ * Concurrent loads of the same key are coalesced, only one thread runs the loader and the others wait for its result,
+ * values can be loaded synchronously on the calling thread, or asynchronously on the cache's executor
+ * With refresh after write, reading a value that was written longer ago than the refresh duration returns it right away
+ * and reloads it in the background, a refresh is dropped if the key was written or removed while it was running
+ * Every entry's write time is kept in its metadata, in-flight loads and refreshes are the only state kept on heap
+ *
+ * @param <K> The key type, cannot be null
+ * @param <V> The value type, cannot be null
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LargeLoadingCache<K, V> implements AutoCloseable {
+
+    /**
+     * The offset of the entry's write time in an entry's metadata
+     */
+    private static final int WRITE_TIME_OFFSET = 0;
+
+    /**
+     * The size of an entry's metadata
+     */
+    private static final int METADATA_SIZE = Long.BYTES;
+
+    /**
+     * The lock guarding entries while their metadata is read, as the map frees replaced and removed entries
+     */
+    private final ReentrantReadWriteLock lock;
+
+    /**
+     * The map holding the entries
+     */
+    private final LargeHashMap<K, V> map;
+
+    /**
+     * The loader computing missing and refreshed values
+     */
+    private final CacheLoader<? super K, V> loader;
+
+    /**
+     * The executor running asynchronous loads and refreshes
+     */
+    private final Executor executor;
+
+    /**
+     * How long after an entry was written it's refreshed when read, in nanoseconds, 0 if entries are never refreshed
+     */
+    private final long refreshAfterWriteNanos;
+
+    /**
+     * The source of the current time in nanoseconds
+     */
+    private final LongSupplier ticker;
+
+    /**
+     * The loads currently running, by key
+     */
+    private final ConcurrentMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * The refreshes currently running, by key
+     */
+    private final ConcurrentMap<K, CompletableFuture<V>> refreshes = new ConcurrentHashMap<>();
+
+    /**
+     * Factory method for creating a {@link LargeLoadingCache} object, loading asynchronously on the common fork join pool
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param loader          The loader computing missing values
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeLoadingCache} object
+     */
+    public static <K, V> LargeLoadingCache<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, CacheLoader<? super K, V> loader) {
+        return LargeLoadingCache.of(keySerializer, valueSerializer, loader, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Factory method for creating a {@link LargeLoadingCache} object
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param loader          The loader computing missing values
+     * @param executor        The executor running asynchronous loads
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeLoadingCache} object
+     */
+    public static <K, V> LargeLoadingCache<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, CacheLoader<? super K, V> loader, Executor executor) {
+        return LargeLoadingCache.create(keySerializer, valueSerializer, loader, executor, 0, System::nanoTime);
+    }
+
+    /**
+     * Factory method for creating a {@link LargeLoadingCache} object that refreshes entries a fixed time after they were written
+     *
+     * @param keySerializer     The key serializer
+     * @param valueSerializer   The value serializer
+     * @param loader            The loader computing missing and refreshed values
+     * @param executor          The executor running asynchronous loads and refreshes
+     * @param refreshAfterWrite How long after an entry was written it's refreshed when read, must be positive
+     * @param unit              The refresh duration's unit
+     * @param <K>               The key type
+     * @param <V>               The value type
+     * @return A {@link LargeLoadingCache} object
+     */
+    public static <K, V> LargeLoadingCache<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, CacheLoader<? super K, V> loader, Executor executor, long refreshAfterWrite, @NonNull TimeUnit unit) {
+        if (refreshAfterWrite <= 0) throw new IllegalArgumentException("Refresh duration must be positive");
+
+        return LargeLoadingCache.create(keySerializer, valueSerializer, loader, executor, unit.toNanos(refreshAfterWrite), System::nanoTime);
+    }
+
+    /**
+     * Creates a {@link LargeLoadingCache} object, the factory methods' common implementation
+     *
+     * @param keySerializer          The key serializer
+     * @param valueSerializer        The value serializer
+     * @param loader                 The loader computing missing and refreshed values
+     * @param executor               The executor running asynchronous loads and refreshes
+     * @param refreshAfterWriteNanos How long after an entry was written it's refreshed when read in nanoseconds, 0 to never refresh
+     * @param ticker                 The source of the current time in nanoseconds
+     * @param <K>                    The key type
+     * @param <V>                    The value type
+     * @return A {@link LargeLoadingCache} object
+     */
+    static <K, V> LargeLoadingCache<K, V> create(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, @NonNull CacheLoader<? super K, V> loader, @NonNull Executor executor, long refreshAfterWriteNanos, @NonNull LongSupplier ticker) {
+        LargeHashMap<K, V> map = LargeHashMap.create(keySerializer, valueSerializer, LargeHashMap.DEFAULT_LOAD_FACTOR, LargeHashMap.DEFAULT_CAPACITY, false, null, METADATA_SIZE);
+        return new LargeLoadingCache<>(new ReentrantReadWriteLock(), map, loader, executor, refreshAfterWriteNanos, ticker);
+    }
+
+    /**
+     * Gets key's value from the cache, loading it on the calling thread if it's missing,
+     * or waiting for the running load if another thread is already loading it
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key, null if the loader returned null
+     * @throws java.util.concurrent.CompletionException if the loader threw an exception, it's the exception's cause
+     */
+    public V get(@NonNull K key) {
+        V value = getIfPresent(key);
+        if (value != null) return value;
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = loads.putIfAbsent(key, future);
+        if (running != null) return running.join();
+
+        load(key, future);
+        return future.join();
+    }
+
+    /**
+     * Gets key's value from the cache, loading it on the cache's executor if it's missing,
+     * or returning the running load if another thread is already loading it
+     *
+     * @param key The key to lookup
+     * @return A future of the value associated with the key, completed exceptionally if the loader threw an exception
+     */
+    public CompletableFuture<V> getAsync(@NonNull K key) {
+        V value = getIfPresent(key);
+        if (value != null) return CompletableFuture.completedFuture(value);
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = loads.putIfAbsent(key, future);
+        if (running != null) return running;
+
+        execute(loads, key, future, () -> load(key, future));
+        return future;
+    }
+
+    /**
+     * Gets key's value from the cache without loading it, refreshing it in the background if it's due
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key, null if it's missing
+     */
+    public V getIfPresent(@NonNull K key) {
+        long writeTime;
+        V value;
+        lock.readLock().lock();
+        try {
+            long entryPointer = map.find(key);
+            if (entryPointer == 0) return null;
+
+            writeTime = UnsafeUtils.getLong(entryPointer + WRITE_TIME_OFFSET);
+            value = map.readValue(entryPointer);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (refreshAfterWriteNanos > 0 && ticker.getAsLong() - writeTime >= refreshAfterWriteNanos) {
+            refresh(key, value, writeTime);
+        }
+        return value;
+    }
+
+    /**
+     * Puts the key and value in the cache, replacing any cached value
+     *
+     * @param key   The key to insert in the cache
+     * @param value The value to insert in the cache
+     */
+    public void put(@NonNull K key, @NonNull V value) {
+        lock.writeLock().lock();
+        try {
+            write(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reloads key's value on the cache's executor, the cached value is returned by reads until the reload completes
+     * If the key is missing it's loaded, if it's already being refreshed the running refresh is returned
+     *
+     * @param key The key to refresh
+     * @return A future of the key's new value, completed exceptionally if the loader threw an exception
+     */
+    public CompletableFuture<V> refresh(@NonNull K key) {
+        long writeTime = 0;
+        V value = null;
+        lock.readLock().lock();
+        try {
+            long entryPointer = map.find(key);
+            if (entryPointer != 0) {
+                writeTime = UnsafeUtils.getLong(entryPointer + WRITE_TIME_OFFSET);
+                value = map.readValue(entryPointer);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return value != null ? refresh(key, value, writeTime) : getAsync(key);
+    }
+
+    /**
+     * Removes the key from the cache if it exists, a refresh of the key that's running is dropped
+     *
+     * @param key The key to remove from the cache
+     */
+    public void invalidate(@NonNull K key) {
+        lock.writeLock().lock();
+        try {
+            map.remove(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all the keys from the cache
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            map.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the current size of the cache
+     *
+     * @return The size of the cache
+     */
+    public long size() {
+        return map.size();
+    }
+
+    /**
+     * Gets the off heap memory currently used by the cache
+     *
+     * @return The cache's memory usage
+     */
+    public MemoryUsage memoryUsage() {
+        return map.memoryUsage();
+    }
+
+    /**
+     * Disposes of the off heap allocations, loads completing afterwards fail with an {@link IllegalStateException}
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            map.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a string representation of this cache
+     *
+     * @return a string representation of this cache
+     */
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+
+    /**
+     * Loads a key's value and caches it, then completes the key's running load
+     * The key is looked up again first, as a previous load may have completed after the caller found it missing
+     *
+     * @param key    The key to load
+     * @param future The key's running load
+     */
+    private void load(K key, CompletableFuture<V> future) {
+        try {
+            V value = map.get(key);
+            if (value == null) value = loadAndPut(key);
+            loads.remove(key, future);
+            future.complete(value);
+        } catch (Throwable e) {
+            loads.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Loads a key's value and caches it unless it's null
+     *
+     * @param key The key to load
+     * @return The key's value, or null if the key has no value
+     * @throws Exception if the loader threw an exception
+     */
+    private V loadAndPut(K key) throws Exception {
+        V value = loader.load(key);
+        if (value != null) put(key, value);
+        return value;
+    }
+
+    /**
+     * Starts refreshing a key's value on the cache's executor, unless it's already being refreshed
+     *
+     * @param key       The key to refresh
+     * @param oldValue  The key's cached value
+     * @param writeTime The time the cached value was written at
+     * @return The key's running refresh
+     */
+    private CompletableFuture<V> refresh(K key, V oldValue, long writeTime) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = refreshes.putIfAbsent(key, future);
+        if (running != null) return running;
+
+        execute(refreshes, key, future, () -> reload(key, oldValue, writeTime, future));
+        return future;
+    }
+
+    /**
+     * Reloads a key's value and caches it unless the key was written or removed since, then completes the key's running refresh
+     *
+     * @param key       The key to reload
+     * @param oldValue  The key's cached value
+     * @param writeTime The time the cached value was written at
+     * @param future    The key's running refresh
+     */
+    private void reload(K key, V oldValue, long writeTime, CompletableFuture<V> future) {
+        try {
+            V value = loader.reload(key, oldValue);
+            replace(key, writeTime, value);
+            refreshes.remove(key, future);
+            future.complete(value);
+        } catch (Throwable e) {
+            refreshes.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Replaces a key's refreshed value, or removes the key if the new value is null, unless the key was written or removed since
+     *
+     * @param key       The key that was refreshed
+     * @param writeTime The time the refreshed value was written at
+     * @param value     The key's new value
+     */
+    private void replace(K key, long writeTime, V value) {
+        lock.writeLock().lock();
+        try {
+            long entryPointer = map.find(key);
+            if (entryPointer == 0 || UnsafeUtils.getLong(entryPointer + WRITE_TIME_OFFSET) != writeTime) return;
+
+            if (value != null) write(key, value);
+            else map.delete(entryPointer, map.hash(key));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Puts the key and value in the map and stamps the entry with the current time, the write lock must be held
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     */
+    private void write(K key, V value) {
+        long entryPointer = map.insert(key, value);
+        UnsafeUtils.putLong(entryPointer + WRITE_TIME_OFFSET, ticker.getAsLong());
+    }
+
+    /**
+     * Runs a load or refresh on the cache's executor, failing it if the executor rejects it
+     *
+     * @param running The running loads or refreshes the task was added to
+     * @param key     The key being loaded or refreshed
+     * @param future  The key's running load or refresh
+     * @param task    The load or refresh
+     */
+    private void execute(ConcurrentMap<K, CompletableFuture<V>> running, K key, CompletableFuture<V> future, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            running.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+}
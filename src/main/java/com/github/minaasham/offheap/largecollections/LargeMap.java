@@ -47,6 +47,21 @@ public interface LargeMap<K, V> extends Iterable<Entry<K, V>>, AutoCloseable {
      */
     long size();
 
+    /**
+     * Gets the off heap memory currently used by the map, broken down into its slot table, entries and the backend's overhead
+     *
+     * @return The map's memory usage
+     */
+    MemoryUsage memoryUsage();
+
+    /**
+     * Returns a cursor over the serialized entries of the map, this allows reading
+     * keys and values directly from memory without creating any intermediate objects
+     *
+     * @return The map's cursor
+     */
+    LargeMapCursor cursor();
+
     /**
      * Closes this resource, relinquishing any underlying resources.
      * This method is invoked automatically on objects managed by the
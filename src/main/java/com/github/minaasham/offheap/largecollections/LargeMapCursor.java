@@ -0,0 +1,55 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+
+/**
+ * LargeMapCursor, an allocation free cursor over the serialized entries of a large map
+ * The readers returned are positioned directly on the entry's memory, and are only valid
+ * until the next call to {@link #next()} or {@link #close()}
+ * A cursor only holds the map's read lock inside {@link #next()}, the readers aren't guarded by it,
+ * so a cursor must be used from a single thread and the map must not be modified while an entry is read,
+ * a modification makes the following call to {@link #next()} throw a {@link java.util.ConcurrentModificationException}
+ */
+public interface LargeMapCursor extends AutoCloseable {
+
+    /**
+     * Advances the cursor to the next entry
+     *
+     * @return {@code true} if the cursor is positioned on an entry, {@code false} if the entries are exhausted
+     */
+    boolean next();
+
+    /**
+     * Gets a reader positioned at the start of the current entry's serialized key
+     *
+     * @return The key reader
+     */
+    MemoryReader key();
+
+    /**
+     * Gets the current entry's serialized key size in bytes
+     *
+     * @return The key size in bytes
+     */
+    int keySize();
+
+    /**
+     * Gets a reader positioned at the start of the current entry's serialized value
+     *
+     * @return The value reader
+     */
+    MemoryReader value();
+
+    /**
+     * Gets the current entry's serialized value size in bytes
+     *
+     * @return The value size in bytes
+     */
+    int valueSize();
+
+    /**
+     * Closes the cursor, any later call to {@link #next()} returns {@code false}
+     */
+    @Override
+    void close();
+}
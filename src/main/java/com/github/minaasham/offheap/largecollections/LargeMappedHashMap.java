@@ -0,0 +1,1467 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.InPlaceObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.SinglePassObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.lang.ThreadLocal.withInitial;
+
+/**
+ * LargeMappedHashMap, an open address hash map whose slot table and entries live in a memory mapped file instead of allocated memory,
+ * so it can hold more data than fits in RAM, the operating system's page cache keeps the working set in memory
+ * The file is mapped in chunks (see {@link MappedFile}), slots hold the entries' positions in the file rather than addresses,
+ * so a map can be closed and opened again, entries have the same layout as {@link LargeHashMap}'s and never cross a chunk boundary
+ * Entries take blocks rounded up to 8 bytes, the blocks of removed entries, replaced slot tables and the unused ends of chunks
+ * are kept in free lists in the header, one per block size up to {@link #LARGE_BLOCK_SIZE} and one for bigger blocks,
+ * entries are allocated from them first and appended to the end of the file otherwise, and a value replaced by one that fits is written over the old entry
+ * The file is durable after {@link #force()} or {@link #close()}, it's marked as modified before the first change after that,
+ * and a file that wasn't closed or forced after it was last modified is rejected when it's opened again
+ * Keys' positions depend on their hash codes, so they must be the same in every JVM, e.g. strings, boxed primitives,
+ * or keys hashed by an {@link InPlaceObjectSerializer}, and a file can only be opened on a platform with the same byte order
+ * A file can only be opened by one map at a time, the single writer, which holds a {@link FileChannel#tryLock()} lock on it,
+ * while any number of {@link LargeMappedHashMapReader}s in this or other processes read it concurrently, e.g. a file under /dev/shm shared by the JVMs of a host,
+ * every change is bracketed by a sequence number in the header which readers check to retry reads that overlapped a change
+ *
+ * @param <K> The key type, cannot be null
+ * @param <V> The value type, cannot be null
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LargeMappedHashMap<K, V> implements LargeMap<K, V> {
+
+    /**
+     * The first int of a map file, written in the platform's byte order so files from another byte order are rejected
+     */
+    private static final int MAGIC = 0x4C4D484D;
+
+    /**
+     * The version of the map file format
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * The header's free list heads, the position of the first free block of every list, 0 if the list is empty
+     */
+    private static final int FREE_LISTS_OFFSET = 128;
+
+    /**
+     * The number of free lists, the last one holds blocks of {@link #LARGE_BLOCK_SIZE} bytes or more
+     */
+    private static final int FREE_LISTS = 64;
+
+    /**
+     * The smallest block kept in the free list of large blocks, which store their size after the next block's position
+     */
+    private static final long LARGE_BLOCK_SIZE = (FREE_LISTS - 1) * Long.BYTES + Long.BYTES;
+
+    /**
+     * The size of the file's header, with room for fields added by later versions before the free list heads
+     */
+    static final int HEADER_SIZE = FREE_LISTS_OFFSET + FREE_LISTS * Long.BYTES;
+
+    /**
+     * The header's magic int
+     */
+    private static final int MAGIC_OFFSET = 0;
+
+    /**
+     * The header's version int
+     */
+    private static final int VERSION_OFFSET = 4;
+
+    /**
+     * The header's key fixed size int, -1 for variable sized keys
+     */
+    private static final int KEY_SIZE_OFFSET = 8;
+
+    /**
+     * The header's value fixed size int, -1 for variable sized values
+     */
+    private static final int VALUE_SIZE_OFFSET = 12;
+
+    /**
+     * The header's chunk bits int
+     */
+    private static final int CHUNK_BITS_OFFSET = 16;
+
+    /**
+     * The header's clean int, 1 if the file was forced since it was last modified, 0 otherwise
+     */
+    static final int CLEAN_OFFSET = 20;
+
+    /**
+     * The header's load factor double
+     */
+    private static final int LOAD_FACTOR_OFFSET = 24;
+
+    /**
+     * The header's capacity long
+     */
+    static final int CAPACITY_OFFSET = 32;
+
+    /**
+     * The header's size long
+     */
+    static final int SIZE_OFFSET = 40;
+
+    /**
+     * The header's slot table position long
+     */
+    static final int TABLE_OFFSET = 48;
+
+    /**
+     * The header's long position where the next allocation that isn't from a free list starts, everything after it is unused and zeroed
+     */
+    static final int TOP_OFFSET = 56;
+
+    /**
+     * The header's long number of bytes of live entries
+     */
+    static final int ENTRY_BYTES_OFFSET = 64;
+
+    /**
+     * The header's long sequence number, odd while a change is being made and even otherwise, incremented before and after every change
+     */
+    static final int SEQUENCE_OFFSET = 72;
+
+    /**
+     * The smallest number of bits of a position within a chunk, a chunk must hold the header and a slot table
+     */
+    private static final int MIN_CHUNK_BITS = 12;
+
+    /**
+     * The lock used to guarantee thread safety in map operations
+     */
+    private final ReentrantReadWriteLock lock;
+
+    /**
+     * The memory reader passed to the key serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryReader> keyReader;
+
+    /**
+     * The memory writer passed to the key serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryWriter> keyWriter;
+
+    /**
+     * The memory reader passed to the value serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryReader> valueReader;
+
+    /**
+     * The memory writer passed to the value serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryWriter> valueWriter;
+
+    /**
+     * The scratch writer that single pass keys and values are serialized to before being copied to their entry
+     */
+    private final ThreadLocal<ScratchMemoryWriter> scratchWriter;
+
+    /**
+     * The key object serializer
+     */
+    private final ObjectSerializer<K> keySerializer;
+
+    /**
+     * Does the key have a fixed size?
+     */
+    private final boolean keyFixedSize;
+
+    /**
+     * Can the key be hashed and compared in its serialized form?
+     */
+    private final boolean keyInPlace;
+
+    /**
+     * Is the key serialized in a single pass through the scratch writer?
+     */
+    private final boolean keySinglePass;
+
+    /**
+     * The value object serializer
+     */
+    private final ObjectSerializer<V> valueSerializer;
+
+    /**
+     * Does the value have a fixed size?
+     */
+    private final boolean valueFixedSize;
+
+    /**
+     * Is the value serialized in a single pass through the scratch writer?
+     */
+    private final boolean valueSinglePass;
+
+    /**
+     * The mapped file holding the header, the slot table and the entries
+     */
+    private final MappedFile file;
+
+    /**
+     * The address of the file's header, the first chunk is never remapped
+     */
+    private final long headerAddress;
+
+    /**
+     * The load factor for the hash map
+     */
+    private final double loadFactor;
+
+    /**
+     * The number of modifications that happened to the hash map,
+     * this serves as an fail fast for the map's iterator
+     */
+    private int modifications;
+
+    /**
+     * If the map was closed and released its file
+     */
+    private boolean closed;
+
+    /**
+     * Opens a map file, or creates it with the default load factor and capacity if it doesn't exist or is empty
+     *
+     * @param path            The map file's path
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeMappedHashMap} object
+     * @throws IOException              if the file can't be opened, isn't a map file, wasn't closed after it was last modified, or is opened by another map
+     * @throws IllegalArgumentException if the serializers' fixed sizes don't match the file's
+     */
+    public static <K, V> LargeMappedHashMap<K, V> open(Path path, ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer) throws IOException {
+        return LargeMappedHashMap.open(path, keySerializer, valueSerializer, LargeHashMap.DEFAULT_LOAD_FACTOR, LargeHashMap.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens a map file, or creates it if it doesn't exist or is empty, an existing file keeps its own load factor and capacity
+     *
+     * @param path            The map file's path
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param loadFactor      The load factor of a new map
+     * @param capacity        The initial capacity of a new map
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeMappedHashMap} object
+     * @throws IOException              if the file can't be opened, isn't a map file, wasn't closed after it was last modified, or is opened by another map
+     * @throws IllegalArgumentException if the serializers' fixed sizes don't match the file's
+     */
+    public static <K, V> LargeMappedHashMap<K, V> open(Path path, ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, double loadFactor, long capacity) throws IOException {
+        return LargeMappedHashMap.create(path, keySerializer, valueSerializer, loadFactor, capacity, MappedFile.DEFAULT_CHUNK_BITS);
+    }
+
+    /**
+     * Opens or creates a map file, the factory methods' common implementation
+     *
+     * @param path            The map file's path
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param loadFactor      The load factor of a new map
+     * @param capacity        The initial capacity of a new map
+     * @param chunkBits       The number of bits of a position within a chunk of a new map, an existing file keeps its own
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeMappedHashMap} object
+     * @throws IOException              if the file can't be opened, isn't a map file, wasn't closed after it was last modified, or is opened by another map
+     * @throws IllegalArgumentException if the parameters are out of range, or the serializers' fixed sizes don't match the file's
+     */
+    static <K, V> LargeMappedHashMap<K, V> create(@NonNull Path path, @NonNull ObjectSerializer<K> keySerializer, @NonNull ObjectSerializer<V> valueSerializer, double loadFactor, long capacity, int chunkBits) throws IOException {
+        if (loadFactor <= 0 || 1 <= loadFactor) throw new IllegalArgumentException("Load factor must be bigger than 0 and less than 1");
+        if (capacity <= 0) throw new IllegalArgumentException("Initial capacity must be at least 1");
+        if (chunkBits < MIN_CHUNK_BITS || chunkBits > MappedFile.DEFAULT_CHUNK_BITS) {
+            throw new IllegalArgumentException("Chunk bits must be between " + MIN_CHUNK_BITS + " and " + MappedFile.DEFAULT_CHUNK_BITS);
+        }
+
+        int keySize = keySerializer instanceof FixedSizeObjectSerializer ? keySerializer.sizeInBytes(null) : -1;
+        int valueSize = valueSerializer instanceof FixedSizeObjectSerializer ? valueSerializer.sizeInBytes(null) : -1;
+        boolean exists = Files.exists(path) && Files.size(path) > 0;
+        MappedFile file = MappedFile.open(path, exists ? validate(path, keySize, valueSize, true) : chunkBits);
+        try {
+            if (!exists) initialize(file, keySize, valueSize, loadFactor, capacity, chunkBits);
+            return LargeMappedHashMap.of(keySerializer, valueSerializer, file, file.address(0));
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a {@link LargeMappedHashMap} object on an opened and validated file
+     *
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param file            The mapped file
+     * @param headerAddress   The address of the file's header
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeMappedHashMap} object
+     */
+    private static <K, V> LargeMappedHashMap<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, MappedFile file, long headerAddress) {
+        boolean keyFixedSize = keySerializer instanceof FixedSizeObjectSerializer;
+        boolean valueFixedSize = valueSerializer instanceof FixedSizeObjectSerializer;
+        boolean keyTrusted = keySerializer instanceof TrustedObjectSerializer;
+        boolean valueTrusted = valueSerializer instanceof TrustedObjectSerializer;
+        return new LargeMappedHashMap<>(
+                new ReentrantReadWriteLock(),
+                withInitial(() -> keyTrusted ? new TrustedMemoryReader() : new UnsafeMemoryReader()),
+                withInitial(() -> keyTrusted ? new TrustedMemoryWriter() : new UnsafeMemoryWriter()),
+                withInitial(() -> valueTrusted ? new TrustedMemoryReader() : new UnsafeMemoryReader()),
+                withInitial(() -> valueTrusted ? new TrustedMemoryWriter() : new UnsafeMemoryWriter()),
+                withInitial(ScratchMemoryWriter::new),
+                keySerializer,
+                keyFixedSize,
+                keySerializer instanceof InPlaceObjectSerializer,
+                !keyFixedSize && keySerializer instanceof SinglePassObjectSerializer,
+                valueSerializer,
+                valueFixedSize,
+                !valueFixedSize && valueSerializer instanceof SinglePassObjectSerializer,
+                file,
+                headerAddress,
+                UnsafeUtils.getDouble(headerAddress + LOAD_FACTOR_OFFSET)
+        );
+    }
+
+    /**
+     * Writes the header and an empty slot table to a new file, the magic int is written last and the file is forced,
+     * so a file that wasn't fully initialized is rejected as not being a map file
+     *
+     * @param file       The mapped file, empty
+     * @param keySize    The key fixed size, -1 for variable sized keys
+     * @param valueSize  The value fixed size, -1 for variable sized values
+     * @param loadFactor The load factor
+     * @param capacity   The initial capacity
+     * @param chunkBits  The number of bits of a position within a chunk
+     * @throws IOException if the file can't be grown
+     */
+    private static void initialize(MappedFile file, int keySize, int valueSize, double loadFactor, long capacity, int chunkBits) throws IOException {
+        long top = HEADER_SIZE + capacity * Long.BYTES;
+        file.ensureSize(top);
+        long headerAddress = file.address(0);
+        UnsafeUtils.putInt(headerAddress + VERSION_OFFSET, VERSION);
+        UnsafeUtils.putInt(headerAddress + KEY_SIZE_OFFSET, keySize);
+        UnsafeUtils.putInt(headerAddress + VALUE_SIZE_OFFSET, valueSize);
+        UnsafeUtils.putInt(headerAddress + CHUNK_BITS_OFFSET, chunkBits);
+        UnsafeUtils.putInt(headerAddress + CLEAN_OFFSET, 1);
+        UnsafeUtils.putDouble(headerAddress + LOAD_FACTOR_OFFSET, loadFactor);
+        UnsafeUtils.putLong(headerAddress + CAPACITY_OFFSET, capacity);
+        UnsafeUtils.putLong(headerAddress + SIZE_OFFSET, 0);
+        UnsafeUtils.putLong(headerAddress + TABLE_OFFSET, HEADER_SIZE);
+        UnsafeUtils.putLong(headerAddress + TOP_OFFSET, top);
+        UnsafeUtils.putLong(headerAddress + ENTRY_BYTES_OFFSET, 0);
+        UnsafeUtils.putLong(headerAddress + SEQUENCE_OFFSET, 0);
+        for (int i = 0; i < FREE_LISTS; i++) {
+            UnsafeUtils.putLong(headerAddress + FREE_LISTS_OFFSET + i * Long.BYTES, 0);
+        }
+        file.force();
+        UnsafeUtils.putInt(headerAddress + MAGIC_OFFSET, MAGIC);
+        file.force();
+    }
+
+    /**
+     * Validates an existing file's header, it's read without mapping the file as the chunk size isn't known yet
+     *
+     * @param path         The file's path
+     * @param keySize      The key fixed size, -1 for variable sized keys
+     * @param valueSize    The value fixed size, -1 for variable sized values
+     * @param requireClean Whether the file must have been closed or forced after it was last modified, readers don't require it
+     * @return The number of bits of a position within a chunk the file was created with
+     * @throws IOException              if the file isn't a map file, or wasn't closed after it was last modified
+     * @throws IllegalArgumentException if the serializers' fixed sizes don't match the file's
+     */
+    static int validate(Path path, int keySize, int valueSize, boolean requireClean) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.nativeOrder());
+        long fileSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            int read;
+            do {
+                read = channel.read(header);
+            } while (read >= 0 && header.hasRemaining());
+        }
+
+        if (header.hasRemaining() || header.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a map file, or created on a platform with a different byte order: " + path);
+        }
+        int version = header.getInt(VERSION_OFFSET);
+        if (version != VERSION) throw new IOException("Unsupported map file version " + version + ": " + path);
+        if (requireClean && header.getInt(CLEAN_OFFSET) != 1) throw new IOException("Map file wasn't closed after it was last modified: " + path);
+
+        int chunkBits = header.getInt(CHUNK_BITS_OFFSET);
+        if (chunkBits < MIN_CHUNK_BITS || chunkBits > MappedFile.DEFAULT_CHUNK_BITS || (fileSize & (1L << chunkBits) - 1) != 0) {
+            throw new IOException("Corrupted map file header: " + path);
+        }
+        if (header.getInt(KEY_SIZE_OFFSET) != keySize || header.getInt(VALUE_SIZE_OFFSET) != valueSize) {
+            throw new IllegalArgumentException("Serializers' fixed sizes don't match the map file's");
+        }
+        return chunkBits;
+    }
+
+    /**
+     * Gets key's value from the map
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key
+     */
+    @Override
+    public V get(@NonNull K key) {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            long entryPosition = UnsafeUtils.getLong(slotAddress(findIndex(key)));
+
+            return entryPosition != 0 ? readValue(file.address(entryPosition)) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Puts the key and value in the map, if a serializer throws the key either keeps its entry untouched, or is removed
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     * @return The old value related to that key
+     * @throws UncheckedIOException     if the file can't be grown
+     * @throws IllegalArgumentException if the entry is bigger than a chunk
+     */
+    @Override
+    public V put(@NonNull K key, @NonNull V value) {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            markModified();
+            beginWrite();
+            try {
+                resizeIfRequired();
+                modifications++;
+
+                long index = findIndex(key);
+                long entryPosition = UnsafeUtils.getLong(slotAddress(index));
+                V previous = entryPosition != 0 ? readValue(file.address(entryPosition)) : null;
+
+                writeEntry(index, entryPosition, key, value);
+
+                return previous;
+            } finally {
+                endWrite();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the key from the map if it exists
+     *
+     * @param key The key to remove from the map
+     * @return The value of the key
+     */
+    @Override
+    public V remove(@NonNull K key) {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            long index = findIndex(key);
+            long entryPosition = UnsafeUtils.getLong(slotAddress(index));
+
+            if (entryPosition == 0) return null;
+
+            markModified();
+            beginWrite();
+            try {
+                V value = readValue(file.address(entryPosition));
+                deleteEntry(index, entryPosition);
+
+                return value;
+            } finally {
+                endWrite();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Clear the map from all keys and values, the entries' blocks are added to the free lists
+     */
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            markModified();
+            beginWrite();
+            try {
+                long capacity = header(CAPACITY_OFFSET);
+                long table = header(TABLE_OFFSET);
+                for (long i = 0; i < capacity; i++) {
+                    long slotAddress = file.address(table + i * Long.BYTES);
+                    long entryPosition = UnsafeUtils.getLong(slotAddress);
+                    if (entryPosition != 0) {
+                        modifications++;
+                        free(entryPosition, blockSize(entrySize(file.address(entryPosition))));
+                        UnsafeUtils.putLong(slotAddress, 0);
+                    }
+                }
+                header(SIZE_OFFSET, 0);
+                header(ENTRY_BYTES_OFFSET, 0);
+            } finally {
+                endWrite();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the current size of the map
+     *
+     * @return The size of the map
+     */
+    @Override
+    public long size() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return header(SIZE_OFFSET);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the file space currently used by the map, the overhead being the header, the free blocks,
+     * and the bytes entries' blocks are rounded up by
+     * The map's memory is mapped from its file rather than allocated, so it's not included in {@link MemoryUsage#total()}
+     *
+     * @return The map's file usage
+     */
+    @Override
+    public MemoryUsage memoryUsage() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            long slotTableBytes = header(CAPACITY_OFFSET) * Long.BYTES;
+            long entryBytes = header(ENTRY_BYTES_OFFSET);
+            return MemoryUsage.of(slotTableBytes, entryBytes, header(TOP_OFFSET) - slotTableBytes - entryBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the map's modified pages to the storage device and marks the file as clean, after which the map survives a crash
+     * The map's write lock is held while it's forced
+     */
+    public void force() {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            forceClean();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<K, V>}
+     *
+     * @return The map's iterator
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return new LargeMappedHashMapIterator<>(this, modifications);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a cursor over the serialized entries of the map
+     *
+     * @return The map's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return new LargeMappedHashMapCursor(this, modifications);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Forces the map to its file and closes the file
+     *
+     * @throws UncheckedIOException if the file can't be closed
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            closed = true;
+            try {
+                forceClean();
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the hash code value for this {@link LargeMap}, i.e.,
+     * the sum of, for each key-value pair in the map,
+     * {@code key.hashCode() ^ value.hashCode()}.
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Entry<K, V> entry : this) {
+            hashCode += entry.getKey().hashCode() ^ entry.getValue().hashCode();
+        }
+        return hashCode;
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is a map with the same
+     * mappings as this map.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LargeMappedHashMap<K, V> that = (LargeMappedHashMap<K, V>) o;
+        if (closed || that.closed) return closed == that.closed;
+        if (size() != that.size()) return false;
+
+        for (Entry<K, V> entry : this) {
+            V thisValue = entry.getValue();
+            V thatValue = that.get(entry.getKey());
+            if (thatValue == null || !thatValue.equals(thisValue)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a string representation of this map.  The string
+     * representation consists of a list of key-value mappings (in no
+     * particular order) enclosed in braces ("{@code {}}").  Adjacent
+     * mappings are separated by the characters {@code ",\n"} (comma
+     * and new line).  Each key-value mapping is rendered as {@code "  "}
+     * (two white spaces; for indentation) the key
+     * followed by an equals sign ("{@code =}") followed by the
+     * associated value.
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{').append(System.lineSeparator());
+        for (Iterator<Entry<K, V>> iterator = iterator(); iterator.hasNext(); ) {
+            Entry<K, V> entry = iterator.next();
+            sb.append("  ").append(entry);
+            if (iterator.hasNext()) {
+                sb.append(",");
+            }
+            sb.append(System.lineSeparator());
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Checks if the map is already closed and throws an exception if so
+     *
+     * @throws IllegalStateException if the map was closed
+     */
+    private void throwIfClosed() {
+        if (closed) throw new IllegalStateException("Map was already closed");
+    }
+
+    /**
+     * Reads a long field of the header
+     *
+     * @param offset The field's offset in the header
+     * @return The field's value
+     */
+    private long header(int offset) {
+        return UnsafeUtils.getLong(headerAddress + offset);
+    }
+
+    /**
+     * Writes a long field of the header
+     *
+     * @param offset The field's offset in the header
+     * @param value  The field's value
+     */
+    private void header(int offset, long value) {
+        UnsafeUtils.putLong(headerAddress + offset, value);
+    }
+
+    /**
+     * Marks the file as modified before it's first changed after it was opened or forced,
+     * the mark is forced to the storage device right away, so the change can never be persisted before it
+     */
+    private void markModified() {
+        if (UnsafeUtils.getInt(headerAddress + CLEAN_OFFSET) != 0) {
+            UnsafeUtils.putInt(headerAddress + CLEAN_OFFSET, 0);
+            file.force(0);
+        }
+    }
+
+    /**
+     * Starts a change that readers must not see half done, the sequence number is odd until {@link #endWrite()},
+     * the fence keeps the change's stores from becoming visible before the odd sequence number
+     */
+    private void beginWrite() {
+        header(SEQUENCE_OFFSET, header(SEQUENCE_OFFSET) + 1);
+        UnsafeUtils.storeFence();
+    }
+
+    /**
+     * Ends a change started by {@link #beginWrite()}, the fence keeps the even sequence number from becoming visible before the change's stores
+     */
+    private void endWrite() {
+        UnsafeUtils.storeFence();
+        header(SEQUENCE_OFFSET, header(SEQUENCE_OFFSET) + 1);
+    }
+
+    /**
+     * Forces the file to the storage device, then marks it as clean and forces the mark
+     */
+    private void forceClean() {
+        if (UnsafeUtils.getInt(headerAddress + CLEAN_OFFSET) == 0) {
+            file.force();
+            UnsafeUtils.putInt(headerAddress + CLEAN_OFFSET, 1);
+            file.force(0);
+        }
+    }
+
+    /**
+     * Finds the slot of a key, i.e. the slot holding its entry's position, or the empty slot it would be added to
+     *
+     * @param key The key to find
+     * @return The slot's index
+     */
+    private long findIndex(K key) {
+        long capacity = header(CAPACITY_OFFSET);
+        long index = offset(hash(key), capacity);
+        long entryPosition = UnsafeUtils.getLong(slotAddress(index));
+
+        while (entryPosition != 0 && !keyEquals(file.address(entryPosition), key)) {
+            index = (index + 1) % capacity;
+            entryPosition = UnsafeUtils.getLong(slotAddress(index));
+        }
+
+        return index;
+    }
+
+    /**
+     * Gets the address of a slot in the current slot table
+     *
+     * @param index The slot's index
+     * @return The slot's address
+     */
+    private long slotAddress(long index) {
+        return file.address(header(TABLE_OFFSET) + index * Long.BYTES);
+    }
+
+    /**
+     * Writes a new entry for the key and value in a slot, over the existing entry if it fits in its block, freeing what's left of the block,
+     * or in a newly allocated block otherwise, freeing the existing entry's block
+     * The header, the slot and the existing entry's block are only updated once the key and value are serialized, if a serializer throws,
+     * a newly allocated block is freed and the existing entry is left as it was, or if it was being overwritten, the key is removed
+     *
+     * @param index         The slot's index
+     * @param entryPosition The existing entry's position, 0 if the key doesn't exist
+     * @param key           The key to write
+     * @param value         The value to write
+     * @throws IOException              if the file can't be grown
+     * @throws IllegalArgumentException if the entry is bigger than a chunk
+     */
+    private void writeEntry(long index, long entryPosition, K key, V value) throws IOException {
+        ScratchMemoryWriter scratch = keySinglePass || valueSinglePass ? scratchWriter.get().reset() : null;
+
+        int keySize;
+        if (keySinglePass) {
+            keySerializer.serialize(scratch, key);
+            keySize = scratch.position();
+        } else {
+            keySize = keySerializer.sizeInBytes(key);
+        }
+
+        int valueSize;
+        if (valueSinglePass) {
+            int valueStart = scratch.position();
+            valueSerializer.serialize(scratch, value);
+            valueSize = scratch.position() - valueStart;
+        } else {
+            valueSize = valueSerializer.sizeInBytes(value);
+        }
+
+        int keyHeaderSize = keyFixedSize ? 0 : VarInts.varIntSize(keySize);
+        int valueHeaderSize = valueFixedSize ? 0 : VarInts.varIntSize(valueSize);
+        long newEntrySize = keyHeaderSize + keySize + valueHeaderSize + valueSize;
+
+        long oldEntrySize = entryPosition != 0 ? entrySize(file.address(entryPosition)) : 0;
+        long oldBlockSize = entryPosition != 0 ? blockSize(oldEntrySize) : 0;
+        long newBlockSize = blockSize(newEntrySize);
+        boolean inPlace = newBlockSize <= oldBlockSize;
+        long newEntryPosition = inPlace ? entryPosition : allocate(newBlockSize);
+        long newEntryAddress = file.address(newEntryPosition);
+
+        long keyPointer = newEntryAddress + keyHeaderSize;
+        long valuePointer = keyPointer + keySize + valueHeaderSize;
+        if (!keyFixedSize) UnsafeUtils.putVarInt(newEntryAddress, keySize);
+        if (!valueFixedSize) UnsafeUtils.putVarInt(keyPointer + keySize, valueSize);
+        try {
+            if (keySinglePass) {
+                scratch.copyTo(0, keySize, keyPointer);
+            } else {
+                keySerializer.serialize(keyWriter.get().resetTo(keyPointer, keySize), key);
+            }
+
+            if (valueSinglePass) {
+                scratch.copyTo(scratch.position() - valueSize, valueSize, valuePointer);
+            } else {
+                valueSerializer.serialize(valueWriter.get().resetTo(valuePointer, valueSize), value);
+            }
+        } catch (RuntimeException e) {
+            if (inPlace) {
+                header(SIZE_OFFSET, header(SIZE_OFFSET) - 1);
+                header(ENTRY_BYTES_OFFSET, header(ENTRY_BYTES_OFFSET) - oldEntrySize);
+                free(entryPosition, oldBlockSize);
+                clearSlot(index);
+            } else {
+                free(newEntryPosition, newBlockSize);
+            }
+            throw e;
+        }
+
+        if (inPlace) {
+            if (newBlockSize < oldBlockSize) free(entryPosition + newBlockSize, oldBlockSize - newBlockSize);
+        } else if (entryPosition != 0) {
+            free(entryPosition, oldBlockSize);
+        }
+        if (entryPosition == 0) header(SIZE_OFFSET, header(SIZE_OFFSET) + 1);
+        header(ENTRY_BYTES_OFFSET, header(ENTRY_BYTES_OFFSET) + newEntrySize - oldEntrySize);
+        UnsafeUtils.putLong(slotAddress(index), newEntryPosition);
+    }
+
+    /**
+     * Allocates a block for an entry, from the free list of its size, or else from the smallest large free block it fits in,
+     * or else at the end of the file, starting at the next chunk if it doesn't fit in the current one, whose end is freed
+     *
+     * @param blockSize The block's size, as returned by {@link #blockSize(long)}
+     * @return The block's position
+     * @throws IOException              if the file can't be grown
+     * @throws IllegalArgumentException if the block is bigger than a chunk
+     */
+    private long allocate(long blockSize) throws IOException {
+        long chunkSize = file.chunkSize();
+        if (blockSize > chunkSize) throw new IllegalArgumentException("Entry of " + blockSize + " bytes is bigger than a chunk of " + chunkSize + " bytes");
+
+        int list = freeList(blockSize);
+        if (list < FREE_LISTS - 1) {
+            long position = header(FREE_LISTS_OFFSET + list * Long.BYTES);
+            if (position != 0) {
+                header(FREE_LISTS_OFFSET + list * Long.BYTES, UnsafeUtils.getLong(file.address(position)));
+                return position;
+            }
+        }
+
+        long position = allocateLarge(blockSize);
+        if (position != 0) return position;
+
+        position = header(TOP_OFFSET);
+        long chunkEnd = (position + chunkSize) & -chunkSize;
+        if (position + blockSize > chunkEnd) {
+            file.ensureSize(chunkEnd + blockSize);
+            free(position, chunkEnd - position);
+            position = chunkEnd;
+        } else {
+            file.ensureSize(position + blockSize);
+        }
+        header(TOP_OFFSET, position + blockSize);
+        return position;
+    }
+
+    /**
+     * Allocates a block from the smallest large free block it fits in, stopping at one of the same size, the rest of the large block is freed
+     *
+     * @param blockSize The block's size, as returned by {@link #blockSize(long)}
+     * @return The block's position, 0 if no large free block is big enough
+     */
+    private long allocateLarge(long blockSize) {
+        long bestPreviousAddress = 0;
+        long bestSize = Long.MAX_VALUE;
+        long previousAddress = headerAddress + FREE_LISTS_OFFSET + (FREE_LISTS - 1) * Long.BYTES;
+        long position = UnsafeUtils.getLong(previousAddress);
+        while (position != 0 && bestSize != blockSize) {
+            long address = file.address(position);
+            long size = UnsafeUtils.getLong(address + Long.BYTES);
+            if (size >= blockSize && size < bestSize) {
+                bestPreviousAddress = previousAddress;
+                bestSize = size;
+            }
+            previousAddress = address;
+            position = UnsafeUtils.getLong(address);
+        }
+        if (bestPreviousAddress == 0) return 0;
+
+        long bestPosition = UnsafeUtils.getLong(bestPreviousAddress);
+        UnsafeUtils.putLong(bestPreviousAddress, UnsafeUtils.getLong(file.address(bestPosition)));
+        if (bestSize > blockSize) free(bestPosition + blockSize, bestSize - blockSize);
+        return bestPosition;
+    }
+
+    /**
+     * Adds a block to the free list of its size, large blocks also store their size
+     *
+     * @param position  The block's position, it must not cross a chunk boundary
+     * @param blockSize The block's size, a multiple of 8
+     */
+    private void free(long position, long blockSize) {
+        int list = freeList(blockSize);
+        long address = file.address(position);
+        UnsafeUtils.putLong(address, header(FREE_LISTS_OFFSET + list * Long.BYTES));
+        if (list == FREE_LISTS - 1) UnsafeUtils.putLong(address + Long.BYTES, blockSize);
+        header(FREE_LISTS_OFFSET + list * Long.BYTES, position);
+    }
+
+    /**
+     * Gets the size of the block an entry takes, its size rounded up to 8 bytes, so a free block can hold the next block's position
+     *
+     * @param entrySize The entry's size
+     * @return The block's size
+     */
+    private static long blockSize(long entrySize) {
+        return Math.max(Long.BYTES, (entrySize + Long.BYTES - 1) & -Long.BYTES);
+    }
+
+    /**
+     * Gets the free list of a block size, blocks of {@link #LARGE_BLOCK_SIZE} bytes or more share the last one
+     *
+     * @param blockSize The block's size, a multiple of 8
+     * @return The free list's index
+     */
+    private static int freeList(long blockSize) {
+        return (int) Math.min(blockSize / Long.BYTES, FREE_LISTS) - 1;
+    }
+
+    /**
+     * Deletes the entry in a slot, and bubbles up the following entries to fill the gap
+     *
+     * @param slot          The slot's index
+     * @param entryPosition The entry's position
+     */
+    private void deleteEntry(long slot, long entryPosition) {
+        modifications++;
+        header(SIZE_OFFSET, header(SIZE_OFFSET) - 1);
+        long entrySize = entrySize(file.address(entryPosition));
+        header(ENTRY_BYTES_OFFSET, header(ENTRY_BYTES_OFFSET) - entrySize);
+        free(entryPosition, blockSize(entrySize));
+        clearSlot(slot);
+    }
+
+    /**
+     * Empties a slot, and bubbles up the following entries to fill the gap, the entry it held must already be freed
+     *
+     * @param slot The slot's index
+     */
+    private void clearSlot(long slot) {
+        long capacity = header(CAPACITY_OFFSET);
+        long index = slot;
+        long bubbleUpIndex = index;
+        while (true) {
+            long bubbleUpEntryPosition;
+            long entryIndex;
+            do {
+                bubbleUpIndex = (bubbleUpIndex + 1) % capacity;
+                bubbleUpEntryPosition = UnsafeUtils.getLong(slotAddress(bubbleUpIndex));
+                if (bubbleUpEntryPosition == 0) {
+                    UnsafeUtils.putLong(slotAddress(index), 0);
+                    return;
+                }
+                entryIndex = offset(hashAt(file.address(bubbleUpEntryPosition)), capacity);
+            } while (index <= bubbleUpIndex ? index < entryIndex && entryIndex <= bubbleUpIndex : index < entryIndex || entryIndex <= bubbleUpIndex);
+
+            UnsafeUtils.putLong(slotAddress(index), bubbleUpEntryPosition);
+            index = bubbleUpIndex;
+        }
+    }
+
+    /**
+     * Grows the slot table before adding an entry if the load factor was reached, the new table is allocated at the end of the file,
+     * and the old one is freed chunk by chunk, as free blocks must not cross chunk boundaries, the table never shrinks
+     *
+     * @throws IOException if the file can't be grown
+     */
+    private void resizeIfRequired() throws IOException {
+        long capacity = header(CAPACITY_OFFSET);
+        if (header(SIZE_OFFSET) / (double) capacity <= loadFactor) return;
+
+        modifications++;
+
+        long table = header(TABLE_OFFSET);
+        long newCapacity = capacity * 2;
+        long newTable = header(TOP_OFFSET);
+        file.ensureSize(newTable + newCapacity * Long.BYTES);
+
+        for (long i = 0; i < capacity; i++) {
+            long entryPosition = UnsafeUtils.getLong(file.address(table + i * Long.BYTES));
+            if (entryPosition != 0) {
+                long index = offset(hashAt(file.address(entryPosition)), newCapacity);
+                while (UnsafeUtils.getLong(file.address(newTable + index * Long.BYTES)) != 0) {
+                    index = (index + 1) % newCapacity;
+                }
+                UnsafeUtils.putLong(file.address(newTable + index * Long.BYTES), entryPosition);
+            }
+        }
+
+        header(TOP_OFFSET, newTable + newCapacity * Long.BYTES);
+        header(TABLE_OFFSET, newTable);
+        header(CAPACITY_OFFSET, newCapacity);
+
+        long chunkSize = file.chunkSize();
+        long end = table + capacity * Long.BYTES;
+        for (long position = table; position < end; position = (position + chunkSize) & -chunkSize) {
+            free(position, Math.min(end, (position + chunkSize) & -chunkSize) - position);
+        }
+    }
+
+    /**
+     * Hashes a key, in the same way stored keys are hashed by {@link #hashAt(long)}
+     *
+     * @param key The key to hash
+     * @return The key's hash
+     */
+    @SuppressWarnings("unchecked")
+    private int hash(K key) {
+        return keyInPlace ? ((InPlaceObjectSerializer<K>) keySerializer).hash(key) : key.hashCode();
+    }
+
+    /**
+     * Hashes a stored key given the entry address, in place if the key serializer supports it
+     *
+     * @param entryAddress The entry address
+     * @return The key's hash
+     */
+    @SuppressWarnings("unchecked")
+    private int hashAt(long entryAddress) {
+        if (!keyInPlace) return readKey(entryAddress).hashCode();
+
+        MemoryReader reader = keyReader.get().resetTo(keyPointer(entryAddress), keySize(entryAddress));
+        return ((InPlaceObjectSerializer<K>) keySerializer).hash(reader);
+    }
+
+    /**
+     * Compares a stored key given the entry address with a key, in place if the key serializer supports it
+     *
+     * @param entryAddress The entry address
+     * @param key          The key to compare with
+     * @return {@code true} if the stored key is equal to the passed key
+     */
+    @SuppressWarnings("unchecked")
+    private boolean keyEquals(long entryAddress, K key) {
+        if (!keyInPlace) return key.equals(readKey(entryAddress));
+
+        MemoryReader reader = keyReader.get().resetTo(keyPointer(entryAddress), keySize(entryAddress));
+        return ((InPlaceObjectSerializer<K>) keySerializer).matches(reader, key);
+    }
+
+    /**
+     * Read a key from the map given the entry address
+     *
+     * @param entryAddress The entry address
+     * @return The entry's key
+     */
+    private K readKey(long entryAddress) {
+        return keySerializer.deserialize(keyReader.get().resetTo(keyPointer(entryAddress), keySize(entryAddress)));
+    }
+
+    /**
+     * Read a value from the map given the entry address
+     *
+     * @param entryAddress The entry address
+     * @return The entry's value
+     */
+    private V readValue(long entryAddress) {
+        long valueHeaderPointer = keyPointer(entryAddress) + keySize(entryAddress);
+        return valueSerializer.deserialize(valueReader.get().resetTo(valuePointer(valueHeaderPointer), valueSize(valueHeaderPointer)));
+    }
+
+    /**
+     * Gets the serialized key size given the entry address
+     *
+     * @param entryAddress The entry address
+     * @return The key size in bytes
+     */
+    private int keySize(long entryAddress) {
+        return keyFixedSize ? keySerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(entryAddress);
+    }
+
+    /**
+     * Gets the serialized key address given the entry address, i.e. the address right after the key header
+     *
+     * @param entryAddress The entry address
+     * @return The key address
+     */
+    private long keyPointer(long entryAddress) {
+        return keyFixedSize ? entryAddress : entryAddress + UnsafeUtils.getVarIntSize(entryAddress);
+    }
+
+    /**
+     * Gets the serialized value size given the value header address
+     *
+     * @param valueHeaderPointer The value header address
+     * @return The value size in bytes
+     */
+    private int valueSize(long valueHeaderPointer) {
+        return valueFixedSize ? valueSerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(valueHeaderPointer);
+    }
+
+    /**
+     * Gets the serialized value address given the value header address, i.e. the address right after the value header
+     *
+     * @param valueHeaderPointer The value header address
+     * @return The value address
+     */
+    private long valuePointer(long valueHeaderPointer) {
+        return valueFixedSize ? valueHeaderPointer : valueHeaderPointer + UnsafeUtils.getVarIntSize(valueHeaderPointer);
+    }
+
+    /**
+     * Gets the size of an entry given its address, i.e. its headers, key and value
+     *
+     * @param entryAddress The entry address
+     * @return The entry size in bytes
+     */
+    private long entrySize(long entryAddress) {
+        long valueHeaderPointer = keyPointer(entryAddress) + keySize(entryAddress);
+        return valuePointer(valueHeaderPointer) + valueSize(valueHeaderPointer) - entryAddress;
+    }
+
+    /**
+     * Helper function to spread a hash, and mod by capacity, in the same way as {@link LargeHashMap}
+     *
+     * @param hash     The key's hash
+     * @param capacity The current capacity
+     * @return The desired index
+     */
+    static long offset(int hash, long capacity) {
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % capacity;
+    }
+
+    /**
+     * LargeMappedHashMapIterator, an inner class wrapping the iterator logic for the map
+     *
+     * @param <K> The key type
+     * @param <V> The value type
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LargeMappedHashMapIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        /**
+         * A reference to the map this iterator is iterating on
+         */
+        @NonNull
+        private final LargeMappedHashMap<K, V> map;
+
+        /**
+         * The number of modifications at the time we initialized this iterator,
+         * this is to help fail fast if the map was changed midway
+         */
+        private final int expectedModifications;
+
+        /**
+         * The number of read items
+         */
+        private long read = 0;
+
+        /**
+         * The index of the next slot to read
+         */
+        private long index = 0;
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext() {
+            map.lock.readLock().lock();
+            try {
+                map.throwIfClosed();
+                if (expectedModifications == map.modifications) {
+                    return read < map.header(SIZE_OFFSET);
+                }
+            } finally {
+                map.lock.readLock().unlock();
+            }
+
+            throw new ConcurrentModificationException("Map has been modified since iterator was created");
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) throw new NoSuchElementException("Iterator exhausted, please use hasNext() to for available items first");
+
+            map.lock.readLock().lock();
+            try {
+                long table = map.header(TABLE_OFFSET);
+                long entryPosition = 0;
+                while (entryPosition == 0) {
+                    entryPosition = UnsafeUtils.getLong(map.file.address(table + index++ * Long.BYTES));
+                }
+
+                read++;
+                long entryAddress = map.file.address(entryPosition);
+                return new SimpleImmutableEntry<>(map.readKey(entryAddress), map.readValue(entryAddress));
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * LargeMappedHashMapCursor, an inner class wrapping the cursor logic for the map,
+     * it only holds the map's read lock while {@link #next()} scans for the next entry, so it never blocks writers between calls
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LargeMappedHashMapCursor implements LargeMapCursor {
+
+        /**
+         * A reference to the map this cursor is iterating on
+         */
+        @NonNull
+        private final LargeMappedHashMap<?, ?> map;
+
+        /**
+         * The number of modifications at the time we initialized this cursor,
+         * this is to help fail fast if the map was changed between calls to {@link #next()}
+         */
+        private final int expectedModifications;
+
+        /**
+         * The reader positioned on the current key
+         */
+        private final UnsafeMemoryReader keyReader = new UnsafeMemoryReader();
+
+        /**
+         * The reader positioned on the current value
+         */
+        private final UnsafeMemoryReader valueReader = new UnsafeMemoryReader();
+
+        /**
+         * The index of the next slot to scan
+         */
+        private long index = 0;
+
+        /**
+         * Whether all the slots were scanned
+         */
+        private boolean exhausted = false;
+
+        /**
+         * Whether the cursor is positioned on an entry
+         */
+        private boolean positioned = false;
+
+        /**
+         * The current key address pointer, i.e. the address after the key header
+         */
+        private long keyPointer;
+
+        /**
+         * The current key size in bytes
+         */
+        private int keySize;
+
+        /**
+         * The current value address pointer, i.e. the address after the value header
+         */
+        private long valuePointer;
+
+        /**
+         * The current value size in bytes
+         */
+        private int valueSize;
+
+        /**
+         * Advances the cursor to the next entry
+         *
+         * @return {@code true} if the cursor is positioned on an entry, {@code false} if the entries are exhausted
+         * @throws IllegalStateException           if the map was closed
+         * @throws ConcurrentModificationException if the map was modified since the cursor was created
+         */
+        @Override
+        public boolean next() {
+            positioned = false;
+            if (exhausted) return false;
+
+            map.lock.readLock().lock();
+            try {
+                throwIfInvalid();
+                long table = map.header(TABLE_OFFSET);
+                long capacity = map.header(CAPACITY_OFFSET);
+                while (index < capacity) {
+                    long entryPosition = UnsafeUtils.getLong(map.file.address(table + index * Long.BYTES));
+                    index++;
+                    if (entryPosition != 0) {
+                        position(map.file.address(entryPosition));
+                        return true;
+                    }
+                }
+
+                exhausted = true;
+                return false;
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized key
+         *
+         * @return The key reader
+         */
+        @Override
+        public MemoryReader key() {
+            throwIfNotPositioned();
+            return keyReader.resetTo(keyPointer, keySize);
+        }
+
+        /**
+         * Gets the current entry's serialized key size in bytes
+         *
+         * @return The key size in bytes
+         */
+        @Override
+        public int keySize() {
+            throwIfNotPositioned();
+            return keySize;
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized value
+         *
+         * @return The value reader
+         */
+        @Override
+        public MemoryReader value() {
+            throwIfNotPositioned();
+            return valueReader.resetTo(valuePointer, valueSize);
+        }
+
+        /**
+         * Gets the current entry's serialized value size in bytes
+         *
+         * @return The value size in bytes
+         */
+        @Override
+        public int valueSize() {
+            throwIfNotPositioned();
+            return valueSize;
+        }
+
+        /**
+         * Closes the cursor, it holds no lock between calls so there's nothing to release
+         */
+        @Override
+        public void close() {
+            positioned = false;
+            exhausted = true;
+        }
+
+        /**
+         * Checks if the map can still be iterated and throws an exception if not, must be called with the map's read lock held
+         *
+         * @throws IllegalStateException           if the map was closed
+         * @throws ConcurrentModificationException if the map was modified since the cursor was created
+         */
+        private void throwIfInvalid() {
+            if (map.closed) throw new IllegalStateException("Map was already closed");
+            if (expectedModifications != map.modifications) throw new ConcurrentModificationException("Map has been modified since cursor was created");
+        }
+
+        /**
+         * Positions the cursor on an entry
+         *
+         * @param entryAddress The entry address
+         */
+        private void position(long entryAddress) {
+            positioned = true;
+            keyPointer = map.keyPointer(entryAddress);
+            keySize = map.keySize(entryAddress);
+            long valueHeaderPointer = keyPointer + keySize;
+            valueSize = map.valueSize(valueHeaderPointer);
+            valuePointer = map.valuePointer(valueHeaderPointer);
+        }
+
+        /**
+         * Checks if the cursor is positioned on an entry and throws an exception if not
+         *
+         * @throws IllegalStateException if the cursor is not positioned on an entry
+         */
+        private void throwIfNotPositioned() {
+            if (!positioned) throw new IllegalStateException("Cursor is not positioned on an entry, please use next() first");
+        }
+    }
+}
@@ -0,0 +1,1056 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.InPlaceObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.lang.ThreadLocal.withInitial;
+
+/**
+ * LargeMappedHashMapReader, a read only view of a {@link LargeMappedHashMap} file while its single writer keeps changing it,
+ * so the processes of a host can share one copy of a map, e.g. in a file under /dev/shm, instead of each holding its own
+ * Readers never block the writer, they follow the sequence number in the file's header instead: the writer makes it odd before a change
+ * and even again after it, a reader copies what it needs while it's even, and retries if it changed in the meantime,
+ * so nothing from a half done change is ever returned, and reads wait for a change in progress up to the writer timeout
+ * Mapped memory is never trusted before the sequence number shows it didn't change, everything is read with bounds checks
+ * and copied out of the file before being deserialized, and the file is remapped as the writer grows it
+ * Modifying methods throw {@link UnsupportedOperationException}, iterators and cursors throw a {@link ConcurrentModificationException}
+ * if the writer changed the map since they were created, the serializers and byte order must be the same as the writer's
+ *
+ * @param <K> The key type, cannot be null
+ * @param <V> The value type, cannot be null
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LargeMappedHashMapReader<K, V> implements LargeMap<K, V> {
+
+    /**
+     * The default time in seconds to wait for the writer to finish a change, before assuming it died midway
+     */
+    private static final long DEFAULT_WRITER_TIMEOUT_SECONDS = 60;
+
+    /**
+     * The largest shift of a variable length integer's last byte, as an int takes at most 5 bytes
+     */
+    private static final int MAX_VAR_INT_SHIFT = 28;
+
+    /**
+     * The lookup result when the writer changed the map during the lookup
+     */
+    private static final long RETRY = -1;
+
+    /**
+     * The lookup result when the writer grew the file beyond what's mapped
+     */
+    private static final long REMAP = -2;
+
+    /**
+     * The lookup result when the key isn't in the map
+     */
+    private static final long ABSENT = -3;
+
+    /**
+     * The lock held for reading by every read, and for writing while the file is remapped or closed
+     */
+    private final ReentrantReadWriteLock lock;
+
+    /**
+     * The memory reader passed to the key serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryReader> keyReader;
+
+    /**
+     * The memory reader passed to the value serializer, it's reset every time
+     */
+    private final ThreadLocal<UnsafeMemoryReader> valueReader;
+
+    /**
+     * The buffer every thread copies entries to before they're deserialized
+     */
+    private final ThreadLocal<CopyBuffer> copyBuffer;
+
+    /**
+     * The threads' copy buffers, freed when the map is closed
+     */
+    private final Set<CopyBuffer> copyBuffers;
+
+    /**
+     * The key object serializer
+     */
+    private final ObjectSerializer<K> keySerializer;
+
+    /**
+     * Does the key have a fixed size?
+     */
+    private final boolean keyFixedSize;
+
+    /**
+     * Can the key be hashed and compared in its serialized form?
+     */
+    private final boolean keyInPlace;
+
+    /**
+     * The value object serializer
+     */
+    private final ObjectSerializer<V> valueSerializer;
+
+    /**
+     * Does the value have a fixed size?
+     */
+    private final boolean valueFixedSize;
+
+    /**
+     * The file mapped read only
+     */
+    private final MappedFile file;
+
+    /**
+     * The address of the file's header, the first chunk is never remapped
+     */
+    private final long headerAddress;
+
+    /**
+     * How long to wait in nanoseconds for the writer to finish a change
+     */
+    private final long writerTimeoutNanos;
+
+    /**
+     * If the map was closed and released its file
+     */
+    private boolean closed;
+
+    /**
+     * Opens a map file written by a {@link LargeMappedHashMap}, waiting up to a minute for the writer to finish a change
+     *
+     * @param path            The map file's path
+     * @param keySerializer   The key serializer, the same as the writer's
+     * @param valueSerializer The value serializer, the same as the writer's
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeMappedHashMapReader} object
+     * @throws IOException              if the file can't be opened or isn't a map file
+     * @throws IllegalArgumentException if the serializers' fixed sizes don't match the file's
+     */
+    public static <K, V> LargeMappedHashMapReader<K, V> open(Path path, ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer) throws IOException {
+        return LargeMappedHashMapReader.open(path, keySerializer, valueSerializer, DEFAULT_WRITER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a map file written by a {@link LargeMappedHashMap}, the file doesn't have to be clean as it's expected to be changing
+     *
+     * @param path            The map file's path
+     * @param keySerializer   The key serializer, the same as the writer's
+     * @param valueSerializer The value serializer, the same as the writer's
+     * @param writerTimeout   How long to wait for the writer to finish a change before failing, e.g. if it died midway
+     * @param unit            The writer timeout's unit
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link LargeMappedHashMapReader} object
+     * @throws IOException              if the file can't be opened or isn't a map file
+     * @throws IllegalArgumentException if the timeout isn't positive, or the serializers' fixed sizes don't match the file's
+     */
+    public static <K, V> LargeMappedHashMapReader<K, V> open(@NonNull Path path, @NonNull ObjectSerializer<K> keySerializer, @NonNull ObjectSerializer<V> valueSerializer,
+                                                             long writerTimeout, @NonNull TimeUnit unit) throws IOException {
+        if (writerTimeout <= 0) throw new IllegalArgumentException("Writer timeout must be positive");
+
+        int keySize = keySerializer instanceof FixedSizeObjectSerializer ? keySerializer.sizeInBytes(null) : -1;
+        int valueSize = valueSerializer instanceof FixedSizeObjectSerializer ? valueSerializer.sizeInBytes(null) : -1;
+        MappedFile file = MappedFile.openReadOnly(path, LargeMappedHashMap.validate(path, keySize, valueSize, false));
+        try {
+            return LargeMappedHashMapReader.of(keySerializer, valueSerializer, file, unit.toNanos(writerTimeout));
+        } catch (RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a {@link LargeMappedHashMapReader} object on an opened and validated file
+     *
+     * @param keySerializer      The key serializer
+     * @param valueSerializer    The value serializer
+     * @param file               The file mapped read only
+     * @param writerTimeoutNanos How long to wait in nanoseconds for the writer to finish a change
+     * @param <K>                The key type
+     * @param <V>                The value type
+     * @return A {@link LargeMappedHashMapReader} object
+     */
+    private static <K, V> LargeMappedHashMapReader<K, V> of(ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, MappedFile file, long writerTimeoutNanos) {
+        boolean keyTrusted = keySerializer instanceof TrustedObjectSerializer;
+        boolean valueTrusted = valueSerializer instanceof TrustedObjectSerializer;
+        Set<CopyBuffer> copyBuffers = ConcurrentHashMap.newKeySet();
+        return new LargeMappedHashMapReader<>(
+                new ReentrantReadWriteLock(),
+                withInitial(() -> keyTrusted ? new TrustedMemoryReader() : new UnsafeMemoryReader()),
+                withInitial(() -> valueTrusted ? new TrustedMemoryReader() : new UnsafeMemoryReader()),
+                withInitial(() -> CopyBuffer.register(copyBuffers)),
+                copyBuffers,
+                keySerializer,
+                keySerializer instanceof FixedSizeObjectSerializer,
+                keySerializer instanceof InPlaceObjectSerializer,
+                valueSerializer,
+                valueSerializer instanceof FixedSizeObjectSerializer,
+                file,
+                file.address(0),
+                writerTimeoutNanos
+        );
+    }
+
+    /**
+     * Gets key's value from the map, as of the last change the writer finished
+     *
+     * @param key The key to lookup
+     * @return The value associated with the key
+     * @throws IllegalStateException if the writer didn't finish a change within the timeout, or the file is corrupted
+     * @throws UncheckedIOException  if the file grew but can't be remapped
+     */
+    @Override
+    public V get(@NonNull K key) {
+        int hash = hash(key);
+        while (true) {
+            long result;
+            lock.readLock().lock();
+            try {
+                throwIfClosed();
+                CopyBuffer copy = copyBuffer.get();
+                result = lookup(key, hash, copy);
+                if (result >= 0) return readValue(copy.address);
+                if (result == ABSENT) return null;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            if (result == REMAP) remap();
+        }
+    }
+
+    /**
+     * Not supported, the map is read only
+     *
+     * @param key   The key to insert in the map
+     * @param value The value to insert in the map
+     * @return Never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public V put(K key, V value) {
+        throw new UnsupportedOperationException("Map reader can't modify the map");
+    }
+
+    /**
+     * Not supported, the map is read only
+     *
+     * @param key The key to remove from the map
+     * @return Never returns
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public V remove(K key) {
+        throw new UnsupportedOperationException("Map reader can't modify the map");
+    }
+
+    /**
+     * Not supported, the map is read only
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Map reader can't modify the map");
+    }
+
+    /**
+     * Gets the current size of the map, the size is a single field so it doesn't need a consistent read
+     *
+     * @return The size of the map
+     */
+    @Override
+    public long size() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            return header(LargeMappedHashMap.SIZE_OFFSET);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the file space currently used by the map, in the same way as {@link LargeMappedHashMap#memoryUsage()},
+     * the file is shared rather than allocated, so it's not included in {@link MemoryUsage#total()}
+     *
+     * @return The map's file usage
+     * @throws IllegalStateException if the writer didn't finish a change within the timeout
+     */
+    @Override
+    public MemoryUsage memoryUsage() {
+        lock.readLock().lock();
+        try {
+            throwIfClosed();
+            while (true) {
+                long sequence = awaitSequence();
+                long slotTableBytes = header(LargeMappedHashMap.CAPACITY_OFFSET) * Long.BYTES;
+                long entryBytes = header(LargeMappedHashMap.ENTRY_BYTES_OFFSET);
+                long top = header(LargeMappedHashMap.TOP_OFFSET);
+                if (unchanged(sequence)) return MemoryUsage.of(slotTableBytes, entryBytes, top - slotTableBytes - entryBytes);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an iterator over elements of type {@code Entry<K, V>}, which fails if the writer changes the map while it's used
+     *
+     * @return The map's iterator
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new LargeMappedHashMapReaderIterator<>(this, mappedSequence());
+    }
+
+    /**
+     * Returns a cursor over the serialized entries of the map, which fails if the writer changes the map while it's used,
+     * every entry is copied to the cursor's own buffer, which is freed when the cursor is closed
+     *
+     * @return The map's cursor
+     */
+    @Override
+    public LargeMapCursor cursor() {
+        return new LargeMappedHashMapReaderCursor(this, mappedSequence(), new CopyBuffer());
+    }
+
+    /**
+     * Closes the file and frees the threads' copy buffers, the file itself is left to the writer
+     *
+     * @throws UncheckedIOException if the file can't be closed
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            closed = true;
+            for (CopyBuffer buffer : copyBuffers) {
+                buffer.free();
+            }
+            copyBuffers.clear();
+            file.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the hash code value for this {@link LargeMap}, i.e.,
+     * the sum of, for each key-value pair in the map,
+     * {@code key.hashCode() ^ value.hashCode()}.
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (Entry<K, V> entry : this) {
+            hashCode += entry.getKey().hashCode() ^ entry.getValue().hashCode();
+        }
+        return hashCode;
+    }
+
+    /**
+     * Compares the specified object with this map for equality.
+     * Returns {@code true} if the given object is a map with the same
+     * mappings as this map.
+     *
+     * @param o object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LargeMappedHashMapReader<K, V> that = (LargeMappedHashMapReader<K, V>) o;
+        if (closed || that.closed) return closed == that.closed;
+        if (size() != that.size()) return false;
+
+        for (Entry<K, V> entry : this) {
+            V thisValue = entry.getValue();
+            V thatValue = that.get(entry.getKey());
+            if (thatValue == null || !thatValue.equals(thisValue)) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a string representation of this map.  The string
+     * representation consists of a list of key-value mappings (in no
+     * particular order) enclosed in braces ("{@code {}}").  Adjacent
+     * mappings are separated by the characters {@code ",\n"} (comma
+     * and new line).  Each key-value mapping is rendered as {@code "  "}
+     * (two white spaces; for indentation) the key
+     * followed by an equals sign ("{@code =}") followed by the
+     * associated value.
+     *
+     * @return a string representation of this map
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{').append(System.lineSeparator());
+        for (Iterator<Entry<K, V>> iterator = iterator(); iterator.hasNext(); ) {
+            Entry<K, V> entry = iterator.next();
+            sb.append("  ").append(entry);
+            if (iterator.hasNext()) {
+                sb.append(",");
+            }
+            sb.append(System.lineSeparator());
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Checks if the map is already closed and throws an exception if so
+     *
+     * @throws IllegalStateException if the map was closed
+     */
+    private void throwIfClosed() {
+        if (closed) throw new IllegalStateException("Map was already closed");
+    }
+
+    /**
+     * Reads a long field of the header
+     *
+     * @param offset The field's offset in the header
+     * @return The field's value
+     */
+    private long header(int offset) {
+        return UnsafeUtils.getLong(headerAddress + offset);
+    }
+
+    /**
+     * Waits for the writer to finish the change in progress, if any, and gets the even sequence number after it,
+     * the fence keeps the reads that follow from happening before the sequence number is read
+     *
+     * @return The sequence number
+     * @throws IllegalStateException if the writer didn't finish the change within the timeout
+     */
+    private long awaitSequence() {
+        long sequence = header(LargeMappedHashMap.SEQUENCE_OFFSET);
+        UnsafeUtils.loadFence();
+        if ((sequence & 1) == 0) return sequence;
+
+        long deadline = System.nanoTime() + writerTimeoutNanos;
+        do {
+            if (System.nanoTime() - deadline > 0) throw new IllegalStateException("Writer didn't finish a change in time, it may have died midway");
+            Thread.yield();
+            sequence = header(LargeMappedHashMap.SEQUENCE_OFFSET);
+            UnsafeUtils.loadFence();
+        } while ((sequence & 1) != 0);
+        return sequence;
+    }
+
+    /**
+     * Checks that the writer didn't start a change since a sequence number was read,
+     * the fence keeps the reads before it from happening after the sequence number is read again
+     *
+     * @param sequence The sequence number read by {@link #awaitSequence()}
+     * @return {@code true} if everything read since is consistent
+     */
+    private boolean unchanged(long sequence) {
+        UnsafeUtils.loadFence();
+        return header(LargeMappedHashMap.SEQUENCE_OFFSET) == sequence;
+    }
+
+    /**
+     * Checks that the writer didn't start a change since a sequence number was read and throws an exception if it did
+     *
+     * @param sequence The sequence number read by {@link #awaitSequence()}
+     * @throws ConcurrentModificationException if the writer changed the map
+     */
+    private void throwIfChanged(long sequence) {
+        if (!unchanged(sequence)) throw new ConcurrentModificationException("Map has been modified by its writer");
+    }
+
+    /**
+     * Gets a sequence number after which the whole map is mapped, remapping the file if the writer grew it,
+     * the map is consistent with it for as long as the sequence number doesn't change
+     *
+     * @return The sequence number
+     * @throws IllegalStateException if the writer didn't finish a change within the timeout
+     * @throws UncheckedIOException  if the file grew but can't be remapped
+     */
+    private long mappedSequence() {
+        while (true) {
+            long top;
+            lock.readLock().lock();
+            try {
+                throwIfClosed();
+                long sequence = awaitSequence();
+                top = header(LargeMappedHashMap.TOP_OFFSET);
+                if (unchanged(sequence) && top <= file.size()) return sequence;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            if (top > file.size()) remap();
+        }
+    }
+
+    /**
+     * Maps the chunks the writer added since the file was last mapped, the write lock is held as the mapping is replaced,
+     * the top only ever grows, and the writer grows the file before moving the top, so it can be read without the sequence number
+     *
+     * @throws UncheckedIOException if the file can't be mapped
+     */
+    private void remap() {
+        lock.writeLock().lock();
+        try {
+            throwIfClosed();
+            file.ensureMapped(header(LargeMappedHashMap.TOP_OFFSET));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Looks a key up in a consistent state of the map, copying its entry to a buffer
+     *
+     * @param key  The key to find
+     * @param hash The key's hash
+     * @param copy The buffer to copy the entry to
+     * @return The entry's size if it was found, {@link #ABSENT} if it wasn't, {@link #RETRY} if the writer changed the map midway,
+     * or {@link #REMAP} if the writer grew the file beyond what's mapped
+     * @throws IllegalStateException if the writer didn't finish a change within the timeout, or the file is corrupted
+     */
+    private long lookup(K key, int hash, CopyBuffer copy) {
+        long sequence = awaitSequence();
+        long capacity = header(LargeMappedHashMap.CAPACITY_OFFSET);
+        long table = header(LargeMappedHashMap.TABLE_OFFSET);
+        long top = header(LargeMappedHashMap.TOP_OFFSET);
+        if (!unchanged(sequence)) return RETRY;
+        if (top > file.size()) return REMAP;
+
+        long index = LargeMappedHashMap.offset(hash, capacity);
+        for (long probes = 0; probes < capacity; probes++) {
+            long entryPosition = UnsafeUtils.getLong(file.address(table + index * Long.BYTES));
+            if (entryPosition == 0) return unchanged(sequence) ? ABSENT : RETRY;
+
+            long entrySize = copyEntry(entryPosition, copy);
+            if (!unchanged(sequence)) return RETRY;
+            if (entrySize < 0) throw new IllegalStateException("Corrupted map file entry at position " + entryPosition);
+            if (keyEquals(copy.address, key)) return entrySize;
+
+            index = (index + 1) % capacity;
+        }
+        return unchanged(sequence) ? ABSENT : RETRY;
+    }
+
+    /**
+     * Copies the entry of the first used slot at or after an index to a buffer, in the state of the map a sequence number was read at
+     *
+     * @param sequence The sequence number read by {@link #mappedSequence()}
+     * @param index    The index of the first slot to look at
+     * @param copy     The buffer to copy the entry to
+     * @return The index of the slot the entry was copied from, or -1 if there are no more entries
+     * @throws ConcurrentModificationException if the writer changed the map since the sequence number was read
+     * @throws IllegalStateException           if the file is corrupted
+     */
+    private long copyNextEntry(long sequence, long index, CopyBuffer copy) {
+        long capacity = header(LargeMappedHashMap.CAPACITY_OFFSET);
+        long table = header(LargeMappedHashMap.TABLE_OFFSET);
+        throwIfChanged(sequence);
+
+        for (long i = index; i < capacity; i++) {
+            long entryPosition = UnsafeUtils.getLong(file.address(table + i * Long.BYTES));
+            if (entryPosition != 0) {
+                long entrySize = copyEntry(entryPosition, copy);
+                throwIfChanged(sequence);
+                if (entrySize < 0) throw new IllegalStateException("Corrupted map file entry at position " + entryPosition);
+                return i;
+            }
+        }
+
+        throwIfChanged(sequence);
+        return -1;
+    }
+
+    /**
+     * Copies the entry at a position to a buffer, the copy must only be trusted once the sequence number shows it's consistent
+     *
+     * @param entryPosition The entry's position
+     * @param copy          The buffer to copy the entry to
+     * @return The entry's size, or -1 if it isn't within its chunk of the mapped file
+     */
+    private long copyEntry(long entryPosition, CopyBuffer copy) {
+        long entryEnd = entryEnd(entryPosition);
+        if (entryEnd < 0) return -1;
+
+        copy.copyFrom(file.address(entryPosition), entryEnd - entryPosition);
+        return entryEnd - entryPosition;
+    }
+
+    /**
+     * Finds the end of the entry at a position without trusting it, as the writer may be changing it,
+     * every byte read is within the entry's chunk of the mapped file
+     *
+     * @param entryPosition The entry's position
+     * @return The position right after the entry, or -1 if it doesn't end within its chunk of the mapped file
+     */
+    private long entryEnd(long entryPosition) {
+        if (entryPosition < LargeMappedHashMap.HEADER_SIZE || entryPosition >= file.size()) return -1;
+
+        long limit = Math.min((entryPosition | file.chunkSize() - 1) + 1, file.size());
+        long valueHeaderPosition = fieldEnd(entryPosition, limit, keyFixedSize ? keySerializer.sizeInBytes(null) : -1);
+        return valueHeaderPosition < 0 ? -1 : fieldEnd(valueHeaderPosition, limit, valueFixedSize ? valueSerializer.sizeInBytes(null) : -1);
+    }
+
+    /**
+     * Finds the end of a serialized key or value without trusting it, reading its size header unless it has a fixed size
+     *
+     * @param position  The position of the key or value's header, or of the key or value if it has a fixed size
+     * @param limit     The position nothing can be read at or after
+     * @param fixedSize The fixed size, -1 if it's read from the header
+     * @return The position right after the key or value, or -1 if it doesn't end before the limit
+     */
+    private long fieldEnd(long position, long limit, int fixedSize) {
+        long pointer = position;
+        long size = fixedSize;
+        if (fixedSize < 0) {
+            size = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (pointer >= limit || shift > MAX_VAR_INT_SHIFT) return -1;
+                b = UnsafeUtils.getByte(file.address(pointer++));
+                size |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+        }
+        return size <= limit - pointer ? pointer + size : -1;
+    }
+
+    /**
+     * Hashes a key, in the same way as the writer
+     *
+     * @param key The key to hash
+     * @return The key's hash
+     */
+    @SuppressWarnings("unchecked")
+    private int hash(K key) {
+        return keyInPlace ? ((InPlaceObjectSerializer<K>) keySerializer).hash(key) : key.hashCode();
+    }
+
+    /**
+     * Compares a copied key given the entry address with a key, in place if the key serializer supports it
+     *
+     * @param entryAddress The copied entry's address
+     * @param key          The key to compare with
+     * @return {@code true} if the copied key is equal to the passed key
+     */
+    @SuppressWarnings("unchecked")
+    private boolean keyEquals(long entryAddress, K key) {
+        if (!keyInPlace) return key.equals(readKey(entryAddress));
+
+        MemoryReader reader = keyReader.get().resetTo(keyPointer(entryAddress), keySize(entryAddress));
+        return ((InPlaceObjectSerializer<K>) keySerializer).matches(reader, key);
+    }
+
+    /**
+     * Read a key given the copied entry's address
+     *
+     * @param entryAddress The copied entry's address
+     * @return The entry's key
+     */
+    private K readKey(long entryAddress) {
+        return keySerializer.deserialize(keyReader.get().resetTo(keyPointer(entryAddress), keySize(entryAddress)));
+    }
+
+    /**
+     * Read a value given the copied entry's address
+     *
+     * @param entryAddress The copied entry's address
+     * @return The entry's value
+     */
+    private V readValue(long entryAddress) {
+        long valueHeaderPointer = keyPointer(entryAddress) + keySize(entryAddress);
+        return valueSerializer.deserialize(valueReader.get().resetTo(valuePointer(valueHeaderPointer), valueSize(valueHeaderPointer)));
+    }
+
+    /**
+     * Gets the serialized key size given the copied entry's address
+     *
+     * @param entryAddress The copied entry's address
+     * @return The key size in bytes
+     */
+    private int keySize(long entryAddress) {
+        return keyFixedSize ? keySerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(entryAddress);
+    }
+
+    /**
+     * Gets the serialized key address given the copied entry's address, i.e. the address right after the key header
+     *
+     * @param entryAddress The copied entry's address
+     * @return The key address
+     */
+    private long keyPointer(long entryAddress) {
+        return keyFixedSize ? entryAddress : entryAddress + UnsafeUtils.getVarIntSize(entryAddress);
+    }
+
+    /**
+     * Gets the serialized value size given the value header address
+     *
+     * @param valueHeaderPointer The value header address
+     * @return The value size in bytes
+     */
+    private int valueSize(long valueHeaderPointer) {
+        return valueFixedSize ? valueSerializer.sizeInBytes(null) : UnsafeUtils.getVarInt(valueHeaderPointer);
+    }
+
+    /**
+     * Gets the serialized value address given the value header address, i.e. the address right after the value header
+     *
+     * @param valueHeaderPointer The value header address
+     * @return The value address
+     */
+    private long valuePointer(long valueHeaderPointer) {
+        return valueFixedSize ? valueHeaderPointer : valueHeaderPointer + UnsafeUtils.getVarIntSize(valueHeaderPointer);
+    }
+
+    /**
+     * CopyBuffer, a growable block of allocated memory entries are copied to, so they can be checked before they're deserialized
+     */
+    private static final class CopyBuffer {
+
+        /**
+         * The initial buffer capacity
+         */
+        private static final long INITIAL_CAPACITY = 256;
+
+        /**
+         * The buffer's address
+         */
+        private long address = UnsafeUtils.allocateUninitialized(INITIAL_CAPACITY);
+
+        /**
+         * The buffer's capacity in bytes
+         */
+        private long capacity = INITIAL_CAPACITY;
+
+        /**
+         * Creates a buffer and adds it to a set of buffers freed together
+         *
+         * @param buffers The set of buffers
+         * @return The new buffer
+         */
+        static CopyBuffer register(Set<CopyBuffer> buffers) {
+            CopyBuffer buffer = new CopyBuffer();
+            buffers.add(buffer);
+            return buffer;
+        }
+
+        /**
+         * Copies a block of memory to the start of the buffer, growing it if it's too small
+         *
+         * @param sourceAddress The address of the block to copy
+         * @param bytes         The number of bytes to copy
+         */
+        void copyFrom(long sourceAddress, long bytes) {
+            if (bytes > capacity) {
+                long newCapacity = Math.max(bytes, capacity * 2);
+                long newAddress = UnsafeUtils.allocateUninitialized(newCapacity);
+                UnsafeUtils.free(address);
+                address = newAddress;
+                capacity = newCapacity;
+            }
+            UnsafeUtils.copyMemory(null, sourceAddress, null, address, bytes);
+        }
+
+        /**
+         * Frees the buffer's memory, the buffer must not be used after that
+         */
+        void free() {
+            if (address != 0) {
+                UnsafeUtils.free(address);
+                address = 0;
+            }
+        }
+    }
+
+    /**
+     * LargeMappedHashMapReaderIterator, an inner class wrapping the iterator logic for the map reader
+     *
+     * @param <K> The key type
+     * @param <V> The value type
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LargeMappedHashMapReaderIterator<K, V> implements Iterator<Entry<K, V>> {
+
+        /**
+         * A reference to the map this iterator is iterating on
+         */
+        @NonNull
+        private final LargeMappedHashMapReader<K, V> map;
+
+        /**
+         * The sequence number at the time we initialized this iterator,
+         * this is to help fail fast if the map was changed midway
+         */
+        private final long expectedSequence;
+
+        /**
+         * The number of read items
+         */
+        private long read = 0;
+
+        /**
+         * The index of the next slot to read
+         */
+        private long index = 0;
+
+        /**
+         * Returns {@code true} if the iteration has more elements.
+         * (In other words, returns {@code true} if {@link #next} would
+         * return an element rather than throwing an exception.)
+         *
+         * @return {@code true} if the iteration has more elements
+         */
+        @Override
+        public boolean hasNext() {
+            map.lock.readLock().lock();
+            try {
+                map.throwIfClosed();
+                long size = map.header(LargeMappedHashMap.SIZE_OFFSET);
+                map.throwIfChanged(expectedSequence);
+                return read < size;
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Returns the next element in the iteration.
+         *
+         * @return the next element in the iteration
+         * @throws NoSuchElementException if the iteration has no more elements
+         */
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) throw new NoSuchElementException("Iterator exhausted, please use hasNext() to for available items first");
+
+            map.lock.readLock().lock();
+            try {
+                map.throwIfClosed();
+                CopyBuffer copy = map.copyBuffer.get();
+                long entryIndex = map.copyNextEntry(expectedSequence, index, copy);
+                if (entryIndex < 0) throw new IllegalStateException("Corrupted map file, there are fewer entries than its size");
+
+                index = entryIndex + 1;
+                read++;
+                return new SimpleImmutableEntry<>(map.readKey(copy.address), map.readValue(copy.address));
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * LargeMappedHashMapReaderCursor, an inner class wrapping the cursor logic for the map reader,
+     * it copies every entry to its own buffer, so the entry stays valid even if the writer changes it afterwards
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LargeMappedHashMapReaderCursor implements LargeMapCursor {
+
+        /**
+         * A reference to the map this cursor is iterating on
+         */
+        @NonNull
+        private final LargeMappedHashMapReader<?, ?> map;
+
+        /**
+         * The sequence number at the time we initialized this cursor,
+         * this is to help fail fast if the map was changed midway
+         */
+        private final long expectedSequence;
+
+        /**
+         * The buffer the current entry is copied to
+         */
+        @NonNull
+        private final CopyBuffer copy;
+
+        /**
+         * The reader positioned on the current key
+         */
+        private final UnsafeMemoryReader keyReader = new UnsafeMemoryReader();
+
+        /**
+         * The reader positioned on the current value
+         */
+        private final UnsafeMemoryReader valueReader = new UnsafeMemoryReader();
+
+        /**
+         * The index of the next slot to scan
+         */
+        private long index = 0;
+
+        /**
+         * Whether all the slots were scanned or the cursor was closed
+         */
+        private boolean exhausted = false;
+
+        /**
+         * Whether the cursor is positioned on an entry
+         */
+        private boolean positioned = false;
+
+        /**
+         * The current key address pointer, i.e. the address after the key header
+         */
+        private long keyPointer;
+
+        /**
+         * The current key size in bytes
+         */
+        private int keySize;
+
+        /**
+         * The current value address pointer, i.e. the address after the value header
+         */
+        private long valuePointer;
+
+        /**
+         * The current value size in bytes
+         */
+        private int valueSize;
+
+        /**
+         * Advances the cursor to the next entry
+         *
+         * @return {@code true} if the cursor is positioned on an entry, {@code false} if the entries are exhausted
+         * @throws ConcurrentModificationException if the writer changed the map since the cursor was created
+         */
+        @Override
+        public boolean next() {
+            positioned = false;
+            if (exhausted) return false;
+
+            map.lock.readLock().lock();
+            try {
+                map.throwIfClosed();
+                long entryIndex = map.copyNextEntry(expectedSequence, index, copy);
+                if (entryIndex < 0) {
+                    exhausted = true;
+                    return false;
+                }
+
+                index = entryIndex + 1;
+                position(copy.address);
+                return true;
+            } finally {
+                map.lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized key
+         *
+         * @return The key reader
+         */
+        @Override
+        public MemoryReader key() {
+            throwIfNotPositioned();
+            return keyReader.resetTo(keyPointer, keySize);
+        }
+
+        /**
+         * Gets the current entry's serialized key size in bytes
+         *
+         * @return The key size in bytes
+         */
+        @Override
+        public int keySize() {
+            throwIfNotPositioned();
+            return keySize;
+        }
+
+        /**
+         * Gets a reader positioned at the start of the current entry's serialized value
+         *
+         * @return The value reader
+         */
+        @Override
+        public MemoryReader value() {
+            throwIfNotPositioned();
+            return valueReader.resetTo(valuePointer, valueSize);
+        }
+
+        /**
+         * Gets the current entry's serialized value size in bytes
+         *
+         * @return The value size in bytes
+         */
+        @Override
+        public int valueSize() {
+            throwIfNotPositioned();
+            return valueSize;
+        }
+
+        /**
+         * Closes the cursor, freeing its copy buffer
+         */
+        @Override
+        public void close() {
+            positioned = false;
+            exhausted = true;
+            copy.free();
+        }
+
+        /**
+         * Positions the cursor on a copied entry
+         *
+         * @param entryAddress The copied entry's address
+         */
+        private void position(long entryAddress) {
+            positioned = true;
+            keyPointer = map.keyPointer(entryAddress);
+            keySize = map.keySize(entryAddress);
+            long valueHeaderPointer = keyPointer + keySize;
+            valueSize = map.valueSize(valueHeaderPointer);
+            valuePointer = map.valuePointer(valueHeaderPointer);
+        }
+
+        /**
+         * Checks if the cursor is positioned on an entry and throws an exception if not
+         *
+         * @throws IllegalStateException if the cursor is not positioned on an entry
+         */
+        private void throwIfNotPositioned() {
+            if (!positioned) throw new IllegalStateException("Cursor is not positioned on an entry, please use next() first");
+        }
+    }
+}
@@ -43,6 +43,13 @@ public interface LargeSet<E> extends Iterable<E>, AutoCloseable {
      */
     long size();
 
+    /**
+     * Gets the off heap memory currently used by the set, broken down into its slot table, entries and the backend's overhead
+     *
+     * @return The set's memory usage
+     */
+    MemoryUsage memoryUsage();
+
     /**
      * Closes this resource, relinquishing any underlying resources.
      * This method is invoked automatically on objects managed by the
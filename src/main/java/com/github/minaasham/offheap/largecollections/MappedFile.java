@@ -0,0 +1,223 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * MappedFile, a file memory mapped in fixed size chunks, so it can be bigger than a single buffer's 2GB limit
+ * Positions in the file are translated to memory addresses chunk by chunk, so anything read or written at an address
+ * must not cross a chunk boundary, the chunks are attached to the memory backend so they're read and written through {@link UnsafeUtils}
+ * Writable files only grow by whole chunks, which the file system keeps sparse until they're written to
+ * Mapped buffers are released by the garbage collector once the file is closed, there's no portable way to unmap them earlier
+ * This class is not thread safe and is package private as it's an internal implementation detail
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class MappedFile implements AutoCloseable {
+
+    /**
+     * The default number of bits of a position within a chunk, 1GB chunks
+     */
+    static final int DEFAULT_CHUNK_BITS = 30;
+
+    /**
+     * The file's channel
+     */
+    private final FileChannel channel;
+
+    /**
+     * Whether the file is mapped read only
+     */
+    private final boolean readOnly;
+
+    /**
+     * The number of bits of a position within a chunk
+     */
+    private final int chunkBits;
+
+    /**
+     * The mapped chunks, kept reachable so their memory isn't released while they're attached
+     */
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+
+    /**
+     * The address of every chunk's first byte
+     */
+    private long[] addresses = new long[0];
+
+    /**
+     * The number of bytes mapped
+     */
+    private long size;
+
+    /**
+     * Opens a file read only and maps all of it, the last chunk is only as long as what's left of the file
+     *
+     * @param path      The file's path
+     * @param chunkBits The number of bits of a position within a chunk
+     * @return A {@link MappedFile} object
+     * @throws IOException if the file can't be opened or mapped
+     */
+    static MappedFile openReadOnly(Path path, int chunkBits) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        MappedFile file = new MappedFile(channel, true, chunkBits);
+        try {
+            file.map(channel.size());
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Opens or creates a file for reading and writing, locks it and maps all of it, rounded up to whole chunks
+     * The lock is exclusive, so the file is only opened for writing once at a time, it's advisory, so read only files don't take it,
+     * and it's held until the file is closed, though on some platforms closing another channel on the file in this process releases it
+     *
+     * @param path      The file's path
+     * @param chunkBits The number of bits of a position within a chunk
+     * @return A {@link MappedFile} object
+     * @throws IOException if the file can't be opened or mapped, or is already opened for writing
+     */
+    static MappedFile open(Path path, int chunkBits) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedFile file = new MappedFile(channel, false, chunkBits);
+        try {
+            boolean locked;
+            try {
+                locked = channel.tryLock() != null;
+            } catch (OverlappingFileLockException e) {
+                locked = false;
+            }
+            if (!locked) throw new IOException("File is already opened for writing: " + path);
+            file.map(channel.size());
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Gets the size of a chunk
+     *
+     * @return The size of a chunk in bytes
+     */
+    long chunkSize() {
+        return 1L << chunkBits;
+    }
+
+    /**
+     * Gets the number of bytes mapped
+     *
+     * @return The mapped size in bytes
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Translates a position in the file to the address it's mapped at
+     *
+     * @param position The position in the file, must be less than the mapped size
+     * @return The address of the position's byte
+     */
+    long address(long position) {
+        return addresses[(int) (position >>> chunkBits)] + (position & (1L << chunkBits) - 1);
+    }
+
+    /**
+     * Maps more chunks until the file is at least a number of bytes long, growing the file as needed
+     *
+     * @param bytes The number of bytes that must be mapped
+     * @throws IOException if the file can't be grown or mapped
+     */
+    void ensureSize(long bytes) throws IOException {
+        if (readOnly) throw new IllegalStateException("File is read only");
+        map(bytes);
+    }
+
+    /**
+     * Maps more chunks of a read only file that another process grows, until at least a number of bytes are mapped
+     * The number of bytes is rounded up to whole chunks, so the file must only ever grow by whole chunks
+     *
+     * @param bytes The number of bytes that must be mapped
+     * @throws IOException if the file isn't that long yet or can't be mapped
+     */
+    void ensureMapped(long bytes) throws IOException {
+        if (!readOnly) throw new IllegalStateException("File is not read only");
+        map(bytes + chunkSize() - 1 & -chunkSize());
+    }
+
+    /**
+     * Writes the chunks' modified pages to the storage device
+     */
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Writes the modified pages of the chunk holding a position to the storage device
+     *
+     * @param position The position in the file, must be less than the mapped size
+     */
+    void force(long position) {
+        chunks[(int) (position >>> chunkBits)].force();
+    }
+
+    /**
+     * Detaches the chunks and closes the file, the chunks' memory is released once they're garbage collected
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        for (long address : addresses) {
+            UnsafeUtils.detachBuffer(address);
+        }
+        chunks = new MappedByteBuffer[0];
+        addresses = new long[0];
+        size = 0;
+        channel.close();
+    }
+
+    /**
+     * Maps chunks until at least a number of bytes are mapped, a read only file's last chunk ends with the file
+     *
+     * @param bytes The number of bytes that must be mapped
+     * @throws IOException if the file can't be mapped
+     */
+    private void map(long bytes) throws IOException {
+        long chunkSize = chunkSize();
+        int count = (int) ((bytes + chunkSize - 1) >>> chunkBits);
+        if (count <= chunks.length) return;
+
+        int mapped = chunks.length;
+        chunks = Arrays.copyOf(chunks, count);
+        addresses = Arrays.copyOf(addresses, count);
+        for (; mapped < count; mapped++) {
+            long position = (long) mapped << chunkBits;
+            long length = readOnly ? Math.min(chunkSize, bytes - position) : chunkSize;
+            try {
+                chunks[mapped] = channel.map(readOnly ? MapMode.READ_ONLY : MapMode.READ_WRITE, position, length);
+                addresses[mapped] = UnsafeUtils.attachBuffer(chunks[mapped]);
+            } catch (IOException | RuntimeException e) {
+                chunks = Arrays.copyOf(chunks, mapped);
+                addresses = Arrays.copyOf(addresses, mapped);
+                throw e;
+            }
+            size = position + length;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.minaasham.offheap.largecollections;
+
+import java.nio.ByteBuffer;
+
+/**
+ * MemoryBackend, the primitive memory operations all off-heap collections are built on
+ * Memory is addressed the same way as with Unsafe, an object (a primitive array) and an offset within it,
+ * or a null object and an absolute address, offsets within arrays start at the array's base offset
+ * UnsafeUtils delegates to exactly one backend per JVM, so calls through this interface are monomorphic
+ * This interface is package private as it's an internal implementation detail
+ */
+interface MemoryBackend {
+
+    /**
+     * Gets the backend's name, as used to select it
+     *
+     * @return The backend's name
+     */
+    String name();
+
+    /**
+     * Allocates a specific size of memory, the memory's content is undefined
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory
+     */
+    long allocateMemory(long bytes);
+
+    /**
+     * Allocates a specific size of memory set to all zeroes, backends that get zeroed memory from the OS don't set it again
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory
+     */
+    long allocateZeroedMemory(long bytes);
+
+    /**
+     * Frees previously allocated memory
+     *
+     * @param address The address pointing to the first byte in the allocated memory
+     */
+    void freeMemory(long address);
+
+    /**
+     * Estimates the memory an allocation of a specific size really takes, including the allocator's headers and rounding
+     * By default a malloc like allocator is assumed, adding an 8 byte header to each chunk and rounding it up to 16 bytes, at least 32 bytes
+     *
+     * @param bytes The size of the allocation
+     * @return The estimated memory taken by the allocation
+     */
+    default long allocatedSize(long bytes) {
+        return Math.max(32, (bytes + 8 + 15) & -16);
+    }
+
+    /**
+     * Sets all bytes of a block of memory to a value
+     *
+     * @param address The address of the memory block
+     * @param bytes   The size of the memory block
+     * @param value   The value to set the bytes to
+     */
+    void setMemory(long address, long bytes, byte value);
+
+    /**
+     * Copies a block of memory, either side can be an object (e.g. a byte array) or, if the object is null, an absolute address
+     *
+     * @param srcBase    The object to copy from, or null for an absolute address
+     * @param srcOffset  The offset within the source object, or the absolute source address
+     * @param destBase   The object to copy to, or null for an absolute address
+     * @param destOffset The offset within the destination object, or the absolute destination address
+     * @param bytes      The number of bytes to copy
+     */
+    void copyMemory(Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes);
+
+    /**
+     * Gets the offset of the first element in a primitive array
+     *
+     * @param arrayClass The primitive array's class
+     * @return The offset of the first element
+     */
+    long arrayBaseOffset(Class<?> arrayClass);
+
+    /**
+     * Gets the native address of a direct buffer's first byte
+     *
+     * @param buffer The direct buffer
+     * @return The address of the buffer's first byte, ignoring the buffer's position, or zero if the backend can't address the buffer
+     */
+    long bufferAddress(ByteBuffer buffer);
+
+    /**
+     * Makes a direct buffer the backend doesn't own, e.g. a chunk of a memory mapped file, addressable until it's detached
+     * The caller must keep the buffer reachable while it's attached, or its memory may be released under the address
+     *
+     * @param buffer The direct buffer
+     * @return The address of the buffer's first byte, ignoring the buffer's position
+     * @throws IllegalArgumentException if the backend can't address the buffer
+     */
+    long attachBuffer(ByteBuffer buffer);
+
+    /**
+     * Stops addressing a buffer attached with {@link #attachBuffer(ByteBuffer)}, its address must not be used after that
+     *
+     * @param address The address of the buffer's first byte
+     * @throws IllegalArgumentException if the address isn't an attached buffer's
+     */
+    void detachBuffer(long address);
+
+    /**
+     * Keeps loads before the fence from being reordered with loads and stores after it,
+     * used when reading memory another thread or process may be writing
+     */
+    void loadFence();
+
+    /**
+     * Keeps stores before the fence from being reordered with stores after it,
+     * used when writing memory another thread or process may be reading
+     */
+    void storeFence();
+
+    /**
+     * Reads a byte from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The byte read
+     */
+    byte getByte(Object base, long offset);
+
+    /**
+     * Writes a byte to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The byte value
+     */
+    void putByte(Object base, long offset, byte value);
+
+    /**
+     * Reads a short from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The short read
+     */
+    short getShort(Object base, long offset);
+
+    /**
+     * Writes a short to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The short value
+     */
+    void putShort(Object base, long offset, short value);
+
+    /**
+     * Reads a character from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The character read
+     */
+    char getChar(Object base, long offset);
+
+    /**
+     * Writes a character to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The character value
+     */
+    void putChar(Object base, long offset, char value);
+
+    /**
+     * Reads an integer from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The integer read
+     */
+    int getInt(Object base, long offset);
+
+    /**
+     * Writes a integer to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The integer value
+     */
+    void putInt(Object base, long offset, int value);
+
+    /**
+     * Reads a long from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The long read
+     */
+    long getLong(Object base, long offset);
+
+    /**
+     * Writes a long to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The long value
+     */
+    void putLong(Object base, long offset, long value);
+
+    /**
+     * Reads a float from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The float read
+     */
+    float getFloat(Object base, long offset);
+
+    /**
+     * Writes a float to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The float value
+     */
+    void putFloat(Object base, long offset, float value);
+
+    /**
+     * Reads a double from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The double read
+     */
+    double getDouble(Object base, long offset);
+
+    /**
+     * Writes a double to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The double value
+     */
+    void putDouble(Object base, long offset, double value);
+}
@@ -0,0 +1,127 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MemoryUsage, a snapshot of the off heap memory used by a collection, or by all the collections in the process
+ * The slot table is the collection's array of entry pointers, entries are the serialized keys and values with their headers,
+ * and the overhead is an estimate of what the memory backend takes on top of both, i.e. its headers and rounding
+ * The process wide totals are kept in striped counters, so they're cheap to update from many threads at once
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class MemoryUsage {
+
+    /**
+     * The slot table bytes of all the collections in the process
+     */
+    private static final LongAdder TOTAL_SLOT_TABLE_BYTES = new LongAdder();
+
+    /**
+     * The entry bytes of all the collections in the process
+     */
+    private static final LongAdder TOTAL_ENTRY_BYTES = new LongAdder();
+
+    /**
+     * The overhead bytes of all the collections in the process
+     */
+    private static final LongAdder TOTAL_OVERHEAD_BYTES = new LongAdder();
+
+    /**
+     * The bytes allocated for the slot table
+     */
+    private final long slotTableBytes;
+
+    /**
+     * The bytes allocated for entries
+     */
+    private final long entryBytes;
+
+    /**
+     * The estimated bytes taken by the memory backend on top of the allocated bytes
+     */
+    private final long overheadBytes;
+
+    /**
+     * Factory method for creating a {@link MemoryUsage} object
+     *
+     * @param slotTableBytes The bytes allocated for the slot table
+     * @param entryBytes     The bytes allocated for entries
+     * @param overheadBytes  The estimated bytes taken by the memory backend on top of the allocated bytes
+     * @return A {@link MemoryUsage} object
+     */
+    static MemoryUsage of(long slotTableBytes, long entryBytes, long overheadBytes) {
+        return new MemoryUsage(slotTableBytes, entryBytes, overheadBytes);
+    }
+
+    /**
+     * Gets the memory used by all the collections in the process that weren't closed yet
+     * The counters are read one after the other, so the snapshot is not atomic while collections are being modified
+     *
+     * @return The process wide memory usage
+     */
+    public static MemoryUsage total() {
+        return new MemoryUsage(TOTAL_SLOT_TABLE_BYTES.sum(), TOTAL_ENTRY_BYTES.sum(), TOTAL_OVERHEAD_BYTES.sum());
+    }
+
+    /**
+     * Adds allocated or freed memory to the process wide totals
+     *
+     * @param slotTableBytes The change in slot table bytes, negative if freed
+     * @param entryBytes     The change in entry bytes, negative if freed
+     * @param overheadBytes  The change in overhead bytes, negative if freed
+     */
+    static void record(long slotTableBytes, long entryBytes, long overheadBytes) {
+        if (slotTableBytes != 0) TOTAL_SLOT_TABLE_BYTES.add(slotTableBytes);
+        if (entryBytes != 0) TOTAL_ENTRY_BYTES.add(entryBytes);
+        if (overheadBytes != 0) TOTAL_OVERHEAD_BYTES.add(overheadBytes);
+    }
+
+    /**
+     * Gets the bytes allocated for the slot table
+     *
+     * @return The slot table bytes
+     */
+    public long slotTableBytes() {
+        return slotTableBytes;
+    }
+
+    /**
+     * Gets the bytes allocated for entries, i.e. serialized keys and values with their headers
+     *
+     * @return The entry bytes
+     */
+    public long entryBytes() {
+        return entryBytes;
+    }
+
+    /**
+     * Gets the estimated bytes taken by the memory backend on top of the allocated bytes, i.e. its headers and rounding
+     *
+     * @return The overhead bytes
+     */
+    public long overheadBytes() {
+        return overheadBytes;
+    }
+
+    /**
+     * Gets the total bytes used, i.e. the slot table, entries and overhead
+     *
+     * @return The total bytes
+     */
+    public long totalBytes() {
+        return slotTableBytes + entryBytes + overheadBytes;
+    }
+
+    /**
+     * Returns a string representation of this memory usage
+     *
+     * @return a string representation of this memory usage
+     */
+    @Override
+    public String toString() {
+        return "MemoryUsage{slotTableBytes=" + slotTableBytes + ", entryBytes=" + entryBytes + ", overheadBytes=" + overheadBytes + '}';
+    }
+}
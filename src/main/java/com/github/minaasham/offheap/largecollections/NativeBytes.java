@@ -0,0 +1,167 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * NativeBytes, a reference to a range of bytes either inside a byte array or at an absolute memory address
+ * It's used as the key and value type of the {@link LargeBytesMap} engine, and compares and hashes its content
+ * This class is package private as it's an internal implementation detail
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class NativeBytes {
+
+    /**
+     * The object holding the bytes, or null for an absolute address
+     */
+    private final Object base;
+
+    /**
+     * The offset within the object, or the absolute address
+     */
+    private final long offset;
+
+    /**
+     * The number of bytes
+     */
+    private final int length;
+
+    /**
+     * Creates a reference to the remaining bytes of a buffer, the buffer's position is not changed
+     * Direct buffers are referenced by address, unless the memory backend can't address them, in which case they are copied
+     *
+     * @param buffer The buffer to reference
+     * @return A {@link NativeBytes} object referencing the buffer's remaining bytes
+     */
+    static NativeBytes of(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        long address = buffer.isDirect() ? UnsafeUtils.bufferAddress(buffer) : 0;
+        if (address != 0) {
+            return new NativeBytes(null, address + buffer.position(), length);
+        }
+        if (buffer.hasArray()) {
+            return new NativeBytes(buffer.array(), UnsafeUtils.BYTE_ARRAY_OFFSET + buffer.arrayOffset() + buffer.position(), length);
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.duplicate().get(bytes);
+        return wrap(bytes);
+    }
+
+    /**
+     * Creates a reference to bytes at an absolute memory address
+     *
+     * @param address The address of the first byte
+     * @param length  The number of bytes
+     * @return A {@link NativeBytes} object referencing the memory
+     */
+    static NativeBytes of(long address, int length) {
+        if (length < 0) throw new IllegalArgumentException("Length must not be negative");
+        return new NativeBytes(null, address, length);
+    }
+
+    /**
+     * Creates a reference to a whole byte array
+     *
+     * @param bytes The byte array
+     * @return A {@link NativeBytes} object referencing the array
+     */
+    static NativeBytes wrap(byte[] bytes) {
+        return new NativeBytes(bytes, UnsafeUtils.BYTE_ARRAY_OFFSET, bytes.length);
+    }
+
+    /**
+     * Gets the number of bytes
+     *
+     * @return The number of bytes
+     */
+    int length() {
+        return length;
+    }
+
+    /**
+     * Copies the bytes to another object or memory address
+     *
+     * @param destBase   The object to copy to, or null for an absolute address
+     * @param destOffset The offset within the destination object, or the absolute destination address
+     */
+    void copyTo(Object destBase, long destOffset) {
+        UnsafeUtils.copyMemory(base, offset, destBase, destOffset, length);
+    }
+
+    /**
+     * Hashes the bytes
+     *
+     * @return The hash of the bytes
+     */
+    int hash() {
+        return UnsafeUtils.hash(base, offset, length);
+    }
+
+    /**
+     * Compares the bytes with a block of memory of the same length
+     *
+     * @param address The address of the memory block
+     * @return {@code true} if the memory block contains the same bytes
+     */
+    boolean contentEquals(long address) {
+        return UnsafeUtils.equals(base, offset, null, address, length);
+    }
+
+    /**
+     * Gets the bytes as a heap buffer, bytes spanning a whole array (e.g. deserialized bytes) are wrapped without copying
+     *
+     * @return A heap buffer holding the bytes
+     */
+    ByteBuffer toByteBuffer() {
+        if (base instanceof byte[] && offset == UnsafeUtils.BYTE_ARRAY_OFFSET && ((byte[]) base).length == length) {
+            return ByteBuffer.wrap((byte[]) base);
+        }
+
+        byte[] bytes = new byte[length];
+        copyTo(bytes, UnsafeUtils.BYTE_ARRAY_OFFSET);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Returns the hash code of the bytes
+     *
+     * @return The hash code of the bytes
+     */
+    @Override
+    public int hashCode() {
+        return hash();
+    }
+
+    /**
+     * Compares the content of the bytes with another {@link NativeBytes} object
+     *
+     * @param o object to be compared for equality
+     * @return {@code true} if the specified object references the same bytes
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        NativeBytes that = (NativeBytes) o;
+
+        return length == that.length && UnsafeUtils.equals(base, offset, that.base, that.offset, length);
+    }
+
+    /**
+     * Returns a string representation of the bytes
+     *
+     * @return the bytes in hexadecimal
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(length * 2);
+        for (int i = 0; i < length; i++) {
+            sb.append(String.format("%02x", UnsafeUtils.getByte(base, offset + i)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.InPlaceObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+
+/**
+ * NativeBytesSerializer, copies raw bytes in and out of memory in bulk, and hashes and compares them in place
+ * It relies on the map's internal readers and writers, hence this class is package private
+ */
+final class NativeBytesSerializer implements InPlaceObjectSerializer<NativeBytes> {
+
+    /**
+     * Singleton instance of the {@link NativeBytesSerializer} class
+     */
+    static final NativeBytesSerializer INSTANCE = new NativeBytesSerializer();
+
+    /**
+     * NativeBytesSerializer constructor
+     */
+    private NativeBytesSerializer() {
+    }
+
+    /**
+     * Serializes the bytes with a single memory copy
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The bytes to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, NativeBytes object) {
+        object.copyTo(null, ((UnsafeMemoryWriter) writer).validateAndGetAddress(object.length()));
+    }
+
+    /**
+     * Deserializes the bytes with a single memory copy into a byte array
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized bytes
+     */
+    @Override
+    public NativeBytes deserialize(MemoryReader reader) {
+        UnsafeMemoryReader unsafeReader = (UnsafeMemoryReader) reader;
+        byte[] bytes = new byte[(int) unsafeReader.bytesLeft()];
+        UnsafeUtils.copyMemory(null, unsafeReader.validateAndGetAddress(bytes.length), bytes, UnsafeUtils.BYTE_ARRAY_OFFSET, bytes.length);
+        return NativeBytes.wrap(bytes);
+    }
+
+    /**
+     * Gets the number of bytes
+     *
+     * @param object The bytes to the get the size of
+     * @return The number of bytes
+     */
+    @Override
+    public int sizeInBytes(NativeBytes object) {
+        return object.length();
+    }
+
+    /**
+     * Hashes the bytes
+     *
+     * @param object The bytes to hash
+     * @return The hash of the bytes
+     */
+    @Override
+    public int hash(NativeBytes object) {
+        return object.hash();
+    }
+
+    /**
+     * Hashes the serialized bytes in place
+     *
+     * @param reader The reader positioned at the start of the serialized bytes
+     * @return The hash of the bytes
+     */
+    @Override
+    public int hash(MemoryReader reader) {
+        UnsafeMemoryReader unsafeReader = (UnsafeMemoryReader) reader;
+        long bytes = unsafeReader.bytesLeft();
+        return UnsafeUtils.hash(null, unsafeReader.validateAndGetAddress(bytes), bytes);
+    }
+
+    /**
+     * Compares the serialized bytes in place with other bytes
+     *
+     * @param reader The reader positioned at the start of the serialized bytes
+     * @param object The bytes to compare with
+     * @return {@code true} if both contain the same bytes
+     */
+    @Override
+    public boolean matches(MemoryReader reader, NativeBytes object) {
+        UnsafeMemoryReader unsafeReader = (UnsafeMemoryReader) reader;
+        return unsafeReader.bytesLeft() == object.length() && object.contentEquals(unsafeReader.validateAndGetAddress(object.length()));
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OffHeapMemoryBudget, a limit on the off heap memory shared by all the collections created with it
+ * Memory is counted the same way as {@link MemoryUsage#totalBytes()}, i.e. slot tables, entries and the backend's overhead
+ * When an allocation doesn't fit, the budget's eviction callbacks are called one at a time until it fits,
+ * then if it still doesn't, the allocating thread waits for memory to be freed up to the budget's timeout,
+ * and finally an {@link OffHeapMemoryExhaustedException} is thrown, leaving the collection unchanged
+ * Callbacks and waits happen before the allocating map's lock is taken, the map then checks again under its lock and retries if memory ran out in the meantime
+ * Maps check slot table resizes against the budget before allocating the new table, a map that can't grow fails the put,
+ * and a map that can't shrink right away stays at its current size
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class OffHeapMemoryBudget {
+
+    /**
+     * The budget's limit in bytes
+     */
+    private final long limitBytes;
+
+    /**
+     * How long to wait for memory to be freed before failing, zero to fail fast
+     */
+    private final long timeoutNanos;
+
+    /**
+     * The eviction callbacks, called in order when the budget is exhausted
+     */
+    private final List<EvictionCallback> callbacks = new CopyOnWriteArrayList<>();
+
+    /**
+     * The bytes reserved by all the collections using the budget
+     */
+    private final AtomicLong usedBytes = new AtomicLong();
+
+    /**
+     * The number of threads waiting for memory to be freed, releases only signal if there are any
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /**
+     * The lock guarding the released condition
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The condition waiting threads are signalled on when memory is released
+     */
+    private final Condition released = lock.newCondition();
+
+    /**
+     * Factory method for creating a {@link OffHeapMemoryBudget} object that fails fast when it's exhausted
+     *
+     * @param limitBytes The budget's limit in bytes, must be at least 1
+     * @return A {@link OffHeapMemoryBudget} object
+     */
+    public static OffHeapMemoryBudget of(long limitBytes) {
+        return OffHeapMemoryBudget.of(limitBytes, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Factory method for creating a {@link OffHeapMemoryBudget} object that waits for memory to be freed when it's exhausted
+     *
+     * @param limitBytes The budget's limit in bytes, must be at least 1
+     * @param timeout    How long to wait for memory to be freed before failing, zero to fail fast
+     * @param unit       The timeout's unit
+     * @return A {@link OffHeapMemoryBudget} object
+     */
+    public static OffHeapMemoryBudget of(long limitBytes, long timeout, @NonNull TimeUnit unit) {
+        if (limitBytes <= 0) throw new IllegalArgumentException("Limit must be at least 1 byte");
+        if (timeout < 0) throw new IllegalArgumentException("Timeout must not be negative");
+
+        return new OffHeapMemoryBudget(limitBytes, unit.toNanos(timeout));
+    }
+
+    /**
+     * Adds an eviction callback, called when the budget is exhausted after all the previously added callbacks
+     *
+     * @param callback The eviction callback
+     * @return This budget
+     */
+    public OffHeapMemoryBudget onExhausted(@NonNull EvictionCallback callback) {
+        callbacks.add(callback);
+        return this;
+    }
+
+    /**
+     * Gets the budget's limit in bytes
+     *
+     * @return The limit in bytes
+     */
+    public long limitBytes() {
+        return limitBytes;
+    }
+
+    /**
+     * Gets the bytes currently used by all the collections using the budget
+     *
+     * @return The used bytes
+     */
+    public long usedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Gets the bytes still available in the budget
+     *
+     * @return The available bytes
+     */
+    public long availableBytes() {
+        return limitBytes - usedBytes.get();
+    }
+
+    /**
+     * Reserves bytes for an allocation, calling the eviction callbacks then waiting for memory to be freed if they don't fit
+     * Must be called without holding any collection's lock, so the callbacks may evict from any collection and waiting blocks no other thread,
+     * maps try {@link #tryReserve} under their lock first, and call this method after releasing it when that fails
+     *
+     * @param bytes The number of bytes to reserve
+     * @param map   The map the allocation is for, passed to the callbacks, null while a collection is being created
+     * @throws OffHeapMemoryExhaustedException if the bytes don't fit before the timeout
+     */
+    void reserve(long bytes, LargeMap<?, ?> map) {
+        if (tryReserve(bytes)) return;
+
+        for (EvictionCallback callback : callbacks) {
+            callback.evict(map, bytes - availableBytes());
+            if (tryReserve(bytes)) return;
+        }
+
+        if (timeoutNanos > 0 && bytes <= limitBytes && awaitReserve(bytes)) return;
+
+        throw new OffHeapMemoryExhaustedException(bytes, limitBytes);
+    }
+
+    /**
+     * Reserves bytes for an allocation only if they fit right away
+     *
+     * @param bytes The number of bytes to reserve
+     * @return {@code true} if the bytes were reserved
+     */
+    boolean tryReserve(long bytes) {
+        long used;
+        do {
+            used = usedBytes.get();
+            if (bytes > limitBytes - used) return false;
+        } while (!usedBytes.compareAndSet(used, used + bytes));
+        return true;
+    }
+
+    /**
+     * Releases previously reserved bytes after their memory was freed, and wakes up any waiting threads
+     *
+     * @param bytes The number of bytes to release
+     */
+    void release(long bytes) {
+        if (bytes == 0) return;
+
+        usedBytes.addAndGet(-bytes);
+        if (waiters.get() > 0) {
+            lock.lock();
+            try {
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Waits for memory to be released until the bytes fit or the timeout elapses
+     *
+     * @param bytes The number of bytes to reserve
+     * @return {@code true} if the bytes were reserved
+     */
+    private boolean awaitReserve(long bytes) {
+        long remainingNanos = timeoutNanos;
+        waiters.incrementAndGet();
+        lock.lock();
+        try {
+            while (!tryReserve(bytes)) {
+                if (remainingNanos <= 0) return false;
+                remainingNanos = released.awaitNanos(remainingNanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+            waiters.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * OffHeapMemoryExhaustedException, thrown when an allocation doesn't fit in a collection's {@link OffHeapMemoryBudget}
+ * The collection is left unchanged by the operation that failed
+ */
+public final class OffHeapMemoryExhaustedException extends IllegalStateException {
+
+    /**
+     * Serialization version
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The number of bytes that were requested
+     */
+    private final long requestedBytes;
+
+    /**
+     * The budget's limit in bytes
+     */
+    private final long limitBytes;
+
+    /**
+     * Creates the exception
+     *
+     * @param requestedBytes The number of bytes that were requested
+     * @param limitBytes     The budget's limit in bytes
+     */
+    OffHeapMemoryExhaustedException(long requestedBytes, long limitBytes) {
+        super("Unable to allocate " + requestedBytes + " bytes, off heap memory budget of " + limitBytes + " bytes exhausted");
+        this.requestedBytes = requestedBytes;
+        this.limitBytes = limitBytes;
+    }
+
+    /**
+     * Gets the number of bytes that were requested
+     *
+     * @return The requested bytes
+     */
+    public long requestedBytes() {
+        return requestedBytes;
+    }
+
+    /**
+     * Gets the budget's limit in bytes
+     *
+     * @return The limit in bytes
+     */
+    public long limitBytes() {
+        return limitBytes;
+    }
+}
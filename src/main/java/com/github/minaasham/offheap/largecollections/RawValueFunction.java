@@ -0,0 +1,20 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * RawValueFunction, a function applied directly on a value's memory without copying or deserializing it
+ * The memory is only valid while the function is running, hence the address must not be retained
+ *
+ * @param <R> The function's result type
+ */
+@FunctionalInterface
+public interface RawValueFunction<R> {
+
+    /**
+     * Applies the function on a value's memory
+     *
+     * @param address The address of the value's first byte
+     * @param size    The value size in bytes
+     * @return The function's result
+     */
+    R apply(long address, int size);
+}
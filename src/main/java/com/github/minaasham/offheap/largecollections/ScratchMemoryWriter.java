@@ -0,0 +1,284 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+
+/**
+ * ScratchMemoryWriter, a memory writer over a growable buffer, used to serialize objects whose size isn't known up front
+ * The buffer lives on heap so it's reclaimed with its thread, and it's reused across objects
+ * This class is package private as it's an internal implementation detail
+ */
+final class ScratchMemoryWriter implements MemoryWriter {
+
+    /**
+     * The initial buffer capacity
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * The largest buffer capacity that can be allocated
+     */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /**
+     * The buffer holding the written bytes
+     */
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+    /**
+     * The number of bytes written
+     */
+    private int position;
+
+    /**
+     * Discards all the written bytes
+     *
+     * @return A reference to itself
+     */
+    ScratchMemoryWriter reset() {
+        position = 0;
+        return this;
+    }
+
+    /**
+     * Gets the number of bytes written since the last reset
+     *
+     * @return The number of bytes written
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * Copies a range of the written bytes to a memory address
+     *
+     * @param from    The position of the first byte to copy
+     * @param bytes   The number of bytes to copy
+     * @param address The address to copy to
+     */
+    void copyTo(int from, int bytes, long address) {
+        UnsafeUtils.copyMemory(buffer, UnsafeUtils.BYTE_ARRAY_OFFSET + from, null, address, bytes);
+    }
+
+    /**
+     * Hashes a range of the written bytes to 64 bits, in the same way as {@link UnsafeUtils#longHash(Object, long, long, long)}
+     *
+     * @param from  The position of the first byte to hash
+     * @param bytes The number of bytes to hash
+     * @param seed  The seed the hash starts from
+     * @return The 64 bit hash of the bytes
+     */
+    long longHash(int from, int bytes, long seed) {
+        return UnsafeUtils.longHash(buffer, UnsafeUtils.BYTE_ARRAY_OFFSET + from, bytes, seed);
+    }
+
+    /**
+     * Compares a range of the written bytes with a block of memory
+     *
+     * @param from    The position of the first byte to compare
+     * @param bytes   The number of bytes to compare
+     * @param address The address of the memory block
+     * @return {@code true} if the memory block contains the same bytes
+     */
+    boolean matches(int from, int bytes, long address) {
+        return UnsafeUtils.equals(buffer, UnsafeUtils.BYTE_ARRAY_OFFSET + from, null, address, bytes);
+    }
+
+    /**
+     * Write a byte
+     *
+     * @param value The byte value
+     */
+    @Override
+    public void writeByte(byte value) {
+        long offset = ensureAndGetOffset(Byte.BYTES);
+        UnsafeUtils.putByte(buffer, offset, value);
+    }
+
+    /**
+     * Write a short
+     *
+     * @param value The short value
+     */
+    @Override
+    public void writeShort(short value) {
+        long offset = ensureAndGetOffset(Short.BYTES);
+        UnsafeUtils.putShort(buffer, offset, value);
+    }
+
+    /**
+     * Write a character
+     *
+     * @param value The character value
+     */
+    @Override
+    public void writeChar(char value) {
+        long offset = ensureAndGetOffset(Character.BYTES);
+        UnsafeUtils.putChar(buffer, offset, value);
+    }
+
+    /**
+     * Write a integer
+     *
+     * @param value The integer value
+     */
+    @Override
+    public void writeInt(int value) {
+        long offset = ensureAndGetOffset(Integer.BYTES);
+        UnsafeUtils.putInt(buffer, offset, value);
+    }
+
+    /**
+     * Write a long
+     *
+     * @param value The long value
+     */
+    @Override
+    public void writeLong(long value) {
+        long offset = ensureAndGetOffset(Long.BYTES);
+        UnsafeUtils.putLong(buffer, offset, value);
+    }
+
+    /**
+     * Write a float
+     *
+     * @param value The float value
+     */
+    @Override
+    public void writeFloat(float value) {
+        long offset = ensureAndGetOffset(Float.BYTES);
+        UnsafeUtils.putFloat(buffer, offset, value);
+    }
+
+    /**
+     * Write a double
+     *
+     * @param value The double value
+     */
+    @Override
+    public void writeDouble(double value) {
+        long offset = ensureAndGetOffset(Double.BYTES);
+        UnsafeUtils.putDouble(buffer, offset, value);
+    }
+
+    /**
+     * Write a range of a byte array with a single memory copy
+     *
+     * @param values The byte array
+     * @param offset The index of the first byte to write
+     * @param length The number of bytes to write
+     */
+    @Override
+    public void write(byte[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.BYTE_ARRAY_OFFSET, values.length, offset, length, Byte.BYTES);
+    }
+
+    /**
+     * Write a range of a short array with a single memory copy
+     *
+     * @param values The short array
+     * @param offset The index of the first short to write
+     * @param length The number of shorts to write
+     */
+    @Override
+    public void write(short[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.SHORT_ARRAY_OFFSET, values.length, offset, length, Short.BYTES);
+    }
+
+    /**
+     * Write a range of a char array with a single memory copy
+     *
+     * @param values The char array
+     * @param offset The index of the first character to write
+     * @param length The number of characters to write
+     */
+    @Override
+    public void write(char[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.CHAR_ARRAY_OFFSET, values.length, offset, length, Character.BYTES);
+    }
+
+    /**
+     * Write a range of a int array with a single memory copy
+     *
+     * @param values The int array
+     * @param offset The index of the first integer to write
+     * @param length The number of integers to write
+     */
+    @Override
+    public void write(int[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.INT_ARRAY_OFFSET, values.length, offset, length, Integer.BYTES);
+    }
+
+    /**
+     * Write a range of a long array with a single memory copy
+     *
+     * @param values The long array
+     * @param offset The index of the first long to write
+     * @param length The number of longs to write
+     */
+    @Override
+    public void write(long[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.LONG_ARRAY_OFFSET, values.length, offset, length, Long.BYTES);
+    }
+
+    /**
+     * Write a range of a float array with a single memory copy
+     *
+     * @param values The float array
+     * @param offset The index of the first float to write
+     * @param length The number of floats to write
+     */
+    @Override
+    public void write(float[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.FLOAT_ARRAY_OFFSET, values.length, offset, length, Float.BYTES);
+    }
+
+    /**
+     * Write a range of a double array with a single memory copy
+     *
+     * @param values The double array
+     * @param offset The index of the first double to write
+     * @param length The number of doubles to write
+     */
+    @Override
+    public void write(double[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.DOUBLE_ARRAY_OFFSET, values.length, offset, length, Double.BYTES);
+    }
+
+    /**
+     * Copies a range of an array to the end of the buffer
+     *
+     * @param array       The array to copy from
+     * @param arrayOffset The offset of the first element in the array
+     * @param arrayLength The array length
+     * @param offset      The index of the first element to copy
+     * @param length      The number of elements to copy
+     * @param scale       The size of a single element in bytes
+     */
+    private void writeArray(Object array, long arrayOffset, int arrayLength, int offset, int length, int scale) {
+        UnsafeUtils.checkBounds(arrayLength, offset, length);
+        long bytes = (long) length * scale;
+        long bufferOffset = ensureAndGetOffset(bytes);
+        UnsafeUtils.copyMemory(array, arrayOffset + (long) offset * scale, buffer, bufferOffset, bytes);
+    }
+
+    /**
+     * Grows the buffer if it can't fit the number of bytes we want to write,
+     * and updates the position by the number of bytes we want to write
+     * The buffer may be replaced, so it must be read after calling this method
+     *
+     * @param bytes The number of bytes we want to write
+     * @return The offset within the buffer to write to
+     */
+    private long ensureAndGetOffset(long bytes) {
+        long required = position + bytes;
+        if (required > buffer.length) {
+            if (required > MAX_CAPACITY) throw new IllegalStateException("Cannot write objects larger than " + MAX_CAPACITY + " bytes!");
+            byte[] grown = new byte[(int) Math.min(Math.max(required, 2L * buffer.length), MAX_CAPACITY)];
+            System.arraycopy(buffer, 0, grown, 0, position);
+            buffer = grown;
+        }
+        long currentOffset = UnsafeUtils.BYTE_ARRAY_OFFSET + position;
+        position = (int) required;
+        return currentOffset;
+    }
+}
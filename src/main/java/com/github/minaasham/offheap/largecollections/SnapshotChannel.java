@@ -0,0 +1,353 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SnapshotChannel, sequential reads and writes of a snapshot file through a large direct buffer
+ * Primitives are written in the platform's byte order, the same order entries are laid out in memory,
+ * and off heap memory is copied straight to and from the buffer when the memory backend can address it
+ * A snapshot is written to a temporary sibling file, which {@link #commit()} forces and renames over the target,
+ * so a crash while saving leaves the previous snapshot whole, closing a snapshot that wasn't committed deletes the temporary file
+ * This class is not thread safe and is package private as it's an internal implementation detail
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class SnapshotChannel implements AutoCloseable {
+
+    /**
+     * The size of the direct buffer, large enough for the file system to read and write sequentially
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The suffix of the temporary file a snapshot is written to
+     */
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * The file's channel
+     */
+    private final FileChannel channel;
+
+    /**
+     * The snapshot file's path
+     */
+    private final Path path;
+
+    /**
+     * The temporary file's path the snapshot is written to, null if the snapshot is being read
+     */
+    private final Path temp;
+
+    /**
+     * The direct buffer, filled before it's written, or drained after it's read
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The buffer's native address, 0 if the memory backend can't address it and memory is copied through the staging array
+     */
+    private final long bufferAddress;
+
+    /**
+     * The staging array memory is copied through when the buffer has no address, null until it's first used
+     */
+    private byte[] staging;
+
+    /**
+     * If the written snapshot was committed
+     */
+    private boolean committed;
+
+    /**
+     * Creates a snapshot file for writing, it replaces the file at the path only once it's committed
+     *
+     * @param path The file's path
+     * @return A {@link SnapshotChannel} object writing to a temporary sibling file
+     * @throws IOException if the temporary file can't be opened
+     */
+    static SnapshotChannel create(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + TEMP_SUFFIX);
+        FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return SnapshotChannel.of(channel, path, temp);
+    }
+
+    /**
+     * Opens a snapshot file for reading
+     *
+     * @param path The file's path
+     * @return A {@link SnapshotChannel} object reading from the file
+     * @throws IOException if the file can't be opened
+     */
+    static SnapshotChannel open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        SnapshotChannel snapshot = SnapshotChannel.of(channel, path, null);
+        snapshot.buffer.flip();
+        return snapshot;
+    }
+
+    /**
+     * Creates a {@link SnapshotChannel} object with a new direct buffer
+     *
+     * @param channel The file's channel
+     * @param path    The snapshot file's path
+     * @param temp    The temporary file's path the snapshot is written to, null if it's being read
+     * @return A {@link SnapshotChannel} object
+     */
+    private static SnapshotChannel of(FileChannel channel, Path path, Path temp) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.nativeOrder());
+        return new SnapshotChannel(channel, path, temp, buffer, UnsafeUtils.bufferAddress(buffer));
+    }
+
+    /**
+     * Forces a directory, so the files created, renamed or deleted in it survive the operating system crashing
+     * Skipped on platforms that can't open directories, e.g. Windows, where renames are made durable by the file system itself
+     *
+     * @param directory The directory's path
+     * @throws IOException if the directory can't be forced
+     */
+    static void forceDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (AccessDeniedException | UnsupportedOperationException e) {
+            return;
+        }
+        try (FileChannel opened = channel) {
+            opened.force(true);
+        }
+    }
+
+    /**
+     * Writes a byte
+     *
+     * @param value The byte to write
+     * @throws IOException if the file can't be written
+     */
+    void putByte(byte value) throws IOException {
+        reserve(Byte.BYTES);
+        buffer.put(value);
+    }
+
+    /**
+     * Writes an int
+     *
+     * @param value The int to write
+     * @throws IOException if the file can't be written
+     */
+    void putInt(int value) throws IOException {
+        reserve(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long
+     *
+     * @param value The long to write
+     * @throws IOException if the file can't be written
+     */
+    void putLong(long value) throws IOException {
+        reserve(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a double
+     *
+     * @param value The double to write
+     * @throws IOException if the file can't be written
+     */
+    void putDouble(double value) throws IOException {
+        reserve(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes a block of off heap memory
+     *
+     * @param address The address of the block's first byte
+     * @param bytes   The number of bytes to write
+     * @throws IOException if the file can't be written
+     */
+    void putMemory(long address, long bytes) throws IOException {
+        long copied = 0;
+        while (copied < bytes) {
+            if (!buffer.hasRemaining()) flush();
+
+            int chunk = (int) Math.min(buffer.remaining(), bytes - copied);
+            int position = buffer.position();
+            if (bufferAddress != 0) {
+                UnsafeUtils.copyMemory(null, address + copied, null, bufferAddress + position, chunk);
+                buffer.position(position + chunk);
+            } else {
+                byte[] array = staging();
+                UnsafeUtils.copyMemory(null, address + copied, array, UnsafeUtils.BYTE_ARRAY_OFFSET, chunk);
+                buffer.put(array, 0, chunk);
+            }
+            copied += chunk;
+        }
+    }
+
+    /**
+     * Reads a byte
+     *
+     * @return The byte read
+     * @throws IOException if the file can't be read or ends too early
+     */
+    byte getByte() throws IOException {
+        require(Byte.BYTES);
+        return buffer.get();
+    }
+
+    /**
+     * Reads an int
+     *
+     * @return The int read
+     * @throws IOException if the file can't be read or ends too early
+     */
+    int getInt() throws IOException {
+        require(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a long
+     *
+     * @return The long read
+     * @throws IOException if the file can't be read or ends too early
+     */
+    long getLong() throws IOException {
+        require(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a double
+     *
+     * @return The double read
+     * @throws IOException if the file can't be read or ends too early
+     */
+    double getDouble() throws IOException {
+        require(Double.BYTES);
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads a block of off heap memory
+     *
+     * @param address The address to read the block to
+     * @param bytes   The number of bytes to read
+     * @throws IOException if the file can't be read or ends too early
+     */
+    void getMemory(long address, long bytes) throws IOException {
+        long copied = 0;
+        while (copied < bytes) {
+            if (!buffer.hasRemaining()) require(1);
+
+            int chunk = (int) Math.min(buffer.remaining(), bytes - copied);
+            int position = buffer.position();
+            if (bufferAddress != 0) {
+                UnsafeUtils.copyMemory(null, bufferAddress + position, null, address + copied, chunk);
+                buffer.position(position + chunk);
+            } else {
+                byte[] array = staging();
+                buffer.get(array, 0, chunk);
+                UnsafeUtils.copyMemory(array, UnsafeUtils.BYTE_ARRAY_OFFSET, null, address + copied, chunk);
+            }
+            copied += chunk;
+        }
+    }
+
+    /**
+     * Writes what's left in the buffer, forces the temporary file, renames it over the snapshot file,
+     * and forces the directory, so the snapshot survives the operating system crashing once this returns
+     *
+     * @throws IOException           if the file can't be written, forced or renamed
+     * @throws IllegalStateException if the snapshot is being read or was already committed
+     */
+    void commit() throws IOException {
+        if (temp == null || committed) throw new IllegalStateException("Snapshot isn't being written");
+
+        flush();
+        channel.force(true);
+        channel.close();
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        committed = true;
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) forceDirectory(directory);
+    }
+
+    /**
+     * Closes the file, a written snapshot that wasn't committed is discarded by deleting the temporary file
+     *
+     * @throws IOException if the file can't be closed or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            if (temp != null && !committed) Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Makes room in the buffer for a number of bytes to be written
+     *
+     * @param bytes The number of bytes
+     * @throws IOException if the file can't be written
+     */
+    private void reserve(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    /**
+     * Writes the buffer's content to the file and empties it
+     *
+     * @throws IOException if the file can't be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads from the file until the buffer holds at least a number of bytes
+     *
+     * @param bytes The number of bytes
+     * @throws IOException if the file can't be read or ends too early
+     */
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) throw new EOFException("Snapshot ended unexpectedly");
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Gets the staging array, allocating it on first use
+     *
+     * @return The staging array
+     */
+    private byte[] staging() {
+        if (staging == null) staging = new byte[BUFFER_SIZE];
+        return staging;
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.minaasham.offheap.largecollections;
+
+import java.util.function.LongConsumer;
+
+/**
+ * TimerWheel, a hierarchical timing wheel scheduling off heap entries for expiration
+ * Each level is an array of buckets covering a power of two span of time, entries expiring soon go in the fine grained
+ * lower levels and entries expiring later go in the coarse higher levels, as time advances the buckets that were passed
+ * are emptied, expired entries are handed back to be removed and the others cascade down to a lower level,
+ * so scheduling and descheduling are O(1), and advancing is O(1) amortized per entry without scanning the whole table
+ * Every bucket is an {@link EntryList}, the wheel's metadata follows the list's at the start of the entry, the buckets' ends are kept on heap
+ * This is the same design as Caffeine's timer wheel, it's not thread safe and is package private as it's an internal implementation detail
+ */
+final class TimerWheel {
+
+    /**
+     * The offset of the entry's expiration time in an entry's metadata
+     */
+    private static final int EXPIRATION_OFFSET = EntryList.METADATA_SIZE;
+
+    /**
+     * The offset of the entry's level in an entry's metadata
+     */
+    private static final int LEVEL_OFFSET = EXPIRATION_OFFSET + Long.BYTES;
+
+    /**
+     * The offset of the entry's bucket in an entry's metadata
+     */
+    private static final int BUCKET_OFFSET = LEVEL_OFFSET + 1;
+
+    /**
+     * The size of the metadata the wheel uses at the start of every entry, including the bucket list's
+     */
+    static final int METADATA_SIZE = BUCKET_OFFSET + 1;
+
+    /**
+     * The number of buckets in each level
+     */
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    /**
+     * The span of time covered by a single bucket of each level in nanoseconds, i.e. about 1.07 seconds, 1.14 minutes,
+     * 1.22 hours, 1.63 days and 6.5 days, each level covers a bucket of the level above it
+     */
+    private static final long[] SPANS = {1L << 30, 1L << 36, 1L << 42, 1L << 47, 1L << 49, 1L << 49};
+
+    /**
+     * The shift turning a time into a number of ticks of each level's buckets
+     */
+    private static final int[] SHIFTS = {30, 36, 42, 47, 49};
+
+    /**
+     * The entries of every bucket of every level
+     */
+    private final EntryList[][] buckets = new EntryList[BUCKETS.length][];
+
+    /**
+     * The time the wheel was last advanced to, in nanoseconds
+     */
+    private long nanos;
+
+    /**
+     * Constructor for {@link TimerWheel}
+     *
+     * @param nanos The current time in nanoseconds, must not be negative
+     */
+    TimerWheel(long nanos) {
+        this.nanos = nanos;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            buckets[i] = new EntryList[BUCKETS[i]];
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                buckets[i][j] = new EntryList();
+            }
+        }
+    }
+
+    /**
+     * Gets an entry's expiration time
+     *
+     * @param entryPointer The entry address pointer
+     * @return The time the entry expires at, in nanoseconds
+     */
+    static long expiration(long entryPointer) {
+        return UnsafeUtils.getLong(entryPointer + EXPIRATION_OFFSET);
+    }
+
+    /**
+     * Sets an entry's expiration time and adds it to the bucket covering that time
+     * The entry must not be scheduled already
+     *
+     * @param entryPointer The entry address pointer
+     * @param expiration   The time the entry expires at, in nanoseconds
+     */
+    void schedule(long entryPointer, long expiration) {
+        UnsafeUtils.putLong(entryPointer + EXPIRATION_OFFSET, expiration);
+        link(entryPointer);
+    }
+
+    /**
+     * Removes an entry from its bucket
+     *
+     * @param entryPointer The entry address pointer
+     */
+    void deschedule(long entryPointer) {
+        buckets[UnsafeUtils.getByte(entryPointer + LEVEL_OFFSET)][UnsafeUtils.getByte(entryPointer + BUCKET_OFFSET)].unlink(entryPointer);
+    }
+
+    /**
+     * Advances the wheel to the current time, emptying the buckets that were passed,
+     * entries that expired are removed from the wheel and handed to the consumer, the others are scheduled again
+     *
+     * @param currentNanos The current time in nanoseconds
+     * @param expired      The consumer of expired entries, it can free them
+     */
+    void advance(long currentNanos, LongConsumer expired) {
+        long previousNanos = nanos;
+        if (currentNanos <= previousNanos) return;
+
+        nanos = currentNanos;
+        for (int i = 0; i < SHIFTS.length; i++) {
+            long previousTicks = previousNanos >>> SHIFTS[i];
+            long currentTicks = currentNanos >>> SHIFTS[i];
+            if (currentTicks == previousTicks) break;
+
+            expire(i, previousTicks, currentTicks, expired);
+        }
+    }
+
+    /**
+     * Removes all the entries from the wheel, without touching them
+     */
+    void clear() {
+        for (EntryList[] level : buckets) {
+            for (EntryList bucket : level) {
+                bucket.clear();
+            }
+        }
+    }
+
+    /**
+     * Empties the buckets of a level that were passed, including the bucket the wheel was in as some of its entries may have expired since
+     *
+     * @param level         The level
+     * @param previousTicks The ticks of the level's buckets the wheel was at
+     * @param currentTicks  The ticks of the level's buckets the wheel is at now
+     * @param expired       The consumer of expired entries
+     */
+    private void expire(int level, long previousTicks, long currentTicks, LongConsumer expired) {
+        EntryList[] lists = buckets[level];
+        int mask = lists.length - 1;
+        long count = Math.min(currentTicks - previousTicks + 1, lists.length);
+        for (long i = 0; i < count; i++) {
+            EntryList bucket = lists[(int) ((previousTicks + i) & mask)];
+            long entryPointer = bucket.head();
+            bucket.clear();
+            while (entryPointer != 0) {
+                long nextEntry = EntryList.next(entryPointer);
+                if (expiration(entryPointer) <= nanos) {
+                    expired.accept(entryPointer);
+                } else {
+                    link(entryPointer);
+                }
+                entryPointer = nextEntry;
+            }
+        }
+    }
+
+    /**
+     * Adds an entry at the start of the bucket covering its expiration time,
+     * entries that already expired go in the current bucket so they're expired on the next advance
+     *
+     * @param entryPointer The entry address pointer
+     */
+    private void link(long entryPointer) {
+        long time = Math.max(expiration(entryPointer), nanos);
+        long duration = time - nanos;
+        int level = BUCKETS.length - 1;
+        for (int i = 0; i < BUCKETS.length - 1; i++) {
+            if (duration < SPANS[i + 1]) {
+                level = i;
+                break;
+            }
+        }
+
+        int bucket = (int) ((time >>> SHIFTS[level]) & (BUCKETS[level] - 1));
+        UnsafeUtils.putByte(entryPointer + LEVEL_OFFSET, (byte) level);
+        UnsafeUtils.putByte(entryPointer + BUCKET_OFFSET, (byte) bucket);
+        buckets[level][bucket].linkFirst(entryPointer);
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * TrustedMemoryReader, a memory reader that doesn't validate the number of bytes left before every read
+ * It's only used for serializers trusted to never read more than their size in bytes,
+ * as reading past the end of an entry reads arbitrary memory instead of throwing
+ * This class is package private as it's an internal implementation detail
+ */
+final class TrustedMemoryReader extends UnsafeMemoryReader {
+
+    /**
+     * Updates the address by the number of bytes we want to read, without validating the number of bytes left
+     *
+     * @param bytes The number of bytes we want to read
+     * @return The address to read from
+     */
+    @Override
+    long validateAndGetAddress(long bytes) {
+        return advance(bytes);
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.minaasham.offheap.largecollections;
+
+/**
+ * TrustedMemoryWriter, a memory writer that doesn't validate the number of bytes left before every write
+ * It's only used for serializers trusted to never write more than their size in bytes,
+ * as writing past the end of an entry corrupts arbitrary memory instead of throwing
+ * This class is package private as it's an internal implementation detail
+ */
+final class TrustedMemoryWriter extends UnsafeMemoryWriter {
+
+    /**
+     * Updates the address by the number of bytes we want to write, without validating the number of bytes left
+     *
+     * @param bytes The number of bytes we want to write
+     * @return The address to write to
+     */
+    @Override
+    long validateAndGetAddress(long bytes) {
+        return advance(bytes);
+    }
+}
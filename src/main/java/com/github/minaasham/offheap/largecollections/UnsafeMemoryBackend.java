@@ -0,0 +1,346 @@
+package com.github.minaasham.offheap.largecollections;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * UnsafeMemoryBackend, the default memory backend, a thin delegate to the JVM's Unsafe object
+ * It's available on every JDK from JDK8 onwards
+ * This class is package private as it's an internal implementation detail
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class UnsafeMemoryBackend implements MemoryBackend {
+
+    /**
+     * The backend's name
+     */
+    static final String NAME = "unsafe";
+
+    /**
+     * The JVM's static Unsafe object
+     */
+    private final Unsafe unsafe;
+
+    /**
+     * The offset of the native address field in a direct buffer
+     */
+    private final long bufferAddressOffset;
+
+    /**
+     * Creates the backend
+     *
+     * @return The backend
+     */
+    @SneakyThrows
+    static UnsafeMemoryBackend create() {
+        Field f = Unsafe.class.getDeclaredField("theUnsafe");
+        f.setAccessible(true);
+        Unsafe unsafe = (Unsafe) f.get(null);
+        return new UnsafeMemoryBackend(unsafe, unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address")));
+    }
+
+    /**
+     * Gets the backend's name, as used to select it
+     *
+     * @return The backend's name
+     */
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * Allocates a specific size of memory, the memory's content is undefined
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory
+     */
+    @Override
+    public long allocateMemory(long bytes) {
+        return unsafe.allocateMemory(bytes);
+    }
+
+    /**
+     * Allocates a specific size of memory set to all zeroes, Unsafe has no calloc so the memory is always set
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory
+     */
+    @Override
+    public long allocateZeroedMemory(long bytes) {
+        long address = unsafe.allocateMemory(bytes);
+        unsafe.setMemory(address, bytes, (byte) 0);
+        return address;
+    }
+
+    /**
+     * Frees previously allocated memory
+     *
+     * @param address The address pointing to the first byte in the allocated memory
+     */
+    @Override
+    public void freeMemory(long address) {
+        unsafe.freeMemory(address);
+    }
+
+    /**
+     * Sets all bytes of a block of memory to a value
+     *
+     * @param address The address of the memory block
+     * @param bytes   The size of the memory block
+     * @param value   The value to set the bytes to
+     */
+    @Override
+    public void setMemory(long address, long bytes, byte value) {
+        unsafe.setMemory(address, bytes, value);
+    }
+
+    /**
+     * Copies a block of memory, either side can be an object (e.g. a byte array) or, if the object is null, an absolute address
+     *
+     * @param srcBase    The object to copy from, or null for an absolute address
+     * @param srcOffset  The offset within the source object, or the absolute source address
+     * @param destBase   The object to copy to, or null for an absolute address
+     * @param destOffset The offset within the destination object, or the absolute destination address
+     * @param bytes      The number of bytes to copy
+     */
+    @Override
+    public void copyMemory(Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes) {
+        unsafe.copyMemory(srcBase, srcOffset, destBase, destOffset, bytes);
+    }
+
+    /**
+     * Gets the offset of the first element in a primitive array
+     *
+     * @param arrayClass The primitive array's class
+     * @return The offset of the first element
+     */
+    @Override
+    public long arrayBaseOffset(Class<?> arrayClass) {
+        return unsafe.arrayBaseOffset(arrayClass);
+    }
+
+    /**
+     * Gets the native address of a direct buffer's first byte
+     *
+     * @param buffer The direct buffer
+     * @return The address of the buffer's first byte, ignoring the buffer's position, or zero if the backend can't address the buffer
+     */
+    @Override
+    public long bufferAddress(ByteBuffer buffer) {
+        return unsafe.getLong(buffer, bufferAddressOffset);
+    }
+
+    /**
+     * Makes a direct buffer the backend doesn't own addressable, its native address is used as is
+     *
+     * @param buffer The direct buffer
+     * @return The address of the buffer's first byte, ignoring the buffer's position
+     * @throws IllegalArgumentException if the buffer is not direct
+     */
+    @Override
+    public long attachBuffer(ByteBuffer buffer) {
+        if (!buffer.isDirect()) throw new IllegalArgumentException("Only direct buffers can be attached");
+        return bufferAddress(buffer);
+    }
+
+    /**
+     * Stops addressing an attached buffer, there's nothing to release as its native address was used as is
+     *
+     * @param address The address of the buffer's first byte
+     */
+    @Override
+    public void detachBuffer(long address) {
+        // Nothing to release, the caller keeps the buffer reachable until it's detached
+    }
+
+    /**
+     * Keeps loads before the fence from being reordered with loads and stores after it
+     */
+    @Override
+    public void loadFence() {
+        unsafe.loadFence();
+    }
+
+    /**
+     * Keeps stores before the fence from being reordered with stores after it
+     */
+    @Override
+    public void storeFence() {
+        unsafe.storeFence();
+    }
+
+    /**
+     * Reads a byte from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The byte read
+     */
+    @Override
+    public byte getByte(Object base, long offset) {
+        return unsafe.getByte(base, offset);
+    }
+
+    /**
+     * Writes a byte to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The byte value
+     */
+    @Override
+    public void putByte(Object base, long offset, byte value) {
+        unsafe.putByte(base, offset, value);
+    }
+
+    /**
+     * Reads a short from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The short read
+     */
+    @Override
+    public short getShort(Object base, long offset) {
+        return unsafe.getShort(base, offset);
+    }
+
+    /**
+     * Writes a short to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The short value
+     */
+    @Override
+    public void putShort(Object base, long offset, short value) {
+        unsafe.putShort(base, offset, value);
+    }
+
+    /**
+     * Reads a character from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The character read
+     */
+    @Override
+    public char getChar(Object base, long offset) {
+        return unsafe.getChar(base, offset);
+    }
+
+    /**
+     * Writes a character to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The character value
+     */
+    @Override
+    public void putChar(Object base, long offset, char value) {
+        unsafe.putChar(base, offset, value);
+    }
+
+    /**
+     * Reads an integer from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The integer read
+     */
+    @Override
+    public int getInt(Object base, long offset) {
+        return unsafe.getInt(base, offset);
+    }
+
+    /**
+     * Writes a integer to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The integer value
+     */
+    @Override
+    public void putInt(Object base, long offset, int value) {
+        unsafe.putInt(base, offset, value);
+    }
+
+    /**
+     * Reads a long from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The long read
+     */
+    @Override
+    public long getLong(Object base, long offset) {
+        return unsafe.getLong(base, offset);
+    }
+
+    /**
+     * Writes a long to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The long value
+     */
+    @Override
+    public void putLong(Object base, long offset, long value) {
+        unsafe.putLong(base, offset, value);
+    }
+
+    /**
+     * Reads a float from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The float read
+     */
+    @Override
+    public float getFloat(Object base, long offset) {
+        return unsafe.getFloat(base, offset);
+    }
+
+    /**
+     * Writes a float to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The float value
+     */
+    @Override
+    public void putFloat(Object base, long offset, float value) {
+        unsafe.putFloat(base, offset, value);
+    }
+
+    /**
+     * Reads a double from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The double read
+     */
+    @Override
+    public double getDouble(Object base, long offset) {
+        return unsafe.getDouble(base, offset);
+    }
+
+    /**
+     * Writes a double to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The double value
+     */
+    @Override
+    public void putDouble(Object base, long offset, double value) {
+        unsafe.putDouble(base, offset, value);
+    }
+}
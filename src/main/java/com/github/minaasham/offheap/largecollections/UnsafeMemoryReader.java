@@ -6,7 +6,7 @@ import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
  * UnsafeMemoryReader, the internal implementation for the memory reader
  * This class is package private as it's an internal implementation detail
  */
-final class UnsafeMemoryReader implements MemoryReader {
+class UnsafeMemoryReader implements MemoryReader {
 
     /**
      * The current address to read from
@@ -101,6 +101,115 @@ final class UnsafeMemoryReader implements MemoryReader {
         return UnsafeUtils.getDouble(validateAndGetAddress(Double.BYTES));
     }
 
+    /**
+     * Gets the number of bytes left to read
+     *
+     * @return The number of bytes left
+     */
+    long bytesLeft() {
+        return bytesLeft;
+    }
+
+    /**
+     * Reads into a range of a byte array with a single memory copy
+     *
+     * @param values The byte array to read into
+     * @param offset The index of the first byte to read into
+     * @param length The number of bytes to read
+     */
+    @Override
+    public void read(byte[] values, int offset, int length) {
+        readArray(values, UnsafeUtils.BYTE_ARRAY_OFFSET, values.length, offset, length, Byte.BYTES);
+    }
+
+    /**
+     * Reads into a range of a short array with a single memory copy
+     *
+     * @param values The short array to read into
+     * @param offset The index of the first short to read into
+     * @param length The number of shorts to read
+     */
+    @Override
+    public void read(short[] values, int offset, int length) {
+        readArray(values, UnsafeUtils.SHORT_ARRAY_OFFSET, values.length, offset, length, Short.BYTES);
+    }
+
+    /**
+     * Reads into a range of a char array with a single memory copy
+     *
+     * @param values The char array to read into
+     * @param offset The index of the first character to read into
+     * @param length The number of characters to read
+     */
+    @Override
+    public void read(char[] values, int offset, int length) {
+        readArray(values, UnsafeUtils.CHAR_ARRAY_OFFSET, values.length, offset, length, Character.BYTES);
+    }
+
+    /**
+     * Reads into a range of a int array with a single memory copy
+     *
+     * @param values The int array to read into
+     * @param offset The index of the first integer to read into
+     * @param length The number of integers to read
+     */
+    @Override
+    public void read(int[] values, int offset, int length) {
+        readArray(values, UnsafeUtils.INT_ARRAY_OFFSET, values.length, offset, length, Integer.BYTES);
+    }
+
+    /**
+     * Reads into a range of a long array with a single memory copy
+     *
+     * @param values The long array to read into
+     * @param offset The index of the first long to read into
+     * @param length The number of longs to read
+     */
+    @Override
+    public void read(long[] values, int offset, int length) {
+        readArray(values, UnsafeUtils.LONG_ARRAY_OFFSET, values.length, offset, length, Long.BYTES);
+    }
+
+    /**
+     * Reads into a range of a float array with a single memory copy
+     *
+     * @param values The float array to read into
+     * @param offset The index of the first float to read into
+     * @param length The number of floats to read
+     */
+    @Override
+    public void read(float[] values, int offset, int length) {
+        readArray(values, UnsafeUtils.FLOAT_ARRAY_OFFSET, values.length, offset, length, Float.BYTES);
+    }
+
+    /**
+     * Reads into a range of a double array with a single memory copy
+     *
+     * @param values The double array to read into
+     * @param offset The index of the first double to read into
+     * @param length The number of doubles to read
+     */
+    @Override
+    public void read(double[] values, int offset, int length) {
+        readArray(values, UnsafeUtils.DOUBLE_ARRAY_OFFSET, values.length, offset, length, Double.BYTES);
+    }
+
+    /**
+     * Copies from the current address into a range of an array
+     *
+     * @param array       The array to copy to
+     * @param arrayOffset The offset of the first element in the array
+     * @param arrayLength The array length
+     * @param offset      The index of the first element to copy into
+     * @param length      The number of elements to copy
+     * @param scale       The size of a single element in bytes
+     */
+    private void readArray(Object array, long arrayOffset, int arrayLength, int offset, int length, int scale) {
+        UnsafeUtils.checkBounds(arrayLength, offset, length);
+        long bytes = (long) length * scale;
+        UnsafeUtils.copyMemory(null, validateAndGetAddress(bytes), array, arrayOffset + (long) offset * scale, bytes);
+    }
+
     /**
      * Validate that the number of bytes left is sufficient to read from,
      * and updates the address by the number of bytes we want to read
@@ -108,9 +217,19 @@ final class UnsafeMemoryReader implements MemoryReader {
      * @param bytes The number of bytes we want to read
      * @return The address to read from
      */
-    private long validateAndGetAddress(int bytes) {
+    long validateAndGetAddress(long bytes) {
+        if (bytesLeft < bytes) throw new IllegalStateException("Cannot read more than object size!");
+        return advance(bytes);
+    }
+
+    /**
+     * Updates the address by the number of bytes we want to read, without validating the number of bytes left
+     *
+     * @param bytes The number of bytes we want to read
+     * @return The address to read from
+     */
+    final long advance(long bytes) {
         bytesLeft -= bytes;
-        if (bytesLeft < 0) throw new IllegalStateException("Cannot read more than object size!");
         long currentAddress = address;
         address += bytes;
         return currentAddress;
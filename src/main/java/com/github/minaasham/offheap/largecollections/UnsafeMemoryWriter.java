@@ -6,7 +6,7 @@ import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
  * UnsafeMemoryWriter, the internal implementation for the memory writer
  * This class is package private as it's an internal implementation detail
  */
-final class UnsafeMemoryWriter implements MemoryWriter {
+class UnsafeMemoryWriter implements MemoryWriter {
 
     /**
      * The current address to write to
@@ -101,6 +101,106 @@ final class UnsafeMemoryWriter implements MemoryWriter {
         UnsafeUtils.putDouble(validateAndGetAddress(Double.BYTES), value);
     }
 
+    /**
+     * Write a range of a byte array with a single memory copy
+     *
+     * @param values The byte array
+     * @param offset The index of the first byte to write
+     * @param length The number of bytes to write
+     */
+    @Override
+    public void write(byte[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.BYTE_ARRAY_OFFSET, values.length, offset, length, Byte.BYTES);
+    }
+
+    /**
+     * Write a range of a short array with a single memory copy
+     *
+     * @param values The short array
+     * @param offset The index of the first short to write
+     * @param length The number of shorts to write
+     */
+    @Override
+    public void write(short[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.SHORT_ARRAY_OFFSET, values.length, offset, length, Short.BYTES);
+    }
+
+    /**
+     * Write a range of a char array with a single memory copy
+     *
+     * @param values The char array
+     * @param offset The index of the first character to write
+     * @param length The number of characters to write
+     */
+    @Override
+    public void write(char[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.CHAR_ARRAY_OFFSET, values.length, offset, length, Character.BYTES);
+    }
+
+    /**
+     * Write a range of a int array with a single memory copy
+     *
+     * @param values The int array
+     * @param offset The index of the first integer to write
+     * @param length The number of integers to write
+     */
+    @Override
+    public void write(int[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.INT_ARRAY_OFFSET, values.length, offset, length, Integer.BYTES);
+    }
+
+    /**
+     * Write a range of a long array with a single memory copy
+     *
+     * @param values The long array
+     * @param offset The index of the first long to write
+     * @param length The number of longs to write
+     */
+    @Override
+    public void write(long[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.LONG_ARRAY_OFFSET, values.length, offset, length, Long.BYTES);
+    }
+
+    /**
+     * Write a range of a float array with a single memory copy
+     *
+     * @param values The float array
+     * @param offset The index of the first float to write
+     * @param length The number of floats to write
+     */
+    @Override
+    public void write(float[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.FLOAT_ARRAY_OFFSET, values.length, offset, length, Float.BYTES);
+    }
+
+    /**
+     * Write a range of a double array with a single memory copy
+     *
+     * @param values The double array
+     * @param offset The index of the first double to write
+     * @param length The number of doubles to write
+     */
+    @Override
+    public void write(double[] values, int offset, int length) {
+        writeArray(values, UnsafeUtils.DOUBLE_ARRAY_OFFSET, values.length, offset, length, Double.BYTES);
+    }
+
+    /**
+     * Copies a range of an array to the current address
+     *
+     * @param array       The array to copy from
+     * @param arrayOffset The offset of the first element in the array
+     * @param arrayLength The array length
+     * @param offset      The index of the first element to copy
+     * @param length      The number of elements to copy
+     * @param scale       The size of a single element in bytes
+     */
+    private void writeArray(Object array, long arrayOffset, int arrayLength, int offset, int length, int scale) {
+        UnsafeUtils.checkBounds(arrayLength, offset, length);
+        long bytes = (long) length * scale;
+        UnsafeUtils.copyMemory(array, arrayOffset + (long) offset * scale, null, validateAndGetAddress(bytes), bytes);
+    }
+
     /**
      * Validate that the number of bytes left is sufficient to write to,
      * and updates the address by the number of bytes we want to write
@@ -108,9 +208,19 @@ final class UnsafeMemoryWriter implements MemoryWriter {
      * @param bytes The number of bytes we want to write
      * @return The address to write to
      */
-    private long validateAndGetAddress(int bytes) {
+    long validateAndGetAddress(long bytes) {
+        if (bytesLeft < bytes) throw new IllegalStateException("Cannot write more than object size!");
+        return advance(bytes);
+    }
+
+    /**
+     * Updates the address by the number of bytes we want to write, without validating the number of bytes left
+     *
+     * @param bytes The number of bytes we want to write
+     * @return The address to write to
+     */
+    final long advance(long bytes) {
         bytesLeft -= bytes;
-        if (bytesLeft < 0) throw new IllegalStateException("Cannot write more than object size!");
         long currentAddress = address;
         address += bytes;
         return currentAddress;
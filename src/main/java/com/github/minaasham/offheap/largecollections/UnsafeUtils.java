@@ -1,23 +1,80 @@
 package com.github.minaasham.offheap.largecollections;
 
-import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
-import sun.misc.Unsafe;
 
-import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Locale;
 
 /**
- * UnsafeUtils, a simple wrapper around the Unsafe object
+ * UnsafeUtils, a simple wrapper around the selected memory backend
  * It handles allocation and freeing of memory, as well as reading and writing native types
+ * The backend is selected once per JVM with the {@value #BACKEND_PROPERTY} system property,
+ * "unsafe" uses the JVM's Unsafe object, "foreign" uses the java.lang.foreign API on JDK22+ and "buffer" uses direct byte buffers,
+ * by default Unsafe is used when it's accessible and direct byte buffers otherwise
  * This class is package private as it's an internal implementation detail
  */
 @UtilityClass
 final class UnsafeUtils {
 
     /**
-     * The JVM's static Unsafe object
+     * The system property selecting the memory backend
      */
-    private static final Unsafe UNSAFE = getTheUnsafe();
+    static final String BACKEND_PROPERTY = "offheap.largecollections.memoryBackend";
+
+    /**
+     * The name of the foreign memory backend, it's only packaged for JDK22+ in the multi-release jar
+     */
+    static final String FOREIGN_BACKEND = "foreign";
+
+    /**
+     * The class name of the foreign memory backend, loaded reflectively as it's compiled separately
+     */
+    private static final String FOREIGN_BACKEND_CLASS = "com.github.minaasham.offheap.largecollections.ForeignMemoryBackend";
+
+    /**
+     * The selected memory backend
+     */
+    private static final MemoryBackend BACKEND = selectBackend(System.getProperty(BACKEND_PROPERTY));
+
+    /**
+     * The offset of the first element in a byte array
+     */
+    static final long BYTE_ARRAY_OFFSET = BACKEND.arrayBaseOffset(byte[].class);
+
+    /**
+     * The offset of the first element in a short array
+     */
+    static final long SHORT_ARRAY_OFFSET = BACKEND.arrayBaseOffset(short[].class);
+
+    /**
+     * The offset of the first element in a char array
+     */
+    static final long CHAR_ARRAY_OFFSET = BACKEND.arrayBaseOffset(char[].class);
+
+    /**
+     * The offset of the first element in a int array
+     */
+    static final long INT_ARRAY_OFFSET = BACKEND.arrayBaseOffset(int[].class);
+
+    /**
+     * The offset of the first element in a long array
+     */
+    static final long LONG_ARRAY_OFFSET = BACKEND.arrayBaseOffset(long[].class);
+
+    /**
+     * The offset of the first element in a float array
+     */
+    static final long FLOAT_ARRAY_OFFSET = BACKEND.arrayBaseOffset(float[].class);
+
+    /**
+     * The offset of the first element in a double array
+     */
+    static final long DOUBLE_ARRAY_OFFSET = BACKEND.arrayBaseOffset(double[].class);
+
+    /**
+     * Multiplier used to mix words when hashing memory, the 64 bit golden ratio
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
 
     /**
      * Allocate a specific size of memory and set it all to zeroes
@@ -26,9 +83,27 @@ final class UnsafeUtils {
      * @return The address pointing to the first byte in the allocated memory
      */
     static long allocate(long bytes) {
-        long address = UNSAFE.allocateMemory(bytes);
-        UNSAFE.setMemory(address, bytes, (byte) 0);
-        return address;
+        return BACKEND.allocateZeroedMemory(bytes);
+    }
+
+    /**
+     * Allocate a specific size of memory without setting it, for memory that is fully written right after (e.g. entries)
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory, the memory's content is undefined
+     */
+    static long allocateUninitialized(long bytes) {
+        return BACKEND.allocateMemory(bytes);
+    }
+
+    /**
+     * Estimates the memory an allocation of a specific size really takes, including the backend's headers and rounding
+     *
+     * @param bytes The size of the allocation
+     * @return The estimated memory taken by the allocation
+     */
+    static long allocatedSize(long bytes) {
+        return BACKEND.allocatedSize(bytes);
     }
 
     /**
@@ -37,7 +112,7 @@ final class UnsafeUtils {
      * @param address The address pointing to the first byte in the allocated memory
      */
     static void free(long address) {
-        UNSAFE.freeMemory(address);
+        BACKEND.freeMemory(address);
     }
 
     /**
@@ -47,7 +122,7 @@ final class UnsafeUtils {
      * @return The byte read
      */
     static byte getByte(long address) {
-        return UNSAFE.getByte(address);
+        return BACKEND.getByte(null, address);
     }
 
     /**
@@ -57,7 +132,7 @@ final class UnsafeUtils {
      * @param value   The byte value
      */
     static void putByte(long address, byte value) {
-        UNSAFE.putByte(address, value);
+        BACKEND.putByte(null, address, value);
     }
 
     /**
@@ -67,7 +142,7 @@ final class UnsafeUtils {
      * @return The short read
      */
     static short getShort(long address) {
-        return UNSAFE.getShort(address);
+        return BACKEND.getShort(null, address);
     }
 
     /**
@@ -77,7 +152,7 @@ final class UnsafeUtils {
      * @param value   The short value
      */
     static void putShort(long address, short value) {
-        UNSAFE.putShort(address, value);
+        BACKEND.putShort(null, address, value);
     }
 
     /**
@@ -87,7 +162,7 @@ final class UnsafeUtils {
      * @return The character read
      */
     static char getChar(long address) {
-        return UNSAFE.getChar(address);
+        return BACKEND.getChar(null, address);
     }
 
     /**
@@ -97,7 +172,7 @@ final class UnsafeUtils {
      * @param value   The character value
      */
     static void putChar(long address, char value) {
-        UNSAFE.putChar(address, value);
+        BACKEND.putChar(null, address, value);
     }
 
     /**
@@ -107,7 +182,7 @@ final class UnsafeUtils {
      * @return The integer read
      */
     static int getInt(long address) {
-        return UNSAFE.getInt(address);
+        return BACKEND.getInt(null, address);
     }
 
     /**
@@ -117,7 +192,7 @@ final class UnsafeUtils {
      * @param value   The integer value
      */
     static void putInt(long address, int value) {
-        UNSAFE.putInt(address, value);
+        BACKEND.putInt(null, address, value);
     }
 
     /**
@@ -127,7 +202,7 @@ final class UnsafeUtils {
      * @return The long read
      */
     static long getLong(long address) {
-        return UNSAFE.getLong(address);
+        return BACKEND.getLong(null, address);
     }
 
     /**
@@ -137,7 +212,59 @@ final class UnsafeUtils {
      * @param value   The long value
      */
     static void putLong(long address, long value) {
-        UNSAFE.putLong(address, value);
+        BACKEND.putLong(null, address, value);
+    }
+
+    /**
+     * Reads an unsigned variable length integer from the specific memory address
+     *
+     * @param address The address to read the integer from
+     * @return The integer read
+     * @see com.github.minaasham.offheap.largecollections.serialization.VarInts
+     */
+    static int getVarInt(long address) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = BACKEND.getByte(null, address++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Gets the number of bytes of the unsigned variable length integer at the specific memory address
+     *
+     * @param address The address of the integer
+     * @return The number of bytes the integer is stored in
+     */
+    static int getVarIntSize(long address) {
+        int size = 1;
+        while (BACKEND.getByte(null, address++) < 0) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes an unsigned variable length integer to the specific memory address
+     *
+     * @param address The address to write the integer at
+     * @param value   The integer value
+     * @return The number of bytes written
+     * @see com.github.minaasham.offheap.largecollections.serialization.VarInts
+     */
+    static int putVarInt(long address, int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            BACKEND.putByte(null, address++, (byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+            size++;
+        }
+        BACKEND.putByte(null, address, (byte) value);
+        return size;
     }
 
     /**
@@ -147,7 +274,7 @@ final class UnsafeUtils {
      * @return The float read
      */
     static float getFloat(long address) {
-        return UNSAFE.getFloat(address);
+        return BACKEND.getFloat(null, address);
     }
 
     /**
@@ -157,7 +284,7 @@ final class UnsafeUtils {
      * @param value   The float value
      */
     static void putFloat(long address, float value) {
-        UNSAFE.putFloat(address, value);
+        BACKEND.putFloat(null, address, value);
     }
 
     /**
@@ -167,7 +294,7 @@ final class UnsafeUtils {
      * @return The double read
      */
     static double getDouble(long address) {
-        return UNSAFE.getDouble(address);
+        return BACKEND.getDouble(null, address);
     }
 
     /**
@@ -177,18 +304,273 @@ final class UnsafeUtils {
      * @param value   The double value
      */
     static void putDouble(long address, double value) {
-        UNSAFE.putDouble(address, value);
+        BACKEND.putDouble(null, address, value);
+    }
+
+    /**
+     * Reads a byte from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The byte read
+     */
+    static byte getByte(Object base, long offset) {
+        return BACKEND.getByte(base, offset);
+    }
+
+    /**
+     * Reads a long from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The long read
+     */
+    static long getLong(Object base, long offset) {
+        return BACKEND.getLong(base, offset);
+    }
+
+    /**
+     * Writes a byte to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The byte value
+     */
+    static void putByte(Object base, long offset, byte value) {
+        BACKEND.putByte(base, offset, value);
+    }
+
+    /**
+     * Writes a short to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The short value
+     */
+    static void putShort(Object base, long offset, short value) {
+        BACKEND.putShort(base, offset, value);
+    }
+
+    /**
+     * Writes a character to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The character value
+     */
+    static void putChar(Object base, long offset, char value) {
+        BACKEND.putChar(base, offset, value);
+    }
+
+    /**
+     * Writes a integer to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The integer value
+     */
+    static void putInt(Object base, long offset, int value) {
+        BACKEND.putInt(base, offset, value);
+    }
+
+    /**
+     * Writes a long to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The long value
+     */
+    static void putLong(Object base, long offset, long value) {
+        BACKEND.putLong(base, offset, value);
+    }
+
+    /**
+     * Writes a float to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The float value
+     */
+    static void putFloat(Object base, long offset, float value) {
+        BACKEND.putFloat(base, offset, value);
+    }
+
+    /**
+     * Writes a double to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The double value
+     */
+    static void putDouble(Object base, long offset, double value) {
+        BACKEND.putDouble(base, offset, value);
+    }
+
+    /**
+     * Copies a block of memory, either side can be an object (e.g. a byte array) or, if the object is null, an absolute address
+     *
+     * @param srcBase    The object to copy from, or null for an absolute address
+     * @param srcOffset  The offset within the source object, or the absolute source address
+     * @param destBase   The object to copy to, or null for an absolute address
+     * @param destOffset The offset within the destination object, or the absolute destination address
+     * @param bytes      The number of bytes to copy
+     */
+    static void copyMemory(Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes) {
+        BACKEND.copyMemory(srcBase, srcOffset, destBase, destOffset, bytes);
+    }
+
+    /**
+     * Checks that a range lies within an array
+     *
+     * @param arrayLength The array length
+     * @param offset      The index of the first element in the range
+     * @param length      The number of elements in the range
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds
+     */
+    static void checkBounds(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || length > arrayLength - offset) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + arrayLength);
+        }
+    }
+
+    /**
+     * Gets the native address of a direct buffer's first byte
+     *
+     * @param buffer The direct buffer
+     * @return The address of the buffer's first byte, ignoring the buffer's position, or zero if the backend can't address the buffer
+     */
+    static long bufferAddress(ByteBuffer buffer) {
+        return BACKEND.bufferAddress(buffer);
     }
 
     /**
-     * Gets the JVM's static Unsafe object using reflection
+     * Makes a direct buffer the backend doesn't own, e.g. a chunk of a memory mapped file, addressable until it's detached
+     * The caller must keep the buffer reachable while it's attached
      *
-     * @return The JVM's static Unsafe object
+     * @param buffer The direct buffer
+     * @return The address of the buffer's first byte, ignoring the buffer's position
+     */
+    static long attachBuffer(ByteBuffer buffer) {
+        return BACKEND.attachBuffer(buffer);
+    }
+
+    /**
+     * Stops addressing a buffer attached with {@link #attachBuffer(ByteBuffer)}
+     *
+     * @param address The address of the buffer's first byte
+     */
+    static void detachBuffer(long address) {
+        BACKEND.detachBuffer(address);
+    }
+
+    /**
+     * Keeps loads before the fence from being reordered with loads and stores after it
      */
-    @SneakyThrows
-    private static Unsafe getTheUnsafe() {
-        Field f = Unsafe.class.getDeclaredField("theUnsafe");
-        f.setAccessible(true);
-        return (Unsafe) f.get(null);
+    static void loadFence() {
+        BACKEND.loadFence();
+    }
+
+    /**
+     * Keeps stores before the fence from being reordered with stores after it
+     */
+    static void storeFence() {
+        BACKEND.storeFence();
+    }
+
+    /**
+     * Hashes a block of memory a word at a time
+     *
+     * @param base   The object to hash, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param bytes  The number of bytes to hash
+     * @return The hash of the memory block
+     */
+    static int hash(Object base, long offset, long bytes) {
+        long hash = longHash(base, offset, bytes, 0);
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Hashes a block of memory a word at a time to 64 bits, starting from a seed so a different hash can be picked on collisions
+     *
+     * @param base   The object to hash, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param bytes  The number of bytes to hash
+     * @param seed   The seed the hash starts from
+     * @return The 64 bit hash of the memory block
+     */
+    static long longHash(Object base, long offset, long bytes, long seed) {
+        long hash = seed ^ bytes;
+        long i = 0;
+        for (; i + Long.BYTES <= bytes; i += Long.BYTES) {
+            hash = Long.rotateLeft((hash ^ BACKEND.getLong(base, offset + i)) * HASH_MULTIPLIER, 31);
+        }
+        for (; i < bytes; i++) {
+            hash = Long.rotateLeft((hash ^ BACKEND.getByte(base, offset + i)) * HASH_MULTIPLIER, 31);
+        }
+        return hash * HASH_MULTIPLIER;
+    }
+
+    /**
+     * Compares two blocks of memory a word at a time
+     *
+     * @param baseA   The first object, or null for an absolute address
+     * @param offsetA The offset within the first object, or the first absolute address
+     * @param baseB   The second object, or null for an absolute address
+     * @param offsetB The offset within the second object, or the second absolute address
+     * @param bytes   The number of bytes to compare
+     * @return {@code true} if both blocks contain the same bytes
+     */
+    static boolean equals(Object baseA, long offsetA, Object baseB, long offsetB, long bytes) {
+        long i = 0;
+        for (; i + Long.BYTES <= bytes; i += Long.BYTES) {
+            if (BACKEND.getLong(baseA, offsetA + i) != BACKEND.getLong(baseB, offsetB + i)) return false;
+        }
+        for (; i < bytes; i++) {
+            if (BACKEND.getByte(baseA, offsetA + i) != BACKEND.getByte(baseB, offsetB + i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the selected memory backend's name
+     *
+     * @return The selected memory backend's name
+     */
+    static String backendName() {
+        return BACKEND.name();
+    }
+
+    /**
+     * Creates a memory backend by name
+     *
+     * @param name The backend's name, or null for Unsafe if accessible and direct byte buffers otherwise
+     * @return The memory backend
+     * @throws IllegalArgumentException if the backend is unknown
+     * @throws IllegalStateException    if the backend is not available on this JVM
+     */
+    static MemoryBackend selectBackend(String name) {
+        if (name == null) {
+            try {
+                return UnsafeMemoryBackend.create();
+            } catch (Exception | LinkageError e) {
+                return ByteBufferMemoryBackend.create();
+            }
+        }
+
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case UnsafeMemoryBackend.NAME:
+                return UnsafeMemoryBackend.create();
+            case ByteBufferMemoryBackend.NAME:
+                return ByteBufferMemoryBackend.create();
+            case FOREIGN_BACKEND:
+                try {
+                    return (MemoryBackend) Class.forName(FOREIGN_BACKEND_CLASS).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    throw new IllegalStateException("The foreign memory backend requires JDK22+ and the multi-release jar", e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown memory backend: " + name);
+        }
     }
 }
@@ -0,0 +1,690 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * WriteAheadLog, an append only log of a map's updates, written through a {@link FileChannel} from direct buffers,
+ * keys and values are serialized straight to the buffers' off heap memory, so logging an update doesn't allocate on the heap
+ * Records are appended to a pending buffer, and written by group commit: the first thread to commit becomes the leader,
+ * swaps the pending buffer for the empty one, writes (and forces, depending on the {@link FsyncPolicy}) every record appended so far,
+ * while threads committing in the meantime wait, and have their records written together by the next leader
+ * Every record has a checksum, so a record torn by a crash is detected when the log is replayed, and dropped with anything after it
+ * Positions returned by appends count all the bytes ever appended, so they keep growing when the log is reset by a checkpoint
+ * The log fails for good once it can't be written, as it may hold a partial record, every commit after that throws
+ * This class is thread safe and is package private as it's an internal implementation detail
+ *
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class WriteAheadLog<K, V> implements AutoCloseable {
+
+    /**
+     * The first int of a log file, written in the platform's byte order so files from another byte order are rejected
+     */
+    private static final int MAGIC = 0x57414C47;
+
+    /**
+     * The version of the log file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The size of the file's header, the magic and version ints
+     */
+    private static final int FILE_HEADER_SIZE = 8;
+
+    /**
+     * The size of a record's header, the payload's size and checksum ints
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * The biggest payload of a record, so the record fits in a buffer
+     */
+    private static final int MAX_PAYLOAD_SIZE = Integer.MAX_VALUE - 8 - RECORD_HEADER_SIZE;
+
+    /**
+     * The type of a record putting a key and value
+     */
+    private static final byte PUT = 1;
+
+    /**
+     * The type of a record removing a key
+     */
+    private static final byte REMOVE = 2;
+
+    /**
+     * The type of a record clearing the map
+     */
+    private static final byte CLEAR = 3;
+
+    /**
+     * The initial size of the buffers records are appended to, they grow to hold everything appended while a leader is writing
+     */
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The size of the buffer the log is read through when it's replayed
+     */
+    private static final int REPLAY_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The log file's channel
+     */
+    private final FileChannel channel;
+
+    /**
+     * The key object serializer
+     */
+    private final ObjectSerializer<K> keySerializer;
+
+    /**
+     * The value object serializer
+     */
+    private final ObjectSerializer<V> valueSerializer;
+
+    /**
+     * When the log is forced
+     */
+    private final FsyncPolicy policy;
+
+    /**
+     * The lock guarding the buffers and positions, it's released by the leader while it writes
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The condition threads waiting for the leader are signalled on when it's done writing
+     */
+    private final Condition flushed = lock.newCondition();
+
+    /**
+     * The memory writer keys and values are serialized with into the pending buffer
+     */
+    private final UnsafeMemoryWriter writer = new UnsafeMemoryWriter();
+
+    /**
+     * The checksum of appended records
+     */
+    private final CRC32 checksum = new CRC32();
+
+    /**
+     * The buffer records are appended to
+     */
+    private LogBuffer pending = LogBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * The buffer the leader writes, swapped with the pending buffer when a leader starts writing
+     */
+    private LogBuffer writing = LogBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * The thread forcing the log periodically, null unless the policy is periodic
+     */
+    private ScheduledExecutorService syncer;
+
+    /**
+     * The position after the last appended record
+     */
+    private long appended;
+
+    /**
+     * The position up to which records were written to the file
+     */
+    private long written;
+
+    /**
+     * The position up to which records were forced to the storage device
+     */
+    private long synced;
+
+    /**
+     * Whether a leader is writing
+     */
+    private boolean flushing;
+
+    /**
+     * If the log was closed
+     */
+    private boolean closed;
+
+    /**
+     * The error that failed the log, null if it didn't fail
+     */
+    private IOException failure;
+
+    /**
+     * Opens or creates a log file, replaying its records into a map, a torn or corrupted tail is cut off the file
+     *
+     * @param path            The log file's path
+     * @param keySerializer   The key serializer
+     * @param valueSerializer The value serializer
+     * @param policy          When the log is forced
+     * @param map             The map the records are replayed into
+     * @param <K>             The key type
+     * @param <V>             The value type
+     * @return A {@link WriteAheadLog} object appending to the end of the file
+     * @throws IOException if the file can't be opened, read or written, or isn't a log file
+     */
+    static <K, V> WriteAheadLog<K, V> open(Path path, ObjectSerializer<K> keySerializer, ObjectSerializer<V> valueSerializer, FsyncPolicy policy, LargeMap<K, V> map) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        WriteAheadLog<K, V> log = new WriteAheadLog<>(channel, keySerializer, valueSerializer, policy);
+        try {
+            long end = channel.size() == 0 ? log.initialize(path) : log.replay(map, path);
+            if (end < channel.size()) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+            channel.position(end);
+            if (policy.periodic()) log.startSyncing();
+            return log;
+        } catch (IOException | RuntimeException e) {
+            log.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends a record putting a key and value
+     *
+     * @param key   The key
+     * @param value The value
+     * @return The position after the record, to commit it with
+     * @throws IllegalStateException if the log was closed
+     */
+    long appendPut(K key, V value) {
+        return append(PUT, key, value);
+    }
+
+    /**
+     * Appends a record removing a key
+     *
+     * @param key The key
+     * @return The position after the record, to commit it with
+     * @throws IllegalStateException if the log was closed
+     */
+    long appendRemove(K key) {
+        return append(REMOVE, key, null);
+    }
+
+    /**
+     * Appends a record clearing the map
+     *
+     * @return The position after the record, to commit it with
+     * @throws IllegalStateException if the log was closed
+     */
+    long appendClear() {
+        return append(CLEAR, null, null);
+    }
+
+    /**
+     * Waits until the records appended up to a position are written to the file, and forced if the policy is per operation,
+     * the first thread waiting becomes the leader and writes the records every waiting thread appended
+     *
+     * @param position The position returned by the append
+     * @throws IOException if the log can't be written or forced, or failed earlier
+     */
+    void commit(long position) throws IOException {
+        commit(position, policy.perOperation());
+    }
+
+    /**
+     * Forces the records written so far to the storage device
+     *
+     * @throws IOException if the log can't be forced, or failed earlier
+     */
+    void sync() throws IOException {
+        long end;
+        lock.lock();
+        try {
+            throwIfFailed();
+            end = written;
+        } finally {
+            lock.unlock();
+        }
+
+        IOException error = null;
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+
+        lock.lock();
+        try {
+            if (error != null) {
+                failure = error;
+                throw error;
+            }
+            synced = Math.max(synced, end);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Empties the log after a checkpoint saved a snapshot holding every appended update, the pending records are dropped
+     * as they're in the snapshot, and the threads waiting for them are released, updates must not be appended meanwhile
+     *
+     * @throws IOException if the file can't be truncated or forced, or the log failed earlier
+     */
+    void reset() throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            throwIfFailed();
+
+            pending.buffer.clear();
+            try {
+                channel.truncate(FILE_HEADER_SIZE);
+                channel.position(FILE_HEADER_SIZE);
+                channel.force(true);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            written = appended;
+            synced = appended;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the log failed and throws an exception if so
+     *
+     * @throws IOException if the log failed
+     */
+    void throwIfFailed() throws IOException {
+        lock.lock();
+        try {
+            if (failure != null) throw new IOException("Write ahead log failed earlier", failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes and forces the pending records, unless the log failed, then stops the periodic forcing and closes the file
+     *
+     * @throws IOException if the log can't be written, forced or closed
+     */
+    @Override
+    public void close() throws IOException {
+        long end;
+        boolean failed;
+        lock.lock();
+        try {
+            if (closed) return;
+
+            closed = true;
+            if (syncer != null) syncer.shutdown();
+            end = appended;
+            failed = failure != null;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            if (!failed) commit(end, true);
+        } finally {
+            lock.lock();
+            try {
+                while (flushing) {
+                    flushed.awaitUninterruptibly();
+                }
+                channel.close();
+                pending.release();
+                writing.release();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the header of a new log file and forces it, and its directory so the file itself survives the operating system crashing
+     *
+     * @param path The log file's path
+     * @return The position after the header
+     * @throws IOException if the file or directory can't be written
+     */
+    private long initialize(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.nativeOrder());
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) SnapshotChannel.forceDirectory(directory);
+        return FILE_HEADER_SIZE;
+    }
+
+    /**
+     * Replays the log's records into a map, until the end of the file or the first torn or corrupted record
+     *
+     * @param map  The map the records are replayed into
+     * @param path The log file's path
+     * @return The position after the last valid record
+     * @throws IOException if the file can't be read, or isn't a log file
+     */
+    private long replay(LargeMap<K, V> map, Path path) throws IOException {
+        long fileSize = channel.size();
+        long end = FILE_HEADER_SIZE;
+        channel.position(0);
+        UnsafeMemoryReader reader = new UnsafeMemoryReader();
+        CRC32 replayChecksum = new CRC32();
+        LogBuffer buffer = LogBuffer.allocate(REPLAY_BUFFER_SIZE);
+        try {
+            ByteBuffer bytes = buffer.buffer;
+            bytes.flip();
+            if (!fill(bytes, FILE_HEADER_SIZE) || bytes.getInt(0) != MAGIC) {
+                throw new IOException("Not a write ahead log, or written on a platform with a different byte order: " + path);
+            }
+            int version = bytes.getInt(Integer.BYTES);
+            if (version != VERSION) throw new IOException("Unsupported write ahead log version " + version + ": " + path);
+
+            bytes.position(FILE_HEADER_SIZE);
+            while (fill(bytes, RECORD_HEADER_SIZE)) {
+                int start = bytes.position();
+                int payloadSize = bytes.getInt(start);
+                int expectedChecksum = bytes.getInt(start + Integer.BYTES);
+                if (payloadSize <= 0 || payloadSize > fileSize - end - RECORD_HEADER_SIZE) break;
+
+                if (RECORD_HEADER_SIZE + payloadSize > bytes.capacity()) {
+                    bytes.compact();
+                    buffer = buffer.grow(RECORD_HEADER_SIZE + payloadSize);
+                    bytes = buffer.buffer;
+                    bytes.flip();
+                }
+                if (!fill(bytes, RECORD_HEADER_SIZE + payloadSize)) break;
+
+                start = bytes.position();
+                int limit = bytes.limit();
+                bytes.position(start + RECORD_HEADER_SIZE);
+                bytes.limit(start + RECORD_HEADER_SIZE + payloadSize);
+                replayChecksum.reset();
+                replayChecksum.update(bytes);
+                bytes.limit(limit);
+                if ((int) replayChecksum.getValue() != expectedChecksum) break;
+
+                apply(map, reader, buffer.address + start + RECORD_HEADER_SIZE, payloadSize, end);
+                end += RECORD_HEADER_SIZE + payloadSize;
+            }
+        } finally {
+            buffer.release();
+        }
+        return end;
+    }
+
+    /**
+     * Reads from the file until a buffer being drained holds at least a number of bytes
+     *
+     * @param bytes The buffer, ready to be drained
+     * @param count The number of bytes, at most the buffer's capacity
+     * @return {@code true} if the buffer holds the bytes, {@code false} if the file ended first
+     * @throws IOException if the file can't be read
+     */
+    private boolean fill(ByteBuffer bytes, int count) throws IOException {
+        if (bytes.remaining() >= count) return true;
+
+        bytes.compact();
+        try {
+            while (bytes.position() < count) {
+                if (channel.read(bytes) < 0) return false;
+            }
+            return true;
+        } finally {
+            bytes.flip();
+        }
+    }
+
+    /**
+     * Applies a replayed record to a map, its checksum was verified so a record that doesn't parse wasn't written by this log's serializers
+     *
+     * @param map         The map the record is applied to
+     * @param reader      The memory reader the key and value are deserialized from
+     * @param address     The address of the record's payload
+     * @param payloadSize The payload's size
+     * @param position    The record's position in the file
+     * @throws IOException if the record is malformed
+     */
+    private void apply(LargeMap<K, V> map, UnsafeMemoryReader reader, long address, int payloadSize, long position) throws IOException {
+        byte type = UnsafeUtils.getByte(address);
+        if (type == CLEAR && payloadSize == Byte.BYTES) {
+            map.clear();
+            return;
+        }
+
+        long keySizeAddress = address + Byte.BYTES;
+        long remaining = payloadSize - Byte.BYTES - Integer.BYTES;
+        int keySize = remaining >= 0 ? UnsafeUtils.getInt(keySizeAddress) : -1;
+        if (keySize < 0 || keySize > remaining) throw new IOException("Malformed write ahead log record at position " + position);
+
+        K key = keySerializer.deserialize(reader.resetTo(keySizeAddress + Integer.BYTES, keySize));
+        remaining -= keySize;
+        if (type == REMOVE && remaining == 0) {
+            map.remove(key);
+            return;
+        }
+
+        long valueSizeAddress = keySizeAddress + Integer.BYTES + keySize;
+        int valueSize = type == PUT && remaining >= Integer.BYTES ? UnsafeUtils.getInt(valueSizeAddress) : -1;
+        if (valueSize < 0 || valueSize != remaining - Integer.BYTES) throw new IOException("Malformed write ahead log record at position " + position);
+
+        map.put(key, valueSerializer.deserialize(reader.resetTo(valueSizeAddress + Integer.BYTES, valueSize)));
+    }
+
+    /**
+     * Starts forcing the log periodically on a daemon thread
+     */
+    private void startSyncing() {
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-ahead-log-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = policy.intervalNanos();
+        syncer.scheduleWithFixedDelay(this::syncPeriodically, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Forces the log, run periodically, the periodic forcing stops once the log failed, the failure is reported by the next commit
+     */
+    private void syncPeriodically() {
+        try {
+            sync();
+        } catch (IOException e) {
+            syncer.shutdown();
+        }
+    }
+
+    /**
+     * Serializes a record into the pending buffer
+     *
+     * @param type  The record's type
+     * @param key   The key, null for a clear record
+     * @param value The value, null unless it's a put record
+     * @return The position after the record
+     * @throws IllegalStateException    if the log was closed
+     * @throws IllegalArgumentException if the record is too big
+     */
+    private long append(byte type, K key, V value) {
+        int keySize = key != null ? keySerializer.sizeInBytes(key) : 0;
+        int valueSize = value != null ? valueSerializer.sizeInBytes(value) : 0;
+        long payloadSize = Byte.BYTES + (key != null ? Integer.BYTES + (long) keySize : 0) + (value != null ? Integer.BYTES + (long) valueSize : 0);
+        if (payloadSize > MAX_PAYLOAD_SIZE) throw new IllegalArgumentException("Record of " + payloadSize + " bytes is too big for the write ahead log");
+
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("Write ahead log was already closed");
+
+            int recordSize = RECORD_HEADER_SIZE + (int) payloadSize;
+            if (pending.buffer.remaining() < recordSize) pending = pending.grow(pending.buffer.position() + recordSize);
+
+            ByteBuffer bytes = pending.buffer;
+            int start = bytes.position();
+            long recordAddress = pending.address + start;
+            long pointer = recordAddress + RECORD_HEADER_SIZE;
+            UnsafeUtils.putByte(pointer++, type);
+            if (key != null) {
+                UnsafeUtils.putInt(pointer, keySize);
+                keySerializer.serialize(writer.resetTo(pointer + Integer.BYTES, keySize), key);
+                pointer += Integer.BYTES + keySize;
+            }
+            if (value != null) {
+                UnsafeUtils.putInt(pointer, valueSize);
+                valueSerializer.serialize(writer.resetTo(pointer + Integer.BYTES, valueSize), value);
+            }
+
+            bytes.position(start + RECORD_HEADER_SIZE);
+            bytes.limit(start + recordSize);
+            checksum.reset();
+            checksum.update(bytes);
+            bytes.limit(bytes.capacity());
+            UnsafeUtils.putInt(recordAddress, (int) payloadSize);
+            UnsafeUtils.putInt(recordAddress + Integer.BYTES, (int) checksum.getValue());
+
+            appended += recordSize;
+            return appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the records appended up to a position are written to the file, and forced if asked to,
+     * the first thread waiting becomes the leader, it swaps the buffers and releases the lock while writing,
+     * so threads can keep appending to the other buffer
+     *
+     * @param position The position to wait for
+     * @param sync     Whether to wait for the records to be forced
+     * @throws IOException if the log can't be written or forced, the log fails for good, or failed earlier
+     */
+    private void commit(long position, boolean sync) throws IOException {
+        lock.lock();
+        try {
+            while ((sync ? synced : written) < position) {
+                throwIfFailed();
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+
+                LogBuffer buffer = pending;
+                pending = writing;
+                writing = buffer;
+                long end = appended;
+                flushing = true;
+                IOException error = null;
+                lock.unlock();
+                try {
+                    write(buffer, sync);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    lock.lock();
+                    flushing = false;
+                    flushed.signalAll();
+                }
+
+                if (error != null) {
+                    failure = error;
+                    throw error;
+                }
+                written = end;
+                if (sync) synced = end;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes a buffer's records to the file and empties it, called by the leader without holding the lock
+     *
+     * @param buffer The buffer
+     * @param sync   Whether to force the records after writing them
+     * @throws IOException if the records can't be written or forced
+     */
+    private void write(LogBuffer buffer, boolean sync) throws IOException {
+        ByteBuffer bytes = buffer.buffer;
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+        if (sync) channel.force(false);
+    }
+
+    /**
+     * LogBuffer, a direct buffer attached to the memory backend, so records are serialized to it through {@link UnsafeUtils}
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    private static final class LogBuffer {
+
+        /**
+         * The direct buffer
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * The buffer's address
+         */
+        private final long address;
+
+        /**
+         * Allocates a direct buffer and attaches it
+         *
+         * @param capacity The buffer's capacity
+         * @return A {@link LogBuffer} object
+         */
+        static LogBuffer allocate(int capacity) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+            return new LogBuffer(buffer, UnsafeUtils.attachBuffer(buffer));
+        }
+
+        /**
+         * Replaces the buffer with a bigger one holding the same bytes up to the position, and releases it
+         *
+         * @param required The capacity the new buffer needs at least
+         * @return The new buffer, positioned after the copied bytes
+         */
+        LogBuffer grow(int required) {
+            int capacity = (int) Math.min(Math.max(2L * buffer.capacity(), required), Integer.MAX_VALUE - 8);
+            LogBuffer grown = LogBuffer.allocate(capacity);
+            int position = buffer.position();
+            UnsafeUtils.copyMemory(null, address, null, grown.address, position);
+            grown.buffer.position(position);
+            release();
+            return grown;
+        }
+
+        /**
+         * Detaches the buffer, its memory is released once it's garbage collected
+         */
+        void release() {
+            UnsafeUtils.detachBuffer(address);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.minaasham.offheap.largecollections.serialization;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * GenerateSerializer, marks a class or a record to have its serializer generated at compile time
+ * by the offheap-largecollections-processor annotation processor
+ * The generated serializer is named after the type with a "Serializer" suffix (nested types are joined with "_"),
+ * lives in the same package and is exposed through its {@code INSTANCE} field
+ * It serializes the type's non-static, non-transient fields in declaration order with straight-line reader and writer calls,
+ * and extends {@link FixedSizeObjectSerializer} and {@link TrustedObjectSerializer} when all fields have a fixed size, in which case a flyweight view named
+ * after the type with a "View" suffix is generated as well, reading and writing the fields in place
+ * (see {@link com.github.minaasham.offheap.largecollections.LargeHashMap#update})
+ * Fields can be primitives, boxed primitives, strings, primitive arrays, enums and other types marked with this annotation,
+ * and they are read through record accessors, getters or the fields themselves when not private,
+ * the type must have a constructor taking all its fields in declaration order
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface GenerateSerializer {
+}
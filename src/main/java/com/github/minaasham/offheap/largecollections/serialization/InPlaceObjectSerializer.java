@@ -0,0 +1,36 @@
+package com.github.minaasham.offheap.largecollections.serialization;
+
+/**
+ * InPlaceObjectSerializer, an object serializer that can also hash and compare objects in their serialized form
+ * When used as a key serializer, maps hash and compare stored keys directly in memory instead of deserializing them on every probe
+ * {@link #hash(Object)} and {@link #hash(MemoryReader)} must return the same hash for an object and its serialized form
+ *
+ * @param <T> The type of object to serialize from or deserialize to
+ */
+public interface InPlaceObjectSerializer<T> extends ObjectSerializer<T> {
+
+    /**
+     * Hashes an object
+     *
+     * @param object The object to hash
+     * @return The object's hash
+     */
+    int hash(T object);
+
+    /**
+     * Hashes a serialized object
+     *
+     * @param reader The reader positioned at the start of the serialized object
+     * @return The serialized object's hash
+     */
+    int hash(MemoryReader reader);
+
+    /**
+     * Compares a serialized object with an object
+     *
+     * @param reader The reader positioned at the start of the serialized object
+     * @param object The object to compare with
+     * @return {@code true} if the serialized object is equal to the passed object
+     */
+    boolean matches(MemoryReader reader, T object);
+}
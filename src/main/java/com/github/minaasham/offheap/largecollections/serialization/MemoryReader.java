@@ -55,4 +55,145 @@ public interface MemoryReader {
      * @return The double read
      */
     double readDouble();
+
+    /**
+     * Reads an unsigned variable length integer
+     *
+     * @return The integer read
+     * @throws IllegalStateException if the integer is malformed
+     */
+    default int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Malformed variable length integer");
+    }
+
+    /**
+     * Reads an unsigned variable length long
+     *
+     * @return The long read
+     * @throws IllegalStateException if the long is malformed
+     */
+    default long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7FL) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Malformed variable length long");
+    }
+
+    /**
+     * Reads a signed, zigzag encoded, variable length integer
+     *
+     * @return The integer read
+     */
+    default int readSignedVarInt() {
+        return VarInts.decodeZigZag(readVarInt());
+    }
+
+    /**
+     * Reads a signed, zigzag encoded, variable length long
+     *
+     * @return The long read
+     */
+    default long readSignedVarLong() {
+        return VarInts.decodeZigZag(readVarLong());
+    }
+
+    /**
+     * Reads into a range of a byte array, the default implementation reads one byte at a time
+     *
+     * @param values The byte array to read into
+     * @param offset The index of the first byte to read into
+     * @param length The number of bytes to read
+     */
+    default void read(byte[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = readByte();
+        }
+    }
+
+    /**
+     * Reads into a range of a short array, the default implementation reads one short at a time
+     *
+     * @param values The short array to read into
+     * @param offset The index of the first short to read into
+     * @param length The number of shorts to read
+     */
+    default void read(short[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = readShort();
+        }
+    }
+
+    /**
+     * Reads into a range of a char array, the default implementation reads one character at a time
+     *
+     * @param values The char array to read into
+     * @param offset The index of the first character to read into
+     * @param length The number of characters to read
+     */
+    default void read(char[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = readChar();
+        }
+    }
+
+    /**
+     * Reads into a range of a int array, the default implementation reads one integer at a time
+     *
+     * @param values The int array to read into
+     * @param offset The index of the first integer to read into
+     * @param length The number of integers to read
+     */
+    default void read(int[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = readInt();
+        }
+    }
+
+    /**
+     * Reads into a range of a long array, the default implementation reads one long at a time
+     *
+     * @param values The long array to read into
+     * @param offset The index of the first long to read into
+     * @param length The number of longs to read
+     */
+    default void read(long[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = readLong();
+        }
+    }
+
+    /**
+     * Reads into a range of a float array, the default implementation reads one float at a time
+     *
+     * @param values The float array to read into
+     * @param offset The index of the first float to read into
+     * @param length The number of floats to read
+     */
+    default void read(float[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = readFloat();
+        }
+    }
+
+    /**
+     * Reads into a range of a double array, the default implementation reads one double at a time
+     *
+     * @param values The double array to read into
+     * @param offset The index of the first double to read into
+     * @param length The number of doubles to read
+     */
+    default void read(double[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            values[i] = readDouble();
+        }
+    }
 }
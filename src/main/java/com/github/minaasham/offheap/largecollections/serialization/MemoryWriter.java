@@ -55,4 +55,143 @@ public interface MemoryWriter {
      * @param value The byte double
      */
     void writeDouble(double value);
+
+    /**
+     * Writes an unsigned variable length integer, in 1 to 5 bytes
+     *
+     * @param value The integer value
+     * @see VarInts#varIntSize(int)
+     */
+    default void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        writeByte((byte) value);
+    }
+
+    /**
+     * Writes an unsigned variable length long, in 1 to 10 bytes
+     *
+     * @param value The long value
+     * @see VarInts#varLongSize(long)
+     */
+    default void writeVarLong(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        writeByte((byte) value);
+    }
+
+    /**
+     * Writes a signed, zigzag encoded, variable length integer, in 1 to 5 bytes
+     *
+     * @param value The integer value
+     * @see VarInts#signedVarIntSize(int)
+     */
+    default void writeSignedVarInt(int value) {
+        writeVarInt(VarInts.encodeZigZag(value));
+    }
+
+    /**
+     * Writes a signed, zigzag encoded, variable length long, in 1 to 10 bytes
+     *
+     * @param value The long value
+     * @see VarInts#signedVarLongSize(long)
+     */
+    default void writeSignedVarLong(long value) {
+        writeVarLong(VarInts.encodeZigZag(value));
+    }
+
+    /**
+     * Writes a range of a byte array, the default implementation writes one byte at a time
+     *
+     * @param values The byte array
+     * @param offset The index of the first byte to write
+     * @param length The number of bytes to write
+     */
+    default void write(byte[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeByte(values[i]);
+        }
+    }
+
+    /**
+     * Writes a range of a short array, the default implementation writes one short at a time
+     *
+     * @param values The short array
+     * @param offset The index of the first short to write
+     * @param length The number of shorts to write
+     */
+    default void write(short[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeShort(values[i]);
+        }
+    }
+
+    /**
+     * Writes a range of a char array, the default implementation writes one character at a time
+     *
+     * @param values The char array
+     * @param offset The index of the first character to write
+     * @param length The number of characters to write
+     */
+    default void write(char[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeChar(values[i]);
+        }
+    }
+
+    /**
+     * Writes a range of a int array, the default implementation writes one integer at a time
+     *
+     * @param values The int array
+     * @param offset The index of the first integer to write
+     * @param length The number of integers to write
+     */
+    default void write(int[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeInt(values[i]);
+        }
+    }
+
+    /**
+     * Writes a range of a long array, the default implementation writes one long at a time
+     *
+     * @param values The long array
+     * @param offset The index of the first long to write
+     * @param length The number of longs to write
+     */
+    default void write(long[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeLong(values[i]);
+        }
+    }
+
+    /**
+     * Writes a range of a float array, the default implementation writes one float at a time
+     *
+     * @param values The float array
+     * @param offset The index of the first float to write
+     * @param length The number of floats to write
+     */
+    default void write(float[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeFloat(values[i]);
+        }
+    }
+
+    /**
+     * Writes a range of a double array, the default implementation writes one double at a time
+     *
+     * @param values The double array
+     * @param offset The index of the first double to write
+     * @param length The number of doubles to write
+     */
+    default void write(double[] values, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            writeDouble(values[i]);
+        }
+    }
 }
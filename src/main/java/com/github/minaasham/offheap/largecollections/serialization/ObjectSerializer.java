@@ -12,6 +12,7 @@ public interface ObjectSerializer<T> {
 
     /**
      * Serializes an object using a memory writer
+     * It must write exactly {@link #sizeInBytes} bytes, the memory written to is not zeroed beforehand
      *
      * @param writer The writer that is used for serialization
      * @param object The object to serialize
@@ -0,0 +1,12 @@
+package com.github.minaasham.offheap.largecollections.serialization;
+
+/**
+ * SinglePassObjectSerializer, a marker for variable size serializers whose {@link #sizeInBytes(Object)}
+ * costs about as much as serializing the object itself (e.g. encoding a string)
+ * Maps serialize such objects only once into a growable scratch buffer to learn their size,
+ * and then copy the serialized bytes into the entry, instead of calling {@link #sizeInBytes(Object)} first
+ *
+ * @param <T> The type of object to serialize from or deserialize to
+ */
+public interface SinglePassObjectSerializer<T> extends ObjectSerializer<T> {
+}
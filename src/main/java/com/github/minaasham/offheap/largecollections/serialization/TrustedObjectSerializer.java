@@ -0,0 +1,12 @@
+package com.github.minaasham.offheap.largecollections.serialization;
+
+/**
+ * TrustedObjectSerializer, a marker for serializers verified to never read or write more bytes than their size in bytes
+ * Maps pass such serializers memory readers and writers that skip the bounds check on every read and write,
+ * a serializer breaking this contract reads or corrupts memory outside its entry instead of failing,
+ * so only mark serializers whose reads and writes are fixed by construction
+ *
+ * @param <T> The type of object to serialize from or deserialize to
+ */
+public interface TrustedObjectSerializer<T> extends ObjectSerializer<T> {
+}
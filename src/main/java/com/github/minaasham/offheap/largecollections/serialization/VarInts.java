@@ -0,0 +1,94 @@
+package com.github.minaasham.offheap.largecollections.serialization;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * VarInts, helpers for variable length integers, stored as LEB128 (7 bits per byte, least significant group first),
+ * signed values are zigzag encoded first so that small negative values are stored in few bytes as well
+ *
+ * @see MemoryWriter#writeVarInt(int)
+ * @see MemoryReader#readVarInt()
+ */
+@UtilityClass
+public final class VarInts {
+
+    /**
+     * Gets the number of bytes an unsigned variable length integer is stored in
+     *
+     * @param value The integer value
+     * @return The number of bytes, between 1 and 5
+     */
+    public static int varIntSize(int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * Gets the number of bytes an unsigned variable length long is stored in
+     *
+     * @param value The long value
+     * @return The number of bytes, between 1 and 10
+     */
+    public static int varLongSize(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) / 7 + 1;
+    }
+
+    /**
+     * Gets the number of bytes a signed variable length integer is stored in
+     *
+     * @param value The integer value
+     * @return The number of bytes, between 1 and 5
+     */
+    public static int signedVarIntSize(int value) {
+        return varIntSize(encodeZigZag(value));
+    }
+
+    /**
+     * Gets the number of bytes a signed variable length long is stored in
+     *
+     * @param value The long value
+     * @return The number of bytes, between 1 and 10
+     */
+    public static int signedVarLongSize(long value) {
+        return varLongSize(encodeZigZag(value));
+    }
+
+    /**
+     * Zigzag encodes an integer, mapping signed values to unsigned ones (0, -1, 1, -2, ... to 0, 1, 2, 3, ...)
+     *
+     * @param value The signed integer value
+     * @return The zigzag encoded value
+     */
+    public static int encodeZigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Decodes a zigzag encoded integer
+     *
+     * @param value The zigzag encoded value
+     * @return The signed integer value
+     */
+    public static int decodeZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Zigzag encodes a long, mapping signed values to unsigned ones (0, -1, 1, -2, ... to 0, 1, 2, 3, ...)
+     *
+     * @param value The signed long value
+     * @return The zigzag encoded value
+     */
+    public static long encodeZigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Decodes a zigzag encoded long
+     *
+     * @param value The zigzag encoded value
+     * @return The signed long value
+     */
+    public static long decodeZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -1,12 +1,12 @@
 package com.github.minaasham.offheap.largecollections.serialization.common;
 
+import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
 import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
 import lombok.RequiredArgsConstructor;
 
 import java.lang.reflect.Array;
-import java.util.stream.Stream;
 
 /**
  * ArraySerializer, a generic array serializer that utilizes an inner element serializer
@@ -62,13 +62,22 @@ public class ArraySerializer<T> implements ObjectSerializer<T[]> {
 
     /**
      * Returns the array size in bytes, this is a single integer for
-     * the array size plus each individual element size
+     * the array size plus each individual element size, which is
+     * computed without visiting the elements if they have a fixed size
      *
      * @param object The object to the get the size of
      * @return The size of the passed array
      */
     @Override
     public final int sizeInBytes(T[] object) {
-        return Integer.BYTES + Stream.of(object).mapToInt(elementSerializer::sizeInBytes).sum();
+        if (elementSerializer instanceof FixedSizeObjectSerializer) {
+            return Integer.BYTES + object.length * elementSerializer.sizeInBytes(null);
+        }
+
+        int sizeInBytes = Integer.BYTES;
+        for (T element : object) {
+            sizeInBytes += elementSerializer.sizeInBytes(element);
+        }
+        return sizeInBytes;
     }
 }
@@ -3,11 +3,12 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
 
 /**
  * BooleanSerializer, the implementation of ObjectSerializer for the boolean type
  */
-public final class BooleanSerializer extends FixedSizeObjectSerializer<Boolean> {
+public final class BooleanSerializer extends FixedSizeObjectSerializer<Boolean> implements TrustedObjectSerializer<Boolean> {
 
     /**
      * Singleton instance of the {@link BooleanSerializer} class
@@ -0,0 +1,60 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+
+/**
+ * ByteArraySerializer, the implementation of ObjectSerializer for the byte array type,
+ * the array length is stored as a variable length integer followed by the bytes copied in bulk
+ */
+public final class ByteArraySerializer implements ObjectSerializer<byte[]> {
+
+    /**
+     * Singleton instance of the {@link ByteArraySerializer} class
+     */
+    public static final ByteArraySerializer INSTANCE = new ByteArraySerializer();
+
+    /**
+     * ByteArraySerializer constructor
+     */
+    private ByteArraySerializer() {
+    }
+
+    /**
+     * Serializes a byte array using a memory writer
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The byte array to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, byte[] object) {
+        writer.writeVarInt(object.length);
+        writer.write(object, 0, object.length);
+    }
+
+    /**
+     * Deserializes a byte array using a memory reader
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized byte array
+     */
+    @Override
+    public byte[] deserialize(MemoryReader reader) {
+        byte[] array = new byte[reader.readVarInt()];
+        reader.read(array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Gets the byte array size in bytes
+     *
+     * @param object The byte array to the get the size of
+     * @return The size of the passed byte array in bytes
+     */
+    @Override
+    public int sizeInBytes(byte[] object) {
+        return VarInts.varIntSize(object.length) + object.length * Byte.BYTES;
+    }
+}
@@ -3,11 +3,12 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
 
 /**
  * ByteSerializer, the implementation of ObjectSerializer for the byte type
  */
-public final class ByteSerializer extends FixedSizeObjectSerializer<Byte> {
+public final class ByteSerializer extends FixedSizeObjectSerializer<Byte> implements TrustedObjectSerializer<Byte> {
 
     /**
      * Singleton instance of the {@link ByteSerializer} class
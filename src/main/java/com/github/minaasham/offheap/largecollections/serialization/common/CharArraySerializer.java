@@ -0,0 +1,60 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+
+/**
+ * CharArraySerializer, the implementation of ObjectSerializer for the character array type,
+ * the array length is stored as a variable length integer followed by the characters copied in bulk
+ */
+public final class CharArraySerializer implements ObjectSerializer<char[]> {
+
+    /**
+     * Singleton instance of the {@link CharArraySerializer} class
+     */
+    public static final CharArraySerializer INSTANCE = new CharArraySerializer();
+
+    /**
+     * CharArraySerializer constructor
+     */
+    private CharArraySerializer() {
+    }
+
+    /**
+     * Serializes a character array using a memory writer
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The character array to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, char[] object) {
+        writer.writeVarInt(object.length);
+        writer.write(object, 0, object.length);
+    }
+
+    /**
+     * Deserializes a character array using a memory reader
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized character array
+     */
+    @Override
+    public char[] deserialize(MemoryReader reader) {
+        char[] array = new char[reader.readVarInt()];
+        reader.read(array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Gets the character array size in bytes
+     *
+     * @param object The character array to the get the size of
+     * @return The size of the passed character array in bytes
+     */
+    @Override
+    public int sizeInBytes(char[] object) {
+        return VarInts.varIntSize(object.length) + object.length * Character.BYTES;
+    }
+}
@@ -3,11 +3,12 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
 
 /**
  * CharSerializer, the implementation of ObjectSerializer for the character type
  */
-public final class CharSerializer extends FixedSizeObjectSerializer<Character> {
+public final class CharSerializer extends FixedSizeObjectSerializer<Character> implements TrustedObjectSerializer<Character> {
 
     /**
      * Singleton instance of the {@link CharSerializer} class
@@ -0,0 +1,285 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.InPlaceObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+
+/**
+ * CompactStringSerializer, an allocation free implementation of ObjectSerializer for the string type
+ * Strings made only of Latin-1 characters are stored in one byte per character, other strings are stored in UTF-8,
+ * with supplementary characters stored as two encoded surrogates (CESU-8) so that any string roundtrips exactly
+ * Strings are encoded and decoded through reusable per thread buffers with bulk copies,
+ * and can be hashed and compared in place, so string keyed maps don't create garbage on lookups
+ */
+public final class CompactStringSerializer implements InPlaceObjectSerializer<String> {
+
+    /**
+     * Singleton instance of the {@link CompactStringSerializer} class
+     */
+    public static final CompactStringSerializer INSTANCE = new CompactStringSerializer();
+
+    /**
+     * The reusable per thread encoding and decoding buffers
+     */
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * CompactStringSerializer constructor
+     */
+    private CompactStringSerializer() {
+    }
+
+    /**
+     * Serializes a string using a memory writer, the header is a signed variable length integer holding
+     * the length for Latin-1 strings, or the bitwise complement of the encoded length for UTF-8 strings
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The string to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, String object) {
+        int length = object.length();
+        Buffers buffers = BUFFERS.get();
+        char[] chars = buffers.chars(length);
+        object.getChars(0, length, chars, 0);
+
+        int utf8Length = 0;
+        boolean latin1 = true;
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            latin1 &= c <= 0xFF;
+            utf8Length += utf8Length(c);
+        }
+
+        if (latin1) {
+            byte[] bytes = buffers.bytes(length);
+            for (int i = 0; i < length; i++) {
+                bytes[i] = (byte) chars[i];
+            }
+            writer.writeSignedVarInt(length);
+            writer.write(bytes, 0, length);
+        } else {
+            byte[] bytes = buffers.bytes(utf8Length);
+            int position = 0;
+            for (int i = 0; i < length; i++) {
+                position = encode(chars[i], bytes, position);
+            }
+            writer.writeSignedVarInt(~utf8Length);
+            writer.write(bytes, 0, utf8Length);
+        }
+    }
+
+    /**
+     * Deserializes a string using a memory reader
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized string
+     */
+    @SuppressWarnings("deprecation")
+    @Override
+    public String deserialize(MemoryReader reader) {
+        int header = reader.readSignedVarInt();
+        Buffers buffers = BUFFERS.get();
+
+        if (header >= 0) {
+            byte[] bytes = buffers.bytes(header);
+            reader.read(bytes, 0, header);
+            return new String(bytes, 0, 0, header);
+        }
+
+        int utf8Length = ~header;
+        byte[] bytes = buffers.bytes(utf8Length);
+        reader.read(bytes, 0, utf8Length);
+
+        char[] chars = buffers.chars(utf8Length);
+        int length = 0;
+        for (int position = 0; position < utf8Length; length++) {
+            char c = decode(bytes, position);
+            chars[length] = c;
+            position += utf8Length(c);
+        }
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Gets the string size in bytes, without encoding it
+     *
+     * @param object The string to the get the size of
+     * @return The size of the passed string in bytes
+     */
+    @Override
+    public int sizeInBytes(String object) {
+        int length = object.length();
+        int utf8Length = 0;
+        boolean latin1 = true;
+        for (int i = 0; i < length; i++) {
+            char c = object.charAt(i);
+            latin1 &= c <= 0xFF;
+            utf8Length += utf8Length(c);
+        }
+        return latin1 ? VarInts.signedVarIntSize(length) + length : VarInts.signedVarIntSize(~utf8Length) + utf8Length;
+    }
+
+    /**
+     * Hashes a string, this is the same as {@link String#hashCode()}
+     *
+     * @param object The string to hash
+     * @return The string's hash
+     */
+    @Override
+    public int hash(String object) {
+        return object.hashCode();
+    }
+
+    /**
+     * Hashes a serialized string without deserializing it, this is the same as {@link String#hashCode()}
+     *
+     * @param reader The reader positioned at the start of the serialized string
+     * @return The string's hash
+     */
+    @Override
+    public int hash(MemoryReader reader) {
+        int header = reader.readSignedVarInt();
+        int bytesLength = header >= 0 ? header : ~header;
+        byte[] bytes = BUFFERS.get().bytes(bytesLength);
+        reader.read(bytes, 0, bytesLength);
+
+        int hash = 0;
+        if (header >= 0) {
+            for (int i = 0; i < bytesLength; i++) {
+                hash = 31 * hash + (bytes[i] & 0xFF);
+            }
+        } else {
+            for (int position = 0; position < bytesLength; ) {
+                char c = decode(bytes, position);
+                hash = 31 * hash + c;
+                position += utf8Length(c);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Compares a serialized string with a string without deserializing it
+     *
+     * @param reader The reader positioned at the start of the serialized string
+     * @param object The string to compare with
+     * @return {@code true} if the serialized string is equal to the passed string
+     */
+    @Override
+    public boolean matches(MemoryReader reader, String object) {
+        int header = reader.readSignedVarInt();
+        int length = object.length();
+        if (header >= 0 && header != length) return false;
+
+        int bytesLength = header >= 0 ? header : ~header;
+        byte[] bytes = BUFFERS.get().bytes(bytesLength);
+        reader.read(bytes, 0, bytesLength);
+
+        if (header >= 0) {
+            for (int i = 0; i < length; i++) {
+                if ((bytes[i] & 0xFF) != object.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        int i = 0;
+        for (int position = 0; position < bytesLength; i++) {
+            if (i == length) return false;
+            char c = decode(bytes, position);
+            if (c != object.charAt(i)) return false;
+            position += utf8Length(c);
+        }
+        return i == length;
+    }
+
+    /**
+     * Gets the number of bytes a character is encoded in
+     *
+     * @param c The character
+     * @return The number of bytes, between 1 and 3
+     */
+    private static int utf8Length(char c) {
+        return c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+    }
+
+    /**
+     * Encodes a character
+     *
+     * @param c        The character to encode
+     * @param bytes    The buffer to encode to
+     * @param position The position in the buffer to encode at
+     * @return The position after the encoded character
+     */
+    private static int encode(char c, byte[] bytes, int position) {
+        if (c < 0x80) {
+            bytes[position++] = (byte) c;
+        } else if (c < 0x800) {
+            bytes[position++] = (byte) (0xC0 | c >> 6);
+            bytes[position++] = (byte) (0x80 | c & 0x3F);
+        } else {
+            bytes[position++] = (byte) (0xE0 | c >> 12);
+            bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+            bytes[position++] = (byte) (0x80 | c & 0x3F);
+        }
+        return position;
+    }
+
+    /**
+     * Decodes a character, the character's length in bytes can be found using {@link #utf8Length(char)}
+     *
+     * @param bytes    The buffer to decode from
+     * @param position The position of the character in the buffer
+     * @return The decoded character
+     */
+    private static char decode(byte[] bytes, int position) {
+        int b = bytes[position];
+        if (b >= 0) return (char) b;
+        if ((b & 0xE0) == 0xC0) return (char) ((b & 0x1F) << 6 | bytes[position + 1] & 0x3F);
+        return (char) ((b & 0x0F) << 12 | (bytes[position + 1] & 0x3F) << 6 | bytes[position + 2] & 0x3F);
+    }
+
+    /**
+     * Buffers, the reusable encoding and decoding buffers of a single thread
+     */
+    private static final class Buffers {
+
+        /**
+         * The initial capacity for the buffers
+         */
+        private static final int INITIAL_CAPACITY = 64;
+
+        /**
+         * The bytes buffer
+         */
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+        /**
+         * The characters buffer
+         */
+        private char[] chars = new char[INITIAL_CAPACITY];
+
+        /**
+         * Gets the bytes buffer, growing it if required
+         *
+         * @param capacity The minimum required capacity
+         * @return The bytes buffer
+         */
+        byte[] bytes(int capacity) {
+            if (bytes.length < capacity) bytes = new byte[Math.max(capacity, 2 * bytes.length)];
+            return bytes;
+        }
+
+        /**
+         * Gets the characters buffer, growing it if required
+         *
+         * @param capacity The minimum required capacity
+         * @return The characters buffer
+         */
+        char[] chars(int capacity) {
+            if (chars.length < capacity) chars = new char[Math.max(capacity, 2 * chars.length)];
+            return chars;
+        }
+    }
+}
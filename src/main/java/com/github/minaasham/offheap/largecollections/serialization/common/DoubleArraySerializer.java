@@ -0,0 +1,60 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+
+/**
+ * DoubleArraySerializer, the implementation of ObjectSerializer for the double array type,
+ * the array length is stored as a variable length integer followed by the doubles copied in bulk
+ */
+public final class DoubleArraySerializer implements ObjectSerializer<double[]> {
+
+    /**
+     * Singleton instance of the {@link DoubleArraySerializer} class
+     */
+    public static final DoubleArraySerializer INSTANCE = new DoubleArraySerializer();
+
+    /**
+     * DoubleArraySerializer constructor
+     */
+    private DoubleArraySerializer() {
+    }
+
+    /**
+     * Serializes a double array using a memory writer
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The double array to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, double[] object) {
+        writer.writeVarInt(object.length);
+        writer.write(object, 0, object.length);
+    }
+
+    /**
+     * Deserializes a double array using a memory reader
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized double array
+     */
+    @Override
+    public double[] deserialize(MemoryReader reader) {
+        double[] array = new double[reader.readVarInt()];
+        reader.read(array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Gets the double array size in bytes
+     *
+     * @param object The double array to the get the size of
+     * @return The size of the passed double array in bytes
+     */
+    @Override
+    public int sizeInBytes(double[] object) {
+        return VarInts.varIntSize(object.length) + object.length * Double.BYTES;
+    }
+}
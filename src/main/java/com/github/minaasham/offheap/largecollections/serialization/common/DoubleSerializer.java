@@ -3,11 +3,12 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
 
 /**
  * DoubleSerializer, the implementation of ObjectSerializer for the double type
  */
-public final class DoubleSerializer extends FixedSizeObjectSerializer<Double> {
+public final class DoubleSerializer extends FixedSizeObjectSerializer<Double> implements TrustedObjectSerializer<Double> {
 
     /**
      * Singleton instance of the {@link DoubleSerializer} class
@@ -0,0 +1,60 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+
+/**
+ * FloatArraySerializer, the implementation of ObjectSerializer for the float array type,
+ * the array length is stored as a variable length integer followed by the floats copied in bulk
+ */
+public final class FloatArraySerializer implements ObjectSerializer<float[]> {
+
+    /**
+     * Singleton instance of the {@link FloatArraySerializer} class
+     */
+    public static final FloatArraySerializer INSTANCE = new FloatArraySerializer();
+
+    /**
+     * FloatArraySerializer constructor
+     */
+    private FloatArraySerializer() {
+    }
+
+    /**
+     * Serializes a float array using a memory writer
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The float array to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, float[] object) {
+        writer.writeVarInt(object.length);
+        writer.write(object, 0, object.length);
+    }
+
+    /**
+     * Deserializes a float array using a memory reader
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized float array
+     */
+    @Override
+    public float[] deserialize(MemoryReader reader) {
+        float[] array = new float[reader.readVarInt()];
+        reader.read(array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Gets the float array size in bytes
+     *
+     * @param object The float array to the get the size of
+     * @return The size of the passed float array in bytes
+     */
+    @Override
+    public int sizeInBytes(float[] object) {
+        return VarInts.varIntSize(object.length) + object.length * Float.BYTES;
+    }
+}
@@ -3,11 +3,12 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
 
 /**
  * FloatSerializer, the implementation of ObjectSerializer for the float type
  */
-public final class FloatSerializer extends FixedSizeObjectSerializer<Float> {
+public final class FloatSerializer extends FixedSizeObjectSerializer<Float> implements TrustedObjectSerializer<Float> {
 
     /**
      * Singleton instance of the {@link FloatSerializer} class
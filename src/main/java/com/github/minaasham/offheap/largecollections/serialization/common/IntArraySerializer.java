@@ -0,0 +1,60 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+
+/**
+ * IntArraySerializer, the implementation of ObjectSerializer for the integer array type,
+ * the array length is stored as a variable length integer followed by the integers copied in bulk
+ */
+public final class IntArraySerializer implements ObjectSerializer<int[]> {
+
+    /**
+     * Singleton instance of the {@link IntArraySerializer} class
+     */
+    public static final IntArraySerializer INSTANCE = new IntArraySerializer();
+
+    /**
+     * IntArraySerializer constructor
+     */
+    private IntArraySerializer() {
+    }
+
+    /**
+     * Serializes a integer array using a memory writer
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The integer array to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, int[] object) {
+        writer.writeVarInt(object.length);
+        writer.write(object, 0, object.length);
+    }
+
+    /**
+     * Deserializes a integer array using a memory reader
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized integer array
+     */
+    @Override
+    public int[] deserialize(MemoryReader reader) {
+        int[] array = new int[reader.readVarInt()];
+        reader.read(array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Gets the integer array size in bytes
+     *
+     * @param object The integer array to the get the size of
+     * @return The size of the passed integer array in bytes
+     */
+    @Override
+    public int sizeInBytes(int[] object) {
+        return VarInts.varIntSize(object.length) + object.length * Integer.BYTES;
+    }
+}
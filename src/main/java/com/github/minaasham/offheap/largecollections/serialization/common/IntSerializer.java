@@ -3,11 +3,12 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
 
 /**
  * IntSerializer, the implementation of ObjectSerializer for the integer type
  */
-public final class IntSerializer extends FixedSizeObjectSerializer<Integer> {
+public final class IntSerializer extends FixedSizeObjectSerializer<Integer> implements TrustedObjectSerializer<Integer> {
 
     /**
      * Singleton instance of the {@link IntSerializer} class
@@ -0,0 +1,60 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+
+/**
+ * LongArraySerializer, the implementation of ObjectSerializer for the long array type,
+ * the array length is stored as a variable length integer followed by the longs copied in bulk
+ */
+public final class LongArraySerializer implements ObjectSerializer<long[]> {
+
+    /**
+     * Singleton instance of the {@link LongArraySerializer} class
+     */
+    public static final LongArraySerializer INSTANCE = new LongArraySerializer();
+
+    /**
+     * LongArraySerializer constructor
+     */
+    private LongArraySerializer() {
+    }
+
+    /**
+     * Serializes a long array using a memory writer
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The long array to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, long[] object) {
+        writer.writeVarInt(object.length);
+        writer.write(object, 0, object.length);
+    }
+
+    /**
+     * Deserializes a long array using a memory reader
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized long array
+     */
+    @Override
+    public long[] deserialize(MemoryReader reader) {
+        long[] array = new long[reader.readVarInt()];
+        reader.read(array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Gets the long array size in bytes
+     *
+     * @param object The long array to the get the size of
+     * @return The size of the passed long array in bytes
+     */
+    @Override
+    public int sizeInBytes(long[] object) {
+        return VarInts.varIntSize(object.length) + object.length * Long.BYTES;
+    }
+}
@@ -3,11 +3,12 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
 
 /**
  * LongSerializer, the implementation of ObjectSerializer for the long type
  */
-public final class LongSerializer extends FixedSizeObjectSerializer<Long> {
+public final class LongSerializer extends FixedSizeObjectSerializer<Long> implements TrustedObjectSerializer<Long> {
 
     /**
      * Singleton instance of the {@link LongSerializer} class
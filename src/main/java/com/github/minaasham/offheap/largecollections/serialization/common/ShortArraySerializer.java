@@ -0,0 +1,60 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
+
+/**
+ * ShortArraySerializer, the implementation of ObjectSerializer for the short array type,
+ * the array length is stored as a variable length integer followed by the shorts copied in bulk
+ */
+public final class ShortArraySerializer implements ObjectSerializer<short[]> {
+
+    /**
+     * Singleton instance of the {@link ShortArraySerializer} class
+     */
+    public static final ShortArraySerializer INSTANCE = new ShortArraySerializer();
+
+    /**
+     * ShortArraySerializer constructor
+     */
+    private ShortArraySerializer() {
+    }
+
+    /**
+     * Serializes a short array using a memory writer
+     *
+     * @param writer The writer that is used for serialization
+     * @param object The short array to serialize
+     */
+    @Override
+    public void serialize(MemoryWriter writer, short[] object) {
+        writer.writeVarInt(object.length);
+        writer.write(object, 0, object.length);
+    }
+
+    /**
+     * Deserializes a short array using a memory reader
+     *
+     * @param reader The reader that is used for deserialization
+     * @return The deserialized short array
+     */
+    @Override
+    public short[] deserialize(MemoryReader reader) {
+        short[] array = new short[reader.readVarInt()];
+        reader.read(array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Gets the short array size in bytes
+     *
+     * @param object The short array to the get the size of
+     * @return The size of the passed short array in bytes
+     */
+    @Override
+    public int sizeInBytes(short[] object) {
+        return VarInts.varIntSize(object.length) + object.length * Short.BYTES;
+    }
+}
@@ -3,11 +3,12 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 import com.github.minaasham.offheap.largecollections.serialization.FixedSizeObjectSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.TrustedObjectSerializer;
 
 /**
  * ShortSerializer, the implementation of ObjectSerializer for the short type
  */
-public final class ShortSerializer extends FixedSizeObjectSerializer<Short> {
+public final class ShortSerializer extends FixedSizeObjectSerializer<Short> implements TrustedObjectSerializer<Short> {
 
     /**
      * Singleton instance of the {@link ShortSerializer} class
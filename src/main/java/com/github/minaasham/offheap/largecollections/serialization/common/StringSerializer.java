@@ -2,16 +2,17 @@ package com.github.minaasham.offheap.largecollections.serialization.common;
 
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
 import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
-import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.SinglePassObjectSerializer;
 import lombok.RequiredArgsConstructor;
 
 import java.nio.charset.Charset;
 
 /**
  * StringSerializer, the implementation of ObjectSerializer for the string type
+ * Computing the size requires encoding the string, hence maps serialize it in a single pass
  */
 @RequiredArgsConstructor
-public final class StringSerializer implements ObjectSerializer<String> {
+public final class StringSerializer implements SinglePassObjectSerializer<String> {
 
     /**
      * The character set encoding to be using in serialization and deserialization
@@ -28,10 +29,7 @@ public final class StringSerializer implements ObjectSerializer<String> {
     public void serialize(MemoryWriter writer, String object) {
         byte[] bytes = object.getBytes(encoding);
         writer.writeInt(bytes.length);
-
-        for (byte b : bytes) {
-            writer.writeByte(b);
-        }
+        writer.write(bytes, 0, bytes.length);
     }
 
     /**
@@ -43,9 +41,7 @@ public final class StringSerializer implements ObjectSerializer<String> {
     @Override
     public String deserialize(MemoryReader reader) {
         byte[] bytes = new byte[reader.readInt()];
-        for (int i = 0; i < bytes.length; i++) {
-            bytes[i] = reader.readByte();
-        }
+        reader.read(bytes, 0, bytes.length);
         return new String(bytes, encoding);
     }
 
@@ -0,0 +1,429 @@
+package com.github.minaasham.offheap.largecollections;
+
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+/**
+ * ForeignMemoryBackend, a memory backend built on the java.lang.foreign API, the supported replacement of Unsafe's memory access
+ * Absolute addresses are accessed through a single unbounded segment of the global arena, and arrays through heap segments,
+ * so array offsets start at zero, memory is allocated and freed with the C library's malloc and free
+ * This class is compiled for JDK22+ only and packaged under META-INF/versions/22 of the multi-release jar, it's created reflectively
+ * This class is package private as it's an internal implementation detail
+ */
+final class ForeignMemoryBackend implements MemoryBackend {
+
+    /**
+     * The native segment covering the whole address space
+     */
+    private static final MemorySegment NATIVE = MemorySegment.NULL.reinterpret(Long.MAX_VALUE);
+
+    /**
+     * The unaligned short layout
+     */
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED;
+
+    /**
+     * The unaligned character layout
+     */
+    private static final ValueLayout.OfChar CHAR = ValueLayout.JAVA_CHAR_UNALIGNED;
+
+    /**
+     * The unaligned integer layout
+     */
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED;
+
+    /**
+     * The unaligned long layout
+     */
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED;
+
+    /**
+     * The unaligned float layout
+     */
+    private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT_UNALIGNED;
+
+    /**
+     * The unaligned double layout
+     */
+    private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE_UNALIGNED;
+
+    /**
+     * The C library's malloc function
+     */
+    private static final MethodHandle MALLOC = downcall("malloc", FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.JAVA_LONG));
+
+    /**
+     * The C library's calloc function
+     */
+    private static final MethodHandle CALLOC = downcall("calloc", FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.JAVA_LONG));
+
+    /**
+     * The C library's free function
+     */
+    private static final MethodHandle FREE = downcall("free", FunctionDescriptor.ofVoid(ValueLayout.ADDRESS));
+
+    /**
+     * ForeignMemoryBackend constructor
+     */
+    ForeignMemoryBackend() {
+    }
+
+    /**
+     * Gets the backend's name, as used to select it
+     *
+     * @return The backend's name
+     */
+    @Override
+    public String name() {
+        return UnsafeUtils.FOREIGN_BACKEND;
+    }
+
+    /**
+     * Allocates a specific size of memory, the memory's content is undefined
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory
+     * @throws OutOfMemoryError if the memory can't be allocated
+     */
+    @Override
+    public long allocateMemory(long bytes) {
+        long address;
+        try {
+            address = ((MemorySegment) MALLOC.invokeExact(Math.max(bytes, 1L))).address();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to call malloc", e);
+        }
+        if (address == 0) {
+            throw new OutOfMemoryError("Unable to allocate " + bytes + " bytes");
+        }
+        return address;
+    }
+
+    /**
+     * Allocates a specific size of memory set to all zeroes with calloc, large allocations get zeroed pages from the OS without being set
+     *
+     * @param bytes The size of the memory to allocate
+     * @return The address pointing to the first byte in the allocated memory
+     * @throws OutOfMemoryError if the memory can't be allocated
+     */
+    @Override
+    public long allocateZeroedMemory(long bytes) {
+        long address;
+        try {
+            address = ((MemorySegment) CALLOC.invokeExact(1L, Math.max(bytes, 1L))).address();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to call calloc", e);
+        }
+        if (address == 0) {
+            throw new OutOfMemoryError("Unable to allocate " + bytes + " bytes");
+        }
+        return address;
+    }
+
+    /**
+     * Frees previously allocated memory
+     *
+     * @param address The address pointing to the first byte in the allocated memory
+     */
+    @Override
+    public void freeMemory(long address) {
+        try {
+            FREE.invokeExact(MemorySegment.ofAddress(address));
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to call free", e);
+        }
+    }
+
+    /**
+     * Sets all bytes of a block of memory to a value
+     *
+     * @param address The address of the memory block
+     * @param bytes   The size of the memory block
+     * @param value   The value to set the bytes to
+     */
+    @Override
+    public void setMemory(long address, long bytes, byte value) {
+        NATIVE.asSlice(address, bytes).fill(value);
+    }
+
+    /**
+     * Copies a block of memory, either side can be an object (e.g. a byte array) or, if the object is null, an absolute address
+     *
+     * @param srcBase    The object to copy from, or null for an absolute address
+     * @param srcOffset  The offset within the source object, or the absolute source address
+     * @param destBase   The object to copy to, or null for an absolute address
+     * @param destOffset The offset within the destination object, or the absolute destination address
+     * @param bytes      The number of bytes to copy
+     */
+    @Override
+    public void copyMemory(Object srcBase, long srcOffset, Object destBase, long destOffset, long bytes) {
+        MemorySegment.copy(segment(srcBase), srcOffset, segment(destBase), destOffset, bytes);
+    }
+
+    /**
+     * Gets the offset of the first element in a primitive array, always zero as arrays are accessed through heap segments
+     *
+     * @param arrayClass The primitive array's class
+     * @return The offset of the first element
+     */
+    @Override
+    public long arrayBaseOffset(Class<?> arrayClass) {
+        return 0;
+    }
+
+    /**
+     * Gets the native address of a direct buffer's first byte
+     *
+     * @param buffer The direct buffer
+     * @return The address of the buffer's first byte, ignoring the buffer's position, or zero if the backend can't address the buffer
+     */
+    @Override
+    public long bufferAddress(ByteBuffer buffer) {
+        return MemorySegment.ofBuffer(buffer).address() - buffer.position();
+    }
+
+    /**
+     * Makes a direct buffer the backend doesn't own addressable, its native address is used as is
+     *
+     * @param buffer The direct buffer
+     * @return The address of the buffer's first byte, ignoring the buffer's position
+     * @throws IllegalArgumentException if the buffer is not direct
+     */
+    @Override
+    public long attachBuffer(ByteBuffer buffer) {
+        if (!buffer.isDirect()) throw new IllegalArgumentException("Only direct buffers can be attached");
+        return bufferAddress(buffer);
+    }
+
+    /**
+     * Stops addressing an attached buffer, there's nothing to release as its native address was used as is
+     *
+     * @param address The address of the buffer's first byte
+     */
+    @Override
+    public void detachBuffer(long address) {
+        // Nothing to release, the caller keeps the buffer reachable until it's detached
+    }
+
+    /**
+     * Keeps loads before the fence from being reordered with loads and stores after it
+     */
+    @Override
+    public void loadFence() {
+        VarHandle.acquireFence();
+    }
+
+    /**
+     * Keeps stores before the fence from being reordered with stores after it
+     */
+    @Override
+    public void storeFence() {
+        VarHandle.releaseFence();
+    }
+
+    /**
+     * Reads a byte from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The byte read
+     */
+    @Override
+    public byte getByte(Object base, long offset) {
+        return segment(base).get(ValueLayout.JAVA_BYTE, offset);
+    }
+
+    /**
+     * Writes a byte to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The byte value
+     */
+    @Override
+    public void putByte(Object base, long offset, byte value) {
+        segment(base).set(ValueLayout.JAVA_BYTE, offset, value);
+    }
+
+    /**
+     * Reads a short from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The short read
+     */
+    @Override
+    public short getShort(Object base, long offset) {
+        return segment(base).get(SHORT, offset);
+    }
+
+    /**
+     * Writes a short to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The short value
+     */
+    @Override
+    public void putShort(Object base, long offset, short value) {
+        segment(base).set(SHORT, offset, value);
+    }
+
+    /**
+     * Reads a character from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The character read
+     */
+    @Override
+    public char getChar(Object base, long offset) {
+        return segment(base).get(CHAR, offset);
+    }
+
+    /**
+     * Writes a character to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The character value
+     */
+    @Override
+    public void putChar(Object base, long offset, char value) {
+        segment(base).set(CHAR, offset, value);
+    }
+
+    /**
+     * Reads an integer from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The integer read
+     */
+    @Override
+    public int getInt(Object base, long offset) {
+        return segment(base).get(INT, offset);
+    }
+
+    /**
+     * Writes a integer to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The integer value
+     */
+    @Override
+    public void putInt(Object base, long offset, int value) {
+        segment(base).set(INT, offset, value);
+    }
+
+    /**
+     * Reads a long from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The long read
+     */
+    @Override
+    public long getLong(Object base, long offset) {
+        return segment(base).get(LONG, offset);
+    }
+
+    /**
+     * Writes a long to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The long value
+     */
+    @Override
+    public void putLong(Object base, long offset, long value) {
+        segment(base).set(LONG, offset, value);
+    }
+
+    /**
+     * Reads a float from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The float read
+     */
+    @Override
+    public float getFloat(Object base, long offset) {
+        return segment(base).get(FLOAT, offset);
+    }
+
+    /**
+     * Writes a float to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The float value
+     */
+    @Override
+    public void putFloat(Object base, long offset, float value) {
+        segment(base).set(FLOAT, offset, value);
+    }
+
+    /**
+     * Reads a double from an object or, if the object is null, from an absolute memory address
+     *
+     * @param base   The object to read from, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @return The double read
+     */
+    @Override
+    public double getDouble(Object base, long offset) {
+        return segment(base).get(DOUBLE, offset);
+    }
+
+    /**
+     * Writes a double to an object or, if the object is null, to an absolute memory address
+     *
+     * @param base   The object to write to, or null for an absolute address
+     * @param offset The offset within the object, or the absolute address
+     * @param value  The double value
+     */
+    @Override
+    public void putDouble(Object base, long offset, double value) {
+        segment(base).set(DOUBLE, offset, value);
+    }
+
+    /**
+     * Gets the segment an object's memory is accessed through
+     *
+     * @param base The primitive array, or null for absolute addresses
+     * @return The heap segment of the array, or the native segment
+     * @throws IllegalArgumentException if the object is not a primitive array
+     */
+    private static MemorySegment segment(Object base) {
+        return switch (base) {
+            case null -> NATIVE;
+            case byte[] array -> MemorySegment.ofArray(array);
+            case short[] array -> MemorySegment.ofArray(array);
+            case char[] array -> MemorySegment.ofArray(array);
+            case int[] array -> MemorySegment.ofArray(array);
+            case long[] array -> MemorySegment.ofArray(array);
+            case float[] array -> MemorySegment.ofArray(array);
+            case double[] array -> MemorySegment.ofArray(array);
+            default -> throw new IllegalArgumentException("Unsupported memory base: " + base.getClass().getName());
+        };
+    }
+
+    /**
+     * Looks up a C library function
+     *
+     * @param name       The function's name
+     * @param descriptor The function's descriptor
+     * @return The method handle calling the function
+     */
+    private static MethodHandle downcall(String name, FunctionDescriptor descriptor) {
+        Linker linker = Linker.nativeLinker();
+        return linker.downcallHandle(linker.defaultLookup().find(name).orElseThrow(), descriptor);
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ByteBufferMemoryBackendTest {
+
+    private static final Random RANDOM = new Random();
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final ByteBufferMemoryBackend backend = new ByteBufferMemoryBackend(PAGE_BITS, PAGE_SIZE);
+
+    @Test
+    void testThrowsIfOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufferMemoryBackend(PAGE_BITS - 1, PAGE_SIZE));
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufferMemoryBackend(31, PAGE_SIZE));
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufferMemoryBackend(PAGE_BITS, PAGE_SIZE * 2));
+        assertThrows(IllegalArgumentException.class, () -> new ByteBufferMemoryBackend(PAGE_BITS, PAGE_SIZE / 2));
+        assertThrows(IllegalArgumentException.class, () -> backend.allocateMemory(-1));
+        assertThrows(IllegalArgumentException.class, () -> backend.freeMemory(123));
+        assertThrows(IllegalArgumentException.class, () -> backend.getInt(new int[1], 0));
+        assertThrows(IllegalArgumentException.class, () -> backend.copyMemory(new Object(), 0, new byte[1], 0, 0));
+    }
+
+    @Test
+    void testReadsWhileOtherThreadsGrowPageTable() throws InterruptedException {
+        AtomicBoolean growing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t++) {
+            readers[t] = new Thread(() -> {
+                try {
+                    long value = 0;
+                    while (growing.get()) {
+                        long address = backend.allocateMemory(2L * PAGE_SIZE);
+                        backend.putLong(null, address + PAGE_SIZE, ++value);
+                        for (int i = 0; i < 100; i++) {
+                            assertEquals(value, backend.getLong(null, address + PAGE_SIZE));
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            readers[t].start();
+        }
+
+        for (int i = 0; i < 20000; i++) {
+            backend.allocateMemory(PAGE_SIZE);
+        }
+        growing.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    void testSmallBlocksAreReused() {
+        long first = backend.allocateMemory(12);
+        long second = backend.allocateMemory(16);
+        assertNotEquals(0, first);
+        assertEquals(16, second - first);
+
+        backend.freeMemory(first);
+        assertEquals(first, backend.allocateMemory(9));
+        assertEquals(second + 16, backend.allocateMemory(16));
+        assertEquals(1 + 1, backend.pageCount());
+    }
+
+    @Test
+    void testAllocateZeroed() {
+        long block = backend.allocateMemory(Long.BYTES);
+        backend.putLong(null, block, -1L);
+        backend.freeMemory(block);
+        assertEquals(block, backend.allocateZeroedMemory(Long.BYTES));
+        assertEquals(0L, backend.getLong(null, block));
+
+        long pages = backend.allocateZeroedMemory(2L * PAGE_SIZE);
+        for (long i = 0; i < 2L * PAGE_SIZE; i += Long.BYTES) {
+            assertEquals(0L, backend.getLong(null, pages + i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> backend.allocateZeroedMemory(-1));
+        backend.freeMemory(pages);
+        backend.freeMemory(block);
+    }
+
+    @Test
+    void testAllocatedSize() {
+        assertEquals(8, backend.allocatedSize(1));
+        assertEquals(16, backend.allocatedSize(9));
+        assertEquals(PAGE_SIZE, backend.allocatedSize(PAGE_SIZE));
+        assertEquals(PAGE_SIZE + 1, backend.allocatedSize(PAGE_SIZE + 1));
+    }
+
+    @Test
+    void testPagesAreReused() {
+        long address = backend.allocateMemory(PAGE_SIZE + 1);
+        int pageCount = backend.pageCount();
+        backend.freeMemory(address);
+        backend.freeMemory(0);
+
+        assertEquals(address + PAGE_SIZE, backend.allocateMemory(1));
+        assertEquals(pageCount, backend.pageCount());
+        assertThrows(IllegalArgumentException.class, () -> backend.freeMemory(address + 1));
+    }
+
+    @Test
+    void testValuesAcrossPages() {
+        long address = backend.allocateMemory(3L * PAGE_SIZE + 100);
+        long boundary = address + PAGE_SIZE;
+        for (int shift = 1; shift < Long.BYTES; shift++) {
+            long at = boundary - shift;
+            byte b = (byte) RANDOM.nextInt();
+            short s = (short) RANDOM.nextInt();
+            char c = (char) RANDOM.nextInt();
+            int i = RANDOM.nextInt();
+            long l = RANDOM.nextLong();
+            float f = RANDOM.nextFloat();
+            double d = RANDOM.nextDouble();
+
+            backend.putByte(null, at, b);
+            assertEquals(b, backend.getByte(null, at));
+            backend.putShort(null, at, s);
+            assertEquals(s, backend.getShort(null, at));
+            backend.putChar(null, at, c);
+            assertEquals(c, backend.getChar(null, at));
+            backend.putInt(null, at, i);
+            assertEquals(i, backend.getInt(null, at));
+            backend.putLong(null, at, l);
+            assertEquals(l, backend.getLong(null, at));
+            backend.putFloat(null, at, f);
+            assertEquals(f, backend.getFloat(null, at));
+            backend.putDouble(null, at, d);
+            assertEquals(d, backend.getDouble(null, at));
+        }
+
+        backend.putLong(null, address + 3L * PAGE_SIZE + 92, Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, backend.getLong(null, address + 3L * PAGE_SIZE + 92));
+        assertThrows(IndexOutOfBoundsException.class, () -> backend.getLong(null, address + 3L * PAGE_SIZE + 93));
+        backend.freeMemory(address);
+    }
+
+    @Test
+    void testCopyAndSetAcrossPages() {
+        long address = backend.allocateMemory(2L * PAGE_SIZE);
+        long copy = backend.allocateMemory(2L * PAGE_SIZE);
+
+        byte[] bytes = new byte[PAGE_SIZE];
+        RANDOM.nextBytes(bytes);
+        backend.copyMemory(bytes, 0, null, address + 3, bytes.length);
+        backend.copyMemory(null, address, null, copy + 5, 2L * PAGE_SIZE - 5);
+        byte[] copied = new byte[PAGE_SIZE];
+        backend.copyMemory(null, copy + 8, copied, 0, copied.length);
+        assertArrayEquals(bytes, copied);
+
+        long[] longs = {RANDOM.nextLong(), RANDOM.nextLong(), RANDOM.nextLong()};
+        long[] longsCopy = new long[3];
+        backend.copyMemory(longs, 0, null, address + PAGE_SIZE - 12, 3 * Long.BYTES);
+        backend.copyMemory(null, address + PAGE_SIZE - 12, longsCopy, 0, 3 * Long.BYTES);
+        assertArrayEquals(longs, longsCopy);
+        assertEquals(longs[1], backend.getLong(null, address + PAGE_SIZE - 4));
+
+        int[] ints = {RANDOM.nextInt(), RANDOM.nextInt()};
+        int[] intsCopy = new int[3];
+        backend.copyMemory(ints, 0, null, address, 2 * Integer.BYTES);
+        backend.copyMemory(null, address, intsCopy, Integer.BYTES, 2 * Integer.BYTES);
+        assertArrayEquals(new int[]{0, ints[0], ints[1]}, intsCopy);
+
+        backend.setMemory(address + PAGE_SIZE - 3, 6, (byte) 7);
+        for (int i = -3; i < 3; i++) {
+            assertEquals((byte) 7, backend.getByte(null, address + PAGE_SIZE + i));
+        }
+
+        byte[] heap = new byte[Long.BYTES * 2];
+        backend.putLong(heap, Long.BYTES, 42L);
+        assertEquals(42L, backend.getLong(heap, Long.BYTES));
+        byte[] heapCopy = new byte[Long.BYTES];
+        backend.copyMemory(heap, Long.BYTES, heapCopy, 0, Long.BYTES);
+        assertEquals(42L, backend.getLong(heapCopy, 0));
+        long[] longCopy = new long[1];
+        backend.copyMemory(heapCopy, 0, longCopy, 0, Long.BYTES);
+        backend.copyMemory(longCopy, 0, heap, 0, Long.BYTES);
+        assertEquals(42L, longCopy[0]);
+        assertEquals(42L, backend.getLong(heap, 0));
+        assertThrows(IllegalArgumentException.class, () -> backend.copyMemory(longCopy, 0, new int[2], 0, Long.BYTES));
+
+        backend.freeMemory(address);
+        backend.freeMemory(copy);
+    }
+
+    @Test
+    void testSelectBackend() {
+        assertEquals(ByteBufferMemoryBackend.NAME, UnsafeUtils.selectBackend("buffer").name());
+        assertEquals(0, backend.bufferAddress(ByteBuffer.allocateDirect(1)));
+        assertEquals(0, backend.arrayBaseOffset(byte[].class));
+    }
+
+    @Test
+    void testAttachBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(PAGE_SIZE).order(ByteOrder.nativeOrder());
+        buffer.position(100);
+        buffer.putLong(8, 123L);
+
+        long address = backend.attachBuffer(buffer);
+        assertEquals(123L, backend.getLong(null, address + 8));
+        backend.putInt(null, address + 16, 456);
+        assertEquals(456, buffer.getInt(16));
+        assertThrows(IllegalArgumentException.class, () -> backend.freeMemory(address));
+
+        backend.detachBuffer(address);
+        assertThrows(IllegalArgumentException.class, () -> backend.detachBuffer(address));
+        assertThrows(IllegalArgumentException.class, () -> backend.attachBuffer(ByteBuffer.allocate(1)));
+        assertThrows(IllegalArgumentException.class, () -> backend.attachBuffer(ByteBuffer.allocateDirect(PAGE_SIZE + 1)));
+
+        long block = backend.allocateMemory(PAGE_SIZE);
+        assertThrows(IllegalArgumentException.class, () -> backend.detachBuffer(block));
+        backend.freeMemory(block);
+    }
+}
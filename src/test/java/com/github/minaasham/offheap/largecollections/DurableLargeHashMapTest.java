@@ -0,0 +1,341 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.randomString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurableLargeHashMapTest {
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+
+    @Test
+    void testReplaysLogAfterCrash() throws IOException {
+        Path directory = Files.createTempDirectory("durable");
+        Path crashed = Files.createTempDirectory("crashed");
+        Map<String, String> expectedMap = new HashMap<>();
+        try (DurableLargeHashMap<String, String> map = DurableLargeHashMap.open(directory, STRING_SERIALIZER, STRING_SERIALIZER)) {
+            IntStream.range(0, 5000).forEach(ignored -> {
+                String key = randomString();
+                String value = randomString();
+                assertEquals(expectedMap.put(key, value), map.put(key, value));
+            });
+            expectedMap.keySet().stream().limit(500).forEach(key -> assertEquals(expectedMap.get(key), map.remove(key)));
+            expectedMap.keySet().stream().limit(500).forEach(key -> assertNull(map.remove(key)));
+            expectedMap.keySet().removeIf(key -> map.get(key) == null);
+            expectedMap.keySet().stream().limit(500).forEach(key -> {
+                expectedMap.put(key, "replaced");
+                map.put(key, "replaced");
+            });
+
+            copy(directory, crashed);
+        }
+
+        try (DurableLargeHashMap<String, String> map = DurableLargeHashMap.open(crashed, STRING_SERIALIZER, STRING_SERIALIZER)) {
+            assertEquals(expectedMap.size(), map.size());
+            expectedMap.forEach((key, value) -> assertEquals(value, map.get(key)));
+        } finally {
+            delete(directory);
+            delete(crashed);
+        }
+    }
+
+    @Test
+    void testReplaysClear() throws IOException {
+        Path directory = Files.createTempDirectory("durable");
+        try {
+            try (DurableLargeHashMap<Integer, Integer> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, IntSerializer.INSTANCE, FsyncPolicy.NONE)) {
+                IntStream.range(0, 100).forEach(i -> map.put(i, i));
+                map.clear();
+                map.put(7, 49);
+            }
+            try (DurableLargeHashMap<Integer, Integer> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, IntSerializer.INSTANCE)) {
+                assertEquals(1, map.size());
+                assertEquals(49, map.get(7).intValue());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testReplaysRecordsBiggerThanBuffers() throws IOException {
+        Path directory = Files.createTempDirectory("durable");
+        StringBuilder builder = new StringBuilder();
+        IntStream.range(0, 3 << 20).forEach(i -> builder.append((char) ('a' + i % 26)));
+        String value = builder.toString();
+        try {
+            try (DurableLargeHashMap<Integer, String> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, STRING_SERIALIZER)) {
+                IntStream.range(0, 3).forEach(i -> map.put(i, i + value));
+            }
+            try (DurableLargeHashMap<Integer, String> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, STRING_SERIALIZER)) {
+                assertEquals(3, map.size());
+                IntStream.range(0, 3).forEach(i -> assertEquals(i + value, map.get(i)));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testCheckpointEmptiesLog() throws IOException {
+        Path directory = Files.createTempDirectory("durable");
+        Path crashed = Files.createTempDirectory("crashed");
+        try {
+            try (DurableLargeHashMap<Long, String> map = DurableLargeHashMap.open(directory, LongSerializer.INSTANCE, STRING_SERIALIZER)) {
+                LongStream.range(0, 3000).forEach(i -> map.put(i, "value" + i));
+                long logSize = Files.size(directory.resolve("log"));
+                map.checkpoint();
+                assertTrue(Files.size(directory.resolve("log")) < logSize);
+                assertTrue(Files.exists(directory.resolve("snapshot")));
+
+                LongStream.range(0, 1000).forEach(map::remove);
+                map.put(-1L, "after checkpoint");
+                copy(directory, crashed);
+            }
+
+            try (DurableLargeHashMap<Long, String> map = DurableLargeHashMap.open(crashed, LongSerializer.INSTANCE, STRING_SERIALIZER)) {
+                assertEquals(2001, map.size());
+                assertNull(map.get(999L));
+                assertEquals("value1000", map.get(1000L));
+                assertEquals("after checkpoint", map.get(-1L));
+            }
+
+            try (DurableLargeHashMap<Long, String> map = DurableLargeHashMap.open(directory, LongSerializer.INSTANCE, STRING_SERIALIZER);
+                 DurableLargeHashMap<Long, String> copy = DurableLargeHashMap.open(crashed, LongSerializer.INSTANCE, STRING_SERIALIZER)) {
+                assertEquals(map, copy);
+                assertEquals(map.hashCode(), copy.hashCode());
+                assertEquals(map.toString(), copy.toString());
+            }
+        } finally {
+            delete(directory);
+            delete(crashed);
+        }
+    }
+
+    @Test
+    void testCheckpointEmptiesLogOnlyAfterSnapshotIsReplaced() throws IOException {
+        Path directory = Files.createTempDirectory("durable");
+        Path crashed = Files.createTempDirectory("crashed");
+        Path temp = directory.resolve("snapshot.tmp");
+        try {
+            try (DurableLargeHashMap<Integer, Integer> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, IntSerializer.INSTANCE)) {
+                IntStream.range(0, 100).forEach(i -> map.put(i, i));
+                map.checkpoint();
+                IntStream.range(100, 200).forEach(i -> map.put(i, i));
+                long logSize = Files.size(directory.resolve("log"));
+
+                Files.createDirectory(temp);
+                assertThrows(IOException.class, map::checkpoint);
+                assertEquals(logSize, Files.size(directory.resolve("log")));
+                Files.delete(temp);
+                copy(directory, crashed);
+
+                map.checkpoint();
+                assertFalse(Files.exists(temp));
+                assertTrue(Files.size(directory.resolve("log")) < logSize);
+            }
+
+            try (DurableLargeHashMap<Integer, Integer> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, IntSerializer.INSTANCE);
+                 DurableLargeHashMap<Integer, Integer> copy = DurableLargeHashMap.open(crashed, IntSerializer.INSTANCE, IntSerializer.INSTANCE)) {
+                assertEquals(200, map.size());
+                assertEquals(map, copy);
+            }
+        } finally {
+            delete(directory);
+            delete(crashed);
+        }
+    }
+
+    @Test
+    void testFailedLoggingLeavesMapUnchanged() throws IOException {
+        Path directory = Files.createTempDirectory("durable");
+        FailOnceSerializer failOnce = new FailOnceSerializer();
+        try {
+            try (DurableLargeHashMap<String, String> map = DurableLargeHashMap.open(directory, STRING_SERIALIZER, failOnce)) {
+                map.put("key", "value");
+                failOnce.armed = true;
+                assertThrows(IllegalStateException.class, () -> map.put("key", "other"));
+                assertEquals("value", map.get("key"));
+                assertEquals(1, map.size());
+
+                failOnce.armed = true;
+                assertThrows(IllegalStateException.class, () -> map.put("new", "other"));
+                assertNull(map.get("new"));
+                assertEquals(1, map.size());
+            }
+
+            try (DurableLargeHashMap<String, String> map = DurableLargeHashMap.open(directory, STRING_SERIALIZER, failOnce)) {
+                assertEquals(1, map.size());
+                assertEquals("value", map.get("key"));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testDropsTornTail() throws IOException {
+        Path directory = Files.createTempDirectory("durable");
+        try {
+            try (DurableLargeHashMap<Integer, String> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, STRING_SERIALIZER)) {
+                IntStream.range(0, 10).forEach(i -> map.put(i, "value" + i));
+            }
+            Path log = directory.resolve("log");
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 3);
+            }
+            long tornSize = Files.size(log);
+
+            try (DurableLargeHashMap<Integer, String> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, STRING_SERIALIZER)) {
+                assertEquals(9, map.size());
+                assertNull(map.get(9));
+                assertTrue(Files.size(log) < tornSize);
+                map.put(10, "value10");
+            }
+
+            try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap("garbage after the last record".getBytes(UTF_8)));
+            }
+            try (DurableLargeHashMap<Integer, String> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, STRING_SERIALIZER)) {
+                assertEquals(10, map.size());
+                assertEquals("value10", map.get(10));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testConcurrentWritersWithEveryPolicy() throws Exception {
+        for (FsyncPolicy policy : new FsyncPolicy[]{FsyncPolicy.PER_OPERATION, FsyncPolicy.every(5, TimeUnit.MILLISECONDS), FsyncPolicy.NONE}) {
+            Path directory = Files.createTempDirectory("durable");
+            Path crashed = Files.createTempDirectory("crashed");
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            try {
+                try (DurableLargeHashMap<Integer, Integer> map = DurableLargeHashMap.open(directory, IntSerializer.INSTANCE, IntSerializer.INSTANCE, policy)) {
+                    Thread[] writers = new Thread[8];
+                    for (int t = 0; t < writers.length; t++) {
+                        int writer = t;
+                        writers[t] = new Thread(() -> {
+                            try {
+                                for (int i = 0; i < 500; i++) {
+                                    map.put(writer * 1000 + i, i);
+                                    if (i % 5 == 0) map.remove(writer * 1000 + i);
+                                }
+                            } catch (Throwable e) {
+                                failure.compareAndSet(null, e);
+                            }
+                        });
+                        writers[t].start();
+                    }
+                    for (Thread thread : writers) {
+                        thread.join();
+                    }
+                    assertNull(failure.get());
+                    assertEquals(8 * 400, map.size());
+                    copy(directory, crashed);
+                }
+
+                try (DurableLargeHashMap<Integer, Integer> map = DurableLargeHashMap.open(crashed, IntSerializer.INSTANCE, IntSerializer.INSTANCE, policy)) {
+                    assertEquals(8 * 400, map.size());
+                    IntStream.range(0, 8).forEach(writer -> IntStream.range(0, 500).forEach(i -> assertEquals(i % 5 == 0 ? null : i, map.get(writer * 1000 + i))));
+                }
+            } finally {
+                delete(directory);
+                delete(crashed);
+            }
+        }
+    }
+
+    @Test
+    void testThrowsIfNotLogOrClosed() throws IOException {
+        Path directory = Files.createTempDirectory("durable");
+        try {
+            Files.write(directory.resolve("log"), "not a write ahead log".getBytes(UTF_8));
+            assertThrows(IOException.class, () -> DurableLargeHashMap.open(directory, STRING_SERIALIZER, STRING_SERIALIZER));
+            Files.delete(directory.resolve("log"));
+
+            assertThrows(IllegalArgumentException.class, () -> FsyncPolicy.every(0, TimeUnit.SECONDS));
+            assertThrows(NullPointerException.class, () -> DurableLargeHashMap.open(directory, STRING_SERIALIZER, STRING_SERIALIZER, null));
+
+            DurableLargeHashMap<String, String> map = DurableLargeHashMap.open(directory, STRING_SERIALIZER, STRING_SERIALIZER, FsyncPolicy.every(1, TimeUnit.SECONDS));
+            map.put("key", "value");
+            map.close();
+
+            assertThrows(IllegalStateException.class, () -> map.put("key", "value"));
+            assertThrows(IllegalStateException.class, () -> map.remove("key"));
+            assertThrows(IllegalStateException.class, map::clear);
+            assertThrows(IllegalStateException.class, map::checkpoint);
+            assertThrows(IllegalStateException.class, map::close);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static final class FailOnceSerializer implements ObjectSerializer<String> {
+
+        private boolean armed;
+
+        @Override
+        public void serialize(MemoryWriter writer, String object) {
+            if (armed) {
+                armed = false;
+                throw new IllegalStateException("Serializer failed");
+            }
+            STRING_SERIALIZER.serialize(writer, object);
+        }
+
+        @Override
+        public String deserialize(MemoryReader reader) {
+            return STRING_SERIALIZER.deserialize(reader);
+        }
+
+        @Override
+        public int sizeInBytes(String object) {
+            return STRING_SERIALIZER.sizeInBytes(object);
+        }
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        try (Stream<Path> files = Files.list(source)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EntryListTest {
+
+    private static final int ENTRIES = 10;
+
+    private long entries;
+
+    @BeforeEach
+    void allocate() {
+        entries = UnsafeUtils.allocate((long) ENTRIES * EntryList.METADATA_SIZE);
+    }
+
+    @AfterEach
+    void free() {
+        UnsafeUtils.free(entries);
+    }
+
+    @Test
+    void testLinksInOrder() {
+        EntryList list = new EntryList();
+        assertEquals(0, list.head());
+        assertEquals(0, list.tail());
+
+        list.linkLast(entry(1));
+        list.linkLast(entry(2));
+        list.linkFirst(entry(0));
+        list.linkAfter(entry(2), entry(4));
+        list.linkAfter(entry(2), entry(3));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), forward(list));
+        assertEquals(Arrays.asList(4, 3, 2, 1, 0), backward(list));
+
+        list.clear();
+        assertEquals(0, list.head());
+        assertEquals(0, list.tail());
+    }
+
+    @Test
+    void testUnlinkAndLinkBackInPlace() {
+        EntryList list = new EntryList();
+        for (int i = 0; i < ENTRIES; i++) {
+            list.linkLast(entry(i));
+        }
+
+        for (int i : new int[]{0, 5, ENTRIES - 1}) {
+            long previousEntry = EntryList.previous(entry(i));
+            list.unlink(entry(i));
+            assertEquals(ENTRIES - 1, forward(list).size());
+            assertEquals(ENTRIES - 1, backward(list).size());
+
+            list.linkAfter(previousEntry, entry(i));
+            assertEquals(ENTRIES, forward(list).size());
+            assertEquals(i, (int) forward(list).get(i));
+        }
+    }
+
+    @Test
+    void testHash() {
+        for (int i = 0; i < ENTRIES; i++) {
+            EntryList.putHash(entry(i), i * 31);
+        }
+
+        EntryList list = new EntryList();
+        for (int i = 0; i < ENTRIES; i++) {
+            list.linkLast(entry(i));
+            assertEquals(i * 31, EntryList.hash(entry(i)));
+        }
+    }
+
+    private List<Integer> forward(EntryList list) {
+        List<Integer> indexes = new ArrayList<>();
+        for (long entryPointer = list.head(); entryPointer != 0; entryPointer = EntryList.next(entryPointer)) {
+            indexes.add(index(entryPointer));
+        }
+        return indexes;
+    }
+
+    private List<Integer> backward(EntryList list) {
+        List<Integer> indexes = new ArrayList<>();
+        for (long entryPointer = list.tail(); entryPointer != 0; entryPointer = EntryList.previous(entryPointer)) {
+            indexes.add(index(entryPointer));
+        }
+        return indexes;
+    }
+
+    private long entry(int index) {
+        return entries + (long) index * EntryList.METADATA_SIZE;
+    }
+
+    private int index(long entryPointer) {
+        return (int) ((entryPointer - entries) / EntryList.METADATA_SIZE);
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.ObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+final class FailingStringSerializer implements ObjectSerializer<String> {
+
+    static final String FAIL_SIZE = "fail-size";
+    static final String FAIL_SERIALIZE = "fail-serialize";
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+
+    @Override
+    public void serialize(MemoryWriter writer, String object) {
+        if (object.equals(FAIL_SERIALIZE)) throw new IllegalStateException("Serializer failed");
+        STRING_SERIALIZER.serialize(writer, object);
+    }
+
+    @Override
+    public String deserialize(MemoryReader reader) {
+        return STRING_SERIALIZER.deserialize(reader);
+    }
+
+    @Override
+    public int sizeInBytes(String object) {
+        if (object.equals(FAIL_SIZE)) throw new IllegalStateException("Serializer failed");
+        return STRING_SERIALIZER.sizeInBytes(object);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlyweightTest {
+
+    @Test
+    void testThrowsIfNegativeSize() {
+        assertThrows(IllegalArgumentException.class, () -> new LongView(-1));
+    }
+
+    @Test
+    void testAllTypes() {
+        try (LargeHashMap<Integer, Long> map = LargeHashMap.of(IntSerializer.INSTANCE, LongSerializer.INSTANCE)) {
+            map.put(1, 0L);
+            LongView view = new LongView(Long.BYTES);
+
+            assertTrue(map.update(1, view, LongView::writeAndReadAll));
+            assertEquals(Long.MIN_VALUE, (long) map.get(1));
+        }
+    }
+
+    @Test
+    void testThrowsIfOutOfBounds() {
+        try (LargeHashMap<Integer, Long> map = LargeHashMap.of(IntSerializer.INSTANCE, LongSerializer.INSTANCE)) {
+            map.put(1, 0L);
+            LongView view = new LongView(Integer.BYTES);
+
+            assertThrows(IndexOutOfBoundsException.class, () -> map.read(1, view, v -> v.getLong(0)));
+            assertThrows(IndexOutOfBoundsException.class, () -> map.update(1, view, v -> v.putInt(1, 0)));
+            assertThrows(IndexOutOfBoundsException.class, () -> map.update(1, view, v -> v.putInt(-1, 0)));
+            assertEquals(0, (int) map.read(1, view, v -> v.getInt(0)));
+        }
+    }
+
+    @Test
+    void testThrowsIfWrittenInsideRead() {
+        try (LargeHashMap<Integer, Long> map = LargeHashMap.of(IntSerializer.INSTANCE, LongSerializer.INSTANCE)) {
+            map.put(1, 0L);
+            LongView view = new LongView(Long.BYTES);
+
+            assertThrows(IllegalStateException.class, () -> map.read(1, view, v -> {
+                v.putLong(0, 1L);
+                return null;
+            }));
+            assertThrows(IllegalStateException.class, () -> map.read(1, view, v -> {
+                v.writeAndReadAll();
+                return null;
+            }));
+            assertEquals(0L, (long) map.get(1));
+            assertTrue(map.update(1, view, v -> v.putLong(0, 1L)));
+            assertEquals(1L, (long) map.read(1, view, v -> v.getLong(0)));
+        }
+    }
+
+    private static final class LongView extends Flyweight {
+
+        LongView(int sizeInBytes) {
+            super(sizeInBytes);
+        }
+
+        void writeAndReadAll() {
+            putByte(0, (byte) 1);
+            assertEquals((byte) 1, getByte(0));
+            putShort(0, (short) 2);
+            assertEquals((short) 2, getShort(0));
+            putChar(0, 'c');
+            assertEquals('c', getChar(0));
+            putInt(0, 4);
+            assertEquals(4, getInt(0));
+            putFloat(0, 5f);
+            assertEquals(5f, getFloat(0));
+            putDouble(0, 6d);
+            assertEquals(6d, getDouble(0));
+            putLong(0, Long.MIN_VALUE);
+            assertEquals(Long.MIN_VALUE, getLong(0));
+        }
+    }
+}
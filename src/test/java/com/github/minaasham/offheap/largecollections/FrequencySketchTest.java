@@ -0,0 +1,81 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FrequencySketchTest {
+
+    @Test
+    void testIncrement() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.increment(1);
+        assertEquals(0, sketch.frequency(1));
+
+        sketch.ensureCapacity(512);
+        try {
+            sketch.increment(1);
+            sketch.increment(1);
+            sketch.increment(2);
+            assertEquals(2, sketch.frequency(1));
+            assertEquals(1, sketch.frequency(2));
+            assertEquals(0, sketch.frequency(3));
+        } finally {
+            sketch.close();
+        }
+    }
+
+    @Test
+    void testSaturates() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(512);
+        try {
+            for (int i = 0; i < 20; i++) {
+                sketch.increment(1);
+            }
+            assertEquals(15, sketch.frequency(1));
+        } finally {
+            sketch.close();
+        }
+    }
+
+    @Test
+    void testReset() {
+        FrequencySketch sketch = new FrequencySketch();
+        sketch.ensureCapacity(64);
+        try {
+            for (int i = 0; i < 10; i++) {
+                sketch.increment(-1);
+            }
+            for (int i = 0; i < 10 * 64; i++) {
+                sketch.increment(i);
+            }
+            assertTrue(sketch.frequency(-1) <= 5);
+        } finally {
+            sketch.close();
+        }
+    }
+
+    @Test
+    void testEnsureCapacity() {
+        FrequencySketch sketch = new FrequencySketch();
+        assertEquals(0, sketch.tableBytes());
+        try {
+            sketch.ensureCapacity(100);
+            assertEquals(128 * Long.BYTES, sketch.tableBytes());
+            sketch.increment(1);
+
+            sketch.ensureCapacity(50);
+            assertEquals(128 * Long.BYTES, sketch.tableBytes());
+            assertEquals(1, sketch.frequency(1));
+
+            sketch.ensureCapacity(1000);
+            assertEquals(1024 * Long.BYTES, sketch.tableBytes());
+            assertEquals(0, sketch.frequency(1));
+        } finally {
+            sketch.close();
+        }
+        assertEquals(0, sketch.tableBytes());
+    }
+}
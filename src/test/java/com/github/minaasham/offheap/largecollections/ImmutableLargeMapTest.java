@@ -0,0 +1,281 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.randomString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImmutableLargeMapTest {
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+    private static final int CHUNK_BITS = 12;
+
+    @Test
+    void testThrowsIfOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER, 11));
+        assertThrows(IllegalArgumentException.class, () -> ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER, 31));
+        assertThrows(NullPointerException.class, () -> ImmutableLargeMap.builder(null, STRING_SERIALIZER));
+        assertThrows(NullPointerException.class, () -> ImmutableLargeMap.builder(STRING_SERIALIZER, null));
+    }
+
+    @Test
+    void testBuildAndGet() {
+        Map<String, String> expectedMap = new HashMap<>();
+        IntStream.range(0, 20000).forEach(ignored -> expectedMap.put(randomString(), randomString()));
+
+        ImmutableLargeMap.Builder<String, String> builder = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER);
+        expectedMap.forEach(builder::put);
+        try (ImmutableLargeMap<String, String> map = builder.build()) {
+            assertEquals(expectedMap.size(), map.size());
+            expectedMap.forEach((key, value) -> assertEquals(value, map.get(key)));
+            IntStream.range(0, 20000).mapToObj(ignored -> randomString()).forEach(key -> assertEquals(expectedMap.get(key), map.get(key)));
+        }
+    }
+
+    @Test
+    void testFixedSizeEntriesAcrossChunks() {
+        ImmutableLargeMap.Builder<Integer, Long> builder = ImmutableLargeMap.builder(IntSerializer.INSTANCE, LongSerializer.INSTANCE, CHUNK_BITS);
+        IntStream.range(0, 100000).forEach(i -> builder.put(i * 7, i * 3L));
+        try (ImmutableLargeMap<Integer, Long> map = builder.build()) {
+            assertEquals(100000, map.size());
+            IntStream.range(0, 100000).forEach(i -> assertEquals(i * 3L, map.get(i * 7).longValue()));
+            IntStream.range(0, 1000).forEach(i -> assertNull(map.get(i * 7 + 1)));
+
+            MemoryUsage memoryUsage = map.memoryUsage();
+            assertEquals(100000 * (Integer.BYTES + Long.BYTES), memoryUsage.entryBytes());
+            assertTrue(memoryUsage.slotTableBytes() < 100000 * 2);
+        }
+    }
+
+    @Test
+    void testEmptyAndSingleEntry() {
+        try (ImmutableLargeMap<String, String> map = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER).build()) {
+            assertEquals(0, map.size());
+            assertNull(map.get("key"));
+            assertFalse(map.iterator().hasNext());
+        }
+
+        try (ImmutableLargeMap<String, String> map = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER).put("key", "value").build()) {
+            assertEquals(1, map.size());
+            assertEquals("value", map.get("key"));
+            assertNull(map.get("other"));
+            assertEquals("{" + System.lineSeparator() + "  key=value" + System.lineSeparator() + "}", map.toString());
+        }
+    }
+
+    @Test
+    void testThrowsIfDuplicateKey() {
+        ImmutableLargeMap.Builder<String, String> builder = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER);
+        IntStream.range(0, 1000).forEach(i -> builder.put("key" + i, "value"));
+        builder.put("key500", "other");
+        assertThrows(IllegalArgumentException.class, builder::build);
+        assertThrows(IllegalStateException.class, () -> builder.put("key", "value"));
+    }
+
+    @Test
+    void testThrowsIfEntryLargerThanChunk() {
+        try (ImmutableLargeMap.Builder<String, String> builder = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER, CHUNK_BITS)) {
+            char[] chars = new char[5000];
+            Arrays.fill(chars, 'a');
+            assertThrows(IllegalArgumentException.class, () -> builder.put("key", new String(chars)));
+            builder.put("key", "value");
+            builder.close();
+            assertThrows(IllegalStateException.class, builder::build);
+        }
+    }
+
+    @Test
+    void testThrowsIfModified() {
+        try (ImmutableLargeMap<String, String> map = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER).put("key", "value").build()) {
+            assertThrows(UnsupportedOperationException.class, () -> map.put("key", "other"));
+            assertThrows(UnsupportedOperationException.class, () -> map.remove("key"));
+            assertThrows(UnsupportedOperationException.class, map::clear);
+            assertEquals("value", map.get("key"));
+        }
+    }
+
+    @Test
+    void testThrowsIfClosed() {
+        ImmutableLargeMap<String, String> map = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER).put("key", "value").build();
+        Iterator<Entry<String, String>> iterator = map.iterator();
+        LargeMapCursor cursor = map.cursor();
+        assertTrue(cursor.next());
+        map.close();
+
+        assertThrows(IllegalStateException.class, () -> map.get("key"));
+        assertThrows(IllegalStateException.class, map::size);
+        assertThrows(IllegalStateException.class, map::memoryUsage);
+        assertThrows(IllegalStateException.class, map::close);
+        assertThrows(IllegalStateException.class, iterator::hasNext);
+        assertThrows(IllegalStateException.class, cursor::next);
+    }
+
+    @Test
+    void testMemoryUsageIsRecorded() {
+        long before = MemoryUsage.total().totalBytes();
+        ImmutableLargeMap<Integer, Integer> map = ImmutableLargeMap.builder(IntSerializer.INSTANCE, IntSerializer.INSTANCE).put(1, 2).build();
+        assertEquals(before + map.memoryUsage().totalBytes(), MemoryUsage.total().totalBytes());
+        map.close();
+        assertEquals(before, MemoryUsage.total().totalBytes());
+    }
+
+    @Test
+    void testIteratorAndCursor() {
+        ImmutableLargeMap.Builder<Integer, Integer> builder = ImmutableLargeMap.builder(IntSerializer.INSTANCE, IntSerializer.INSTANCE);
+        IntStream.range(0, 3000).forEach(i -> builder.put(i, i * 3));
+        try (ImmutableLargeMap<Integer, Integer> map = builder.build()) {
+            Map<Integer, Integer> iterated = new HashMap<>();
+            map.forEach(entry -> iterated.put(entry.getKey(), entry.getValue()));
+            assertEquals(3000, iterated.size());
+            iterated.forEach((key, value) -> assertEquals(key * 3, value.intValue()));
+
+            Map<Integer, Integer> cursored = new HashMap<>();
+            try (LargeMapCursor cursor = map.cursor()) {
+                assertThrows(IllegalStateException.class, cursor::key);
+                while (cursor.next()) {
+                    assertEquals(Integer.BYTES, cursor.keySize());
+                    assertEquals(Integer.BYTES, cursor.valueSize());
+                    cursored.put(IntSerializer.INSTANCE.deserialize(cursor.key()), IntSerializer.INSTANCE.deserialize(cursor.value()));
+                }
+                assertFalse(cursor.next());
+            }
+            assertEquals(iterated, cursored);
+
+            Iterator<Entry<Integer, Integer>> iterator = map.iterator();
+            iterator.forEachRemaining(entry -> assertEquals(entry.getKey() * 3, entry.getValue().intValue()));
+            assertThrows(NoSuchElementException.class, iterator::next);
+        }
+    }
+
+    @Test
+    void testWriteToAndOpen() throws IOException {
+        Path path = Files.createTempFile("immutable", ".map");
+        Map<String, String> expectedMap = new HashMap<>();
+        IntStream.range(0, 20000).forEach(ignored -> expectedMap.put(randomString(), randomString()));
+        try {
+            ImmutableLargeMap.Builder<String, String> builder = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER, CHUNK_BITS);
+            expectedMap.forEach(builder::put);
+            try (ImmutableLargeMap<String, String> built = builder.build()) {
+                built.writeTo(path);
+
+                try (ImmutableLargeMap<String, String> map = ImmutableLargeMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+                    assertEquals(expectedMap.size(), map.size());
+                    expectedMap.forEach((key, value) -> assertEquals(value, map.get(key)));
+                    IntStream.range(0, 1000).mapToObj(ignored -> randomString()).forEach(key -> assertEquals(expectedMap.get(key), map.get(key)));
+                    assertEquals(built, map);
+                    assertEquals(built.hashCode(), map.hashCode());
+                    assertEquals(Files.size(path), map.memoryUsage().totalBytes());
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testPutAllAndBuildToFile() throws IOException {
+        Path path = Files.createTempFile("immutable", ".map");
+        Map<String, String> expectedMap = new HashMap<>();
+        try (LargeMap<String, String> source = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER)) {
+            IntStream.range(0, 20000).forEach(ignored -> {
+                String key = randomString();
+                String value = randomString();
+                expectedMap.put(key, value);
+                source.put(key, value);
+            });
+
+            long before = MemoryUsage.total().totalBytes();
+            try (ImmutableLargeMap<String, String> map = ImmutableLargeMap.builder(STRING_SERIALIZER, STRING_SERIALIZER).putAll(source).build(path)) {
+                assertEquals(before, MemoryUsage.total().totalBytes());
+                assertEquals(Files.size(path), map.memoryUsage().totalBytes());
+                assertEquals(expectedMap.size(), map.size());
+                expectedMap.forEach((key, value) -> assertEquals(value, map.get(key)));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testOpenSameFileMoreThanOnce() throws IOException {
+        Path path = Files.createTempFile("immutable", ".map");
+        try {
+            ImmutableLargeMap.Builder<Integer, String> builder = ImmutableLargeMap.builder(IntSerializer.INSTANCE, STRING_SERIALIZER, CHUNK_BITS);
+            IntStream.range(0, 10000).forEach(i -> builder.put(i, "value" + i));
+            builder.build(path).close();
+
+            long before = MemoryUsage.total().totalBytes();
+            try (ImmutableLargeMap<Integer, String> first = ImmutableLargeMap.open(path, IntSerializer.INSTANCE, STRING_SERIALIZER);
+                 ImmutableLargeMap<Integer, String> second = ImmutableLargeMap.open(path, IntSerializer.INSTANCE, STRING_SERIALIZER)) {
+                assertEquals(before, MemoryUsage.total().totalBytes());
+                IntStream.range(0, 10000).forEach(i -> {
+                    assertEquals("value" + i, first.get(i));
+                    assertEquals("value" + i, second.get(i));
+                });
+                assertEquals(first, second);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testOpenFixedSize() throws IOException {
+        Path path = Files.createTempFile("immutable", ".map");
+        try {
+            ImmutableLargeMap.Builder<Integer, Long> builder = ImmutableLargeMap.builder(IntSerializer.INSTANCE, LongSerializer.INSTANCE, CHUNK_BITS);
+            IntStream.range(0, 10000).forEach(i -> builder.put(i, (long) -i));
+            try (ImmutableLargeMap<Integer, Long> built = builder.build()) {
+                built.writeTo(path);
+            }
+
+            try (ImmutableLargeMap<Integer, Long> map = ImmutableLargeMap.open(path, IntSerializer.INSTANCE, LongSerializer.INSTANCE)) {
+                assertEquals(10000, map.size());
+                IntStream.range(0, 10000).forEach(i -> assertEquals(-i, map.get(i).longValue()));
+                assertNull(map.get(10000));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testOpenThrowsIfInvalid() throws IOException {
+        Path path = Files.createTempFile("immutable", ".map");
+        try {
+            Files.write(path, "not a map file".getBytes(UTF_8));
+            assertThrows(IOException.class, () -> ImmutableLargeMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER));
+
+            try (ImmutableLargeMap<String, Long> built = ImmutableLargeMap.builder(STRING_SERIALIZER, LongSerializer.INSTANCE).put("key", 1L).build()) {
+                built.writeTo(path);
+            }
+            assertThrows(IllegalArgumentException.class, () -> ImmutableLargeMap.open(path, STRING_SERIALIZER, IntSerializer.INSTANCE));
+            assertThrows(IllegalArgumentException.class, () -> ImmutableLargeMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER));
+
+            byte[] bytes = Files.readAllBytes(path);
+            Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+            assertThrows(IOException.class, () -> ImmutableLargeMap.open(path, STRING_SERIALIZER, LongSerializer.INSTANCE));
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.github.minaasham.offheap.largecollections;
+
+final class IntPairView extends Flyweight {
+
+    IntPairView() {
+        super(2 * Integer.BYTES);
+    }
+
+    int getFirst() {
+        return getInt(0);
+    }
+
+    void setFirst(int value) {
+        putInt(0, value);
+    }
+
+    int getSecond() {
+        return getInt(Integer.BYTES);
+    }
+
+    void setSecond(int value) {
+        putInt(Integer.BYTES, value);
+    }
+}
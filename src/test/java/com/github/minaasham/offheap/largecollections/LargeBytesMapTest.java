@@ -0,0 +1,142 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.IntStream;
+
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.randomString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LargeBytesMapTest {
+
+    @Test
+    void testHeapBuffers() {
+        try (LargeBytesMap map = LargeBytesMap.of(5)) {
+            assertNull(map.put(bytes("key1"), bytes("value1")));
+            assertNull(map.put(bytes("key2"), bytes("value2")));
+
+            assertEquals(bytes("value1"), map.get(bytes("key1")));
+            assertEquals(bytes("value2"), map.put(bytes("key2"), bytes("value22")));
+            assertEquals(bytes("value22"), map.remove(bytes("key2")));
+            assertNull(map.get(bytes("key2")));
+            assertEquals(1, map.size());
+        }
+    }
+
+    @Test
+    void testDirectAndSlicedBuffers() {
+        try (LargeBytesMap map = LargeBytesMap.of(5)) {
+            ByteBuffer key = ByteBuffer.allocateDirect(16);
+            key.put(bytes("__key1")).flip().position(2);
+            ByteBuffer value = ByteBuffer.wrap("__value1".getBytes(UTF_8), 2, 6).slice();
+
+            map.put(key, value);
+
+            assertEquals(2, key.position());
+            assertEquals(bytes("value1"), map.get(bytes("key1")));
+            assertEquals(bytes("value1"), map.get(bytes("key1").asReadOnlyBuffer()));
+        }
+    }
+
+    @Test
+    void testAddresses() {
+        long buffer = UnsafeUtils.allocate(64);
+        try (LargeBytesMap map = LargeBytesMap.of()) {
+            UnsafeUtils.putLong(buffer, 42L);
+            UnsafeUtils.putLong(buffer + Long.BYTES, 84L);
+
+            assertFalse(map.put(buffer, Long.BYTES, buffer + Long.BYTES, Long.BYTES));
+            assertTrue(map.put(buffer, Long.BYTES, buffer + Long.BYTES, Long.BYTES));
+
+            assertEquals(Long.BYTES, map.get(buffer, Long.BYTES, buffer + 2 * Long.BYTES, 32));
+            assertEquals(84L, UnsafeUtils.getLong(buffer + 2 * Long.BYTES));
+            assertEquals(Long.BYTES, (int) map.view(buffer, Long.BYTES, (address, size) -> size));
+            assertEquals(84L, (long) map.view(ByteBuffer.allocate(Long.BYTES).order(java.nio.ByteOrder.nativeOrder()).putLong(0, 42L), (address, size) -> UnsafeUtils.getLong(address)));
+
+            assertTrue(map.remove(buffer, Long.BYTES));
+            assertFalse(map.remove(buffer, Long.BYTES));
+            assertEquals(-1, map.get(buffer, Long.BYTES, buffer + 2 * Long.BYTES, 32));
+            assertNull(map.view(buffer, Long.BYTES, (address, size) -> size));
+        } finally {
+            UnsafeUtils.free(buffer);
+        }
+    }
+
+    @Test
+    void testMemoryUsage() {
+        try (LargeBytesMap map = LargeBytesMap.of(5)) {
+            map.put(bytes("key1"), bytes("value1"));
+
+            assertEquals(5 * Long.BYTES, map.memoryUsage().slotTableBytes());
+            assertEquals(1 + 4 + 1 + 6, map.memoryUsage().entryBytes());
+        }
+    }
+
+    @Test
+    void testMemoryBudget() {
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(1 << 20);
+        try (LargeBytesMap map = LargeBytesMap.of(0.5, 5, budget)) {
+            map.put(bytes("key1"), bytes("value1"));
+
+            assertEquals(map.memoryUsage().totalBytes(), budget.usedBytes());
+        }
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void testEmptyKeyAndValue() {
+        try (LargeBytesMap map = LargeBytesMap.of()) {
+            map.put(ByteBuffer.allocate(0), ByteBuffer.allocate(0));
+
+            assertEquals(ByteBuffer.allocate(0), map.get(ByteBuffer.allocate(0)));
+            assertEquals(1, map.size());
+        }
+    }
+
+    @Test
+    void testIteratorAndEquals() {
+        try (LargeBytesMap map1 = LargeBytesMap.of(5);
+             LargeBytesMap map2 = LargeBytesMap.of(5)) {
+            map1.put(bytes("key1"), bytes("value1"));
+            map2.put(bytes("key1"), bytes("value1"));
+
+            for (Entry<ByteBuffer, ByteBuffer> entry : map1) {
+                assertEquals(bytes("key1"), entry.getKey());
+                assertEquals(bytes("value1"), entry.getValue());
+            }
+            assertEquals(map1, map2);
+            assertEquals(map1.hashCode(), map2.hashCode());
+            assertTrue(map1.toString().contains("6b657931=76616c756531"));
+        }
+    }
+
+    @Test
+    void testStress() {
+        try (LargeBytesMap map = LargeBytesMap.of(5)) {
+            Map<ByteBuffer, ByteBuffer> expectedMap = new HashMap<>();
+
+            IntStream.range(0, 10000).forEach(ignored -> {
+                ByteBuffer key = bytes(randomString());
+                ByteBuffer value = bytes(randomString());
+                assertEquals(expectedMap.put(key, value), map.put(key, value));
+            });
+
+            IntStream.range(0, 10000).forEach(ignored -> {
+                ByteBuffer key = bytes(randomString());
+                assertEquals(expectedMap.remove(key), map.remove(key));
+            });
+
+            assertEquals(expectedMap.size(), map.size());
+            expectedMap.forEach((key, value) -> assertEquals(value, map.get(key)));
+        }
+    }
+
+    private static ByteBuffer bytes(String string) {
+        return ByteBuffer.wrap(string.getBytes(UTF_8));
+    }
+}
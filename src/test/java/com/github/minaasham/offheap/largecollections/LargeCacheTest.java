@@ -0,0 +1,225 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LargeCacheTest {
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+
+    @Test
+    void testThrowsIfInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0));
+        assertThrows(IllegalArgumentException.class, () -> LargeCache.ofMaximumBytes(LongSerializer.INSTANCE, LongSerializer.INSTANCE, -1));
+        assertThrows(NullPointerException.class, () -> LargeCache.ofMaximumSize(null, LongSerializer.INSTANCE, 1));
+    }
+
+    @Test
+    void testGetPutRemove() {
+        try (LargeCache<String, String> cache = LargeCache.ofMaximumSize(STRING_SERIALIZER, STRING_SERIALIZER, 10)) {
+            assertNull(cache.put("key1", "value1"));
+            assertNull(cache.put("key2", "value2"));
+            assertEquals("value1", cache.get("key1"));
+            assertEquals("value2", cache.put("key2", "value22"));
+            assertEquals("value22", cache.get("key2"));
+            assertEquals("value22", cache.remove("key2"));
+            assertNull(cache.remove("key2"));
+            assertNull(cache.get("key2"));
+            assertEquals(1, cache.size());
+
+            cache.clear();
+            assertEquals(0, cache.size());
+            assertNull(cache.get("key1"));
+            assertNull(cache.put("key1", "value1"));
+            assertEquals("value1", cache.get("key1"));
+        }
+    }
+
+    @Test
+    void testMaximumSize() {
+        try (LargeCache<Long, Long> cache = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 100)) {
+            for (long i = 0; i < 1000; i++) {
+                cache.put(i, i);
+                assertTrue(cache.size() <= 100);
+            }
+
+            assertEquals(100, cache.size());
+            assertEquals(900, cache.evictionCount());
+            assertEquals(999L, (long) cache.get(999L));
+
+            int found = 0;
+            for (Entry<Long, Long> entry : cache) {
+                assertEquals(entry.getKey(), entry.getValue());
+                found++;
+            }
+            assertEquals(100, found);
+        }
+    }
+
+    @Test
+    void testMaximumBytes() {
+        try (LargeCache<String, String> cache = LargeCache.ofMaximumBytes(STRING_SERIALIZER, STRING_SERIALIZER, 4096)) {
+            for (int i = 0; i < 1000; i++) {
+                cache.put("key" + i, "value" + i);
+                assertTrue(cache.memoryUsage().entryBytes() <= 4096);
+            }
+            assertTrue(cache.evictionCount() > 0);
+            assertTrue(cache.size() > 0);
+
+            StringBuilder large = new StringBuilder();
+            for (int i = 0; i < 5000; i++) {
+                large.append('x');
+            }
+            cache.put("large", large.toString());
+            assertNull(cache.get("large"));
+            assertTrue(cache.memoryUsage().entryBytes() <= 4096);
+        }
+    }
+
+    @Test
+    void testScanResistance() {
+        try (LargeCache<Long, Long> cache = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 100)) {
+            for (long i = 0; i < 50; i++) {
+                cache.put(i, i);
+            }
+            for (int round = 0; round < 5; round++) {
+                for (long i = 0; i < 50; i++) {
+                    assertEquals(i, (long) cache.get(i));
+                }
+            }
+
+            for (long i = 1000; i < 2000; i++) {
+                cache.put(i, i);
+            }
+
+            for (long i = 0; i < 50; i++) {
+                assertEquals(i, (long) cache.get(i));
+            }
+            assertEquals(100, cache.size());
+        }
+    }
+
+    @Test
+    void testRandomOperations() {
+        Map<Long, Long> expected = new HashMap<>();
+        try (LargeCache<Long, Long> cache = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 64)) {
+            Random random = new Random(42);
+            for (int i = 0; i < 100_000; i++) {
+                long key = random.nextInt(256);
+                int operation = random.nextInt(3);
+                if (operation == 0) {
+                    cache.put(key, (long) i);
+                    expected.put(key, (long) i);
+                } else if (operation == 1) {
+                    Long value = cache.get(key);
+                    if (value != null) assertEquals(expected.get(key), value);
+                } else {
+                    cache.remove(key);
+                    expected.remove(key);
+                }
+                assertTrue(cache.size() <= 64);
+            }
+            for (Entry<Long, Long> entry : cache) {
+                assertEquals(expected.get(entry.getKey()), entry.getValue());
+            }
+        }
+    }
+
+    @Test
+    void testKeepsQueuesIfPutFails() {
+        try (LargeCache<String, String> cache = LargeCache.ofMaximumSize(STRING_SERIALIZER, new FailingStringSerializer(), 10)) {
+            cache.put("key1", "value1");
+            cache.put("key2", "value2");
+
+            assertThrows(IllegalStateException.class, () -> cache.put("key1", FailingStringSerializer.FAIL_SIZE));
+            assertEquals("value1", cache.get("key1"));
+            assertThrows(IllegalStateException.class, () -> cache.put("key2", FailingStringSerializer.FAIL_SERIALIZE));
+            assertNull(cache.get("key2"));
+            assertEquals(1, cache.size());
+
+            for (int i = 0; i < 100; i++) {
+                cache.put("other" + i, "value" + i);
+                cache.get("other" + i);
+            }
+            assertEquals(10, cache.size());
+            assertEquals(90 + 1, cache.evictionCount());
+        }
+    }
+
+    @Test
+    void testStats() {
+        try (LargeCache<Long, Long> cache = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 10)) {
+            cache.put(1L, 1L);
+            cache.get(1L);
+            cache.get(1L);
+            cache.get(2L);
+
+            assertEquals(2, cache.hitCount());
+            assertEquals(1, cache.missCount());
+            assertEquals(0, cache.evictionCount());
+        }
+    }
+
+    @Test
+    void testMemoryUsage() {
+        try (LargeCache<Long, Long> cache = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 10)) {
+            cache.put(1L, 1L);
+            MemoryUsage usage = cache.memoryUsage();
+            assertEquals(21 + 2 * Long.BYTES, usage.entryBytes());
+            assertTrue(usage.overheadBytes() > 0);
+        }
+    }
+
+    @Test
+    void testFrequencySketchSizedOnCreation() {
+        try (LargeCache<Long, Long> cache = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 10000);
+             LargeHashMap<Long, Long> map = LargeHashMap.create(LongSerializer.INSTANCE, LongSerializer.INSTANCE, LargeHashMap.DEFAULT_LOAD_FACTOR, LargeHashMap.DEFAULT_CAPACITY, false, null, 21)) {
+            assertEquals(16384 * Long.BYTES, cache.memoryUsage().overheadBytes() - map.memoryUsage().overheadBytes());
+
+            for (long i = 0; i < 10000; i++) {
+                cache.put(i, i);
+                map.put(i, i);
+            }
+            assertEquals(16384 * Long.BYTES, cache.memoryUsage().overheadBytes() - map.memoryUsage().overheadBytes());
+        }
+
+        try (LargeCache<Long, Long> cache = LargeCache.ofMaximumBytes(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 64 * 1024);
+             LargeHashMap<Long, Long> map = LargeHashMap.create(LongSerializer.INSTANCE, LongSerializer.INSTANCE, LargeHashMap.DEFAULT_LOAD_FACTOR, LargeHashMap.DEFAULT_CAPACITY, false, null, 21)) {
+            assertEquals(1024 * Long.BYTES, cache.memoryUsage().overheadBytes() - map.memoryUsage().overheadBytes());
+        }
+    }
+
+    @Test
+    void testEquals() {
+        try (LargeCache<Long, Long> first = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 10);
+             LargeCache<Long, Long> second = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 10)) {
+            first.put(1L, 1L);
+            assertNotEquals(first, second);
+            second.put(1L, 1L);
+            assertEquals(first, second);
+            assertEquals(first.hashCode(), second.hashCode());
+            assertEquals(first.toString(), second.toString());
+        }
+    }
+
+    @Test
+    void testThrowsIfClosed() {
+        LargeCache<Long, Long> cache = LargeCache.ofMaximumSize(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 10);
+        cache.close();
+        assertThrows(IllegalStateException.class, () -> cache.get(1L));
+        assertThrows(IllegalStateException.class, () -> cache.put(1L, 1L));
+    }
+}
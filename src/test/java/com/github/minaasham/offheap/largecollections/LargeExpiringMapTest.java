@@ -0,0 +1,181 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LargeExpiringMapTest {
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+    private static final long TTL = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong ticker = new AtomicLong(-TimeUnit.DAYS.toNanos(1));
+
+    @Test
+    void testThrowsIfInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> LargeExpiringMap.ofExpireAfterWrite(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> LargeExpiringMap.ofExpireAfterAccess(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 1, null));
+    }
+
+    @Test
+    void testExpireAfterWrite() {
+        try (LargeExpiringMap<String, String> map = LargeExpiringMap.create(STRING_SERIALIZER, STRING_SERIALIZER, TTL, false, ticker::get)) {
+            assertNull(map.put("key1", "value1"));
+            advance(TTL / 2);
+            assertNull(map.put("key2", "value2"));
+            assertEquals("value1", map.get("key1"));
+
+            advance(TTL / 2);
+            assertNull(map.get("key1"));
+            assertEquals("value2", map.get("key2"));
+            assertEquals(1, map.size());
+
+            assertEquals("value2", map.put("key2", "value22"));
+            advance(TTL / 2);
+            assertEquals("value22", map.get("key2"));
+            advance(TTL / 2);
+            assertNull(map.put("key2", "value222"));
+            assertEquals("value222", map.remove("key2"));
+            assertEquals(0, map.size());
+        }
+    }
+
+    @Test
+    void testExpireAfterAccess() {
+        try (LargeExpiringMap<String, String> map = LargeExpiringMap.create(STRING_SERIALIZER, STRING_SERIALIZER, TTL, true, ticker::get)) {
+            map.put("key1", "value1");
+            map.put("key2", "value2");
+            for (int i = 0; i < 10; i++) {
+                advance(TTL / 2);
+                assertEquals("value1", map.get("key1"));
+            }
+            assertNull(map.get("key2"));
+            assertEquals(1, map.size());
+
+            advance(TTL);
+            assertNull(map.get("key1"));
+        }
+    }
+
+    @Test
+    void testNeverExpires() {
+        for (boolean expireAfterAccess : new boolean[]{false, true}) {
+            try (LargeExpiringMap<String, String> map = LargeExpiringMap.create(STRING_SERIALIZER, STRING_SERIALIZER, Long.MAX_VALUE, expireAfterAccess, ticker::get)) {
+                advance(TTL);
+                map.put("key1", "value1");
+                advance(TimeUnit.DAYS.toNanos(365));
+                assertEquals("value1", map.get("key1"));
+                advance(TimeUnit.DAYS.toNanos(365));
+                assertEquals("value1", map.get("key1"));
+                assertEquals(1, map.size());
+            }
+        }
+    }
+
+    @Test
+    void testReclaimsWithoutAccess() {
+        try (LargeExpiringMap<Long, Long> map = LargeExpiringMap.create(LongSerializer.INSTANCE, LongSerializer.INSTANCE, TTL, false, ticker::get)) {
+            for (long i = 0; i < 1000; i++) {
+                map.put(i, i);
+                advance(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            assertEquals(1000, map.size());
+            long entryBytes = map.memoryUsage().entryBytes();
+
+            advance(TTL - TimeUnit.SECONDS.toNanos(5));
+            map.cleanUp();
+            long size = map.size();
+            assertTrue(size < 1000 && size > 0);
+            assertTrue(map.memoryUsage().entryBytes() < entryBytes);
+
+            advance(TTL);
+            assertEquals(0, map.size());
+            assertEquals(0, map.memoryUsage().entryBytes());
+            assertFalse(map.iterator().hasNext());
+        }
+    }
+
+    @Test
+    void testRemoveAndClear() {
+        try (LargeExpiringMap<Long, Long> map = LargeExpiringMap.create(LongSerializer.INSTANCE, LongSerializer.INSTANCE, TTL, false, ticker::get)) {
+            for (long i = 0; i < 100; i++) {
+                map.put(i, i);
+            }
+            for (long i = 0; i < 100; i += 2) {
+                assertEquals(i, (long) map.remove(i));
+            }
+            assertNull(map.remove(0L));
+
+            int found = 0;
+            for (Entry<Long, Long> entry : map) {
+                assertEquals(1, entry.getKey() % 2);
+                found++;
+            }
+            assertEquals(50, found);
+
+            map.clear();
+            assertEquals(0, map.size());
+            advance(2 * TTL);
+            map.put(1L, 1L);
+            assertEquals(1L, (long) map.get(1L));
+        }
+    }
+
+    @Test
+    void testRestoresEntryIfPutFails() {
+        try (LargeExpiringMap<String, String> map = LargeExpiringMap.create(STRING_SERIALIZER, new FailingStringSerializer(), TTL, false, ticker::get)) {
+            map.put("key1", "value1");
+            assertThrows(IllegalStateException.class, () -> map.put("key1", FailingStringSerializer.FAIL_SIZE));
+            assertEquals("value1", map.get("key1"));
+
+            map.put("key2", "value2");
+            assertThrows(IllegalStateException.class, () -> map.put("key2", FailingStringSerializer.FAIL_SERIALIZE));
+            assertNull(map.get("key2"));
+            assertEquals(1, map.size());
+
+            advance(TTL);
+            assertNull(map.get("key1"));
+            assertEquals(0, map.size());
+            assertNull(map.put("key2", "value2"));
+            assertEquals("value2", map.get("key2"));
+        }
+    }
+
+    @Test
+    void testEquals() {
+        try (LargeExpiringMap<Long, Long> first = LargeExpiringMap.create(LongSerializer.INSTANCE, LongSerializer.INSTANCE, TTL, false, ticker::get);
+             LargeExpiringMap<Long, Long> second = LargeExpiringMap.create(LongSerializer.INSTANCE, LongSerializer.INSTANCE, TTL, false, ticker::get)) {
+            first.put(1L, 1L);
+            assertNotEquals(first, second);
+            second.put(1L, 1L);
+            assertEquals(first, second);
+            assertEquals(first.hashCode(), second.hashCode());
+            assertEquals(first.toString(), second.toString());
+        }
+    }
+
+    @Test
+    void testThrowsIfClosed() {
+        LargeExpiringMap<Long, Long> map = LargeExpiringMap.ofExpireAfterWrite(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 1, TimeUnit.MINUTES);
+        map.put(1L, 1L);
+        map.close();
+        assertThrows(IllegalStateException.class, () -> map.get(1L));
+        assertThrows(IllegalStateException.class, () -> map.put(1L, 1L));
+    }
+
+    private void advance(long nanos) {
+        ticker.addAndGet(nanos);
+    }
+}
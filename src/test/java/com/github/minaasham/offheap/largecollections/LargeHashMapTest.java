@@ -1,11 +1,21 @@
 package com.github.minaasham.offheap.largecollections;
 
+import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.MemoryWriter;
+import com.github.minaasham.offheap.largecollections.serialization.SinglePassObjectSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.CompactStringSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.DoubleSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
 import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.AbstractMap.SimpleEntry;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -216,6 +226,203 @@ class LargeHashMapTest {
         }
     }
 
+    @Test
+    void testCursor() {
+        try (LargeMap<String, Integer> map = LargeHashMap.of(STRING_SERIALIZER, IntSerializer.INSTANCE, 5)) {
+            map.put("key1", 1);
+            map.put("key2", 2);
+
+            Map<String, Integer> actualMap = new HashMap<>();
+            try (LargeMapCursor cursor = map.cursor()) {
+                while (cursor.next()) {
+                    assertEquals(Integer.BYTES, cursor.valueSize());
+                    String key = STRING_SERIALIZER.deserialize(cursor.key());
+                    assertEquals(STRING_SERIALIZER.sizeInBytes(key), cursor.keySize());
+                    actualMap.put(key, IntSerializer.INSTANCE.deserialize(cursor.value()));
+                }
+                assertFalse(cursor.next());
+            }
+
+            Map<String, Integer> expectedMap = new HashMap<>();
+            expectedMap.put("key1", 1);
+            expectedMap.put("key2", 2);
+            assertEquals(expectedMap, actualMap);
+        }
+    }
+
+    @Test
+    void testCursorOverManyEntries() {
+        try (LargeMap<Integer, Integer> map = LargeHashMap.of(IntSerializer.INSTANCE, IntSerializer.INSTANCE)) {
+            IntStream.range(0, 10000).forEach(i -> map.put(i, -i));
+
+            Set<Integer> keys = new HashSet<>();
+            try (LargeMapCursor cursor = map.cursor()) {
+                while (cursor.next()) {
+                    int key = IntSerializer.INSTANCE.deserialize(cursor.key());
+                    assertEquals((Integer) (-key), IntSerializer.INSTANCE.deserialize(cursor.value()));
+                    assertTrue(keys.add(key));
+                }
+            }
+
+            assertEquals(10000, keys.size());
+            map.put(-1, 1);
+        }
+    }
+
+    @Test
+    void testCursorThrowsIfNotPositioned() {
+        try (LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 5);
+             LargeMapCursor cursor = map.cursor()) {
+            assertThrows(IllegalStateException.class, cursor::key);
+            assertThrows(IllegalStateException.class, cursor::value);
+            assertFalse(cursor.next());
+            assertThrows(IllegalStateException.class, cursor::keySize);
+            assertThrows(IllegalStateException.class, cursor::valueSize);
+        }
+    }
+
+    @Test
+    void testCursorThrowsIfMapChanges() {
+        try (LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 5)) {
+            map.put("key1", "value1");
+
+            try (LargeMapCursor cursor = map.cursor()) {
+                map.put("key2", "value2");
+
+                assertThrows(ConcurrentModificationException.class, cursor::next);
+            }
+        }
+    }
+
+    @Test
+    void testCursorDoesNotHoldLockBetweenCalls() {
+        try (LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 5)) {
+            map.put("key1", "value1");
+
+            try (LargeMapCursor cursor = map.cursor()) {
+                assertTrue(cursor.next());
+
+                map.put("key2", "value2");
+                assertEquals(2, map.size());
+                assertThrows(ConcurrentModificationException.class, cursor::next);
+            }
+        }
+    }
+
+    @Test
+    void testTrustedMap() {
+        try (LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 0.5, 5, true)) {
+            IntStream.range(0, 1000).forEach(i -> map.put("key" + i, "value" + i));
+            IntStream.range(0, 1000).forEach(i -> assertEquals("value" + i, map.get("key" + i)));
+            IntStream.range(0, 500).forEach(i -> assertEquals("value" + i, map.remove("key" + i)));
+            assertEquals(500, map.size());
+        }
+    }
+
+    @Test
+    void testTrustedSerializers() {
+        try (LargeMap<Long, Double> map = LargeHashMap.of(LongSerializer.INSTANCE, DoubleSerializer.INSTANCE)) {
+            IntStream.range(0, 1000).forEach(i -> map.put((long) i, i / 2d));
+            IntStream.range(0, 1000).forEach(i -> assertEquals(i / 2d, (double) map.get((long) i)));
+        }
+    }
+
+    @Test
+    void testReadAndUpdateInPlace() {
+        try (LargeHashMap<String, Long> map = LargeHashMap.of(STRING_SERIALIZER, LongSerializer.INSTANCE, 5)) {
+            map.put("key1", 1L);
+            IntPairView view = new IntPairView();
+
+            assertTrue(map.update("key1", view, v -> v.setSecond(v.getSecond() + 41)));
+            assertFalse(map.update("key2", view, v -> v.setSecond(0)));
+
+            assertNotEquals(Long.valueOf(1L), map.get("key1"));
+            assertEquals(42, (int) map.read("key1", view, v -> v.getFirst() + v.getSecond()));
+            assertNull(map.read("key2", view, IntPairView::getFirst));
+        }
+    }
+
+    @Test
+    void testViewThrowsIfLargerThanValue() {
+        try (LargeHashMap<String, Integer> map = LargeHashMap.of(STRING_SERIALIZER, IntSerializer.INSTANCE, 5)) {
+            map.put("key1", 1);
+
+            assertThrows(IllegalArgumentException.class, () -> map.read("key1", new IntPairView(), IntPairView::getFirst));
+            assertThrows(IllegalArgumentException.class, () -> map.update("key1", new IntPairView(), v -> v.setFirst(0)));
+        }
+    }
+
+    @Test
+    void testViewThrowsIfUnbound() {
+        try (LargeHashMap<String, Long> map = LargeHashMap.of(STRING_SERIALIZER, LongSerializer.INSTANCE, 5)) {
+            map.put("key1", 1L);
+            IntPairView view = new IntPairView();
+            IntPairView leaked = map.read("key1", view, v -> v);
+
+            assertThrows(IllegalStateException.class, leaked::getFirst);
+            assertThrows(IllegalStateException.class, () -> view.setFirst(0));
+        }
+    }
+
+    @Test
+    void testMemoryUsage() {
+        long entryOverhead = UnsafeUtils.allocatedSize(2 * Long.BYTES) - 2 * Long.BYTES;
+        try (LargeMap<Long, Long> map = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 4)) {
+            MemoryUsage usage = map.memoryUsage();
+            assertEquals(4 * Long.BYTES, usage.slotTableBytes());
+            assertEquals(0, usage.entryBytes());
+            assertEquals(UnsafeUtils.allocatedSize(4 * Long.BYTES) - 4 * Long.BYTES, usage.overheadBytes());
+
+            for (long i = 0; i < 100; i++) {
+                map.put(i, i);
+            }
+            map.put(0L, 1L);
+            usage = map.memoryUsage();
+            long slotTableBytes = usage.slotTableBytes();
+            assertTrue(slotTableBytes >= 100 * Long.BYTES);
+            assertEquals(100 * 2 * Long.BYTES, usage.entryBytes());
+            assertEquals(UnsafeUtils.allocatedSize(slotTableBytes) - slotTableBytes + 100 * entryOverhead, usage.overheadBytes());
+            assertEquals(usage.slotTableBytes() + usage.entryBytes() + usage.overheadBytes(), usage.totalBytes());
+
+            for (long i = 0; i < 40; i++) {
+                map.remove(i);
+            }
+            assertEquals(60 * 2 * Long.BYTES, map.memoryUsage().entryBytes());
+
+            map.clear();
+            usage = map.memoryUsage();
+            assertEquals(0, usage.entryBytes());
+            assertEquals(UnsafeUtils.allocatedSize(usage.slotTableBytes()) - usage.slotTableBytes(), usage.overheadBytes());
+        }
+    }
+
+    @Test
+    void testMemoryUsageWithVariableSizes() {
+        try (LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER)) {
+            map.put("key", "value");
+            assertEquals(1 + 4 + 3 + 1 + 4 + 5, map.memoryUsage().entryBytes());
+            map.put("key", "longer value");
+            assertEquals(1 + 4 + 3 + 1 + 4 + 12, map.memoryUsage().entryBytes());
+            map.put("key", "");
+            assertEquals(1 + 4 + 3 + 1 + 4, map.memoryUsage().entryBytes());
+        }
+    }
+
+    @Test
+    void testThrowsIfClosedWithMemoryUsage() {
+        LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 5);
+        map.close();
+        assertThrows(IllegalStateException.class, map::memoryUsage);
+    }
+
+    @Test
+    void testThrowsIfClosedWithUpdate() {
+        LargeHashMap<String, Long> map = LargeHashMap.of(STRING_SERIALIZER, LongSerializer.INSTANCE, 5);
+        map.close();
+        assertThrows(IllegalStateException.class, () -> map.update("", new IntPairView(), v -> v.setFirst(0)));
+        assertThrows(IllegalStateException.class, () -> map.read("", new IntPairView(), IntPairView::getFirst));
+    }
+
     @Test
     void testThrowsIfClosedWithGet() {
         LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 5);
@@ -258,6 +465,13 @@ class LargeHashMapTest {
         assertThrows(IllegalStateException.class, map::iterator);
     }
 
+    @Test
+    void testThrowsIfClosedWithCursor() {
+        LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 5);
+        map.close();
+        assertThrows(IllegalStateException.class, map::cursor);
+    }
+
     @Test
     void testThrowsIfClosedWithClose() {
         LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 5);
@@ -393,6 +607,73 @@ class LargeHashMapTest {
         }
     }
 
+    @Test
+    void testFailedSerializationLeavesKeyOut() {
+        try (LargeMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, new FailingStringSerializer(), 5)) {
+            map.put("key1", "value1");
+            map.put("key2", "value2");
+            long entryBytes = map.memoryUsage().entryBytes();
+
+            assertThrows(IllegalStateException.class, () -> map.put("key1", FailingStringSerializer.FAIL_SERIALIZE));
+            assertThrows(IllegalStateException.class, () -> map.put("key3", FailingStringSerializer.FAIL_SERIALIZE));
+            assertNull(map.get("key1"));
+            assertNull(map.get("key3"));
+            assertEquals("value2", map.get("key2"));
+            assertEquals(1, map.size());
+            assertEquals(entryBytes / 2, map.memoryUsage().entryBytes());
+        }
+    }
+
+    @Test
+    void testSinglePassSerializerSkipsSizeInBytes() {
+        SinglePassObjectSerializer<String> serializer = new SinglePassObjectSerializer<String>() {
+            @Override
+            public void serialize(MemoryWriter writer, String object) {
+                STRING_SERIALIZER.serialize(writer, object);
+            }
+
+            @Override
+            public String deserialize(MemoryReader reader) {
+                return STRING_SERIALIZER.deserialize(reader);
+            }
+
+            @Override
+            public int sizeInBytes(String object) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        try (LargeMap<String, String> map = LargeHashMap.of(serializer, serializer, 5)) {
+            assertNull(map.put("key1", "value1"));
+            assertEquals("value1", map.put("key1", "value11"));
+            assertNull(map.put("key2", ""));
+
+            assertEquals("value11", map.get("key1"));
+            assertEquals("", map.remove("key2"));
+            assertEquals(1, map.size());
+        }
+    }
+
+    @Test
+    void testInPlaceKeys() {
+        try (LargeMap<String, Integer> map = LargeHashMap.of(CompactStringSerializer.INSTANCE, IntSerializer.INSTANCE, 5)) {
+            Map<String, Integer> expectedMap = new HashMap<>();
+
+            IntStream.range(0, 10000).forEach(i -> {
+                String key = randomString() + (i % 3 == 0 ? "\u65e5" : "");
+                assertEquals(expectedMap.put(key, i), map.put(key, i));
+            });
+
+            IntStream.range(0, 10000).forEach(ignored -> {
+                String key = randomString();
+                assertEquals(expectedMap.remove(key), map.remove(key));
+            });
+
+            assertEquals(expectedMap.size(), map.size());
+            expectedMap.forEach((key, value) -> assertEquals(value, map.get(key)));
+        }
+    }
+
     @Test
     void testBadHashAndHighLoad() {
         try (LargeMap<BadHashInteger, Integer> map = LargeHashMap.of(new BadHashIntegerSerializer(), IntSerializer.INSTANCE, 0.99, 1020)) {
@@ -456,4 +737,131 @@ class LargeHashMapTest {
             assertFalse(map.iterator().hasNext());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSaveAndLoadSnapshot() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        try (LargeHashMap<String, Long> map = LargeHashMap.of(STRING_SERIALIZER, LongSerializer.INSTANCE)) {
+            Map<String, Long> expectedMap = new HashMap<>();
+            IntStream.range(0, 50000).forEach(i -> {
+                String key = randomString();
+                expectedMap.put(key, (long) i);
+                map.put(key, (long) i);
+            });
+            map.saveTo(path);
+
+            try (LargeHashMap<String, Long> loaded = LargeHashMap.loadFrom(path, STRING_SERIALIZER, LongSerializer.INSTANCE)) {
+                assertEquals(map, loaded);
+                assertEquals(expectedMap.size(), loaded.size());
+                assertEquals(map.memoryUsage().toString(), loaded.memoryUsage().toString());
+                expectedMap.forEach((key, value) -> assertEquals(value, loaded.get(key)));
+
+                loaded.put("new", 1L);
+                assertEquals(1L, loaded.remove("new").longValue());
+                assertEquals(expectedMap.size(), loaded.size());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testSaveAndLoadEmptySnapshot() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        try (LargeHashMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, 7)) {
+            map.saveTo(path);
+            try (LargeHashMap<String, String> loaded = LargeHashMap.loadFrom(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+                assertEquals(0, loaded.size());
+                assertEquals(map.memoryUsage().toString(), loaded.memoryUsage().toString());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testSaveAndLoadSnapshotWithEntriesLargerThanBuffer() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        StringBuilder builder = new StringBuilder();
+        IntStream.range(0, 300000).forEach(i -> builder.append((char) ('a' + i % 26)));
+        String value = builder.toString();
+        try (LargeHashMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER)) {
+            IntStream.range(0, 10).forEach(i -> map.put("key" + i, value + i));
+            map.saveTo(path);
+
+            try (LargeHashMap<String, String> loaded = LargeHashMap.loadFrom(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+                IntStream.range(0, 10).forEach(i -> assertEquals(value + i, loaded.get("key" + i)));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testSaveThrowsIfClosedAndKeepsPreviousSnapshot() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            LargeHashMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER);
+            map.put("key", "value");
+            map.saveTo(path);
+            assertFalse(Files.exists(temp));
+
+            map.put("other", "value");
+            Files.createDirectory(temp);
+            assertThrows(IOException.class, () -> map.saveTo(path));
+            Files.delete(temp);
+
+            map.close();
+            assertThrows(IllegalStateException.class, () -> map.saveTo(path));
+            assertFalse(Files.exists(temp));
+
+            try (LargeHashMap<String, String> loaded = LargeHashMap.loadFrom(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+                assertEquals(1, loaded.size());
+                assertEquals("value", loaded.get("key"));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testLoadThrowsIfNotSnapshot() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        try {
+            Files.write(path, "not a snapshot at all".getBytes(UTF_8));
+            assertThrows(IOException.class, () -> LargeHashMap.loadFrom(path, STRING_SERIALIZER, STRING_SERIALIZER));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testLoadThrowsIfTruncated() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        try (LargeHashMap<String, String> map = LargeHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER)) {
+            IntStream.range(0, 1000).forEach(i -> map.put("key" + i, "value" + i));
+            map.saveTo(path);
+            byte[] bytes = Files.readAllBytes(path);
+            Files.write(path, Arrays.copyOf(bytes, bytes.length - 10));
+
+            assertThrows(IOException.class, () -> LargeHashMap.loadFrom(path, STRING_SERIALIZER, STRING_SERIALIZER));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testLoadThrowsIfSerializersMismatch() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        try (LargeHashMap<String, Long> map = LargeHashMap.of(STRING_SERIALIZER, LongSerializer.INSTANCE)) {
+            map.put("key", 1L);
+            map.saveTo(path);
+
+            assertThrows(IllegalArgumentException.class, () -> LargeHashMap.loadFrom(path, STRING_SERIALIZER, IntSerializer.INSTANCE));
+            assertThrows(IllegalArgumentException.class, () -> LargeHashMap.loadFrom(path, STRING_SERIALIZER, STRING_SERIALIZER));
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
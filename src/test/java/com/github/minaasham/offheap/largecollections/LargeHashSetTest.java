@@ -148,6 +148,28 @@ class LargeHashSetTest {
         }
     }
 
+    @Test
+    void testMemoryUsage() {
+        try (LargeSet<String> set = LargeHashSet.of(STRING_SERIALIZER, 5)) {
+            set.add("element1");
+            set.add("element2");
+
+            assertEquals(5 * Long.BYTES, set.memoryUsage().slotTableBytes());
+            assertEquals(2 * (1 + 4 + 8), set.memoryUsage().entryBytes());
+        }
+    }
+
+    @Test
+    void testMemoryBudget() {
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(1 << 20);
+        try (LargeSet<String> set = LargeHashSet.of(STRING_SERIALIZER, 0.5, 5, budget)) {
+            set.add("element1");
+
+            assertEquals(set.memoryUsage().totalBytes(), budget.usedBytes());
+        }
+        assertEquals(0, budget.usedBytes());
+    }
+
     @Test
     void testSize() {
         try (LargeSet<String> set = LargeHashSet.of(STRING_SERIALIZER, 5)) {
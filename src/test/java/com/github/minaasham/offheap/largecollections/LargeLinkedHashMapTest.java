@@ -0,0 +1,261 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LargeLinkedHashMapTest {
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+
+    @Test
+    void testInsertionOrder() {
+        try (LargeLinkedHashMap<String, String> map = LargeLinkedHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER)) {
+            assertNull(map.put("key3", "value3"));
+            assertNull(map.put("key1", "value1"));
+            assertNull(map.put("key2", "value2"));
+            assertEquals("value1", map.get("key1"));
+            assertEquals("value3", map.put("key3", "value33"));
+
+            assertEquals(keys("key3", "key1", "key2"), keys(map));
+            assertEquals("value33", map.get("key3"));
+
+            assertEquals("value1", map.remove("key1"));
+            assertNull(map.remove("key1"));
+            assertEquals(keys("key3", "key2"), keys(map));
+            assertEquals(2, map.size());
+        }
+    }
+
+    @Test
+    void testAccessOrder() {
+        try (LargeLinkedHashMap<String, String> map = LargeLinkedHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER, true)) {
+            map.put("key1", "value1");
+            map.put("key2", "value2");
+            map.put("key3", "value3");
+            assertEquals("value1", map.get("key1"));
+            assertEquals(keys("key2", "key3", "key1"), keys(map));
+
+            map.put("key2", "value22");
+            assertEquals(keys("key3", "key1", "key2"), keys(map));
+            assertNull(map.get("key4"));
+            assertEquals(keys("key3", "key1", "key2"), keys(map));
+        }
+    }
+
+    @Test
+    void testRemoveEldest() {
+        try (LargeLinkedHashMap<Long, Long> map = LargeLinkedHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, true)) {
+            assertNull(map.eldest());
+            assertNull(map.removeEldest());
+
+            for (long i = 0; i < 10; i++) {
+                map.put(i, i * 10);
+            }
+            map.get(0L);
+
+            assertEquals(1L, (long) map.eldest().getKey());
+            Entry<Long, Long> eldest = map.removeEldest();
+            assertEquals(1L, (long) eldest.getKey());
+            assertEquals(10L, (long) eldest.getValue());
+            assertEquals(9, map.size());
+            assertNull(map.get(1L));
+
+            for (long i = 2; i < 10; i++) {
+                assertEquals(i, (long) map.removeEldest().getKey());
+            }
+            assertEquals(0L, (long) map.removeEldest().getKey());
+            assertNull(map.removeEldest());
+            assertEquals(0, map.size());
+
+            map.put(42L, 42L);
+            assertEquals(42L, (long) map.eldest().getKey());
+        }
+    }
+
+    @Test
+    void testMatchesLinkedHashMap() {
+        Map<Integer, Integer> expected = new LinkedHashMap<>(16, 0.75f, true);
+        Random random = new Random(42);
+        try (LargeLinkedHashMap<Integer, Integer> map = LargeLinkedHashMap.of(IntSerializer.INSTANCE, IntSerializer.INSTANCE, 0.65, 4, true)) {
+            for (int i = 0; i < 20_000; i++) {
+                int key = random.nextInt(500);
+                int operation = random.nextInt(4);
+                if (operation == 0) {
+                    assertEquals(expected.put(key, i), map.put(key, i));
+                } else if (operation == 1) {
+                    assertEquals(expected.get(key), map.get(key));
+                } else if (operation == 2) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else if (!expected.isEmpty()) {
+                    Integer eldest = expected.keySet().iterator().next();
+                    assertEquals(expected.remove(eldest), map.removeEldest().getValue());
+                }
+            }
+
+            assertEquals(expected.size(), map.size());
+            Iterator<Entry<Integer, Integer>> iterator = map.iterator();
+            for (Entry<Integer, Integer> entry : expected.entrySet()) {
+                assertEquals(entry, iterator.next());
+            }
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    void testCursor() {
+        try (LargeLinkedHashMap<Integer, Integer> map = LargeLinkedHashMap.of(IntSerializer.INSTANCE, IntSerializer.INSTANCE)) {
+            int size = 3000;
+            for (int i = size - 1; i >= 0; i--) {
+                map.put(i, -i);
+            }
+
+            int expected = size - 1;
+            try (LargeMapCursor cursor = map.cursor()) {
+                assertThrows(IllegalStateException.class, cursor::key);
+                while (cursor.next()) {
+                    assertEquals(Integer.BYTES, cursor.keySize());
+                    assertEquals(Integer.BYTES, cursor.valueSize());
+                    assertEquals(expected, (int) IntSerializer.INSTANCE.deserialize(cursor.key()));
+                    assertEquals(-expected, (int) IntSerializer.INSTANCE.deserialize(cursor.value()));
+                    expected--;
+                }
+                assertFalse(cursor.next());
+                assertThrows(IllegalStateException.class, cursor::value);
+            }
+            assertEquals(-1, expected);
+
+            map.put(size, size);
+        }
+    }
+
+    @Test
+    void testFailsFast() {
+        try (LargeLinkedHashMap<Long, Long> map = LargeLinkedHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, true)) {
+            map.put(1L, 1L);
+            map.put(2L, 2L);
+
+            Iterator<Entry<Long, Long>> iterator = map.iterator();
+            iterator.next();
+            map.get(1L);
+            assertThrows(ConcurrentModificationException.class, iterator::hasNext);
+
+            Iterator<Entry<Long, Long>> exhausted = map.iterator();
+            exhausted.next();
+            exhausted.next();
+            assertThrows(NoSuchElementException.class, exhausted::next);
+
+            try (LargeMapCursor cursor = map.cursor()) {
+                map.remove(1L);
+                assertThrows(ConcurrentModificationException.class, cursor::next);
+            }
+        }
+    }
+
+    @Test
+    void testClear() {
+        try (LargeLinkedHashMap<Long, Long> map = LargeLinkedHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE)) {
+            for (long i = 0; i < 100; i++) {
+                map.put(i, i);
+            }
+            map.clear();
+            assertEquals(0, map.size());
+            assertFalse(map.iterator().hasNext());
+            assertNull(map.eldest());
+            assertEquals(0, map.memoryUsage().entryBytes());
+
+            map.put(1L, 1L);
+            assertEquals(1L, (long) map.eldest().getKey());
+        }
+    }
+
+    @Test
+    void testEqualsAndToString() {
+        try (LargeLinkedHashMap<String, String> first = LargeLinkedHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER);
+             LargeLinkedHashMap<String, String> second = LargeLinkedHashMap.of(STRING_SERIALIZER, STRING_SERIALIZER)) {
+            first.put("key1", "value1");
+            first.put("key2", "value2");
+            second.put("key2", "value2");
+            assertNotEquals(first, second);
+
+            second.put("key1", "value1");
+            assertEquals(first, second);
+            assertEquals(first.hashCode(), second.hashCode());
+            assertEquals("{" + System.lineSeparator() + "  key1=value1," + System.lineSeparator() + "  key2=value2" + System.lineSeparator() + "}", first.toString());
+        }
+    }
+
+    @Test
+    void testKeepsOrderIfPutFails() {
+        for (boolean accessOrder : new boolean[]{false, true}) {
+            try (LargeLinkedHashMap<String, String> map = LargeLinkedHashMap.of(STRING_SERIALIZER, new FailingStringSerializer(), accessOrder)) {
+                map.put("key1", "value1");
+                map.put("key2", "value2");
+                map.put("key3", "value3");
+
+                assertThrows(IllegalStateException.class, () -> map.put("key2", FailingStringSerializer.FAIL_SIZE));
+                assertEquals(keys("key1", "key2", "key3"), keys(map));
+                assertEquals("value2", map.get("key2"));
+
+                assertThrows(IllegalStateException.class, () -> map.put("key1", FailingStringSerializer.FAIL_SERIALIZE));
+                assertEquals(accessOrder ? keys("key3", "key2") : keys("key2", "key3"), keys(map));
+                assertNull(map.get("key1"));
+
+                assertNull(map.put("key1", "value1"));
+                assertEquals("value3", map.put("key3", "value33"));
+                assertEquals(accessOrder ? keys("key2", "key1", "key3") : keys("key2", "key3", "key1"), keys(map));
+                assertEquals("key2", map.removeEldest().getKey());
+                assertEquals(2, map.size());
+            }
+        }
+    }
+
+    @Test
+    void testThrowsIfClosed() {
+        LargeLinkedHashMap<Long, Long> map = LargeLinkedHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE);
+        map.put(1L, 1L);
+        Iterator<Entry<Long, Long>> iterator = map.iterator();
+        map.close();
+        assertThrows(IllegalStateException.class, () -> map.get(1L));
+        assertThrows(IllegalStateException.class, () -> map.put(1L, 1L));
+        assertThrows(IllegalStateException.class, map::eldest);
+        assertThrows(IllegalStateException.class, map::removeEldest);
+        assertThrows(IllegalStateException.class, map::iterator);
+        assertThrows(IllegalStateException.class, map::cursor);
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    private static List<String> keys(String... keys) {
+        List<String> list = new ArrayList<>();
+        for (String key : keys) {
+            list.add(key);
+        }
+        return list;
+    }
+
+    private static List<String> keys(LargeLinkedHashMap<String, String> map) {
+        List<String> list = new ArrayList<>();
+        for (Entry<String, String> entry : map) {
+            list.add(entry.getKey());
+        }
+        return list;
+    }
+}
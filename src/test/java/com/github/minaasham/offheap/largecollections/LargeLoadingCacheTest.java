@@ -0,0 +1,214 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LargeLoadingCacheTest {
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+    private static final long REFRESH = TimeUnit.MINUTES.toNanos(1);
+
+    private final AtomicLong ticker = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void testThrowsIfInvalid() {
+        assertThrows(NullPointerException.class, () -> LargeLoadingCache.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, null));
+        assertThrows(NullPointerException.class, () -> LargeLoadingCache.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, key -> key, null));
+        assertThrows(IllegalArgumentException.class, () -> LargeLoadingCache.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, key -> key, Runnable::run, 0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testGet() {
+        try (LargeLoadingCache<String, String> cache = LargeLoadingCache.of(STRING_SERIALIZER, STRING_SERIALIZER, this::load)) {
+            assertNull(cache.getIfPresent("key1"));
+            assertEquals("value-key1", cache.get("key1"));
+            assertEquals("value-key1", cache.get("key1"));
+            assertEquals("value-key1", cache.getIfPresent("key1"));
+            assertEquals(1, loads.get());
+
+            cache.put("key2", "value2");
+            assertEquals("value2", cache.get("key2"));
+            assertEquals(1, loads.get());
+            assertEquals(2, cache.size());
+
+            cache.invalidate("key2");
+            assertEquals("value-key2", cache.get("key2"));
+            cache.invalidateAll();
+            assertEquals(0, cache.size());
+            assertEquals(0, cache.memoryUsage().entryBytes());
+        }
+    }
+
+    @Test
+    void testNullsAreNotCached() {
+        try (LargeLoadingCache<Long, Long> cache = LargeLoadingCache.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, key -> {
+            loads.incrementAndGet();
+            return null;
+        })) {
+            assertNull(cache.get(1L));
+            assertNull(cache.getAsync(1L).join());
+            assertEquals(2, loads.get());
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    void testLoaderExceptions() {
+        try (LargeLoadingCache<Long, Long> cache = LargeLoadingCache.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, key -> {
+            if (loads.incrementAndGet() == 1) throw new Exception("failed");
+            return key;
+        })) {
+            CompletionException e = assertThrows(CompletionException.class, () -> cache.get(1L));
+            assertEquals("failed", e.getCause().getMessage());
+            assertEquals(1L, (long) cache.get(1L));
+        }
+    }
+
+    @Test
+    void testCoalescesLoads() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (LargeLoadingCache<Long, Long> cache = LargeLoadingCache.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, key -> {
+            loads.incrementAndGet();
+            started.countDown();
+            release.await();
+            return key * 2;
+        }, executor)) {
+            CompletableFuture<Long> first = cache.getAsync(21L);
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> cache.get(21L), executor));
+                futures.add(cache.getAsync(21L));
+            }
+            assertSame(first, cache.getAsync(21L));
+            assertFalse(first.isDone());
+
+            release.countDown();
+            for (CompletableFuture<Long> future : futures) {
+                assertEquals(42L, (long) future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRejectedExecution() {
+        try (LargeLoadingCache<Long, Long> cache = LargeLoadingCache.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, key -> key, task -> {
+            throw new RejectedExecutionException();
+        })) {
+            CompletableFuture<Long> future = cache.getAsync(1L);
+            CompletionException e = assertThrows(CompletionException.class, future::join);
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+            assertEquals(1L, (long) cache.get(1L));
+        }
+    }
+
+    @Test
+    void testRefreshAfterWrite() {
+        List<Runnable> tasks = new ArrayList<>();
+        try (LargeLoadingCache<String, String> cache = LargeLoadingCache.create(STRING_SERIALIZER, STRING_SERIALIZER, this::load, tasks::add, REFRESH, ticker::get)) {
+            cache.put("key", "value");
+            ticker.addAndGet(REFRESH / 2);
+            assertEquals("value", cache.get("key"));
+            assertTrue(tasks.isEmpty());
+
+            ticker.addAndGet(REFRESH / 2);
+            assertEquals("value", cache.get("key"));
+            assertEquals("value", cache.get("key"));
+            assertEquals(1, tasks.size());
+
+            tasks.remove(0).run();
+            assertEquals("value-key", cache.get("key"));
+            assertTrue(tasks.isEmpty());
+            assertEquals(1, loads.get());
+        }
+    }
+
+    @Test
+    void testRefreshIsDroppedIfWritten() {
+        List<Runnable> tasks = new ArrayList<>();
+        try (LargeLoadingCache<String, String> cache = LargeLoadingCache.create(STRING_SERIALIZER, STRING_SERIALIZER, this::load, tasks::add, REFRESH, ticker::get)) {
+            cache.put("key1", "value1");
+            cache.put("key2", "value2");
+            ticker.addAndGet(REFRESH);
+
+            CompletableFuture<String> first = cache.refresh("key1");
+            CompletableFuture<String> second = cache.refresh("key2");
+            assertSame(first, cache.refresh("key1"));
+            cache.put("key1", "value11");
+            cache.invalidate("key2");
+
+            tasks.forEach(Runnable::run);
+            assertEquals("value-key1", first.join());
+            assertEquals("value-key2", second.join());
+            assertEquals("value11", cache.get("key1"));
+            assertNull(cache.getIfPresent("key2"));
+        }
+    }
+
+    @Test
+    void testFailedRefreshKeepsValue() {
+        List<Runnable> tasks = new ArrayList<>();
+        CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+            @Override
+            public String load(String key) {
+                return "loaded";
+            }
+
+            @Override
+            public String reload(String key, String oldValue) throws Exception {
+                if (loads.incrementAndGet() == 1) throw new Exception("failed");
+                return oldValue + "-reloaded";
+            }
+        };
+        try (LargeLoadingCache<String, String> cache = LargeLoadingCache.create(STRING_SERIALIZER, STRING_SERIALIZER, loader, tasks::add, REFRESH, ticker::get)) {
+            assertEquals("loaded", cache.get("key"));
+            ticker.addAndGet(REFRESH);
+            assertEquals("loaded", cache.get("key"));
+            tasks.remove(0).run();
+            assertEquals("loaded", cache.get("key"));
+            tasks.remove(0).run();
+            assertEquals("loaded-reloaded", cache.get("key"));
+        }
+    }
+
+    @Test
+    void testThrowsIfClosed() {
+        LargeLoadingCache<Long, Long> cache = LargeLoadingCache.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, key -> key);
+        cache.close();
+        assertThrows(IllegalStateException.class, () -> cache.getIfPresent(1L));
+        assertThrows(IllegalStateException.class, () -> cache.put(1L, 1L));
+    }
+
+    private String load(String key) {
+        loads.incrementAndGet();
+        return "value-" + key;
+    }
+}
@@ -0,0 +1,241 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.randomString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LargeMappedHashMapReaderTest {
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+    private static final int CHUNK_BITS = 12;
+
+    @Test
+    void testReadsWhileWriterChangesMap() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        Map<String, String> expectedMap = new HashMap<>();
+        try (LargeMappedHashMap<String, String> writer = LargeMappedHashMap.create(path, STRING_SERIALIZER, STRING_SERIALIZER, 0.65, 16, CHUNK_BITS);
+             LargeMappedHashMapReader<String, String> reader = LargeMappedHashMapReader.open(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+            assertEquals(0, reader.size());
+
+            IntStream.range(0, 20000).forEach(ignored -> {
+                String key = randomString();
+                String value = randomString();
+                expectedMap.put(key, value);
+                writer.put(key, value);
+            });
+            assertEquals(expectedMap.size(), reader.size());
+            expectedMap.forEach((key, value) -> assertEquals(value, reader.get(key)));
+            assertNull(reader.get("absent"));
+            assertEquals(writer.memoryUsage().totalBytes(), reader.memoryUsage().totalBytes());
+            assertEquals(writer.memoryUsage().entryBytes(), reader.memoryUsage().entryBytes());
+
+            expectedMap.keySet().stream().limit(1000).forEach(writer::remove);
+            expectedMap.forEach((key, value) -> assertEquals(writer.get(key), reader.get(key)));
+            assertEquals(writer.size(), reader.size());
+
+            writer.clear();
+            assertEquals(0, reader.size());
+            expectedMap.keySet().forEach(key -> assertNull(reader.get(key)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testIteratorAndCursor() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try (LargeMappedHashMap<Integer, Integer> writer = LargeMappedHashMap.create(path, IntSerializer.INSTANCE, IntSerializer.INSTANCE, 0.65, 16, CHUNK_BITS);
+             LargeMappedHashMapReader<Integer, Integer> reader = LargeMappedHashMapReader.open(path, IntSerializer.INSTANCE, IntSerializer.INSTANCE)) {
+            IntStream.range(0, 3000).forEach(i -> writer.put(i, i * 3));
+
+            Map<Integer, Integer> iterated = new HashMap<>();
+            reader.forEach(entry -> iterated.put(entry.getKey(), entry.getValue()));
+            assertEquals(3000, iterated.size());
+            iterated.forEach((key, value) -> assertEquals(key * 3, value.intValue()));
+
+            Map<Integer, Integer> cursored = new HashMap<>();
+            try (LargeMapCursor cursor = reader.cursor()) {
+                assertThrows(IllegalStateException.class, cursor::key);
+                while (cursor.next()) {
+                    assertEquals(Integer.BYTES, cursor.keySize());
+                    assertEquals(Integer.BYTES, cursor.valueSize());
+                    cursored.put(IntSerializer.INSTANCE.deserialize(cursor.key()), IntSerializer.INSTANCE.deserialize(cursor.value()));
+                }
+            }
+            assertEquals(iterated, cursored);
+
+            Iterator<Entry<Integer, Integer>> iterator = reader.iterator();
+            LargeMapCursor cursor = reader.cursor();
+            writer.put(-1, -1);
+            assertThrows(ConcurrentModificationException.class, iterator::hasNext);
+            assertThrows(ConcurrentModificationException.class, cursor::next);
+            cursor.close();
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testConcurrentReadsNeverSeeHalfDoneChanges() throws Exception {
+        Path path = Files.createTempFile("mapped", ".map");
+        int keys = 64;
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (LargeMappedHashMap<Integer, String> writer = LargeMappedHashMap.create(path, IntSerializer.INSTANCE, STRING_SERIALIZER, 0.65, 16, CHUNK_BITS);
+             LargeMappedHashMapReader<Integer, String> reader = LargeMappedHashMapReader.open(path, IntSerializer.INSTANCE, STRING_SERIALIZER)) {
+            Thread[] readers = new Thread[4];
+            for (int t = 0; t < readers.length; t++) {
+                readers[t] = new Thread(() -> {
+                    try {
+                        while (writing.get()) {
+                            int key = ThreadLocalRandom.current().nextInt(keys);
+                            String value = reader.get(key);
+                            if (value != null) assertTrue(isValue(key, value), value);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+                readers[t].start();
+            }
+
+            Random random = new Random(42);
+            for (int round = 0; round < 5000; round++) {
+                for (int key = 0; key < keys; key++) {
+                    if (random.nextInt(10) == 0) {
+                        writer.remove(key);
+                    } else {
+                        writer.put(key, value(key, random.nextInt(26), random.nextInt(40)));
+                    }
+                }
+            }
+            writing.set(false);
+            for (Thread thread : readers) {
+                thread.join();
+            }
+
+            assertNull(failure.get());
+            IntStream.range(0, keys).forEach(key -> assertEquals(writer.get(key), reader.get(key)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfWriterDiedMidChange() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            try (LargeMappedHashMap<Long, Long> writer = LargeMappedHashMap.create(path, LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, 16, CHUNK_BITS)) {
+                writer.put(1L, 2L);
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                ByteBuffer sequence = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder()).putLong(0, 5);
+                channel.write(sequence, LargeMappedHashMap.SEQUENCE_OFFSET);
+            }
+
+            try (LargeMappedHashMapReader<Long, Long> reader = LargeMappedHashMapReader.open(path, LongSerializer.INSTANCE, LongSerializer.INSTANCE, 10, TimeUnit.MILLISECONDS)) {
+                assertEquals(1, reader.size());
+                assertThrows(IllegalStateException.class, () -> reader.get(1L));
+                assertThrows(IllegalStateException.class, reader::iterator);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsOnModification() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER).close();
+            try (LargeMappedHashMapReader<String, String> reader = LargeMappedHashMapReader.open(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+                assertThrows(UnsupportedOperationException.class, () -> reader.put("key", "value"));
+                assertThrows(UnsupportedOperationException.class, () -> reader.remove("key"));
+                assertThrows(UnsupportedOperationException.class, reader::clear);
+                assertFalse(reader.iterator().hasNext());
+                assertEquals("{" + System.lineSeparator() + "}", reader.toString());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfNotMapFileOrMismatched() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            Files.write(path, "not a map file".getBytes(UTF_8));
+            assertThrows(IOException.class, () -> LargeMappedHashMapReader.open(path, STRING_SERIALIZER, STRING_SERIALIZER));
+
+            Files.delete(path);
+            LargeMappedHashMap.open(path, STRING_SERIALIZER, LongSerializer.INSTANCE).close();
+            assertThrows(IllegalArgumentException.class, () -> LargeMappedHashMapReader.open(path, STRING_SERIALIZER, IntSerializer.INSTANCE));
+            assertThrows(IllegalArgumentException.class, () -> LargeMappedHashMapReader.open(path, STRING_SERIALIZER, LongSerializer.INSTANCE, 0, TimeUnit.SECONDS));
+            assertThrows(NullPointerException.class, () -> LargeMappedHashMapReader.open(null, STRING_SERIALIZER, STRING_SERIALIZER));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfClosed() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER).close();
+            LargeMappedHashMapReader<String, String> reader = LargeMappedHashMapReader.open(path, STRING_SERIALIZER, STRING_SERIALIZER);
+            assertNull(reader.get("key"));
+            Iterator<Entry<String, String>> iterator = reader.iterator();
+            reader.close();
+
+            assertThrows(IllegalStateException.class, () -> reader.get("key"));
+            assertThrows(IllegalStateException.class, reader::size);
+            assertThrows(IllegalStateException.class, reader::memoryUsage);
+            assertThrows(IllegalStateException.class, reader::cursor);
+            assertThrows(IllegalStateException.class, reader::close);
+            assertThrows(IllegalStateException.class, iterator::hasNext);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static String value(int key, int letter, int length) {
+        StringBuilder builder = new StringBuilder();
+        IntStream.range(0, length).forEach(i -> builder.append((char) ('a' + letter)));
+        return builder.append(':').append(key).toString();
+    }
+
+    private static boolean isValue(int key, String value) {
+        int separator = value.lastIndexOf(':');
+        return separator >= 0
+                && value.substring(separator + 1).equals(Integer.toString(key))
+                && value.substring(0, separator).chars().allMatch(c -> c == value.charAt(0));
+    }
+}
@@ -0,0 +1,332 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.IntSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import com.github.minaasham.offheap.largecollections.serialization.common.StringSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.randomString;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LargeMappedHashMapTest {
+
+    private static final StringSerializer STRING_SERIALIZER = new StringSerializer(UTF_8);
+    private static final int CHUNK_BITS = 12;
+
+    @Test
+    void testThrowsIfOutOfRange() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            assertThrows(IllegalArgumentException.class, () -> LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER, 1.0, 16));
+            assertThrows(IllegalArgumentException.class, () -> LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER, 0.5, 0));
+            assertThrows(IllegalArgumentException.class, () -> LargeMappedHashMap.create(path, STRING_SERIALIZER, STRING_SERIALIZER, 0.5, 16, 11));
+            assertThrows(NullPointerException.class, () -> LargeMappedHashMap.open(null, STRING_SERIALIZER, STRING_SERIALIZER));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testOperationsAndReopen() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        Map<String, String> expectedMap = new HashMap<>();
+        try {
+            try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.create(path, STRING_SERIALIZER, STRING_SERIALIZER, 0.65, 16, CHUNK_BITS)) {
+                IntStream.range(0, 20000).forEach(ignored -> {
+                    String key = randomString();
+                    String value = randomString();
+                    assertEquals(expectedMap.put(key, value), map.put(key, value));
+                });
+                IntStream.range(0, 20000).forEach(ignored -> {
+                    String key = randomString();
+                    assertEquals(expectedMap.get(key), map.get(key));
+                    assertEquals(expectedMap.remove(key), map.remove(key));
+                });
+                expectedMap.keySet().stream().limit(1000).forEach(key -> assertEquals(expectedMap.put(key, "v"), map.put(key, "v")));
+
+                assertEquals(expectedMap.size(), map.size());
+                map.iterator().forEachRemaining(entry -> assertEquals(expectedMap.get(entry.getKey()), entry.getValue()));
+            }
+
+            try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+                assertEquals(expectedMap.size(), map.size());
+                expectedMap.forEach((key, value) -> assertEquals(value, map.get(key)));
+
+                map.clear();
+                assertEquals(0, map.size());
+                assertFalse(map.iterator().hasNext());
+                expectedMap.keySet().forEach(key -> assertNull(map.get(key)));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testReplacingWithSameSizeReusesEntry() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try (LargeMappedHashMap<Integer, Long> map = LargeMappedHashMap.create(path, IntSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, 1024, CHUNK_BITS)) {
+            IntStream.range(0, 500).forEach(i -> map.put(i, (long) i));
+            MemoryUsage before = map.memoryUsage();
+            assertEquals(1024 * Long.BYTES, before.slotTableBytes());
+            assertEquals(500 * (Integer.BYTES + Long.BYTES), before.entryBytes());
+
+            IntStream.range(0, 500).forEach(i -> assertEquals(i, map.put(i, i * 2L).longValue()));
+            assertEquals(before.totalBytes(), map.memoryUsage().totalBytes());
+            IntStream.range(0, 500).forEach(i -> assertEquals(i * 2L, map.get(i).longValue()));
+
+            IntStream.range(0, 250).forEach(i -> assertEquals(i * 2L, map.remove(i).longValue()));
+            assertEquals(250 * (Integer.BYTES + Long.BYTES), map.memoryUsage().entryBytes());
+            assertEquals(before.totalBytes(), map.memoryUsage().totalBytes());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testFailedPutLeavesFileConsistent() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        String longValue = value(100);
+        try {
+            try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.create(path, STRING_SERIALIZER, new FailingStringSerializer(), 0.65, 16, CHUNK_BITS)) {
+                map.put("key1", longValue);
+                map.put("key2", "value2");
+
+                assertThrows(IllegalStateException.class, () -> map.put("key1", FailingStringSerializer.FAIL_SIZE));
+                assertEquals(longValue, map.get("key1"));
+
+                assertThrows(IllegalStateException.class, () -> map.put("key2", FailingStringSerializer.FAIL_SERIALIZE));
+                assertEquals("value2", map.get("key2"));
+
+                assertThrows(IllegalStateException.class, () -> map.put("key3", FailingStringSerializer.FAIL_SERIALIZE));
+                assertNull(map.get("key3"));
+                assertEquals(2, map.size());
+
+                assertThrows(IllegalStateException.class, () -> map.put("key1", FailingStringSerializer.FAIL_SERIALIZE));
+                assertNull(map.get("key1"));
+                assertEquals(1, map.size());
+            }
+
+            try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+                assertEquals(1, map.size());
+                assertEquals("value2", map.get("key2"));
+                assertNull(map.get("key1"));
+
+                assertNull(map.put("key1", longValue));
+                assertEquals("value2", map.remove("key2"));
+                assertEquals(longValue, map.remove("key1"));
+                assertEquals(0, map.size());
+                assertEquals(0, map.memoryUsage().entryBytes());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testEntriesLargerThanChunk() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.create(path, STRING_SERIALIZER, STRING_SERIALIZER, 0.65, 16, CHUNK_BITS)) {
+            StringBuilder builder = new StringBuilder();
+            IntStream.range(0, 3000).forEach(i -> builder.append('a'));
+            IntStream.range(0, 10).forEach(i -> map.put("key" + i, builder.toString() + i));
+            IntStream.range(0, 10).forEach(i -> assertEquals(builder.toString() + i, map.get("key" + i)));
+
+            IntStream.range(0, 2000).forEach(i -> builder.append('b'));
+            assertThrows(IllegalArgumentException.class, () -> map.put("big", builder.toString()));
+            assertNull(map.get("big"));
+            assertEquals(10, map.size());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfNotClosedAfterModified() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.create(path, STRING_SERIALIZER, STRING_SERIALIZER, 0.65, 16, CHUNK_BITS)) {
+                map.put("key", "value");
+                assertEquals(0, readClean(path));
+
+                map.force();
+                assertEquals(1, readClean(path));
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.nativeOrder()).putInt(0, 0), LargeMappedHashMap.CLEAN_OFFSET);
+            }
+            assertThrows(IOException.class, () -> LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfOpenedByAnotherWriter() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.create(path, STRING_SERIALIZER, STRING_SERIALIZER, 0.65, 16, CHUNK_BITS)) {
+                assertThrows(IOException.class, () -> LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER));
+                map.put("key", "value");
+            }
+
+            try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+                assertEquals("value", map.get("key"));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testReusesFreedSpace() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try (LargeMappedHashMap<Integer, String> map = LargeMappedHashMap.create(path, IntSerializer.INSTANCE, STRING_SERIALIZER, 0.65, 16, CHUNK_BITS)) {
+            IntStream.range(0, 2000).forEach(i -> map.put(i, value(i % 700)));
+            long totalBytes = map.memoryUsage().totalBytes();
+
+            for (int round = 0; round < 5; round++) {
+                IntStream.range(0, 2000).forEach(i -> assertEquals(value(i % 700), map.remove(i)));
+                assertEquals(0, map.memoryUsage().entryBytes());
+                IntStream.range(0, 2000).forEach(i -> assertNull(map.put(i, value(i % 700))));
+                assertEquals(totalBytes, map.memoryUsage().totalBytes());
+            }
+
+            map.clear();
+            IntStream.range(0, 2000).forEach(i -> map.put(i, value((1999 - i) % 700)));
+            assertEquals(totalBytes, map.memoryUsage().totalBytes());
+            IntStream.range(0, 2000).forEach(i -> assertEquals(value((1999 - i) % 700), map.get(i)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfNotMapFile() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            Files.write(path, "not a map file".getBytes(UTF_8));
+            assertThrows(IOException.class, () -> LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfSerializersMismatch() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            LargeMappedHashMap.open(path, STRING_SERIALIZER, LongSerializer.INSTANCE).close();
+            assertThrows(IllegalArgumentException.class, () -> LargeMappedHashMap.open(path, STRING_SERIALIZER, IntSerializer.INSTANCE));
+            assertThrows(IllegalArgumentException.class, () -> LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER));
+            LargeMappedHashMap.open(path, STRING_SERIALIZER, LongSerializer.INSTANCE).close();
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfClosed() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try {
+            LargeMappedHashMap<String, String> map = LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER);
+            map.put("key", "value");
+            Iterator<Entry<String, String>> iterator = map.iterator();
+            map.close();
+
+            assertThrows(IllegalStateException.class, () -> map.get("key"));
+            assertThrows(IllegalStateException.class, () -> map.put("key", "value"));
+            assertThrows(IllegalStateException.class, () -> map.remove("key"));
+            assertThrows(IllegalStateException.class, map::size);
+            assertThrows(IllegalStateException.class, map::force);
+            assertThrows(IllegalStateException.class, map::close);
+            assertThrows(IllegalStateException.class, iterator::hasNext);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testIteratorAndCursor() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try (LargeMappedHashMap<Integer, Integer> map = LargeMappedHashMap.create(path, IntSerializer.INSTANCE, IntSerializer.INSTANCE, 0.65, 16, CHUNK_BITS)) {
+            IntStream.range(0, 3000).forEach(i -> map.put(i, i * 3));
+
+            Map<Integer, Integer> iterated = new HashMap<>();
+            map.forEach(entry -> iterated.put(entry.getKey(), entry.getValue()));
+            assertEquals(3000, iterated.size());
+            iterated.forEach((key, value) -> assertEquals(key * 3, value.intValue()));
+
+            Map<Integer, Integer> cursored = new HashMap<>();
+            try (LargeMapCursor cursor = map.cursor()) {
+                assertThrows(IllegalStateException.class, cursor::key);
+                while (cursor.next()) {
+                    assertEquals(Integer.BYTES, cursor.keySize());
+                    assertEquals(Integer.BYTES, cursor.valueSize());
+                    cursored.put(IntSerializer.INSTANCE.deserialize(cursor.key()), IntSerializer.INSTANCE.deserialize(cursor.value()));
+                }
+            }
+            assertEquals(iterated, cursored);
+
+            Iterator<Entry<Integer, Integer>> iterator = map.iterator();
+            LargeMapCursor cursor = map.cursor();
+            assertTrue(cursor.next());
+            map.put(-1, -1);
+            assertThrows(ConcurrentModificationException.class, iterator::hasNext);
+            assertThrows(ConcurrentModificationException.class, cursor::next);
+            cursor.close();
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testIteratorThrowsIfExhausted() throws IOException {
+        Path path = Files.createTempFile("mapped", ".map");
+        try (LargeMappedHashMap<String, String> map = LargeMappedHashMap.open(path, STRING_SERIALIZER, STRING_SERIALIZER)) {
+            map.put("key", "value");
+            Iterator<Entry<String, String>> iterator = map.iterator();
+            assertTrue(iterator.hasNext());
+            assertEquals("key", iterator.next().getKey());
+            assertThrows(NoSuchElementException.class, iterator::next);
+            assertEquals("{" + System.lineSeparator() + "  key=value" + System.lineSeparator() + "}", map.toString());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static int readClean(Path path) throws IOException {
+        ByteBuffer clean = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.nativeOrder());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.read(clean, LargeMappedHashMap.CLEAN_OFFSET);
+        }
+        return clean.getInt(0);
+    }
+
+    private static String value(int length) {
+        StringBuilder builder = new StringBuilder();
+        IntStream.range(0, length).forEach(i -> builder.append('v'));
+        return builder.toString();
+    }
+}
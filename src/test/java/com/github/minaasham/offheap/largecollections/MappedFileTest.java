@@ -0,0 +1,92 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MappedFileTest {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    @Test
+    void testGrowsByChunks() throws IOException {
+        Path path = Files.createTempFile("mapped", ".bin");
+        try {
+            try (MappedFile file = MappedFile.open(path, CHUNK_BITS)) {
+                assertEquals(0, file.size());
+                file.ensureSize(1);
+                assertEquals(CHUNK_SIZE, file.size());
+                file.ensureSize(3L * CHUNK_SIZE + 1);
+                assertEquals(4L * CHUNK_SIZE, file.size());
+                file.ensureSize(CHUNK_SIZE);
+                assertEquals(4L * CHUNK_SIZE, file.size());
+
+                for (long position = 0; position < file.size(); position += Long.BYTES) {
+                    UnsafeUtils.putLong(file.address(position), position);
+                }
+                file.force();
+            }
+            assertEquals(4L * CHUNK_SIZE, Files.size(path));
+
+            try (MappedFile file = MappedFile.open(path, CHUNK_BITS)) {
+                assertEquals(4L * CHUNK_SIZE, file.size());
+                for (long position = 0; position < file.size(); position += Long.BYTES) {
+                    assertEquals(position, UnsafeUtils.getLong(file.address(position)));
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testReadOnly() throws IOException {
+        Path path = Files.createTempFile("mapped", ".bin");
+        try {
+            byte[] bytes = new byte[CHUNK_SIZE + 10];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) i;
+            }
+            Files.write(path, bytes);
+
+            try (MappedFile file = MappedFile.openReadOnly(path, CHUNK_BITS)) {
+                assertEquals(bytes.length, file.size());
+                for (int i = 0; i < bytes.length; i++) {
+                    assertEquals(bytes[i], UnsafeUtils.getByte(file.address(i)));
+                }
+                assertThrows(IllegalStateException.class, () -> file.ensureSize(2L * CHUNK_SIZE));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testMapsChunksGrownByWriter() throws IOException {
+        Path path = Files.createTempFile("mapped", ".bin");
+        try (MappedFile writer = MappedFile.open(path, CHUNK_BITS)) {
+            writer.ensureSize(CHUNK_SIZE);
+            try (MappedFile reader = MappedFile.openReadOnly(path, CHUNK_BITS)) {
+                assertEquals(CHUNK_SIZE, reader.size());
+                assertThrows(IllegalStateException.class, () -> writer.ensureMapped(CHUNK_SIZE));
+
+                writer.ensureSize(2L * CHUNK_SIZE);
+                UnsafeUtils.putLong(writer.address(CHUNK_SIZE), 42);
+                reader.ensureMapped(CHUNK_SIZE + 1);
+                assertEquals(2L * CHUNK_SIZE, reader.size());
+                assertEquals(42, UnsafeUtils.getLong(reader.address(CHUNK_SIZE)));
+
+                assertThrows(IOException.class, () -> reader.ensureMapped(3L * CHUNK_SIZE));
+                assertEquals(2L * CHUNK_SIZE, reader.size());
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MemoryUsageTest {
+
+    @Test
+    void testTotal() {
+        MemoryUsage before = MemoryUsage.total();
+        LargeMap<Long, Long> map = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE);
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+
+        MemoryUsage usage = map.memoryUsage();
+        MemoryUsage after = MemoryUsage.total();
+        assertEquals(before.slotTableBytes() + usage.slotTableBytes(), after.slotTableBytes());
+        assertEquals(before.entryBytes() + usage.entryBytes(), after.entryBytes());
+        assertEquals(before.overheadBytes() + usage.overheadBytes(), after.overheadBytes());
+
+        map.close();
+        assertEquals(before.totalBytes(), MemoryUsage.total().totalBytes());
+    }
+
+    @Test
+    void testToString() {
+        MemoryUsage usage = MemoryUsage.of(1, 2, 3);
+        assertEquals(6, usage.totalBytes());
+        assertEquals("MemoryUsage{slotTableBytes=1, entryBytes=2, overheadBytes=3}", usage.toString());
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.minaasham.offheap.largecollections;
+
+import com.github.minaasham.offheap.largecollections.serialization.common.LongSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OffHeapMemoryBudgetTest {
+
+    private static final long CAPACITY = 1024;
+    private static final long SLOT_TABLE_BYTES = UnsafeUtils.allocatedSize(CAPACITY * Long.BYTES);
+    private static final long ENTRY_BYTES = UnsafeUtils.allocatedSize(2 * Long.BYTES);
+
+    @Test
+    void testThrowsIfInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> OffHeapMemoryBudget.of(0));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapMemoryBudget.of(1, -1, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> OffHeapMemoryBudget.of(1, 1, null));
+        assertThrows(NullPointerException.class, () -> OffHeapMemoryBudget.of(1).onExhausted(null));
+    }
+
+    @Test
+    void testFailsFast() {
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(SLOT_TABLE_BYTES + 10 * ENTRY_BYTES);
+        assertThrows(OffHeapMemoryExhaustedException.class, () -> LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, CAPACITY * 2, false, budget));
+        assertEquals(0, budget.usedBytes());
+
+        try (LargeMap<Long, Long> map = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, CAPACITY, false, budget)) {
+            for (long i = 0; i < 10; i++) {
+                map.put(i, i);
+            }
+            assertEquals(0, budget.availableBytes());
+            assertEquals(map.memoryUsage().totalBytes(), budget.usedBytes());
+
+            OffHeapMemoryExhaustedException e = assertThrows(OffHeapMemoryExhaustedException.class, () -> map.put(10L, 10L));
+            assertEquals(ENTRY_BYTES, e.requestedBytes());
+            assertEquals(budget.limitBytes(), e.limitBytes());
+            assertEquals(10, map.size());
+            assertNull(map.get(10L));
+
+            assertEquals(0L, (long) map.put(0L, 42L));
+            assertEquals(42L, (long) map.get(0L));
+
+            map.remove(1L);
+            map.put(10L, 10L);
+            assertEquals(10L, (long) map.get(10L));
+
+            map.clear();
+            assertEquals(SLOT_TABLE_BYTES, budget.usedBytes());
+        }
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void testReleasesIfAllocationFails() {
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(Long.MAX_VALUE);
+        assertThrows(OutOfMemoryError.class, () -> LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, 1L << 58, false, budget));
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void testFailsToGrow() {
+        long slotTableBytes = UnsafeUtils.allocatedSize(4 * Long.BYTES);
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(slotTableBytes + 4 * ENTRY_BYTES);
+        try (LargeMap<Long, Long> map = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, 4, false, budget)) {
+            for (long i = 0; i < 3; i++) {
+                map.put(i, i);
+            }
+            assertThrows(OffHeapMemoryExhaustedException.class, () -> map.put(3L, 3L));
+            assertEquals(3, map.size());
+            assertEquals(4 * Long.BYTES, map.memoryUsage().slotTableBytes());
+            assertEquals(2L, (long) map.remove(2L));
+            assertEquals(map.memoryUsage().totalBytes(), budget.usedBytes());
+        }
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void testEvictionCallbacks() {
+        AtomicReference<LargeMap<Long, Long>> reference = new AtomicReference<>();
+        AtomicLong oldest = new AtomicLong();
+        AtomicLong missing = new AtomicLong();
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(SLOT_TABLE_BYTES + 10 * ENTRY_BYTES)
+                .onExhausted((map, bytes) -> missing.set(bytes))
+                .onExhausted((map, bytes) -> {
+                    assertSame(reference.get(), map);
+                    reference.get().remove(oldest.getAndIncrement());
+                });
+
+        try (LargeMap<Long, Long> map = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, CAPACITY, false, budget)) {
+            reference.set(map);
+            for (long i = 0; i < 100; i++) {
+                map.put(i, i);
+            }
+
+            assertEquals(ENTRY_BYTES, missing.get());
+            assertEquals(10, map.size());
+            assertNull(map.get(89L));
+            for (long i = 90; i < 100; i++) {
+                assertEquals(i, (long) map.get(i));
+            }
+        }
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void testEvictsFromSiblingMaps() throws Exception {
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(2 * SLOT_TABLE_BYTES + 10 * ENTRY_BYTES, 10, TimeUnit.SECONDS);
+        try (LargeMap<Long, Long> first = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, CAPACITY, false, budget);
+             LargeMap<Long, Long> second = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, CAPACITY, false, budget)) {
+            budget.onExhausted((map, bytes) -> {
+                LargeMap<?, ?> sibling = map == first ? second : first;
+                if (sibling.size() > 0) {
+                    sibling.clear();
+                } else {
+                    map.clear();
+                }
+            });
+
+            // A writer clears its map once it's done, so the other writer isn't left waiting for memory nobody will release
+            AtomicInteger finished = new AtomicInteger();
+            CompletableFuture<Void> firstWriter = CompletableFuture.runAsync(() -> {
+                for (long i = 0; i < 10000 || finished.get() < 2; i++) {
+                    if (i == 10000) finished.incrementAndGet();
+                    first.put(i, i);
+                }
+                first.clear();
+            });
+            CompletableFuture<Void> secondWriter = CompletableFuture.runAsync(() -> {
+                for (long i = 0; i < 10000 || finished.get() < 2; i++) {
+                    if (i == 10000) finished.incrementAndGet();
+                    second.put(i, i);
+                }
+                second.clear();
+            });
+            CompletableFuture.allOf(firstWriter, secondWriter).get(30, TimeUnit.SECONDS);
+
+            assertEquals(first.memoryUsage().totalBytes() + second.memoryUsage().totalBytes(), budget.usedBytes());
+            assertTrue(budget.usedBytes() <= budget.limitBytes());
+        }
+        assertEquals(0, budget.usedBytes());
+    }
+
+    @Test
+    void testBlocksUntilReleased() throws Exception {
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(2 * SLOT_TABLE_BYTES + ENTRY_BYTES, 10, TimeUnit.SECONDS);
+        try (LargeMap<Long, Long> first = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, CAPACITY, false, budget);
+             LargeMap<Long, Long> second = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, CAPACITY, false, budget)) {
+            first.put(1L, 1L);
+
+            CompletableFuture<Long> put = CompletableFuture.supplyAsync(() -> second.put(2L, 2L));
+            Thread.sleep(100);
+            assertFalse(put.isDone());
+
+            first.remove(1L);
+            assertNull(put.get(10, TimeUnit.SECONDS));
+            assertEquals(2L, (long) second.get(2L));
+            assertEquals(0, budget.availableBytes());
+        }
+    }
+
+    @Test
+    void testTimesOut() {
+        OffHeapMemoryBudget budget = OffHeapMemoryBudget.of(SLOT_TABLE_BYTES, 10, TimeUnit.MILLISECONDS);
+        try (LargeMap<Long, Long> map = LargeHashMap.of(LongSerializer.INSTANCE, LongSerializer.INSTANCE, 0.65, CAPACITY, false, budget)) {
+            assertThrows(OffHeapMemoryExhaustedException.class, () -> map.put(1L, 1L));
+            assertEquals(0, map.size());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScratchMemoryWriterTest {
+
+    @Test
+    void writeAndCopy() {
+        ScratchMemoryWriter writer = new ScratchMemoryWriter();
+        writer.writeLong(1L);
+        writer.writeInt(2);
+        writer.write(new char[]{'a', 'b'}, 0, 2);
+        assertEquals(Long.BYTES + Integer.BYTES + 2 * Character.BYTES, writer.position());
+
+        long address = UnsafeUtils.allocate(writer.position());
+        writer.copyTo(0, writer.position(), address);
+        assertEquals(1L, UnsafeUtils.getLong(address));
+        assertEquals(2, UnsafeUtils.getInt(address + Long.BYTES));
+        assertEquals('b', UnsafeUtils.getChar(address + Long.BYTES + Integer.BYTES + Character.BYTES));
+        UnsafeUtils.free(address);
+
+        assertEquals(0, writer.reset().position());
+    }
+
+    @Test
+    void writeGrows() {
+        ScratchMemoryWriter writer = new ScratchMemoryWriter();
+        for (int i = 0; i < 1000; i++) {
+            writer.writeDouble(i);
+        }
+        writer.write(new byte[10000], 0, 10000);
+        assertEquals(1000 * Double.BYTES + 10000, writer.position());
+
+        long address = UnsafeUtils.allocate(Double.BYTES);
+        writer.copyTo(999 * Double.BYTES, Double.BYTES, address);
+        assertEquals(999.0, UnsafeUtils.getDouble(address));
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void hashAndMatch() {
+        ScratchMemoryWriter writer = new ScratchMemoryWriter();
+        writer.writeInt(0);
+        writer.writeLong(42L);
+        writer.writeByte((byte) 7);
+
+        long address = UnsafeUtils.allocate(Long.BYTES + 1);
+        writer.copyTo(Integer.BYTES, Long.BYTES + 1, address);
+        assertTrue(writer.matches(Integer.BYTES, Long.BYTES + 1, address));
+        assertEquals(UnsafeUtils.longHash(null, address, Long.BYTES + 1, 3), writer.longHash(Integer.BYTES, Long.BYTES + 1, 3));
+
+        UnsafeUtils.putByte(address + Long.BYTES, (byte) 8);
+        assertFalse(writer.matches(Integer.BYTES, Long.BYTES + 1, address));
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void writeArrayFails() {
+        assertThrows(IndexOutOfBoundsException.class, () -> new ScratchMemoryWriter().write(new int[1], 1, 1));
+    }
+}
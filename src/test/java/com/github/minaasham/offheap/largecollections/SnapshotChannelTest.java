@@ -0,0 +1,135 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotChannelTest {
+
+    private static final Random RANDOM = new Random();
+    private static final double DELTA = 1e-10;
+
+    @Test
+    void testPrimitivesRoundTrip() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        try {
+            try (SnapshotChannel channel = SnapshotChannel.create(path)) {
+                for (int i = 0; i < 500000; i++) {
+                    channel.putByte((byte) i);
+                    channel.putInt(i);
+                    channel.putLong(i * 31L);
+                    channel.putDouble(i / 2.0);
+                }
+                channel.commit();
+            }
+
+            try (SnapshotChannel channel = SnapshotChannel.open(path)) {
+                for (int i = 0; i < 500000; i++) {
+                    assertEquals((byte) i, channel.getByte());
+                    assertEquals(i, channel.getInt());
+                    assertEquals(i * 31L, channel.getLong());
+                    assertEquals(i / 2.0, channel.getDouble(), DELTA);
+                }
+                assertThrows(EOFException.class, channel::getByte);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testMemoryRoundTrip() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        int bytes = 3 * (1 << 20) + 7;
+        long source = UnsafeUtils.allocate(bytes);
+        long destination = UnsafeUtils.allocate(bytes);
+        try {
+            for (int i = 0; i < bytes; i++) {
+                UnsafeUtils.putByte(source + i, (byte) RANDOM.nextInt());
+            }
+
+            try (SnapshotChannel channel = SnapshotChannel.create(path)) {
+                channel.putInt(1);
+                channel.putMemory(source, bytes);
+                channel.putInt(2);
+                channel.commit();
+            }
+            assertEquals(bytes + 2 * Integer.BYTES, Files.size(path));
+
+            try (SnapshotChannel channel = SnapshotChannel.open(path)) {
+                assertEquals(1, channel.getInt());
+                channel.getMemory(destination, bytes);
+                assertEquals(2, channel.getInt());
+            }
+
+            for (int i = 0; i < bytes; i++) {
+                assertEquals(UnsafeUtils.getByte(source + i), UnsafeUtils.getByte(destination + i));
+            }
+        } finally {
+            UnsafeUtils.free(source);
+            UnsafeUtils.free(destination);
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testReplacesFileOnlyWhenCommitted() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (SnapshotChannel channel = SnapshotChannel.create(path)) {
+                channel.putInt(1);
+                channel.commit();
+                assertThrows(IllegalStateException.class, channel::commit);
+            }
+
+            try (SnapshotChannel channel = SnapshotChannel.create(path)) {
+                channel.putInt(2);
+                assertTrue(Files.exists(temp));
+            }
+            assertFalse(Files.exists(temp));
+
+            try (SnapshotChannel channel = SnapshotChannel.open(path)) {
+                assertEquals(1, channel.getInt());
+                assertThrows(IllegalStateException.class, channel::commit);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testThrowsIfTruncated() throws IOException {
+        Path path = Files.createTempFile("snapshot", ".bin");
+        long address = UnsafeUtils.allocate(16);
+        try {
+            try (SnapshotChannel channel = SnapshotChannel.create(path)) {
+                channel.putInt(1);
+                channel.putMemory(address, 8);
+                channel.commit();
+            }
+
+            try (SnapshotChannel channel = SnapshotChannel.open(path)) {
+                assertEquals(1, channel.getInt());
+                channel.getInt();
+                assertThrows(EOFException.class, channel::getLong);
+            }
+
+            try (SnapshotChannel channel = SnapshotChannel.open(path)) {
+                assertThrows(EOFException.class, () -> channel.getMemory(address, 16));
+            }
+        } finally {
+            UnsafeUtils.free(address);
+            Files.delete(path);
+        }
+    }
+}
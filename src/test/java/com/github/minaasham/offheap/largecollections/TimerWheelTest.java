@@ -0,0 +1,99 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    private static final int ENTRIES = 100;
+
+    private long entries;
+
+    @BeforeEach
+    void allocate() {
+        entries = UnsafeUtils.allocate((long) ENTRIES * TimerWheel.METADATA_SIZE);
+    }
+
+    @AfterEach
+    void free() {
+        UnsafeUtils.free(entries);
+    }
+
+    @Test
+    void testExpiresAtEveryLevel() {
+        long[] durations = {
+                TimeUnit.MILLISECONDS.toNanos(10),
+                TimeUnit.SECONDS.toNanos(30),
+                TimeUnit.MINUTES.toNanos(30),
+                TimeUnit.HOURS.toNanos(12),
+                TimeUnit.DAYS.toNanos(3),
+                TimeUnit.DAYS.toNanos(30)
+        };
+
+        TimerWheel wheel = new TimerWheel(0);
+        for (int i = 0; i < durations.length; i++) {
+            wheel.schedule(entry(i), durations[i]);
+        }
+
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < durations.length; i++) {
+            wheel.advance(durations[i] - 1, expired::add);
+            assertEquals(i, expired.size());
+
+            wheel.advance(durations[i] + TimeUnit.SECONDS.toNanos(2), expired::add);
+            assertEquals(i + 1, expired.size());
+            assertEquals(entry(i), (long) expired.get(i));
+        }
+    }
+
+    @Test
+    void testDeschedule() {
+        TimerWheel wheel = new TimerWheel(0);
+        for (int i = 0; i < ENTRIES; i++) {
+            wheel.schedule(entry(i), TimeUnit.SECONDS.toNanos(10));
+        }
+        for (int i = 0; i < ENTRIES; i += 2) {
+            wheel.deschedule(entry(i));
+        }
+
+        List<Long> expired = new ArrayList<>();
+        wheel.advance(TimeUnit.SECONDS.toNanos(20), expired::add);
+        assertEquals(ENTRIES / 2, expired.size());
+        for (long entryPointer : expired) {
+            assertEquals(1, (entryPointer - entries) / TimerWheel.METADATA_SIZE % 2);
+        }
+    }
+
+    @Test
+    void testExpiredBeforeScheduled() {
+        TimerWheel wheel = new TimerWheel(TimeUnit.MINUTES.toNanos(5));
+        wheel.schedule(entry(0), TimeUnit.MINUTES.toNanos(1));
+
+        List<Long> expired = new ArrayList<>();
+        wheel.advance(TimeUnit.MINUTES.toNanos(5) + TimeUnit.SECONDS.toNanos(2), expired::add);
+        assertEquals(1, expired.size());
+    }
+
+    @Test
+    void testClear() {
+        TimerWheel wheel = new TimerWheel(0);
+        wheel.schedule(entry(0), 1);
+        wheel.clear();
+
+        List<Long> expired = new ArrayList<>();
+        wheel.advance(TimeUnit.DAYS.toNanos(100), expired::add);
+        assertTrue(expired.isEmpty());
+    }
+
+    private long entry(int index) {
+        return entries + (long) index * TimerWheel.METADATA_SIZE;
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrustedMemoryReaderTest {
+
+    @Test
+    void readComplex() {
+        int bytes = Long.BYTES + Integer.BYTES + Character.BYTES;
+        long address = UnsafeUtils.allocate(bytes);
+        UnsafeUtils.putLong(address, 1L);
+        UnsafeUtils.putInt(address + Long.BYTES, 2);
+        UnsafeUtils.putChar(address + Long.BYTES + Integer.BYTES, 'c');
+
+        UnsafeMemoryReader memoryReader = new TrustedMemoryReader().resetTo(address, bytes);
+        assertEquals(1L, memoryReader.readLong());
+        assertEquals(2, memoryReader.readInt());
+        assertEquals('c', memoryReader.readChar());
+        assertEquals(0, memoryReader.bytesLeft());
+
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void readSkipsBoundsCheck() {
+        long address = UnsafeUtils.allocate(Long.BYTES);
+        UnsafeUtils.putLong(address, -1L);
+
+        UnsafeMemoryReader memoryReader = new TrustedMemoryReader().resetTo(address, Integer.BYTES);
+        assertEquals(-1L, memoryReader.readLong());
+        assertEquals(-Integer.BYTES, memoryReader.bytesLeft());
+
+        UnsafeUtils.free(address);
+    }
+}
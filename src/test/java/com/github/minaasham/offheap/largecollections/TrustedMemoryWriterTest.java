@@ -0,0 +1,35 @@
+package com.github.minaasham.offheap.largecollections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrustedMemoryWriterTest {
+
+    @Test
+    void writeComplex() {
+        int bytes = Long.BYTES + Integer.BYTES + Character.BYTES;
+        long address = UnsafeUtils.allocate(bytes);
+
+        UnsafeMemoryWriter memoryWriter = new TrustedMemoryWriter().resetTo(address, bytes);
+        memoryWriter.writeLong(1L);
+        memoryWriter.writeInt(2);
+        memoryWriter.writeChar('c');
+
+        assertEquals(1L, UnsafeUtils.getLong(address));
+        assertEquals(2, UnsafeUtils.getInt(address + Long.BYTES));
+        assertEquals('c', UnsafeUtils.getChar(address + Long.BYTES + Integer.BYTES));
+
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void writeSkipsBoundsCheck() {
+        long address = UnsafeUtils.allocate(Long.BYTES);
+
+        new TrustedMemoryWriter().resetTo(address, Integer.BYTES).writeLong(-1L);
+        assertEquals(-1L, UnsafeUtils.getLong(address));
+
+        UnsafeUtils.free(address);
+    }
+}
@@ -1,10 +1,12 @@
 package com.github.minaasham.offheap.largecollections;
 
 import com.github.minaasham.offheap.largecollections.serialization.MemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
 import org.junit.jupiter.api.Test;
 
 import java.util.function.Function;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -59,6 +61,82 @@ class UnsafeMemoryReaderTest {
         UnsafeUtils.free(address);
     }
 
+    @Test
+    void readArrays() {
+        short[] shorts = {1, 2, 3};
+        char[] chars = {'a', 'b', 'c'};
+        float[] floats = {1, 2, 3};
+        int bytes = 3 * Short.BYTES + 3 * Character.BYTES + 3 * Float.BYTES;
+        long address = UnsafeUtils.allocate(bytes);
+
+        UnsafeMemoryWriter memoryWriter = new UnsafeMemoryWriter().resetTo(address, bytes);
+        memoryWriter.write(shorts, 0, shorts.length);
+        memoryWriter.write(chars, 0, chars.length);
+        memoryWriter.write(floats, 0, floats.length);
+
+        short[] actualShorts = new short[4];
+        char[] actualChars = new char[3];
+        float[] actualFloats = new float[3];
+        UnsafeMemoryReader memoryReader = new UnsafeMemoryReader().resetTo(address, bytes);
+        memoryReader.read(actualShorts, 1, 3);
+        memoryReader.read(actualChars, 0, 3);
+        memoryReader.read(actualFloats, 0, 3);
+
+        assertArrayEquals(new short[]{0, 1, 2, 3}, actualShorts);
+        assertArrayEquals(chars, actualChars);
+        assertArrayEquals(floats, actualFloats);
+        assertThrows(IllegalStateException.class, () -> memoryReader.read(new byte[1], 0, 1));
+
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void readVarInts() {
+        int[] ints = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        long[] longs = {0, 1, 127, 128, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+        int bytes = 0;
+        for (int value : ints) {
+            bytes += VarInts.varIntSize(value) + VarInts.signedVarIntSize(value);
+        }
+        for (long value : longs) {
+            bytes += VarInts.varLongSize(value) + VarInts.signedVarLongSize(value);
+        }
+        long address = UnsafeUtils.allocate(bytes);
+
+        UnsafeMemoryWriter memoryWriter = new UnsafeMemoryWriter().resetTo(address, bytes);
+        for (int value : ints) {
+            memoryWriter.writeVarInt(value);
+            memoryWriter.writeSignedVarInt(value);
+        }
+        for (long value : longs) {
+            memoryWriter.writeVarLong(value);
+            memoryWriter.writeSignedVarLong(value);
+        }
+
+        UnsafeMemoryReader memoryReader = new UnsafeMemoryReader().resetTo(address, bytes);
+        for (int value : ints) {
+            assertEquals(value, memoryReader.readVarInt());
+            assertEquals(value, memoryReader.readSignedVarInt());
+        }
+        for (long value : longs) {
+            assertEquals(value, memoryReader.readVarLong());
+            assertEquals(value, memoryReader.readSignedVarLong());
+        }
+        assertEquals(0, memoryReader.bytesLeft());
+
+        assertEquals(1, VarInts.signedVarIntSize(-64));
+        assertEquals(2, VarInts.signedVarIntSize(64));
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void readMalformedVarIntFails() {
+        long address = UnsafeUtils.allocate(Long.BYTES);
+        UnsafeUtils.putLong(address, -1L);
+        assertThrows(IllegalStateException.class, () -> new UnsafeMemoryReader().resetTo(address, Long.BYTES).readVarInt());
+        UnsafeUtils.free(address);
+    }
+
     @Test
     void readFails() {
         assertThrows(IllegalStateException.class, () -> simpleRead(Byte.BYTES, MemoryReader::readInt, 0));
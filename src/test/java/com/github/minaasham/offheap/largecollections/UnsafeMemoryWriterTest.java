@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.function.BiConsumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class UnsafeMemoryWriterTest {
@@ -57,6 +58,31 @@ class UnsafeMemoryWriterTest {
         UnsafeUtils.free(address);
     }
 
+    @Test
+    void writeArrays() {
+        int bytes = 3 * Byte.BYTES + 3 * Integer.BYTES + 3 * Long.BYTES + 3 * Double.BYTES;
+        long address = UnsafeUtils.allocate(bytes);
+
+        UnsafeMemoryWriter memoryWriter = new UnsafeMemoryWriter().resetTo(address, bytes);
+        memoryWriter.write(new byte[]{0, 1, 2, 3}, 1, 3);
+        memoryWriter.write(new int[]{1, 2, 3}, 0, 3);
+        memoryWriter.write(new long[]{1, 2, 3}, 0, 3);
+        memoryWriter.write(new double[]{1, 2, 3, 4}, 0, 3);
+
+        assertEquals(1, UnsafeUtils.getByte(address));
+        assertEquals(3, UnsafeUtils.getInt(address + 3 * Byte.BYTES + 2 * Integer.BYTES));
+        assertEquals(3.0, UnsafeUtils.getDouble(address + bytes - Double.BYTES));
+
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void writeArrayFails() {
+        assertThrows(IllegalStateException.class, () -> simpleWrite(Long.BYTES, new int[3], (writer, values) -> writer.write(values, 0, values.length)));
+        assertThrows(IndexOutOfBoundsException.class, () -> simpleWrite(Long.BYTES, new char[3], (writer, values) -> writer.write(values, 2, 2)));
+        assertThrows(IndexOutOfBoundsException.class, () -> simpleWrite(Long.BYTES, new long[3], (writer, values) -> writer.write(values, -1, 1)));
+    }
+
     @Test
     void writeFails() {
         assertThrows(IllegalStateException.class, () -> simpleWrite(Byte.BYTES, 1, MemoryWriter::writeInt));
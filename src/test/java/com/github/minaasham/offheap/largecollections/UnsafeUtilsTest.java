@@ -1,15 +1,22 @@
 package com.github.minaasham.offheap.largecollections;
 
+import com.github.minaasham.offheap.largecollections.serialization.VarInts;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import mockit.Mock;
 import mockit.MockUp;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnJre;
+import org.junit.jupiter.api.condition.JRE;
 import sun.misc.Unsafe;
 
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class UnsafeUtilsTest {
 
@@ -29,6 +36,26 @@ class UnsafeUtilsTest {
         assertEquals(0, unsafeMockUp.freeMemoryCalls);
     }
 
+    @Test
+    void testAllocateUninitialized() {
+        long expectedAddress = 123;
+        long expectedBytes = 456;
+
+        UnsafeMockUp unsafeMockUp = new UnsafeMockUp(expectedAddress, expectedBytes);
+
+        assertEquals(expectedAddress, UnsafeUtils.allocateUninitialized(expectedBytes));
+        assertEquals(1, unsafeMockUp.allocateMemoryCalls);
+        assertEquals(0, unsafeMockUp.setMemoryCalls);
+        assertEquals(0, unsafeMockUp.freeMemoryCalls);
+    }
+
+    @Test
+    void testAllocatedSize() {
+        assertEquals(32, UnsafeUtils.allocatedSize(1));
+        assertEquals(32, UnsafeUtils.allocatedSize(24));
+        assertEquals(48, UnsafeUtils.allocatedSize(25));
+    }
+
     @Test
     void testFree() {
         long expectedAddress = 123;
@@ -104,6 +131,59 @@ class UnsafeUtilsTest {
         UnsafeUtils.free(address);
     }
 
+    @Test
+    void testVarInt() {
+        long address = UnsafeUtils.allocate(5);
+        for (int value : new int[]{0, 127, 128, 300000, Integer.MAX_VALUE, -1}) {
+            int size = UnsafeUtils.putVarInt(address, value);
+            assertEquals(VarInts.varIntSize(value), size);
+            assertEquals(size, UnsafeUtils.getVarIntSize(address));
+            assertEquals(value, UnsafeUtils.getVarInt(address));
+        }
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void testCopyMemory() {
+        byte[] bytes = new byte[Long.BYTES];
+        long address = UnsafeUtils.allocate(Long.BYTES);
+        long value = RANDOM.nextLong();
+        UnsafeUtils.putLong(address, value);
+        UnsafeUtils.copyMemory(null, address, bytes, UnsafeUtils.BYTE_ARRAY_OFFSET, Long.BYTES);
+        assertEquals(value, UnsafeUtils.getLong(bytes, UnsafeUtils.BYTE_ARRAY_OFFSET));
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void testHashAndEquals() {
+        byte[] bytes = new byte[19];
+        RANDOM.nextBytes(bytes);
+        long address = UnsafeUtils.allocate(bytes.length);
+        UnsafeUtils.copyMemory(bytes, UnsafeUtils.BYTE_ARRAY_OFFSET, null, address, bytes.length);
+
+        assertTrue(UnsafeUtils.equals(bytes, UnsafeUtils.BYTE_ARRAY_OFFSET, null, address, bytes.length));
+        assertEquals(UnsafeUtils.hash(bytes, UnsafeUtils.BYTE_ARRAY_OFFSET, bytes.length), UnsafeUtils.hash(null, address, bytes.length));
+        assertEquals(UnsafeUtils.longHash(bytes, UnsafeUtils.BYTE_ARRAY_OFFSET, bytes.length, 7), UnsafeUtils.longHash(null, address, bytes.length, 7));
+        assertNotEquals(UnsafeUtils.longHash(null, address, bytes.length, 7), UnsafeUtils.longHash(null, address, bytes.length, 8));
+
+        UnsafeUtils.putByte(address + bytes.length - 1, (byte) (bytes[bytes.length - 1] + 1));
+        assertFalse(UnsafeUtils.equals(bytes, UnsafeUtils.BYTE_ARRAY_OFFSET, null, address, bytes.length));
+        UnsafeUtils.free(address);
+    }
+
+    @Test
+    void testSelectBackend() {
+        assertEquals(UnsafeMemoryBackend.NAME, UnsafeUtils.backendName());
+        assertEquals(UnsafeMemoryBackend.NAME, UnsafeUtils.selectBackend("Unsafe").name());
+        assertThrows(IllegalArgumentException.class, () -> UnsafeUtils.selectBackend("unknown"));
+    }
+
+    @Test
+    @EnabledOnJre(JRE.JAVA_8)
+    void testForeignBackendUnavailableOnJava8() {
+        assertThrows(IllegalStateException.class, () -> UnsafeUtils.selectBackend(UnsafeUtils.FOREIGN_BACKEND));
+    }
+
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private static class UnsafeMockUp extends MockUp<Unsafe> {
 
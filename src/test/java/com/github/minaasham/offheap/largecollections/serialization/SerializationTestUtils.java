@@ -3,12 +3,13 @@ package com.github.minaasham.offheap.largecollections.serialization;
 import lombok.experimental.UtilityClass;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.function.Supplier;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @UtilityClass
 public final class SerializationTestUtils {
@@ -27,7 +28,7 @@ public final class SerializationTestUtils {
         T actualValue = serializer.deserialize(reader);
 
         if (value.getClass().isArray()) {
-            assertArrayEquals((Object[]) value, (Object[]) actualValue);
+            assertTrue(Arrays.deepEquals(new Object[]{value}, new Object[]{actualValue}));
         } else {
             assertEquals(value, actualValue);
         }
@@ -0,0 +1,25 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.testRoundtrip;
+
+class CharArraySerializerTest {
+
+    private static final Random RANDOM = new Random();
+
+    @Test
+    void test() {
+        testRoundtrip(new char[0], () -> CharArraySerializer.INSTANCE);
+
+        for (int length : new int[]{1, 127, 128, 1000}) {
+            char[] values = new char[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = (char) RANDOM.nextInt();
+            }
+            testRoundtrip(values, () -> CharArraySerializer.INSTANCE);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import com.github.minaasham.offheap.largecollections.serialization.BufferMemoryReader;
+import com.github.minaasham.offheap.largecollections.serialization.BufferMemoryWriter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.randomString;
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.testRoundtrip;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactStringSerializerTest {
+
+    private static final String[] STRINGS = {"", "a", "caf\u00e9", "\u00ff\u00fe", "\u0100", "\u043f\u0440\u0438\u0432\u0435\u0442", "\u65e5\u672c", "\ud83d\ude00", "\ud800", "a\u0000b"};
+
+    @Test
+    void test() {
+        for (String string : STRINGS) {
+            testRoundtrip(string, () -> CompactStringSerializer.INSTANCE);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            testRoundtrip(randomString(), () -> CompactStringSerializer.INSTANCE);
+        }
+    }
+
+    @Test
+    void testSize() {
+        assertEquals(1 + 4, CompactStringSerializer.INSTANCE.sizeInBytes("caf\u00e9"));
+        assertEquals(1 + 2 + 3, CompactStringSerializer.INSTANCE.sizeInBytes("\u0100\u65e5"));
+    }
+
+    @Test
+    void testLongString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append((char) i);
+        }
+        testRoundtrip(sb.toString(), () -> CompactStringSerializer.INSTANCE);
+        assertEquals(2 + 128 + 2 * (1000 - 128), CompactStringSerializer.INSTANCE.sizeInBytes(sb.toString()));
+    }
+
+    @Test
+    void testHashAndMatches() {
+        for (String string : STRINGS) {
+            assertEquals(string.hashCode(), CompactStringSerializer.INSTANCE.hash(string));
+            assertEquals(string.hashCode(), CompactStringSerializer.INSTANCE.hash(new BufferMemoryReader(serialize(string))));
+            assertTrue(CompactStringSerializer.INSTANCE.matches(new BufferMemoryReader(serialize(string)), string));
+
+            for (String other : STRINGS) {
+                if (!other.equals(string)) {
+                    assertFalse(CompactStringSerializer.INSTANCE.matches(new BufferMemoryReader(serialize(string)), other));
+                }
+            }
+        }
+        assertFalse(CompactStringSerializer.INSTANCE.matches(new BufferMemoryReader(serialize("\u0100")), "\u0100a"));
+    }
+
+    private static ByteBuffer serialize(String string) {
+        ByteBuffer buffer = ByteBuffer.allocate(CompactStringSerializer.INSTANCE.sizeInBytes(string));
+        CompactStringSerializer.INSTANCE.serialize(new BufferMemoryWriter(buffer), string);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.minaasham.offheap.largecollections.serialization.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.github.minaasham.offheap.largecollections.serialization.SerializationTestUtils.testRoundtrip;
+
+class DoubleArraySerializerTest {
+
+    private static final Random RANDOM = new Random();
+
+    @Test
+    void test() {
+        testRoundtrip(new double[0], () -> DoubleArraySerializer.INSTANCE);
+
+        for (int length : new int[]{1, 127, 128, 1000}) {
+            double[] values = new double[length];
+            for (int i = 0; i < length; i++) {
+                values[i] = RANDOM.nextDouble();
+            }
+            testRoundtrip(values, () -> DoubleArraySerializer.INSTANCE);
+        }
+    }
+}